@@ -0,0 +1,285 @@
+package mil.nga.giat.geowave.analytic.join;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.opengis.feature.simple.SimpleFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.query.BasicQuery.ConstraintSet;
+import mil.nga.giat.geowave.core.store.query.BasicQuery.Constraints;
+import mil.nga.giat.geowave.core.store.query.EverythingQuery;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+
+/**
+ * Joins the features of two adapters stored in the same spatial index.
+ *
+ * The left adapter is scanned in index order, which, because the index is a
+ * space filling curve, yields spatially clustered batches of features. For
+ * each batch the search envelopes of its features are turned into a single
+ * spatial query over the right adapter, which the index decomposes into the
+ * row ranges that can hold matches; the two adapters are thereby co-scanned
+ * over matching row ranges rather than cross-compared. Candidate pairs are
+ * found with an in-memory R-tree over the batch and refined exactly with the
+ * {@link SpatialJoinPredicate}. Batches are joined concurrently on a fixed
+ * pool of threads.
+ */
+public class SpatialJoin
+{
+	private final static Logger LOGGER = LoggerFactory.getLogger(SpatialJoin.class);
+
+	/**
+	 * Receives the matching pairs. Pairs are reported from the join threads,
+	 * so implementations must be thread safe.
+	 */
+	public static interface JoinCallback
+	{
+		public void joined(
+				SimpleFeature left,
+				SimpleFeature right );
+	}
+
+	// the number of (spatially consecutive) groups a batch is divided into
+	// when building the query over the right adapter
+	private static final int QUERY_GROUPS_PER_BATCH = 16;
+
+	private final DataStore dataStore;
+	private final PrimaryIndex index;
+	private final DataAdapter<SimpleFeature> leftAdapter;
+	private final DataAdapter<SimpleFeature> rightAdapter;
+	private final SpatialJoinPredicate predicate;
+	private int batchSize = 1000;
+	private int threads = 4;
+
+	public SpatialJoin(
+			final DataStore dataStore,
+			final PrimaryIndex index,
+			final DataAdapter<SimpleFeature> leftAdapter,
+			final DataAdapter<SimpleFeature> rightAdapter,
+			final SpatialJoinPredicate predicate ) {
+		this.dataStore = dataStore;
+		this.index = index;
+		this.leftAdapter = leftAdapter;
+		this.rightAdapter = rightAdapter;
+		this.predicate = predicate;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(
+			final int batchSize ) {
+		this.batchSize = Math.max(
+				1,
+				batchSize);
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(
+			final int threads ) {
+		this.threads = Math.max(
+				1,
+				threads);
+	}
+
+	/**
+	 * Joins all left features matching the given query (or all left features
+	 * if the query is null) with the right features.
+	 *
+	 * @return the number of matching pairs
+	 */
+	public long join(
+			final Query leftQuery,
+			final JoinCallback callback )
+			throws IOException {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		// bounds the number of batches held in memory at once
+		final Semaphore pendingBatches = new Semaphore(
+				threads * 2);
+		final List<Future<Long>> results = new ArrayList<Future<Long>>();
+		try (CloseableIterator<SimpleFeature> leftIt = dataStore.query(
+				new QueryOptions(
+						leftAdapter,
+						index),
+				leftQuery == null ? new EverythingQuery() : leftQuery)) {
+			List<SimpleFeature> batch = new ArrayList<SimpleFeature>(
+					batchSize);
+			while (leftIt.hasNext()) {
+				batch.add(leftIt.next());
+				if (batch.size() >= batchSize) {
+					results.add(submit(
+							executor,
+							pendingBatches,
+							batch,
+							callback));
+					batch = new ArrayList<SimpleFeature>(
+							batchSize);
+				}
+			}
+			if (!batch.isEmpty()) {
+				results.add(submit(
+						executor,
+						pendingBatches,
+						batch,
+						callback));
+			}
+			long count = 0;
+			for (final Future<Long> result : results) {
+				count += result.get();
+			}
+			return count;
+		}
+		catch (final InterruptedException e) {
+			throw new IOException(
+					"Spatial join interrupted",
+					e);
+		}
+		catch (final ExecutionException e) {
+			throw new IOException(
+					"Spatial join failed",
+					e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Future<Long> submit(
+			final ExecutorService executor,
+			final Semaphore pendingBatches,
+			final List<SimpleFeature> batch,
+			final JoinCallback callback )
+			throws InterruptedException {
+		pendingBatches.acquire();
+		return executor.submit(new Callable<Long>() {
+			@Override
+			public Long call()
+					throws Exception {
+				try {
+					return joinBatch(
+							batch,
+							callback);
+				}
+				finally {
+					pendingBatches.release();
+				}
+			}
+		});
+	}
+
+	private long joinBatch(
+			final List<SimpleFeature> batch,
+			final JoinCallback callback )
+			throws IOException {
+		final STRtree tree = new STRtree();
+		final List<ConstraintSet> constraintSets = new ArrayList<ConstraintSet>();
+		final Envelope batchEnvelope = new Envelope();
+		final int groupSize = Math.max(
+				1,
+				(batch.size() + QUERY_GROUPS_PER_BATCH - 1) / QUERY_GROUPS_PER_BATCH);
+		Envelope groupEnvelope = new Envelope();
+		int groupCount = 0;
+		for (final SimpleFeature left : batch) {
+			final Geometry geometry = (Geometry) left.getDefaultGeometry();
+			if (geometry == null) {
+				continue;
+			}
+			final Envelope searchEnvelope = predicate.getSearchEnvelope(geometry);
+			tree.insert(
+					searchEnvelope,
+					new LeftEntry(
+							left,
+							predicate.prepare(geometry)));
+			groupEnvelope.expandToInclude(searchEnvelope);
+			batchEnvelope.expandToInclude(searchEnvelope);
+			if (++groupCount >= groupSize) {
+				constraintSets.add(GeometryUtils.basicConstraintSetFromEnvelope(groupEnvelope));
+				groupEnvelope = new Envelope();
+				groupCount = 0;
+			}
+		}
+		if (groupCount > 0) {
+			constraintSets.add(GeometryUtils.basicConstraintSetFromEnvelope(groupEnvelope));
+		}
+		if (constraintSets.isEmpty()) {
+			return 0;
+		}
+
+		// each group becomes its own set of row ranges, while the envelope of
+		// the batch serves as the coarse (server side) spatial filter
+		final SpatialQuery rightQuery = new SpatialQuery(
+				new Constraints(
+						constraintSets),
+				GeometryUtils.GEOMETRY_FACTORY.toGeometry(batchEnvelope));
+
+		long count = 0;
+		// group ranges may overlap, so a right feature can be returned twice
+		final Set<String> visitedRightIds = new HashSet<String>();
+		try (CloseableIterator<SimpleFeature> rightIt = dataStore.query(
+				new QueryOptions(
+						rightAdapter,
+						index),
+				rightQuery)) {
+			while (rightIt.hasNext()) {
+				final SimpleFeature right = rightIt.next();
+				final Geometry geometry = (Geometry) right.getDefaultGeometry();
+				if ((geometry == null) || !visitedRightIds.add(right.getID())) {
+					continue;
+				}
+				for (final Object candidate : tree.query(geometry.getEnvelopeInternal())) {
+					final LeftEntry left = (LeftEntry) candidate;
+					if (predicate.evaluate(
+							left.searchGeometry,
+							geometry)) {
+						callback.joined(
+								left.feature,
+								right);
+						count++;
+					}
+				}
+			}
+		}
+		LOGGER.debug("Joined batch of " + batch.size() + " features with " + visitedRightIds.size()
+				+ " candidates, producing " + count + " pairs");
+		return count;
+	}
+
+	private static class LeftEntry
+	{
+		private final SimpleFeature feature;
+		private final PreparedGeometry searchGeometry;
+
+		private LeftEntry(
+				final SimpleFeature feature,
+				final PreparedGeometry searchGeometry ) {
+			this.feature = feature;
+			this.searchGeometry = searchGeometry;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package mil.nga.giat.geowave.analytic.join;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * A uniform grid used to partition both sides of a distributed spatial join.
+ * Each side is assigned to every cell its (search) envelope overlaps, so every
+ * candidate pair meets in at least one cell. To report each pair once, a pair
+ * is only reported from the cell containing the lower corner of the
+ * intersection of the two envelopes (the reference point).
+ *
+ * The grid covers the bounds of the joined data, typically taken from the
+ * bounding box statistics of both sides; envelopes beyond the bounds are
+ * assigned to the cells at the edge of the grid.
+ */
+public class SpatialJoinGrid implements
+		Serializable
+{
+	private static final long serialVersionUID = -2883645413236791946L;
+
+	private final double cellSize;
+	private final Envelope bounds;
+
+	public SpatialJoinGrid(
+			final double cellSize,
+			final Envelope bounds ) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException(
+					"Cell size must be positive");
+		}
+		if ((bounds == null) || bounds.isNull()) {
+			throw new IllegalArgumentException(
+					"Grid bounds must not be empty");
+		}
+		this.cellSize = cellSize;
+		this.bounds = new Envelope(
+				bounds);
+	}
+
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	public Envelope getBounds() {
+		return bounds;
+	}
+
+	public List<Long> getCells(
+			final Envelope envelope ) {
+		final List<Long> cells = new ArrayList<Long>();
+		if (envelope.isNull()) {
+			return cells;
+		}
+		final int minCellX = toCellX(envelope.getMinX());
+		final int maxCellX = toCellX(envelope.getMaxX());
+		final int minCellY = toCellY(envelope.getMinY());
+		final int maxCellY = toCellY(envelope.getMaxY());
+		for (int x = minCellX; x <= maxCellX; x++) {
+			for (int y = minCellY; y <= maxCellY; y++) {
+				cells.add(toCell(
+						x,
+						y));
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * @return true if the given cell is the one responsible for reporting the
+	 *         pair with the given left search envelope and right envelope
+	 */
+	public boolean isReferenceCell(
+			final long cell,
+			final Envelope leftSearchEnvelope,
+			final Envelope rightEnvelope ) {
+		final Envelope intersection = leftSearchEnvelope.intersection(rightEnvelope);
+		if (intersection.isNull()) {
+			return false;
+		}
+		return cell == toCell(
+				toCellX(intersection.getMinX()),
+				toCellY(intersection.getMinY()));
+	}
+
+	private int toCellX(
+			final double x ) {
+		return toCellIndex(
+				x,
+				bounds.getMinX(),
+				bounds.getMaxX());
+	}
+
+	private int toCellY(
+			final double y ) {
+		return toCellIndex(
+				y,
+				bounds.getMinY(),
+				bounds.getMaxY());
+	}
+
+	private int toCellIndex(
+			final double value,
+			final double min,
+			final double max ) {
+		// the upper bound belongs to the last cell rather than starting one
+		final int maxIndex = Math.max(
+				(int) Math.ceil((max - min) / cellSize) - 1,
+				0);
+		return Math.min(
+				(int) Math.floor((clamp(
+						value,
+						min,
+						max) - min) / cellSize),
+				maxIndex);
+	}
+
+	/**
+	 * @return the bounds as minX,minY,maxX,maxY
+	 */
+	public static String boundsToString(
+			final Envelope bounds ) {
+		return bounds.getMinX() + "," + bounds.getMinY() + "," + bounds.getMaxX() + "," + bounds.getMaxY();
+	}
+
+	/**
+	 * @param bounds
+	 *            the bounds as minX,minY,maxX,maxY
+	 */
+	public static Envelope boundsFromString(
+			final String bounds ) {
+		final String[] values = bounds.split(",");
+		if (values.length != 4) {
+			throw new IllegalArgumentException(
+					"Bounds must be given as minX,minY,maxX,maxY: '" + bounds + "'");
+		}
+		return new Envelope(
+				Double.parseDouble(values[0].trim()),
+				Double.parseDouble(values[2].trim()),
+				Double.parseDouble(values[1].trim()),
+				Double.parseDouble(values[3].trim()));
+	}
+
+	private static long toCell(
+			final int x,
+			final int y ) {
+		return (((long) x) << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	private static double clamp(
+			final double value,
+			final double min,
+			final double max ) {
+		return Math.min(
+				Math.max(
+						value,
+						min),
+				max);
+	}
+}
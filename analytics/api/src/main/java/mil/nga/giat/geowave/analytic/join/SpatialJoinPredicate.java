@@ -0,0 +1,97 @@
+package mil.nga.giat.geowave.analytic.join;
+
+import java.io.Serializable;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+
+import mil.nga.giat.geowave.core.geotime.store.filter.SpatialQueryFilter;
+import mil.nga.giat.geowave.core.geotime.store.filter.SpatialQueryFilter.CompareOperation;
+
+/**
+ * The exact refinement applied to a candidate pair of a spatial join. The left
+ * geometry, expanded by the optional distance, plays the role of the query
+ * geometry of a {@link SpatialQueryFilter} and the right geometry that of the
+ * data geometry, so that a join matches exactly the right features a spatial
+ * query with the left geometry would return. For example, CONTAINS with no
+ * distance joins events (right) to the polygons (left) they fall within, and
+ * OVERLAPS with a distance joins tracks (right) to the points (left) they pass
+ * near.
+ *
+ * Distances are expressed in the units of the index CRS.
+ */
+public class SpatialJoinPredicate implements
+		Serializable
+{
+	private static final long serialVersionUID = 6187329441826452853L;
+
+	private final CompareOperation compareOperation;
+	private final double distance;
+
+	public SpatialJoinPredicate(
+			final CompareOperation compareOperation ) {
+		this(
+				compareOperation,
+				0);
+	}
+
+	public SpatialJoinPredicate(
+			final CompareOperation compareOperation,
+			final double distance ) {
+		this.compareOperation = compareOperation;
+		this.distance = distance;
+	}
+
+	public CompareOperation getCompareOperation() {
+		return compareOperation;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	/**
+	 * @return the geometry of the left side that right geometries are compared
+	 *         to, buffered by the join distance
+	 */
+	public Geometry getSearchGeometry(
+			final Geometry leftGeometry ) {
+		return distance > 0 ? leftGeometry.buffer(distance) : leftGeometry;
+	}
+
+	/**
+	 * @return the bounds within which a right geometry must lie (at least in
+	 *         part) to possibly match the left geometry
+	 */
+	public Envelope getSearchEnvelope(
+			final Geometry leftGeometry ) {
+		final Envelope envelope = new Envelope(
+				leftGeometry.getEnvelopeInternal());
+		if (distance > 0) {
+			envelope.expandBy(distance);
+		}
+		return envelope;
+	}
+
+	public PreparedGeometry prepare(
+			final Geometry leftGeometry ) {
+		return SpatialQueryFilter.FACTORY.create(getSearchGeometry(leftGeometry));
+	}
+
+	public boolean evaluate(
+			final PreparedGeometry preparedLeftGeometry,
+			final Geometry rightGeometry ) {
+		return compareOperation.compare(
+				rightGeometry,
+				preparedLeftGeometry);
+	}
+
+	public boolean evaluate(
+			final Geometry leftGeometry,
+			final Geometry rightGeometry ) {
+		return evaluate(
+				prepare(leftGeometry),
+				rightGeometry);
+	}
+}
@@ -0,0 +1,72 @@
+package mil.nga.giat.geowave.analytic.param;
+
+public class JoinParameters
+{
+	public enum Join
+			implements
+			ParameterEnum {
+		LEFT_ADAPTER_ID(
+				String.class,
+				"jla",
+				"Adapter ID of the left side of the join",
+				false,
+				true),
+		RIGHT_ADAPTER_ID(
+				String.class,
+				"jra",
+				"Adapter ID of the right side of the join",
+				false,
+				true),
+		COMPARE_OPERATION(
+				String.class,
+				"jop",
+				"Spatial comparison of the (buffered) left geometry to the right geometry (OVERLAPS or CONTAINS)",
+				false,
+				true),
+		DISTANCE(
+				Double.class,
+				"jd",
+				"Distance, in index CRS units, by which left geometries are buffered",
+				false,
+				true),
+		CELL_SIZE(
+				Double.class,
+				"jcs",
+				"Size, in index CRS units, of the grid cells used to partition the join",
+				false,
+				true),
+		BOUNDS(
+				String.class,
+				"jb",
+				"Bounds of the grid used to partition the join as minX,minY,maxX,maxY (defaults to the bounding box statistics of both adapters)",
+				false,
+				true);
+
+		private final ParameterHelper<?> helper;
+
+		private Join(
+				final Class baseClass,
+				final String name,
+				final String description,
+				final boolean isClass,
+				final boolean hasArg ) {
+			helper = new BasicParameterHelper(
+					this,
+					baseClass,
+					name,
+					description,
+					isClass,
+					hasArg);
+		}
+
+		@Override
+		public Enum<?> self() {
+			return this;
+		}
+
+		@Override
+		public ParameterHelper<?> getHelper() {
+			return helper;
+		}
+	}
+}
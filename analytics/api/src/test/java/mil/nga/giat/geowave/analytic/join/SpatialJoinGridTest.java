@@ -0,0 +1,228 @@
+package mil.nga.giat.geowave.analytic.join;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import mil.nga.giat.geowave.core.geotime.store.filter.SpatialQueryFilter.CompareOperation;
+
+public class SpatialJoinGridTest
+{
+	private final GeometryFactory factory = new GeometryFactory();
+	private final Envelope world = new Envelope(
+			-180,
+			180,
+			-90,
+			90);
+
+	@Test
+	public void testCells() {
+		final SpatialJoinGrid grid = new SpatialJoinGrid(
+				1.0,
+				world);
+		assertEquals(
+				1,
+				grid.getCells(
+						new Envelope(
+								10.2,
+								10.4,
+								20.2,
+								20.4)).size());
+		assertEquals(
+				4,
+				grid.getCells(
+						new Envelope(
+								10.5,
+								11.5,
+								20.5,
+								21.5)).size());
+		// clamped to the last cell within the world bounds
+		assertEquals(
+				1,
+				grid.getCells(
+						new Envelope(
+								179.5,
+								185,
+								0.2,
+								0.4)).size());
+	}
+
+	@Test
+	public void testBounds() {
+		final Envelope bounds = new Envelope(
+				10,
+				12,
+				20,
+				22);
+		final SpatialJoinGrid grid = new SpatialJoinGrid(
+				0.5,
+				bounds);
+		assertEquals(
+				bounds,
+				SpatialJoinGrid.boundsFromString(SpatialJoinGrid.boundsToString(bounds)));
+		// the cells cover the bounds rather than the world
+		assertEquals(
+				16,
+				grid.getCells(
+						new Envelope(
+								10,
+								11.9,
+								20,
+								21.9)).size());
+		// envelopes beyond the bounds fall in the edge cells
+		assertEquals(
+				grid.getCells(
+						new Envelope(
+								11.8,
+								11.9,
+								21.8,
+								21.9)),
+				grid.getCells(
+						new Envelope(
+								50,
+								60,
+								50,
+								60)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyBounds() {
+		new SpatialJoinGrid(
+				1.0,
+				new Envelope());
+	}
+
+	@Test
+	public void testSingleReferenceCell() {
+		final SpatialJoinGrid grid = new SpatialJoinGrid(
+				1.0,
+				world);
+		final Envelope left = new Envelope(
+				10.5,
+				12.5,
+				20.5,
+				22.5);
+		final Envelope right = new Envelope(
+				11.2,
+				13.7,
+				21.2,
+				21.8);
+		final List<Long> leftCells = grid.getCells(left);
+		int referenceCount = 0;
+		for (final Long cell : grid.getCells(right)) {
+			if (leftCells.contains(cell) && grid.isReferenceCell(
+					cell,
+					left,
+					right)) {
+				referenceCount++;
+			}
+		}
+		assertEquals(
+				1,
+				referenceCount);
+
+		// disjoint envelopes are never reported
+		for (final Long cell : leftCells) {
+			assertFalse(grid.isReferenceCell(
+					cell,
+					left,
+					new Envelope(
+							30,
+							31,
+							30,
+							31)));
+		}
+	}
+
+	@Test
+	public void testPredicate() {
+		final Geometry polygon = factory.toGeometry(new Envelope(
+				0,
+				10,
+				0,
+				10));
+		final Geometry inside = factory.createPoint(new Coordinate(
+				5,
+				5));
+		final Geometry near = factory.createPoint(new Coordinate(
+				10.5,
+				5));
+
+		final SpatialJoinPredicate contains = new SpatialJoinPredicate(
+				CompareOperation.CONTAINS);
+		assertTrue(contains.evaluate(
+				polygon,
+				inside));
+		assertFalse(contains.evaluate(
+				polygon,
+				near));
+
+		final SpatialJoinPredicate withinDistance = new SpatialJoinPredicate(
+				CompareOperation.OVERLAPS,
+				1.0);
+		assertTrue(withinDistance.evaluate(
+				polygon,
+				near));
+		assertTrue(withinDistance.getSearchEnvelope(
+				polygon).contains(
+				near.getEnvelopeInternal()));
+	}
+
+	@Test
+	public void testPredicateOperations() {
+		final Geometry polygon = factory.toGeometry(new Envelope(
+				0,
+				10,
+				0,
+				10));
+		final Geometry straddling = factory.toGeometry(new Envelope(
+				8,
+				12,
+				8,
+				12));
+		final Geometry disjoint = factory.toGeometry(new Envelope(
+				20,
+				30,
+				20,
+				30));
+
+		final SpatialJoinPredicate overlaps = new SpatialJoinPredicate(
+				CompareOperation.OVERLAPS);
+		assertTrue(overlaps.evaluate(
+				polygon,
+				straddling));
+		assertFalse(overlaps.evaluate(
+				polygon,
+				disjoint));
+		assertEquals(
+				polygon.getEnvelopeInternal(),
+				overlaps.getSearchEnvelope(polygon));
+
+		// the right geometry must lie entirely within the left
+		final SpatialJoinPredicate contains = new SpatialJoinPredicate(
+				CompareOperation.CONTAINS);
+		assertFalse(contains.evaluate(
+				polygon,
+				straddling));
+
+		// unless the left is buffered enough to contain it
+		final SpatialJoinPredicate containsWithinDistance = new SpatialJoinPredicate(
+				CompareOperation.CONTAINS,
+				3);
+		assertTrue(containsWithinDistance.evaluate(
+				polygon,
+				straddling));
+		assertFalse(containsWithinDistance.evaluate(
+				polygon,
+				disjoint));
+	}
+}
@@ -0,0 +1,197 @@
+package mil.nga.giat.geowave.analytic.mapreduce.join;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import mil.nga.giat.geowave.analytic.AdapterWithObjectWritable;
+import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.join.SpatialJoinGrid;
+import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveAnalyticJobRunner;
+import mil.nga.giat.geowave.analytic.mapreduce.GeoWaveInputFormatConfiguration;
+import mil.nga.giat.geowave.analytic.mapreduce.SequenceFileOutputFormatConfiguration;
+import mil.nga.giat.geowave.analytic.param.ExtractParameters;
+import mil.nga.giat.geowave.analytic.param.JoinParameters.Join;
+import mil.nga.giat.geowave.analytic.param.MapReduceParameters;
+import mil.nga.giat.geowave.analytic.param.ParameterEnum;
+import mil.nga.giat.geowave.analytic.param.StoreParameters;
+import mil.nga.giat.geowave.analytic.store.PersistableStore;
+import mil.nga.giat.geowave.core.geotime.store.statistics.BoundingBoxDataStatistics;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Runs the {@link SpatialJoinMapReduce} job over the left and right adapters of
+ * the input store, writing the IDs of the joined pairs to a sequence file.
+ */
+public class SpatialJoinJobRunner extends
+		GeoWaveAnalyticJobRunner
+{
+
+	public SpatialJoinJobRunner() {
+		super();
+		setInputFormatConfiguration(new GeoWaveInputFormatConfiguration());
+		setOutputFormatConfiguration(new SequenceFileOutputFormatConfiguration());
+		super.setReducerCount(4);
+	}
+
+	@Override
+	public void configure(
+			final Job job )
+			throws Exception {
+		job.setMapperClass(SpatialJoinMapReduce.SpatialJoinMapper.class);
+		job.setReducerClass(SpatialJoinMapReduce.SpatialJoinReducer.class);
+		job.setMapOutputKeyClass(LongWritable.class);
+		job.setMapOutputValueClass(AdapterWithObjectWritable.class);
+		job.setOutputKeyClass(Text.class);
+		job.setOutputValueClass(Text.class);
+		job.setSpeculativeExecution(false);
+	}
+
+	@Override
+	public Class<?> getScope() {
+		return SpatialJoinMapReduce.class;
+	}
+
+	@Override
+	public int run(
+			final Configuration config,
+			final PropertyManagement runTimeProperties )
+			throws Exception {
+
+		// unless the caller restricts the input, read both sides of the join
+		if (!runTimeProperties.hasProperty(ExtractParameters.Extract.QUERY_OPTIONS)) {
+			final AdapterStore adapterStore = getAdapterStore(runTimeProperties);
+			final DataAdapter<?> leftAdapter = getJoinAdapter(
+					adapterStore,
+					runTimeProperties,
+					Join.LEFT_ADAPTER_ID);
+			final DataAdapter<?> rightAdapter = getJoinAdapter(
+					adapterStore,
+					runTimeProperties,
+					Join.RIGHT_ADAPTER_ID);
+			runTimeProperties.store(
+					ExtractParameters.Extract.QUERY_OPTIONS,
+					new QueryOptions(
+							Arrays.<DataAdapter<?>> asList(
+									leftAdapter,
+									rightAdapter)));
+		}
+
+		// unless the caller bounds the grid, it covers both sides of the join
+		if (!runTimeProperties.hasProperty(Join.BOUNDS)) {
+			final PersistableStore store = (PersistableStore) StoreParameters.StoreParam.INPUT_STORE.getHelper().getValue(
+					runTimeProperties);
+			runTimeProperties.store(
+					Join.BOUNDS,
+					SpatialJoinGrid.boundsToString(getJoinBounds(
+							store.getDataStoreOptions().createDataStatisticsStore(),
+							runTimeProperties)));
+		}
+
+		runTimeProperties.setConfig(
+				new ParameterEnum[] {
+					Join.LEFT_ADAPTER_ID,
+					Join.RIGHT_ADAPTER_ID,
+					Join.COMPARE_OPERATION,
+					Join.DISTANCE,
+					Join.CELL_SIZE,
+					Join.BOUNDS
+				},
+				config,
+				getScope());
+
+		return super.run(
+				config,
+				runTimeProperties);
+	}
+
+	private static DataAdapter<?> getJoinAdapter(
+			final AdapterStore adapterStore,
+			final PropertyManagement runTimeProperties,
+			final Join adapterParameter ) {
+		final String adapterId = runTimeProperties.getPropertyAsString(adapterParameter);
+		final DataAdapter<?> adapter = adapterId == null ? null : adapterStore.getAdapter(new ByteArrayId(
+				adapterId));
+		if (adapter == null) {
+			throw new IllegalArgumentException(
+					"Cannot find join adapter '" + adapterId + "'");
+		}
+		return adapter;
+	}
+
+	/**
+	 * @return the union of the bounding box statistics of the left and right
+	 *         adapters
+	 */
+	private static Envelope getJoinBounds(
+			final DataStatisticsStore statisticsStore,
+			final PropertyManagement runTimeProperties )
+			throws IOException {
+		final Envelope bounds = new Envelope();
+		for (final Join adapterParameter : new Join[] {
+			Join.LEFT_ADAPTER_ID,
+			Join.RIGHT_ADAPTER_ID
+		}) {
+			final String adapterId = runTimeProperties.getPropertyAsString(adapterParameter);
+			if (adapterId == null) {
+				continue;
+			}
+			try (CloseableIterator<DataStatistics<?>> it = statisticsStore.getDataStatistics(new ByteArrayId(
+					adapterId))) {
+				while (it.hasNext()) {
+					final DataStatistics<?> statistics = it.next();
+					if ((statistics instanceof BoundingBoxDataStatistics)
+							&& ((BoundingBoxDataStatistics<?>) statistics).isSet()) {
+						final BoundingBoxDataStatistics<?> bbox = (BoundingBoxDataStatistics<?>) statistics;
+						bounds.expandToInclude(new Envelope(
+								bbox.getMinX(),
+								bbox.getMaxX(),
+								bbox.getMinY(),
+								bbox.getMaxY()));
+					}
+				}
+			}
+		}
+		if (bounds.isNull()) {
+			throw new IllegalArgumentException(
+					"No bounding box statistics for the join adapters; the join bounds must be given");
+		}
+		return bounds;
+	}
+
+	@Override
+	public Collection<ParameterEnum<?>> getParameters() {
+		final Set<ParameterEnum<?>> params = new HashSet<ParameterEnum<?>>();
+		params.addAll(super.getParameters());
+		params.addAll(MapReduceParameters.getParameters());
+		params.addAll(Arrays.asList(new ParameterEnum<?>[] {
+			Join.LEFT_ADAPTER_ID,
+			Join.RIGHT_ADAPTER_ID,
+			Join.COMPARE_OPERATION,
+			Join.DISTANCE,
+			Join.CELL_SIZE,
+			Join.BOUNDS
+		}));
+		return params;
+	}
+
+	@Override
+	protected String getJobName() {
+		return "Spatial Join";
+	}
+}
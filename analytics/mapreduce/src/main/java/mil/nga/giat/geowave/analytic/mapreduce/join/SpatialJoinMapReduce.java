@@ -0,0 +1,317 @@
+package mil.nga.giat.geowave.analytic.mapreduce.join;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.giat.geowave.analytic.AdapterWithObjectWritable;
+import mil.nga.giat.geowave.analytic.ScopedJobConfiguration;
+import mil.nga.giat.geowave.analytic.join.SpatialJoinGrid;
+import mil.nga.giat.geowave.analytic.join.SpatialJoinPredicate;
+import mil.nga.giat.geowave.analytic.param.JoinParameters;
+import mil.nga.giat.geowave.core.geotime.store.filter.SpatialQueryFilter.CompareOperation;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.mapreduce.HadoopWritableSerializationTool;
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputFormat;
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.ObjectWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.opengis.feature.simple.SimpleFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Join the features of two adapters on a spatial predicate.
+ *
+ * The mapper assigns each feature to the cells of a uniform grid that its
+ * envelope (for the left side, its search envelope) overlaps, marking the side
+ * it was emitted for. When both sides are the same adapter, each feature is
+ * emitted once for each side. The reducer joins the left and right features of
+ * a cell in memory and reports a pair only from its reference cell, so each
+ * pair is output exactly once. The output is the left feature ID as the key
+ * and the right feature ID as the value.
+ *
+ * Properties:
+ *
+ * @formatter:off "SpatialJoinMapReduce.Join.LeftAdapterId" -> the adapter of
+ *                the left side of the join
+ *                <p/>
+ *                "SpatialJoinMapReduce.Join.RightAdapterId" -> the adapter of
+ *                the right side of the join
+ *                <p/>
+ *                "SpatialJoinMapReduce.Join.CompareOperation" -> OVERLAPS
+ *                (default) or CONTAINS
+ *                <p/>
+ *                "SpatialJoinMapReduce.Join.Distance" -> distance by which
+ *                left geometries are buffered (double)
+ *                <p/>
+ *                "SpatialJoinMapReduce.Join.CellSize" -> size of the grid
+ *                cells (double)
+ *                <p/>
+ *                "SpatialJoinMapReduce.Join.Bounds" -> bounds of the grid as
+ *                minX,minY,maxX,maxY
+ * @formatter:on
+ */
+public class SpatialJoinMapReduce
+{
+	protected static final Logger LOGGER = LoggerFactory.getLogger(SpatialJoinMapReduce.class);
+
+	public static enum JoinCounter {
+		PAIRS
+	}
+
+	protected static class JoinSettings
+	{
+		private final ByteArrayId leftAdapterId;
+		private final ByteArrayId rightAdapterId;
+		private final SpatialJoinPredicate predicate;
+		private final SpatialJoinGrid grid;
+
+		private JoinSettings(
+				final Configuration configuration ) {
+			final ScopedJobConfiguration config = new ScopedJobConfiguration(
+					configuration,
+					SpatialJoinMapReduce.class,
+					LOGGER);
+			leftAdapterId = new ByteArrayId(
+					config.getString(
+							JoinParameters.Join.LEFT_ADAPTER_ID,
+							""));
+			rightAdapterId = new ByteArrayId(
+					config.getString(
+							JoinParameters.Join.RIGHT_ADAPTER_ID,
+							""));
+			predicate = new SpatialJoinPredicate(
+					CompareOperation.valueOf(config.getString(
+							JoinParameters.Join.COMPARE_OPERATION,
+							CompareOperation.OVERLAPS.name())),
+					config.getDouble(
+							JoinParameters.Join.DISTANCE,
+							0));
+			final String bounds = config.getString(
+					JoinParameters.Join.BOUNDS,
+					null);
+			if (bounds == null) {
+				throw new IllegalArgumentException(
+						"The bounds of the join grid are not configured");
+			}
+			grid = new SpatialJoinGrid(
+					config.getDouble(
+							JoinParameters.Join.CELL_SIZE,
+							1.0),
+					SpatialJoinGrid.boundsFromString(bounds));
+		}
+	}
+
+	public static class SpatialJoinMapper extends
+			Mapper<GeoWaveInputKey, Object, LongWritable, AdapterWithObjectWritable>
+	{
+		protected HadoopWritableSerializationTool serializationTool;
+		protected JoinSettings settings;
+
+		final protected AdapterWithObjectWritable outputValue = new AdapterWithObjectWritable();
+		final protected LongWritable cellWritable = new LongWritable();
+
+		@Override
+		protected void map(
+				final GeoWaveInputKey key,
+				final Object value,
+				final Mapper<GeoWaveInputKey, Object, LongWritable, AdapterWithObjectWritable>.Context context )
+				throws IOException,
+				InterruptedException {
+			final Object unwrappedValue = (value instanceof ObjectWritable) ? serializationTool.fromWritable(
+					key.getAdapterId(),
+					(ObjectWritable) value) : value;
+			if (!(unwrappedValue instanceof SimpleFeature)) {
+				return;
+			}
+			final Geometry geometry = (Geometry) ((SimpleFeature) unwrappedValue).getDefaultGeometry();
+			if (geometry == null) {
+				return;
+			}
+			// in a self-join the feature is on both sides
+			if (settings.leftAdapterId.equals(key.getAdapterId())) {
+				write(
+						key,
+						unwrappedValue,
+						true,
+						settings.predicate.getSearchEnvelope(geometry),
+						context);
+			}
+			if (settings.rightAdapterId.equals(key.getAdapterId())) {
+				write(
+						key,
+						unwrappedValue,
+						false,
+						geometry.getEnvelopeInternal(),
+						context);
+			}
+		}
+
+		private void write(
+				final GeoWaveInputKey key,
+				final Object feature,
+				final boolean isLeft,
+				final Envelope envelope,
+				final Mapper<GeoWaveInputKey, Object, LongWritable, AdapterWithObjectWritable>.Context context )
+				throws IOException,
+				InterruptedException {
+			AdapterWithObjectWritable.fillWritableWithAdapter(
+					serializationTool,
+					outputValue,
+					key.getAdapterId(),
+					key.getDataId(),
+					isLeft,
+					feature);
+			for (final Long cell : settings.grid.getCells(envelope)) {
+				cellWritable.set(cell);
+				context.write(
+						cellWritable,
+						outputValue);
+			}
+		}
+
+		@Override
+		protected void setup(
+				final Mapper<GeoWaveInputKey, Object, LongWritable, AdapterWithObjectWritable>.Context context )
+				throws IOException,
+				InterruptedException {
+			super.setup(context);
+			serializationTool = new HadoopWritableSerializationTool(
+					GeoWaveInputFormat.getJobContextAdapterStore(context));
+			settings = new JoinSettings(
+					context.getConfiguration());
+		}
+	}
+
+	public static class SpatialJoinReducer extends
+			Reducer<LongWritable, AdapterWithObjectWritable, Text, Text>
+	{
+		protected HadoopWritableSerializationTool serializationTool;
+		protected JoinSettings settings;
+
+		final Text leftText = new Text();
+		final Text rightText = new Text();
+
+		@Override
+		protected void reduce(
+				final LongWritable key,
+				final Iterable<AdapterWithObjectWritable> values,
+				final Reducer<LongWritable, AdapterWithObjectWritable, Text, Text>.Context context )
+				throws IOException,
+				InterruptedException {
+			final STRtree leftTree = new STRtree();
+			final List<SimpleFeature> rights = new ArrayList<SimpleFeature>();
+			for (final AdapterWithObjectWritable inputValue : values) {
+				final SimpleFeature feature = (SimpleFeature) AdapterWithObjectWritable.fromWritableWithAdapter(
+						serializationTool,
+						inputValue);
+				if (inputValue.isPrimary()) {
+					final Geometry geometry = (Geometry) feature.getDefaultGeometry();
+					final Envelope searchEnvelope = settings.predicate.getSearchEnvelope(geometry);
+					leftTree.insert(
+							searchEnvelope,
+							new LeftEntry(
+									feature,
+									searchEnvelope,
+									settings.predicate.prepare(geometry)));
+				}
+				else {
+					rights.add(feature);
+				}
+			}
+
+			final long cell = key.get();
+			for (final SimpleFeature right : rights) {
+				final Geometry geometry = (Geometry) right.getDefaultGeometry();
+				final Envelope envelope = geometry.getEnvelopeInternal();
+				for (final Object candidate : leftTree.query(envelope)) {
+					final LeftEntry left = (LeftEntry) candidate;
+					if (settings.grid.isReferenceCell(
+							cell,
+							left.searchEnvelope,
+							envelope) && settings.predicate.evaluate(
+							left.searchGeometry,
+							geometry)) {
+						write(
+								left.feature,
+								right,
+								context);
+					}
+				}
+			}
+		}
+
+		private void write(
+				final SimpleFeature left,
+				final SimpleFeature right,
+				final Reducer<LongWritable, AdapterWithObjectWritable, Text, Text>.Context context )
+				throws IOException,
+				InterruptedException {
+			try {
+				final byte[] leftBytes = left.getID().getBytes(
+						"UTF-8");
+				final byte[] rightBytes = right.getID().getBytes(
+						"UTF-8");
+				leftText.set(
+						leftBytes,
+						0,
+						leftBytes.length);
+				rightText.set(
+						rightBytes,
+						0,
+						rightBytes.length);
+			}
+			catch (final UnsupportedEncodingException e) {
+				throw new RuntimeException(
+						"UTF-8 Encoding invalid for Simple feature ID",
+						e);
+			}
+			context.write(
+					leftText,
+					rightText);
+			context.getCounter(
+					JoinCounter.PAIRS).increment(
+					1);
+		}
+
+		@Override
+		protected void setup(
+				final Reducer<LongWritable, AdapterWithObjectWritable, Text, Text>.Context context )
+				throws IOException,
+				InterruptedException {
+			super.setup(context);
+			serializationTool = new HadoopWritableSerializationTool(
+					GeoWaveInputFormat.getJobContextAdapterStore(context));
+			settings = new JoinSettings(
+					context.getConfiguration());
+		}
+	}
+
+	private static class LeftEntry
+	{
+		private final SimpleFeature feature;
+		private final Envelope searchEnvelope;
+		private final PreparedGeometry searchGeometry;
+
+		private LeftEntry(
+				final SimpleFeature feature,
+				final Envelope searchEnvelope,
+				final PreparedGeometry searchGeometry ) {
+			this.feature = feature;
+			this.searchEnvelope = searchEnvelope;
+			this.searchGeometry = searchGeometry;
+		}
+	}
+}
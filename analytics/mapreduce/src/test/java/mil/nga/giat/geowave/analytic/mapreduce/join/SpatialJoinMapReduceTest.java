@@ -0,0 +1,349 @@
+package mil.nga.giat.geowave.analytic.mapreduce.join;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
+import mil.nga.giat.geowave.adapter.vector.FeatureWritable;
+import mil.nga.giat.geowave.analytic.AdapterWithObjectWritable;
+import mil.nga.giat.geowave.analytic.AnalyticFeature;
+import mil.nga.giat.geowave.analytic.clustering.ClusteringUtils;
+import mil.nga.giat.geowave.analytic.join.SpatialJoinGrid;
+import mil.nga.giat.geowave.analytic.mapreduce.kmeans.SimpleFeatureImplSerialization;
+import mil.nga.giat.geowave.analytic.param.JoinParameters;
+import mil.nga.giat.geowave.core.geotime.store.filter.SpatialQueryFilter.CompareOperation;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.mapreduce.GeoWaveConfiguratorBase;
+import mil.nga.giat.geowave.mapreduce.JobContextAdapterStore;
+import mil.nga.giat.geowave.mapreduce.input.GeoWaveInputKey;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mrunit.mapreduce.MapDriver;
+import org.apache.hadoop.mrunit.mapreduce.ReduceDriver;
+import org.apache.hadoop.mrunit.types.Pair;
+import org.geotools.feature.type.BasicFeatureTypes;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class SpatialJoinMapReduceTest
+{
+	MapDriver<GeoWaveInputKey, Object, LongWritable, AdapterWithObjectWritable> mapDriver;
+	ReduceDriver<LongWritable, AdapterWithObjectWritable, Text, Text> reduceDriver;
+	SimpleFeatureType pointType;
+	SimpleFeatureType regionType;
+	final GeometryFactory factory = new GeometryFactory();
+
+	@Before
+	public void setUp()
+			throws IOException {
+		mapDriver = MapDriver.newMapDriver(new SpatialJoinMapReduce.SpatialJoinMapper());
+		reduceDriver = ReduceDriver.newReduceDriver(new SpatialJoinMapReduce.SpatialJoinReducer());
+
+		pointType = AnalyticFeature.createGeometryFeatureAdapter(
+				"point",
+				new String[] {
+					"extra1"
+				},
+				BasicFeatureTypes.DEFAULT_NAMESPACE,
+				ClusteringUtils.CLUSTERING_CRS).getType();
+		regionType = AnalyticFeature.createGeometryFeatureAdapter(
+				"region",
+				new String[] {
+					"extra1"
+				},
+				BasicFeatureTypes.DEFAULT_NAMESPACE,
+				ClusteringUtils.CLUSTERING_CRS).getType();
+
+		for (final Configuration configuration : new Configuration[] {
+			mapDriver.getConfiguration(),
+			reduceDriver.getConfiguration()
+		}) {
+			JobContextAdapterStore.addDataAdapter(
+					configuration,
+					new FeatureDataAdapter(
+							pointType));
+			JobContextAdapterStore.addDataAdapter(
+					configuration,
+					new FeatureDataAdapter(
+							regionType));
+			configuration.setDouble(
+					GeoWaveConfiguratorBase.enumToConfKey(
+							SpatialJoinMapReduce.class,
+							JoinParameters.Join.CELL_SIZE),
+					10);
+			configuration.set(
+					GeoWaveConfiguratorBase.enumToConfKey(
+							SpatialJoinMapReduce.class,
+							JoinParameters.Join.BOUNDS),
+					SpatialJoinGrid.boundsToString(new Envelope(
+							-180,
+							180,
+							-90,
+							90)));
+			final String[] strings = configuration.getStrings("io.serializations");
+			final String[] newStrings = new String[strings.length + 1];
+			System.arraycopy(
+					strings,
+					0,
+					newStrings,
+					0,
+					strings.length);
+			newStrings[newStrings.length - 1] = SimpleFeatureImplSerialization.class.getName();
+			configuration.setStrings(
+					"io.serializations",
+					newStrings);
+		}
+	}
+
+	private void setJoin(
+			final String leftAdapterId,
+			final String rightAdapterId,
+			final CompareOperation compareOperation,
+			final double distance ) {
+		for (final Configuration configuration : new Configuration[] {
+			mapDriver.getConfiguration(),
+			reduceDriver.getConfiguration()
+		}) {
+			configuration.set(
+					GeoWaveConfiguratorBase.enumToConfKey(
+							SpatialJoinMapReduce.class,
+							JoinParameters.Join.LEFT_ADAPTER_ID),
+					leftAdapterId);
+			configuration.set(
+					GeoWaveConfiguratorBase.enumToConfKey(
+							SpatialJoinMapReduce.class,
+							JoinParameters.Join.RIGHT_ADAPTER_ID),
+					rightAdapterId);
+			configuration.set(
+					GeoWaveConfiguratorBase.enumToConfKey(
+							SpatialJoinMapReduce.class,
+							JoinParameters.Join.COMPARE_OPERATION),
+					compareOperation.name());
+			configuration.setDouble(
+					GeoWaveConfiguratorBase.enumToConfKey(
+							SpatialJoinMapReduce.class,
+							JoinParameters.Join.DISTANCE),
+					distance);
+		}
+	}
+
+	private SimpleFeature createTestFeature(
+			final SimpleFeatureType type,
+			final String id,
+			final Geometry geometry ) {
+		return AnalyticFeature.createGeometryFeature(
+				type,
+				"b1",
+				id,
+				id,
+				"NA",
+				1.0,
+				geometry,
+				new String[] {
+					"extra1"
+				},
+				new double[] {
+					0.0
+				},
+				1,
+				1,
+				0);
+	}
+
+	private void addInput(
+			final SimpleFeature feature ) {
+		final GeoWaveInputKey inputKey = new GeoWaveInputKey();
+		inputKey.setAdapterId(new ByteArrayId(
+				feature.getFeatureType().getTypeName()));
+		inputKey.setDataId(new ByteArrayId(
+				feature.getID()));
+		mapDriver.addInput(
+				inputKey,
+				feature);
+	}
+
+	@Test
+	public void testSelfJoin()
+			throws IOException {
+		setJoin(
+				"point",
+				"point",
+				CompareOperation.OVERLAPS,
+				1.0);
+		final SimpleFeature near1 = createTestFeature(
+				pointType,
+				"near1",
+				factory.createPoint(new Coordinate(
+						5,
+						5)));
+		final SimpleFeature near2 = createTestFeature(
+				pointType,
+				"near2",
+				factory.createPoint(new Coordinate(
+						5.5,
+						5.5)));
+		final SimpleFeature far = createTestFeature(
+				pointType,
+				"far",
+				factory.createPoint(new Coordinate(
+						30,
+						30)));
+		addInput(near1);
+		addInput(near2);
+		addInput(far);
+
+		final List<Pair<LongWritable, AdapterWithObjectWritable>> mapperResults = mapDriver.run();
+		// every feature is emitted for both sides of a self-join
+		for (final SimpleFeature feature : new SimpleFeature[] {
+			near1,
+			near2,
+			far
+		}) {
+			assertTrue(isEmitted(
+					mapperResults,
+					feature.getID(),
+					true));
+			assertTrue(isEmitted(
+					mapperResults,
+					feature.getID(),
+					false));
+		}
+
+		reduceDriver.addAll(getReducerInput(mapperResults));
+		final Set<String> pairs = getPairs(reduceDriver.run());
+		assertEquals(
+				5,
+				pairs.size());
+		assertTrue(pairs.contains("near1:near2"));
+		assertTrue(pairs.contains("near2:near1"));
+		assertTrue(pairs.contains("near1:near1"));
+		assertTrue(pairs.contains("far:far"));
+		assertFalse(pairs.contains("near1:far"));
+	}
+
+	@Test
+	public void testJoinPairsEachOnce()
+			throws IOException {
+		setJoin(
+				"region",
+				"point",
+				CompareOperation.CONTAINS,
+				0);
+		// the region spans several cells, as do the points it contains
+		final SimpleFeature region = createTestFeature(
+				regionType,
+				"region",
+				factory.toGeometry(new Envelope(
+						-15,
+						25,
+						-15,
+						25)));
+		final SimpleFeature inside1 = createTestFeature(
+				pointType,
+				"inside1",
+				factory.createPoint(new Coordinate(
+						0,
+						0)));
+		final SimpleFeature inside2 = createTestFeature(
+				pointType,
+				"inside2",
+				factory.createPoint(new Coordinate(
+						20,
+						-10)));
+		final SimpleFeature outside = createTestFeature(
+				pointType,
+				"outside",
+				factory.createPoint(new Coordinate(
+						26,
+						0)));
+		addInput(region);
+		addInput(inside1);
+		addInput(inside2);
+		addInput(outside);
+
+		final List<Pair<LongWritable, AdapterWithObjectWritable>> mapperResults = mapDriver.run();
+		assertTrue(isEmitted(
+				mapperResults,
+				"region",
+				true));
+		assertFalse(isEmitted(
+				mapperResults,
+				"region",
+				false));
+		assertFalse(isEmitted(
+				mapperResults,
+				"inside1",
+				true));
+
+		reduceDriver.addAll(getReducerInput(mapperResults));
+		final List<Pair<Text, Text>> reduceResults = reduceDriver.run();
+		assertEquals(
+				2,
+				reduceResults.size());
+		final Set<String> pairs = getPairs(reduceResults);
+		assertTrue(pairs.contains("region:inside1"));
+		assertTrue(pairs.contains("region:inside2"));
+	}
+
+	private static boolean isEmitted(
+			final List<Pair<LongWritable, AdapterWithObjectWritable>> mapperResults,
+			final String id,
+			final boolean isLeft ) {
+		for (final Pair<LongWritable, AdapterWithObjectWritable> pair : mapperResults) {
+			if (((FeatureWritable) pair.getSecond().getObjectWritable().get()).getFeature().getID().equals(
+					id) && (pair.getSecond().isPrimary() == isLeft)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Set<String> getPairs(
+			final List<Pair<Text, Text>> reduceResults ) {
+		final Set<String> pairs = new HashSet<String>();
+		for (final Pair<Text, Text> pair : reduceResults) {
+			// each pair is output exactly once
+			assertTrue(pairs.add(pair.getFirst().toString() + ":" + pair.getSecond().toString()));
+		}
+		return pairs;
+	}
+
+	private static List<Pair<LongWritable, List<AdapterWithObjectWritable>>> getReducerInput(
+			final List<Pair<LongWritable, AdapterWithObjectWritable>> mapperResults ) {
+		final List<Pair<LongWritable, List<AdapterWithObjectWritable>>> reducerInput = new ArrayList<Pair<LongWritable, List<AdapterWithObjectWritable>>>();
+		for (final Pair<LongWritable, AdapterWithObjectWritable> pair : mapperResults) {
+			List<AdapterWithObjectWritable> values = null;
+			for (final Pair<LongWritable, List<AdapterWithObjectWritable>> cell : reducerInput) {
+				if (cell.getFirst().get() == pair.getFirst().get()) {
+					values = cell.getSecond();
+					break;
+				}
+			}
+			if (values == null) {
+				values = new ArrayList<AdapterWithObjectWritable>();
+				reducerInput.add(new Pair<LongWritable, List<AdapterWithObjectWritable>>(
+						new LongWritable(
+								pair.getFirst().get()),
+						values));
+			}
+			values.add(pair.getSecond());
+		}
+		return reducerInput;
+	}
+}
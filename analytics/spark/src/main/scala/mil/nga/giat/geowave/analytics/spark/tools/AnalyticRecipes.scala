@@ -1,5 +1,6 @@
 package mil.nga.giat.geowave.analytics.spark.tools
 
+import scala.collection.JavaConverters._
 import scala.collection.mutable.PriorityQueue
 import org.opengis.feature.simple.SimpleFeature
 import mil.nga.giat.geowave.analytic.distance.DistanceFn
@@ -8,6 +9,12 @@ import org.apache.spark.rdd.RDD
 import mil.nga.giat.geowave.adapter.vector.FeatureWritable
 import org.apache.spark.SparkContext._
 import mil.nga.giat.geowave.analytic.partitioner.Partitioner.PartitionData
+import mil.nga.giat.geowave.analytic.join.SpatialJoinGrid
+import mil.nga.giat.geowave.analytic.join.SpatialJoinPredicate
+import com.vividsolutions.jts.geom.Envelope
+import com.vividsolutions.jts.geom.Geometry
+import com.vividsolutions.jts.geom.prep.PreparedGeometry
+import com.vividsolutions.jts.index.strtree.STRtree
 
 object AnalyticRecipes extends Serializable {
 
@@ -65,6 +72,43 @@ object AnalyticRecipes extends Serializable {
     mapIntoLists(it).flatMap(t => AnalyticRecipes.compareAll(distanceFn, distance)(t._2.toArray)).toIterator
   }
 
+  /**
+    * Join the features of two RDDs on a spatial predicate.
+    *
+    * Both sides are partitioned on the cells of the grid that their envelopes (for the left side, the search envelopes)
+    * overlap. A matching pair is reported only from its reference cell, so each pair appears once.
+    */
+  def spatialJoin(left: RDD[(GeoWaveInputKey, SimpleFeature)], right: RDD[(GeoWaveInputKey, SimpleFeature)], predicate: SpatialJoinPredicate, grid: SpatialJoinGrid): RDD[(SimpleFeature, SimpleFeature)] = {
+    val leftByCell = left.flatMap(x => {
+      val geometry = x._2.getDefaultGeometry.asInstanceOf[Geometry]
+      if (geometry == null) List() else grid.getCells(predicate.getSearchEnvelope(geometry)).asScala.map(c => (c.longValue(), x._2))
+    })
+    val rightByCell = right.flatMap(x => {
+      val geometry = x._2.getDefaultGeometry.asInstanceOf[Geometry]
+      if (geometry == null) List() else grid.getCells(geometry.getEnvelopeInternal).asScala.map(c => (c.longValue(), x._2))
+    })
+    leftByCell.cogroup(rightByCell).flatMap(t => joinCell(predicate, grid)(t._1, t._2._1, t._2._2))
+  }
+
+  /**
+    * Join the left and right features assigned to a single grid cell.
+    */
+  def joinCell(predicate: SpatialJoinPredicate, grid: SpatialJoinGrid)(cell: Long, lefts: Iterable[SimpleFeature], rights: Iterable[SimpleFeature]): TraversableOnce[(SimpleFeature, SimpleFeature)] = {
+    val tree = new STRtree()
+    lefts.foreach(l => {
+      val geometry = l.getDefaultGeometry.asInstanceOf[Geometry]
+      val searchEnvelope = predicate.getSearchEnvelope(geometry)
+      tree.insert(searchEnvelope, (l, searchEnvelope, predicate.prepare(geometry)))
+    })
+    rights.flatMap(r => {
+      val geometry = r.getDefaultGeometry.asInstanceOf[Geometry]
+      val envelope = geometry.getEnvelopeInternal
+      tree.query(envelope).asScala.map(_.asInstanceOf[(SimpleFeature, Envelope, PreparedGeometry)])
+        .filter(l => grid.isReferenceCell(cell, l._2, envelope) && predicate.evaluate(l._3, geometry))
+        .map(l => (l._1, r))
+    })
+  }
+
   private def mapIntoLists(it: Iterator[(PartitionData, SimpleFeature)]): Map[PartitionData, List[SimpleFeature]] = {
     it.foldLeft(Map[PartitionData, List[SimpleFeature]]()) {
       (m, t) => { m + (t._1 -> (m.getOrElse(t._1, List[SimpleFeature]()).::(t._2))) }
@@ -0,0 +1,74 @@
+package mil.nga.giat.geowave.core.geotime;
+
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.TemporalBinningStrategy;
+import mil.nga.giat.geowave.core.geotime.index.dimension.TimeDefinition;
+import mil.nga.giat.geowave.core.geotime.store.dimension.LatitudeField;
+import mil.nga.giat.geowave.core.geotime.store.dimension.LongitudeField;
+import mil.nga.giat.geowave.core.geotime.store.dimension.SpatialArrayField;
+import mil.nga.giat.geowave.core.geotime.store.dimension.TimeArrayField;
+import mil.nga.giat.geowave.core.geotime.store.dimension.TimeField;
+import mil.nga.giat.geowave.core.geotime.store.filter.KNearestNeighborFilter;
+import mil.nga.giat.geowave.core.geotime.store.filter.SpatialQueryFilter;
+import mil.nga.giat.geowave.core.geotime.store.query.KNearestNeighborRingQuery;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialTemporalQuery;
+import mil.nga.giat.geowave.core.geotime.store.query.TemporalQuery;
+import mil.nga.giat.geowave.core.index.PersistableRegistrySpi;
+
+public class GeoTimePersistableRegistry implements
+		PersistableRegistrySpi
+{
+
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 300,
+					LatitudeDefinition.class),
+			new PersistableIdAndClass(
+					(short) 301,
+					LongitudeDefinition.class),
+			new PersistableIdAndClass(
+					(short) 302,
+					TemporalBinningStrategy.class),
+			new PersistableIdAndClass(
+					(short) 303,
+					TimeDefinition.class),
+			new PersistableIdAndClass(
+					(short) 304,
+					LatitudeField.class),
+			new PersistableIdAndClass(
+					(short) 305,
+					LongitudeField.class),
+			new PersistableIdAndClass(
+					(short) 306,
+					SpatialArrayField.class),
+			new PersistableIdAndClass(
+					(short) 307,
+					TimeArrayField.class),
+			new PersistableIdAndClass(
+					(short) 308,
+					TimeField.class),
+			new PersistableIdAndClass(
+					(short) 309,
+					SpatialQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 310,
+					SpatialQuery.class),
+			new PersistableIdAndClass(
+					(short) 311,
+					SpatialTemporalQuery.class),
+			new PersistableIdAndClass(
+					(short) 312,
+					TemporalQuery.class),
+			new PersistableIdAndClass(
+					(short) 313,
+					KNearestNeighborFilter.class),
+			new PersistableIdAndClass(
+					(short) 314,
+					KNearestNeighborRingQuery.class)
+		};
+	}
+}
@@ -1,9 +1,12 @@
 package mil.nga.giat.geowave.core.geotime;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 
 import org.apache.log4j.Logger;
 
@@ -11,13 +14,18 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKBReader;
 import com.vividsolutions.jts.io.WKBWriter;
 
 import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
 import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.DecomposedNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
@@ -54,6 +62,122 @@ public class GeometryUtils
 				set);
 	}
 
+	/**
+	 * This utility method will convert a JTS geometry to constraints that
+	 * follow the shape of the geometry rather than its envelope, so that a
+	 * query with a non-rectangular geometry, such as a diagonal corridor or a
+	 * concave boundary, does not scan the parts of its envelope that the
+	 * geometry does not cover.
+	 * 
+	 * The envelopes of the geometry are recursively split into quadrants, each
+	 * tested against the prepared geometry. Quadrants within the geometry are
+	 * kept whole, quadrants outside of it are dropped and quadrants on its
+	 * boundary are split further, largest first, until the maximum number of
+	 * constraint sets would be exceeded.
+	 * 
+	 * @param geometry
+	 * @param maxConstraintSets
+	 *            the maximum number of constraint sets, each of which is
+	 *            decomposed into ranges separately; if this is not greater than
+	 *            one the constraints are those of the envelopes of the geometry
+	 * @return Constraints as a list of constraint sets covering the geometry
+	 */
+	public static Constraints constraintsFromGeometry(
+			final Geometry geometry,
+			final int maxConstraintSets ) {
+		if ((maxConstraintSets <= 1) || (geometry == null) || geometry.isEmpty() || geometry.isRectangle()) {
+			return basicConstraintsFromGeometry(geometry);
+		}
+		final PriorityQueue<Envelope> partialCells = new PriorityQueue<Envelope>(
+				maxConstraintSets,
+				new Comparator<Envelope>() {
+					@Override
+					public int compare(
+							final Envelope o1,
+							final Envelope o2 ) {
+						// split the largest cell first
+						return Double.compare(
+								o2.getArea(),
+								o1.getArea());
+					}
+				});
+		for (final Envelope env : envelopesFromGeometry(geometry)) {
+			if ((env.getWidth() <= 0) || (env.getHeight() <= 0)) {
+				// points and axis-aligned lines cannot be refined
+				return basicConstraintsFromGeometry(geometry);
+			}
+			partialCells.add(env);
+		}
+		if (partialCells.size() >= maxConstraintSets) {
+			return basicConstraintsFromGeometry(geometry);
+		}
+
+		final PreparedGeometry preparedGeometry = PreparedGeometryFactory.prepare(geometry);
+		final List<ConstraintSet> sets = new ArrayList<ConstraintSet>();
+		// each split adds at most three cells, and splitting is bounded in case
+		// the geometry is thin enough that cells never leave its boundary
+		int splits = 0;
+		while (!partialCells.isEmpty() && ((sets.size() + partialCells.size() + 3) <= maxConstraintSets)
+				&& (splits++ < (maxConstraintSets * 4))) {
+			final Envelope cell = partialCells.poll();
+			final double midX = (cell.getMinX() + cell.getMaxX()) / 2;
+			final double midY = (cell.getMinY() + cell.getMaxY()) / 2;
+			final Envelope[] quadrants = new Envelope[] {
+				new Envelope(
+						cell.getMinX(),
+						midX,
+						cell.getMinY(),
+						midY),
+				new Envelope(
+						midX,
+						cell.getMaxX(),
+						cell.getMinY(),
+						midY),
+				new Envelope(
+						cell.getMinX(),
+						midX,
+						midY,
+						cell.getMaxY()),
+				new Envelope(
+						midX,
+						cell.getMaxX(),
+						midY,
+						cell.getMaxY())
+			};
+			for (final Envelope quadrant : quadrants) {
+				final Geometry quadrantGeometry = GEOMETRY_FACTORY.toGeometry(quadrant);
+				if (preparedGeometry.contains(quadrantGeometry)) {
+					sets.add(new CellConstraintSet(
+							quadrant));
+				}
+				else if (preparedGeometry.intersects(quadrantGeometry)) {
+					partialCells.add(quadrant);
+				}
+			}
+		}
+		for (final Envelope cell : partialCells) {
+			sets.add(new CellConstraintSet(
+					cell));
+		}
+		return new Constraints(
+				sets);
+	}
+
+	private static List<Envelope> envelopesFromGeometry(
+			final Geometry geometry ) {
+		final List<Envelope> envelopes = new ArrayList<Envelope>();
+		final int n = geometry.getNumGeometries();
+		if (n > 1) {
+			for (int gi = 0; gi < n; gi++) {
+				envelopes.addAll(envelopesFromGeometry(geometry.getGeometryN(gi)));
+			}
+		}
+		else {
+			envelopes.add(geometry.getEnvelopeInternal());
+		}
+		return envelopes;
+	}
+
 	/**
 	 * Recursively decompose geometry into a set of envelopes to create a single
 	 * set.
@@ -89,6 +213,12 @@ public class GeometryUtils
 	 */
 	public static ConstraintSet basicConstraintSetFromEnvelope(
 			final Envelope env ) {
+		return new ConstraintSet(
+				constraintsPerDimensionFromEnvelope(env));
+	}
+
+	private static Map<Class<? extends NumericDimensionDefinition>, ConstraintData> constraintsPerDimensionFromEnvelope(
+			final Envelope env ) {
 		// Create a NumericRange object using the x axis
 		final NumericRange rangeLongitude = new NumericRange(
 				env.getMinX(),
@@ -112,8 +242,32 @@ public class GeometryUtils
 				new ConstraintData(
 						rangeLatitude,
 						false));
-		return new ConstraintSet(
-				constraintsPerDimension);
+		return constraintsPerDimension;
+	}
+
+	/**
+	 * A cell of a decomposed query geometry, whose index constraints share the
+	 * range cap of the query with the other cells
+	 */
+	private static class CellConstraintSet extends
+			ConstraintSet
+	{
+		private CellConstraintSet(
+				final Envelope cell ) {
+			super(
+					constraintsPerDimensionFromEnvelope(cell));
+		}
+
+		@Override
+		public MultiDimensionalNumericData getIndexConstraints(
+				final NumericIndexStrategy indexStrategy ) {
+			final MultiDimensionalNumericData constraints = super.getIndexConstraints(indexStrategy);
+			if (constraints.isEmpty()) {
+				return constraints;
+			}
+			return new DecomposedNumericDataset(
+					constraints.getDataPerDimension());
+		}
 	}
 
 	/**
@@ -3,6 +3,7 @@ package mil.nga.giat.geowave.core.geotime.index.dimension;
 import java.nio.ByteBuffer;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.TimeZone;
@@ -24,6 +25,10 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  * query range (at least 20x larger) for efficiency purposes. So if the average
  * query is for a 24 hour period, the unit should not be a day, but could be
  * perhaps a month or a year (depending on the temporal extent of the dataset).
+ *
+ * The boundaries and ID of each bin are computed with a calendar the first time
+ * the bin is used and then cached, so binning values and ranges within cached
+ * bins is a binary search of the cached bin boundaries.
  */
 public class TemporalBinningStrategy implements
 		BinningStrategy
@@ -84,6 +89,7 @@ public class TemporalBinningStrategy implements
 	}
 
 	protected static final long MILLIS_PER_DAY = 86400000L;
+	private static final int MAX_CACHED_BINS = 256;
 	private static final NumberFormat TWO_DIGIT_NUMBER = NumberFormat.getIntegerInstance();
 	{
 		TWO_DIGIT_NUMBER.setMinimumIntegerDigits(2);
@@ -92,6 +98,9 @@ public class TemporalBinningStrategy implements
 
 	private Unit unit;
 	private String timezone;
+	private transient TimeZone timeZoneInstance;
+	// sorted by the start of each bin, and replaced rather than modified
+	private transient volatile TemporalBin[] cachedBins = new TemporalBin[0];
 
 	protected TemporalBinningStrategy() {}
 
@@ -126,18 +135,152 @@ public class TemporalBinningStrategy implements
 	@Override
 	public BinValue getBinnedValue(
 			final double value ) {
-		// convert to a calendar and subtract the epoch for the bin
-		final Calendar epochCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-		epochCal.setTimeInMillis((long) value);
-		setToEpoch(epochCal);
-		// use the value to get the bin ID (although the epoch should work fine
-		// too)
-		final Calendar valueCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-		valueCal.setTimeInMillis((long) value);
-
+		final TemporalBin bin = getBin((long) value);
 		return new BinValue(
-				getBinId(valueCal),
-				valueCal.getTimeInMillis() - epochCal.getTimeInMillis());
+				bin.binId,
+				(long) value - bin.epoch);
+	}
+
+	private TimeZone getTimeZone() {
+		TimeZone timeZone = timeZoneInstance;
+		if (timeZone == null) {
+			timeZone = TimeZone.getTimeZone(timezone);
+			timeZoneInstance = timeZone;
+		}
+		return timeZone;
+	}
+
+	/**
+	 *
+	 * @return the bin containing the value, from the cache if possible
+	 */
+	private TemporalBin getBin(
+			final long value ) {
+		final TemporalBin[] bins = cachedBins;
+		int low = 0;
+		int high = bins.length - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			if (bins[mid].start > value) {
+				high = mid - 1;
+			}
+			else if (bins[mid].end <= value) {
+				low = mid + 1;
+			}
+			else {
+				return bins[mid];
+			}
+		}
+		return computeBin(value);
+	}
+
+	/**
+	 * Computes the bin of the value with a calendar and caches it. The bin ID
+	 * is that of the value rather than its epoch, which for decades and weeks
+	 * can change within a bin, so their cached boundaries stop at the end of
+	 * the year and are only cached if the end of the bin has the same epoch and
+	 * bin ID.
+	 */
+	private TemporalBin computeBin(
+			final long value ) {
+		final Calendar cal = Calendar.getInstance(getTimeZone());
+		cal.setTimeInMillis(value);
+		final byte[] binId = getBinId(cal);
+		setToEpoch(cal);
+		final long epoch = cal.getTimeInMillis();
+		final long nextEpoch = getNextEpoch(
+				cal,
+				epoch);
+		long start = epoch;
+		long end = nextEpoch;
+		boolean cacheable = true;
+		if ((unit == Unit.DECADE) || (unit == Unit.WEEK)) {
+			cal.setTimeInMillis(value);
+			setToEpoch(
+					cal,
+					Unit.YEAR);
+			start = Math.max(
+					start,
+					cal.getTimeInMillis());
+			cal.add(
+					Calendar.YEAR,
+					1);
+			end = Math.min(
+					end,
+					cal.getTimeInMillis());
+			if (end > start) {
+				cal.setTimeInMillis(end - 1);
+				cacheable = Arrays.equals(
+						binId,
+						getBinId(cal));
+				setToEpoch(cal);
+				cacheable &= (cal.getTimeInMillis() == epoch);
+			}
+		}
+		// the bin boundaries can be inconsistent around daylight savings time
+		// transitions, in which case the bin is not cached
+		if (cacheable && (start <= value) && (value < end)) {
+			final TemporalBin bin = new TemporalBin(
+					start,
+					end,
+					epoch,
+					nextEpoch,
+					binId);
+			cacheBin(bin);
+			return bin;
+		}
+		return new TemporalBin(
+				value,
+				value + 1,
+				epoch,
+				nextEpoch,
+				binId);
+	}
+
+	private synchronized void cacheBin(
+			final TemporalBin bin ) {
+		final TemporalBin[] bins = cachedBins.length >= MAX_CACHED_BINS ? new TemporalBin[0] : cachedBins;
+		int index = 0;
+		while ((index < bins.length) && (bins[index].start < bin.start)) {
+			index++;
+		}
+		if ((index < bins.length) && (bins[index].start == bin.start)) {
+			return;
+		}
+		final TemporalBin[] newBins = new TemporalBin[bins.length + 1];
+		System.arraycopy(
+				bins,
+				0,
+				newBins,
+				0,
+				index);
+		newBins[index] = bin;
+		System.arraycopy(
+				bins,
+				index,
+				newBins,
+				index + 1,
+				bins.length - index);
+		cachedBins = newBins;
+	}
+
+	/**
+	 *
+	 * @return the epoch of the bin following the bin starting at the given
+	 *         epoch
+	 */
+	private long getNextEpoch(
+			final Calendar cal,
+			final long epoch ) {
+		// because not every year has 366 days, and not every month has 31
+		// days we need to reset next epoch to the actual epoch
+		// set it to a value in the middle of the bin just to be sure (for
+		// example if the bin size does not get to the next epoch as is
+		// the case when units are days and the timezone accounts for
+		// daylight savings time)
+		cal.setTimeInMillis(epoch + (long) (getBinSizeMillis() * 1.5));
+		setToEpoch(cal);
+		return cal.getTimeInMillis();
 	}
 
 	private long getBinSizeMillis() {
@@ -170,12 +313,20 @@ public class TemporalBinningStrategy implements
 
 	}
 
+	protected void setToEpoch(
+			final Calendar value ) {
+		setToEpoch(
+				value,
+				unit);
+	}
+
 	@SuppressFBWarnings(value = {
 		"SF_SWITCH_FALLTHROUGH",
 		"SF_SWITCH_NO_DEFAULT"
 	}, justification = "Fallthrough intentional for time parsing; default case is provided")
-	protected void setToEpoch(
-			final Calendar value ) {
+	private static void setToEpoch(
+			final Calendar value,
+			final Unit unit ) {
 		// reset appropriate values to 0 based on the unit
 		switch (unit) {
 			case DECADE:
@@ -294,7 +445,7 @@ public class TemporalBinningStrategy implements
 	private Calendar getStartEpoch(
 			final byte[] binId ) {
 		final String str = StringUtils.stringFromBinary(binId);
-		final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
+		final Calendar cal = Calendar.getInstance(getTimeZone());
 		switch (unit) {
 			case MINUTE:
 				final int minute = Integer.parseInt(str.substring(
@@ -367,15 +518,10 @@ public class TemporalBinningStrategy implements
 		if (range.getMax() < range.getMin()) {
 			return new BinRange[] {};
 		}
-		final Calendar startEpoch = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-		final long binSizeMillis = getBinSizeMillis();
-		// initialize the epoch to the range min and then reset appropriate
-		// values to 0 based on the units
-		startEpoch.setTimeInMillis((long) range.getMin());
-		setToEpoch(startEpoch);
+		// initialize the epoch to the bin of the range min
+		final long startEpochMillis = getBin((long) range.getMin()).epoch;
 		// now make sure all bin definitions between the start and end bins
 		// are covered
-		final long startEpochMillis = startEpoch.getTimeInMillis();
 		long epochIterator = startEpochMillis;
 		final List<BinRange> bins = new ArrayList<BinRange>();
 		// track this, so that we can easily declare a range to be the full
@@ -383,19 +529,9 @@ public class TemporalBinningStrategy implements
 		boolean firstBin = ((long) range.getMin() != startEpochMillis);
 		boolean lastBin = false;
 		do {
-			// because not every year has 366 days, and not every month has 31
-			// days we need to reset next epoch to the actual epoch
-			final Calendar nextEpochCal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-			// set it to a value in the middle of the bin just to be sure (for
-			// example if the bin size does not get to the next epoch as is
-			// the case when units are days and the timezone accounts for
-			// daylight savings time)
-			nextEpochCal.setTimeInMillis(epochIterator + (long) (binSizeMillis * 1.5));
-			setToEpoch(nextEpochCal);
-			final long nextEpoch = nextEpochCal.getTimeInMillis();
+			final TemporalBin bin = getEpochBin(epochIterator);
+			final long nextEpoch = bin.nextEpoch;
 			final long maxOfBin = nextEpoch - 1;
-			final Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(timezone));
-			cal.setTimeInMillis(epochIterator);
 			long startMillis, endMillis;
 			boolean fullExtent;
 			if ((long) range.getMax() <= maxOfBin) {
@@ -419,7 +555,7 @@ public class TemporalBinningStrategy implements
 			// we have the millis for range, but to normalize for this bin we
 			// need to subtract the epoch of the bin
 			bins.add(new BinRange(
-					getBinId(cal),
+					bin.binId,
 					startMillis - epochIterator,
 					endMillis - epochIterator,
 					fullExtent));
@@ -430,6 +566,29 @@ public class TemporalBinningStrategy implements
 		return bins.toArray(new BinRange[bins.size()]);
 	}
 
+	/**
+	 *
+	 * @return the bin starting at the epoch, with the ID of the epoch itself
+	 */
+	private TemporalBin getEpochBin(
+			final long epoch ) {
+		final TemporalBin bin = getBin(epoch);
+		if (bin.epoch == epoch) {
+			return bin;
+		}
+		final Calendar cal = Calendar.getInstance(getTimeZone());
+		cal.setTimeInMillis(epoch);
+		final byte[] binId = getBinId(cal);
+		return new TemporalBin(
+				epoch,
+				epoch + 1,
+				epoch,
+				getNextEpoch(
+						cal,
+						epoch),
+				binId);
+	}
+
 	@Override
 	public byte[] toBinary() {
 		final byte[] timeZone = StringUtils.stringToBinary(timezone);
@@ -448,6 +607,8 @@ public class TemporalBinningStrategy implements
 		buffer.get(timeZoneName);
 		unit = Unit.getUnit(unitCalendarEnum);
 		timezone = StringUtils.stringFromBinary(timeZoneName);
+		timeZoneInstance = null;
+		cachedBins = new TemporalBin[0];
 	}
 
 	@Override
@@ -504,4 +665,30 @@ public class TemporalBinningStrategy implements
 				minMillis,
 				maxMillis);
 	}
+
+	/**
+	 * The boundaries of a bin, which is the range of values that share the same
+	 * epoch and bin ID
+	 */
+	private static class TemporalBin
+	{
+		private final long start;
+		private final long end;
+		private final long epoch;
+		private final long nextEpoch;
+		private final byte[] binId;
+
+		private TemporalBin(
+				final long start,
+				final long end,
+				final long epoch,
+				final long nextEpoch,
+				final byte[] binId ) {
+			this.start = start;
+			this.end = end;
+			this.epoch = epoch;
+			this.nextEpoch = nextEpoch;
+			this.binId = binId;
+		}
+	}
 }
@@ -0,0 +1,176 @@
+package mil.nga.giat.geowave.core.geotime.store.filter;
+
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * This filter prunes the rows of a k-nearest-neighbor scan while they are
+ * scanned, which for a distributed data store is within each tablet server. It
+ * keeps the k nearest rows that it has accepted and rejects any row that is no
+ * nearer than all of them, or that is farther than a maximum distance already
+ * known to the client. The client still selects the k nearest of the accepted
+ * rows.
+ *
+ * Because the rows it keeps are assumed to be returned, this filter must be
+ * evaluated after any other filter of the query.
+ */
+public class KNearestNeighborFilter implements
+		DistributableQueryFilter
+{
+	private Point center;
+	private int k;
+	private double maxDistance;
+	private PriorityQueue<Neighbor> neighbors;
+	private Set<ByteArrayId> neighborIds;
+
+	protected KNearestNeighborFilter() {}
+
+	/**
+	 *
+	 * @param center
+	 *            the point to which distances are measured
+	 * @param k
+	 *            the number of neighbors
+	 * @param maxDistance
+	 *            the distance beyond which rows are rejected
+	 */
+	public KNearestNeighborFilter(
+			final Point center,
+			final int k,
+			final double maxDistance ) {
+		this.center = center;
+		this.k = k;
+		this.maxDistance = maxDistance;
+		init();
+	}
+
+	private void init() {
+		neighbors = new PriorityQueue<Neighbor>(
+				Math.max(
+						k,
+						1),
+				new Comparator<Neighbor>() {
+					@Override
+					public int compare(
+							final Neighbor o1,
+							final Neighbor o2 ) {
+						// the farthest neighbor is at the head of the queue
+						return Double.compare(
+								o2.distance,
+								o1.distance);
+					}
+				});
+		neighborIds = new HashSet<ByteArrayId>();
+	}
+
+	@Override
+	public boolean accept(
+			final CommonIndexModel indexModel,
+			final IndexedPersistenceEncoding<?> persistenceEncoding ) {
+		final double distance = getDistance(
+				center,
+				persistenceEncoding.getCommonData());
+		if (Double.isNaN(distance) || (distance > maxDistance)) {
+			return false;
+		}
+		final ByteArrayId id = new ByteArrayId(
+				ByteArrayUtils.combineArrays(
+						persistenceEncoding.getAdapterId().getBytes(),
+						persistenceEncoding.getDataId().getBytes()));
+		if (neighborIds.contains(id)) {
+			// another row of an entry that is already kept
+			return true;
+		}
+		if (neighbors.size() >= k) {
+			if (distance >= neighbors.peek().distance) {
+				return false;
+			}
+			neighborIds.remove(neighbors.poll().id);
+		}
+		neighbors.add(new Neighbor(
+				id,
+				distance));
+		neighborIds.add(id);
+		return true;
+	}
+
+	/**
+	 *
+	 * @param center
+	 * @param commonData
+	 *            the common index data of an entry
+	 * @return the least distance from the center to a geometry of the entry, or
+	 *         NaN if the entry has no geometry
+	 */
+	public static double getDistance(
+			final Point center,
+			final PersistentDataset<?> commonData ) {
+		double distance = Double.NaN;
+		for (final PersistentValue<?> value : commonData.getValues()) {
+			if (value.getValue() instanceof GeometryWrapper) {
+				final Geometry geometry = ((GeometryWrapper) value.getValue()).getGeometry();
+				if (geometry != null) {
+					final double geometryDistance = center.distance(geometry);
+					if (Double.isNaN(distance) || (geometryDistance < distance)) {
+						distance = geometryDistance;
+					}
+				}
+			}
+		}
+		return distance;
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final ByteBuffer buf = ByteBuffer.allocate(28);
+		buf.putDouble(center.getX());
+		buf.putDouble(center.getY());
+		buf.putInt(k);
+		buf.putDouble(maxDistance);
+		return buf.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		final double x = buf.getDouble();
+		final double y = buf.getDouble();
+		center = GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+				x,
+				y));
+		k = buf.getInt();
+		maxDistance = buf.getDouble();
+		init();
+	}
+
+	private static class Neighbor
+	{
+		private final ByteArrayId id;
+		private final double distance;
+
+		private Neighbor(
+				final ByteArrayId id,
+				final double distance ) {
+			this.id = id;
+			this.distance = distance;
+		}
+	}
+}
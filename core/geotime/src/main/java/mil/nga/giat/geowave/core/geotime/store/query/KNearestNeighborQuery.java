@@ -0,0 +1,304 @@
+package mil.nga.giat.geowave.core.geotime.store.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.store.filter.KNearestNeighborFilter;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.query.BasicQuery.ConstraintSet;
+import mil.nga.giat.geowave.core.store.query.BasicQuery.Constraints;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+
+/**
+ * The K Nearest Neighbor Query class finds the k entries nearest to a point.
+ * Rather than a single query, it scans square rings of increasing size around
+ * the point, each constrained to the area that has not been scanned yet, so
+ * that no row is scanned twice. The nearest entries found so far are kept in a
+ * bounded priority queue, and expansion stops once the k-th nearest distance is
+ * within the area that has been scanned, beyond which any entry must be
+ * farther. The size of each ring adapts to the number of entries found so far.
+ *
+ * Distances are planar, in the units of the index (degrees for a spatial
+ * index), and the rings do not wrap around the antimeridian.
+ */
+public class KNearestNeighborQuery
+{
+	private final static Logger LOGGER = Logger.getLogger(KNearestNeighborQuery.class);
+	public static final double DEFAULT_INITIAL_DISTANCE = 0.01;
+	private static final double MIN_GROWTH = 2;
+	private static final double MAX_GROWTH = 8;
+	private static final Envelope WORLD = new Envelope(
+			-180,
+			180,
+			-90,
+			90);
+
+	private final Point center;
+	private final int k;
+	private final double initialDistance;
+
+	/**
+	 *
+	 * @param center
+	 *            the point to which distances are measured
+	 * @param k
+	 *            the number of neighbors
+	 */
+	public KNearestNeighborQuery(
+			final Point center,
+			final int k ) {
+		this(
+				center,
+				k,
+				DEFAULT_INITIAL_DISTANCE);
+	}
+
+	/**
+	 *
+	 * @param center
+	 *            the point to which distances are measured
+	 * @param k
+	 *            the number of neighbors
+	 * @param initialDistance
+	 *            the distance from the center to the edge of the first area
+	 *            scanned
+	 */
+	public KNearestNeighborQuery(
+			final Point center,
+			final int k,
+			final double initialDistance ) {
+		if (k < 1) {
+			throw new IllegalArgumentException(
+					"The number of neighbors must be positive");
+		}
+		if (initialDistance <= 0) {
+			throw new IllegalArgumentException(
+					"The initial distance must be positive");
+		}
+		this.center = center;
+		this.k = k;
+		this.initialDistance = initialDistance;
+	}
+
+	/**
+	 *
+	 * @param dataStore
+	 * @param adapter
+	 * @param index
+	 *            a spatial index
+	 * @param authorizations
+	 * @return the k nearest entries, or fewer if the data store contains fewer,
+	 *         ordered from nearest to farthest
+	 */
+	public <T> List<T> query(
+			final DataStore dataStore,
+			final WritableDataAdapter<T> adapter,
+			final PrimaryIndex index,
+			final String... authorizations ) {
+		final PriorityQueue<Neighbor<T>> neighbors = new PriorityQueue<Neighbor<T>>(
+				k,
+				new Comparator<Neighbor<T>>() {
+					@Override
+					public int compare(
+							final Neighbor<T> o1,
+							final Neighbor<T> o2 ) {
+						// the farthest neighbor is at the head of the queue
+						return Double.compare(
+								o2.distance,
+								o1.distance);
+					}
+				});
+		final Set<ByteArrayId> neighborIds = new HashSet<ByteArrayId>();
+		Envelope scanned = null;
+		double distance = initialDistance;
+		while (true) {
+			final Envelope ring = new Envelope(
+					center.getX() - distance,
+					center.getX() + distance,
+					center.getY() - distance,
+					center.getY() + distance).intersection(WORLD);
+			final double maxDistance = neighbors.size() < k ? Double.POSITIVE_INFINITY : neighbors.peek().distance;
+			int found = 0;
+			try (CloseableIterator<T> it = dataStore.query(
+					new QueryOptions(
+							adapter,
+							index,
+							authorizations),
+					new KNearestNeighborRingQuery(
+							ringConstraints(
+									ring,
+									scanned),
+							ringGeometry(
+									ring,
+									scanned),
+							center,
+							k,
+							maxDistance))) {
+				while (it.hasNext()) {
+					final T entry = it.next();
+					found++;
+					final ByteArrayId id = adapter.getDataId(entry);
+					if (neighborIds.contains(id)) {
+						// an entry intersecting the previous ring
+						continue;
+					}
+					final double entryDistance = KNearestNeighborFilter.getDistance(
+							center,
+							adapter.encode(
+									entry,
+									index.getIndexModel()).getCommonData());
+					if (Double.isNaN(entryDistance)) {
+						continue;
+					}
+					if (neighbors.size() >= k) {
+						if (entryDistance >= neighbors.peek().distance) {
+							continue;
+						}
+						neighborIds.remove(neighbors.poll().id);
+					}
+					neighbors.add(new Neighbor<T>(
+							entry,
+							id,
+							entryDistance));
+					neighborIds.add(id);
+				}
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close k nearest neighbor query",
+						e);
+			}
+			scanned = ring;
+			if ((neighbors.size() >= k) && (neighbors.peek().distance <= distance)) {
+				// any entry that has not been scanned is farther
+				break;
+			}
+			if (ring.contains(WORLD)) {
+				break;
+			}
+			distance = nextDistance(
+					distance,
+					neighbors,
+					found);
+		}
+		final List<Neighbor<T>> sortedNeighbors = new ArrayList<Neighbor<T>>(
+				neighbors);
+		Collections.sort(
+				sortedNeighbors,
+				Collections.reverseOrder(neighbors.comparator()));
+		final List<T> results = new ArrayList<T>(
+				sortedNeighbors.size());
+		for (final Neighbor<T> neighbor : sortedNeighbors) {
+			results.add(neighbor.entry);
+		}
+		return results;
+	}
+
+	private <T> double nextDistance(
+			final double distance,
+			final PriorityQueue<Neighbor<T>> neighbors,
+			final int found ) {
+		if (neighbors.size() >= k) {
+			// every entry nearer than the k-th nearest found so far is within
+			// this distance
+			return neighbors.peek().distance;
+		}
+		if (neighbors.isEmpty()) {
+			return distance * MAX_GROWTH;
+		}
+		// estimate the distance that would contain k entries from the density
+		// of the entries found so far
+		final double growth = Math.sqrt((double) k / (double) Math.max(
+				neighbors.size(),
+				found));
+		return distance * Math.max(
+				MIN_GROWTH,
+				Math.min(
+						MAX_GROWTH,
+						growth));
+	}
+
+	private static Constraints ringConstraints(
+			final Envelope ring,
+			final Envelope scanned ) {
+		if (scanned == null) {
+			return GeometryUtils.basicConstraintsFromEnvelope(ring);
+		}
+		// the ring is decomposed into the strips below, above, left and right
+		// of the area that has been scanned
+		final List<ConstraintSet> constraintSets = new ArrayList<ConstraintSet>();
+		if (ring.getMinY() < scanned.getMinY()) {
+			constraintSets.add(GeometryUtils.basicConstraintSetFromEnvelope(new Envelope(
+					ring.getMinX(),
+					ring.getMaxX(),
+					ring.getMinY(),
+					scanned.getMinY())));
+		}
+		if (ring.getMaxY() > scanned.getMaxY()) {
+			constraintSets.add(GeometryUtils.basicConstraintSetFromEnvelope(new Envelope(
+					ring.getMinX(),
+					ring.getMaxX(),
+					scanned.getMaxY(),
+					ring.getMaxY())));
+		}
+		if (ring.getMinX() < scanned.getMinX()) {
+			constraintSets.add(GeometryUtils.basicConstraintSetFromEnvelope(new Envelope(
+					ring.getMinX(),
+					scanned.getMinX(),
+					scanned.getMinY(),
+					scanned.getMaxY())));
+		}
+		if (ring.getMaxX() > scanned.getMaxX()) {
+			constraintSets.add(GeometryUtils.basicConstraintSetFromEnvelope(new Envelope(
+					scanned.getMaxX(),
+					ring.getMaxX(),
+					scanned.getMinY(),
+					scanned.getMaxY())));
+		}
+		return new Constraints(
+				constraintSets);
+	}
+
+	private static Geometry ringGeometry(
+			final Envelope ring,
+			final Envelope scanned ) {
+		final Geometry ringGeometry = GeometryUtils.GEOMETRY_FACTORY.toGeometry(ring);
+		if (scanned == null) {
+			return ringGeometry;
+		}
+		return ringGeometry.difference(GeometryUtils.GEOMETRY_FACTORY.toGeometry(scanned));
+	}
+
+	private static class Neighbor<T>
+	{
+		private final T entry;
+		private final ByteArrayId id;
+		private final double distance;
+
+		private Neighbor(
+				final T entry,
+				final ByteArrayId id,
+				final double distance ) {
+			this.entry = entry;
+			this.id = id;
+			this.distance = distance;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package mil.nga.giat.geowave.core.geotime.store.query;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.store.filter.KNearestNeighborFilter;
+import mil.nga.giat.geowave.core.store.filter.DistributableFilterList;
+import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+
+/**
+ * A single expansion of a k-nearest-neighbor query, constrained to the ring
+ * between the area that has already been scanned and the area to be scanned
+ * next. In addition to the spatial filter of the ring, the rows are pruned
+ * while they are scanned by a k-nearest-neighbor filter.
+ */
+public class KNearestNeighborRingQuery extends
+		SpatialQuery
+{
+	private Point center;
+	private int k;
+	private double maxDistance;
+
+	protected KNearestNeighborRingQuery() {
+		super();
+	}
+
+	/**
+	 *
+	 * @param constraints
+	 *            the constraints of the ring
+	 * @param ringGeometry
+	 *            the geometry of the ring
+	 * @param center
+	 *            the point to which distances are measured
+	 * @param k
+	 *            the number of neighbors
+	 * @param maxDistance
+	 *            the distance beyond which rows are rejected
+	 */
+	public KNearestNeighborRingQuery(
+			final Constraints constraints,
+			final Geometry ringGeometry,
+			final Point center,
+			final int k,
+			final double maxDistance ) {
+		super(
+				constraints,
+				ringGeometry);
+		this.center = center;
+		this.k = k;
+		this.maxDistance = maxDistance;
+	}
+
+	@Override
+	public List<QueryFilter> createFilters(
+			final CommonIndexModel indexModel ) {
+		final List<DistributableQueryFilter> filters = new ArrayList<DistributableQueryFilter>();
+		for (final QueryFilter filter : super.createFilters(indexModel)) {
+			filters.add((DistributableQueryFilter) filter);
+		}
+		// the nearest neighbor filter must be last so that the rows it keeps
+		// are accepted by every other filter
+		filters.add(new KNearestNeighborFilter(
+				center,
+				k,
+				maxDistance));
+		return Collections.<QueryFilter> singletonList(new DistributableFilterList(
+				true,
+				filters));
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] superBinary = super.toBinary();
+		final ByteBuffer buf = ByteBuffer.allocate(superBinary.length + 28);
+		buf.putDouble(center.getX());
+		buf.putDouble(center.getY());
+		buf.putInt(k);
+		buf.putDouble(maxDistance);
+		buf.put(superBinary);
+		return buf.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		final double x = buf.getDouble();
+		final double y = buf.getDouble();
+		center = GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+				x,
+				y));
+		k = buf.getInt();
+		maxDistance = buf.getDouble();
+		final byte[] superBinary = new byte[bytes.length - 28];
+		buf.get(superBinary);
+		super.fromBinary(superBinary);
+	}
+}
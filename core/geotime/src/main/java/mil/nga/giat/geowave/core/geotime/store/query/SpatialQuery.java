@@ -99,6 +99,30 @@ public class SpatialQuery extends
 		this.compareOp = compareOp;
 	}
 
+	/**
+	 * Constructs a SpatialQuery object whose constraints follow the shape of
+	 * the query geometry rather than its envelope, so that fewer rows outside
+	 * of a non-rectangular geometry are scanned.
+	 * 
+	 * @param queryGeometry
+	 *            spatial geometry of the query
+	 * @param compareOp
+	 *            the spatial relationship of the query geometry
+	 * @param maxConstraintSets
+	 *            the maximum number of cells covering the query geometry
+	 */
+	public SpatialQuery(
+			final Geometry queryGeometry,
+			final CompareOperation compareOp,
+			final int maxConstraintSets ) {
+		super(
+				GeometryUtils.constraintsFromGeometry(
+						queryGeometry,
+						maxConstraintSets));
+		this.queryGeometry = queryGeometry;
+		this.compareOp = compareOp;
+	}
+
 	protected SpatialQuery() {
 		super();
 	}
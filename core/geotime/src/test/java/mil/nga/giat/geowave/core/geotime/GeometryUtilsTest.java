@@ -3,6 +3,7 @@ package mil.nga.giat.geowave.core.geotime;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -16,6 +17,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.IndexMetaData;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.DecomposedNumericDataset;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.store.query.BasicQuery.Constraints;
 
@@ -23,6 +25,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.Point;
@@ -176,6 +179,67 @@ public class GeometryUtilsTest
 
 	}
 
+	@Test
+	public void testGeometryConstraintGeneration() {
+		final GeometryFactory gf = new GeometryFactory();
+		// a diagonal corridor covers little of its envelope
+		final Geometry corridor = gf.createPolygon(new Coordinate[] {
+			new Coordinate(
+					0,
+					0),
+			new Coordinate(
+					2,
+					0),
+			new Coordinate(
+					20,
+					18),
+			new Coordinate(
+					20,
+					20),
+			new Coordinate(
+					18,
+					20),
+			new Coordinate(
+					0,
+					2),
+			new Coordinate(
+					0,
+					0)
+		});
+		final List<MultiDimensionalNumericData> results = GeometryUtils.constraintsFromGeometry(
+				corridor,
+				32).getIndexConstraints(
+				new ExampleNumericIndexStrategy());
+		assertTrue(results.size() > 1);
+		assertTrue(results.size() <= 32);
+
+		final List<Geometry> cells = new ArrayList<Geometry>();
+		double area = 0;
+		for (final MultiDimensionalNumericData result : results) {
+			// the cells share the range cap of the query
+			assertTrue(result instanceof DecomposedNumericDataset);
+			final Envelope cell = new Envelope(
+					result.getMinValuesPerDimension()[0],
+					result.getMaxValuesPerDimension()[0],
+					result.getMinValuesPerDimension()[1],
+					result.getMaxValuesPerDimension()[1]);
+			cells.add(gf.toGeometry(cell));
+			area += cell.getArea();
+		}
+		assertTrue(gf.buildGeometry(
+				cells).union().covers(
+				corridor));
+		assertTrue(area < (corridor.getEnvelopeInternal().getArea() / 2));
+
+		// rectangles are not decomposed
+		assertEquals(
+				1,
+				GeometryUtils.constraintsFromGeometry(
+						corridor.getEnvelope(),
+						32).getIndexConstraints(
+						new ExampleNumericIndexStrategy()).size());
+	}
+
 	public static class ExampleNumericIndexStrategy implements
 			NumericIndexStrategy
 	{
@@ -1,10 +1,12 @@
 package mil.nga.giat.geowave.core.geotime.index.dimension;
 
 import java.util.Calendar;
+import java.util.Random;
 import java.util.TimeZone;
 
 import mil.nga.giat.geowave.core.geotime.index.dimension.TemporalBinningStrategy.Unit;
 import mil.nga.giat.geowave.core.index.dimension.bin.BinRange;
+import mil.nga.giat.geowave.core.index.dimension.bin.BinValue;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
 
 import org.junit.Assert;
@@ -408,4 +410,69 @@ public class TemporalBinningStrategyTest
 		Assert.assertTrue(ranges[1].getNormalizedMin() == ranges[1].getNormalizedMax());
 		Assert.assertTrue(ranges[1].getNormalizedMin() == binStrategy.getBinMin());
 	}
+
+	@Test
+	public void testCachedBinsMatchCalendar() {
+		final Random random = new Random(
+				12345);
+		for (final String timezone : new String[] {
+			"GMT",
+			"America/New_York"
+		}) {
+			for (final Unit unit : Unit.values()) {
+				final TemporalBinningStrategy binStrategy = new TemporalBinningStrategy(
+						unit,
+						timezone);
+				// values clustered in time so most of them are within cached
+				// bins, including the daylight savings time transitions
+				long time = 1457800000000L;
+				for (int i = 0; i < 5000; i++) {
+					time += (long) (random.nextDouble() * 2 * TemporalBinningStrategy.MILLIS_PER_DAY);
+					// a new binning strategy has nothing cached so it bins
+					// using a calendar
+					final TemporalBinningStrategy calendarStrategy = new TemporalBinningStrategy(
+							unit,
+							timezone);
+					final BinValue expected = calendarStrategy.getBinnedValue(time);
+					final BinValue actual = binStrategy.getBinnedValue(time);
+					Assert.assertArrayEquals(
+							expected.getBinId(),
+							actual.getBinId());
+					Assert.assertEquals(
+							expected.getNormalizedValue(),
+							actual.getNormalizedValue(),
+							0);
+					if ((i % 100) == 0) {
+						// a range spanning a few bins
+						final NumericRange range = new NumericRange(
+								time,
+								time + ((binStrategy.getBinMax() + 1) * 5));
+						final BinRange[] expectedRanges = new TemporalBinningStrategy(
+								unit,
+								timezone).getNormalizedRanges(range);
+						final BinRange[] actualRanges = binStrategy.getNormalizedRanges(range);
+						Assert.assertEquals(
+								expectedRanges.length,
+								actualRanges.length);
+						for (int r = 0; r < expectedRanges.length; r++) {
+							Assert.assertArrayEquals(
+									expectedRanges[r].getBinId(),
+									actualRanges[r].getBinId());
+							Assert.assertEquals(
+									expectedRanges[r].getNormalizedMin(),
+									actualRanges[r].getNormalizedMin(),
+									0);
+							Assert.assertEquals(
+									expectedRanges[r].getNormalizedMax(),
+									actualRanges[r].getNormalizedMax(),
+									0);
+							Assert.assertEquals(
+									expectedRanges[r].isFullExtent(),
+									actualRanges[r].isFullExtent());
+						}
+					}
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,305 @@
+package mil.nga.giat.geowave.core.geotime.store.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryAdapter;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.ScanCallback;
+import mil.nga.giat.geowave.core.store.adapter.AbstractDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler;
+import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler.RowBuilder;
+import mil.nga.giat.geowave.core.store.adapter.PersistentIndexFieldHandler;
+import mil.nga.giat.geowave.core.store.adapter.exceptions.MismatchedIndexToAdapterMapping;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryRequiredOptions;
+import mil.nga.giat.geowave.core.store.memory.MemoryStoreFactoryFamily;
+import mil.nga.giat.geowave.core.store.query.AfterRowIdQuery;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+public class AfterRowIdQueryTest
+{
+	private static final ByteArrayId GEOM = new ByteArrayId(
+			"geom");
+	private static final int PAGE_SIZE = 7;
+
+	private final PrimaryIndex index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+	private final GeometryDataAdapter adapter = new GeometryDataAdapter();
+	private DataStore dataStore;
+
+	@Before
+	public void ingest()
+			throws IOException,
+			MismatchedIndexToAdapterMapping {
+		int duplicated = 0;
+		final MemoryRequiredOptions options = new MemoryRequiredOptions();
+		options.setGeowaveNamespace("test_" + getClass().getName());
+		dataStore = new MemoryStoreFactoryFamily().getDataStoreFactory().createStore(
+				options);
+		try (IndexWriter indexWriter = dataStore.createWriter(
+				adapter,
+				index)) {
+			for (int i = 0; i < 60; i++) {
+				// boxes of varying sizes, many of which straddle the cells of
+				// their tier and are stored in several rows
+				final double size = 0.1 + ((i % 6) * 1.7);
+				final Geometry box = GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+						(i * 2.9) - 80,
+						((i * 2.9) - 80) + size,
+						(i * 1.3) - 40,
+						((i * 1.3) - 40) + size));
+				box.setUserData("box" + i);
+				indexWriter.write(box);
+				if (adapter.encode(
+						box,
+						index.getIndexModel()).getInsertionIds(
+						index).size() > 1) {
+					duplicated++;
+				}
+			}
+		}
+		assertTrue(duplicated > 0);
+	}
+
+	@Test
+	public void testPageEverything() {
+		assertPagesMatch(null);
+	}
+
+	@Test
+	public void testPageSpatialQuery() {
+		assertPagesMatch(new SpatialQuery(
+				GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+						-50,
+						50,
+						-30,
+						30))));
+	}
+
+	private void assertPagesMatch(
+			final Query query ) {
+		final Set<String> expected = new HashSet<String>();
+		try (CloseableIterator<Geometry> it = dataStore.query(
+				new QueryOptions(
+						adapter,
+						index),
+				query)) {
+			while (it.hasNext()) {
+				expected.add((String) it.next().getUserData());
+			}
+		}
+		catch (final IOException e) {
+			throw new RuntimeException(
+					e);
+		}
+		assertTrue(expected.size() > PAGE_SIZE);
+
+		final List<String> paged = new ArrayList<String>();
+		ByteArrayId afterRowId = null;
+		int pages = 0;
+		do {
+			final List<String> page = new ArrayList<String>();
+			afterRowId = queryPage(
+					query,
+					afterRowId,
+					page);
+			paged.addAll(page);
+			pages++;
+		}
+		while (afterRowId != null);
+
+		assertEquals(
+				"each entry should be returned on exactly one page",
+				paged.size(),
+				new HashSet<String>(
+						paged).size());
+		assertEquals(
+				expected,
+				new HashSet<String>(
+						paged));
+		assertTrue(pages > 1);
+	}
+
+	/**
+	 * @return the row ID of the last entry of the page, or null if there are no
+	 *         more pages
+	 */
+	private ByteArrayId queryPage(
+			final Query query,
+			final ByteArrayId afterRowId,
+			final List<String> page ) {
+		final ByteArrayId[] scannedRowId = new ByteArrayId[1];
+		final QueryOptions options = new QueryOptions(
+				adapter,
+				index);
+		options.setScanCallback(new ScanCallback<Geometry>() {
+			@Override
+			public void entryScanned(
+					final DataStoreEntryInfo entryInfo,
+					final Geometry entry ) {
+				scannedRowId[0] = entryInfo.getRowIds().get(
+						0);
+			}
+		});
+		ByteArrayId lastRowId = null;
+		try (CloseableIterator<Geometry> it = dataStore.query(
+				options,
+				new AfterRowIdQuery(
+						query,
+						index,
+						afterRowId))) {
+			while (it.hasNext()) {
+				if (page.size() == PAGE_SIZE) {
+					return lastRowId;
+				}
+				page.add((String) it.next().getUserData());
+				lastRowId = scannedRowId[0];
+			}
+		}
+		catch (final IOException e) {
+			throw new RuntimeException(
+					e);
+		}
+		return null;
+	}
+
+	private static class GeometryDataAdapter extends
+			AbstractDataAdapter<Geometry>
+	{
+		private GeometryDataAdapter() {
+			super(
+					Collections
+							.<PersistentIndexFieldHandler<Geometry, ? extends CommonIndexValue, Object>> singletonList(new GeometryFieldHandler()),
+					new ArrayList<NativeFieldHandler<Geometry, Object>>());
+		}
+
+		@Override
+		public ByteArrayId getAdapterId() {
+			return new ByteArrayId(
+					"geometry");
+		}
+
+		@Override
+		public boolean isSupported(
+				final Geometry entry ) {
+			return true;
+		}
+
+		@Override
+		public ByteArrayId getDataId(
+				final Geometry entry ) {
+			return new ByteArrayId(
+					(String) entry.getUserData());
+		}
+
+		@Override
+		public FieldReader<Object> getReader(
+				final ByteArrayId fieldId ) {
+			return null;
+		}
+
+		@Override
+		public FieldWriter<Geometry, Object> getWriter(
+				final ByteArrayId fieldId ) {
+			return null;
+		}
+
+		@Override
+		protected RowBuilder<Geometry, Object> newBuilder() {
+			return new RowBuilder<Geometry, Object>() {
+				private Geometry geometry;
+
+				@Override
+				public void setField(
+						final PersistentValue<Object> fieldValue ) {
+					geometry = (Geometry) fieldValue.getValue();
+				}
+
+				@Override
+				public Geometry buildRow(
+						final ByteArrayId dataId ) {
+					geometry.setUserData(dataId.getString());
+					return geometry;
+				}
+			};
+		}
+
+		@Override
+		public int getPositionOfOrderedField(
+				final CommonIndexModel model,
+				final ByteArrayId fieldId ) {
+			return 0;
+		}
+
+		@Override
+		public ByteArrayId getFieldIdForPosition(
+				final CommonIndexModel model,
+				final int position ) {
+			return GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID;
+		}
+	}
+
+	private static class GeometryFieldHandler implements
+			PersistentIndexFieldHandler<Geometry, GeometryWrapper, Object>
+	{
+		@Override
+		public ByteArrayId[] getNativeFieldIds() {
+			return new ByteArrayId[] {
+				GEOM
+			};
+		}
+
+		@Override
+		public GeometryWrapper toIndexValue(
+				final Geometry row ) {
+			return new GeometryWrapper(
+					row);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public PersistentValue<Object>[] toNativeValues(
+				final GeometryWrapper indexValue ) {
+			return new PersistentValue[] {
+				new PersistentValue<Object>(
+						GEOM,
+						indexValue.getGeometry())
+			};
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return new byte[0];
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {}
+	}
+}
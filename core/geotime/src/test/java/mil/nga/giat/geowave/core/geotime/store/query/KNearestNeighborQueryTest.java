@@ -0,0 +1,316 @@
+package mil.nga.giat.geowave.core.geotime.store.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryAdapter;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.core.geotime.store.filter.KNearestNeighborFilter;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.AbstractDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler;
+import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler.RowBuilder;
+import mil.nga.giat.geowave.core.store.adapter.PersistentIndexFieldHandler;
+import mil.nga.giat.geowave.core.store.adapter.exceptions.MismatchedIndexToAdapterMapping;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.MemoryRequiredOptions;
+import mil.nga.giat.geowave.core.store.memory.MemoryStoreFactoryFamily;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Point;
+
+public class KNearestNeighborQueryTest
+{
+	private static final ByteArrayId GEOM = new ByteArrayId(
+			"geom");
+
+	@Test
+	public void testFilter() {
+		final KNearestNeighborFilter filter = new KNearestNeighborFilter(
+				createPoint(
+						0,
+						0),
+				2,
+				10);
+		final KNearestNeighborFilter filterCopy = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(filter),
+				KNearestNeighborFilter.class);
+		final CommonIndexModel model = new SpatialDimensionalityTypeProvider().createPrimaryIndex().getIndexModel();
+
+		assertTrue(filterCopy.accept(
+				model,
+				createData(
+						"a",
+						3)));
+		assertTrue(filterCopy.accept(
+				model,
+				createData(
+						"b",
+						2)));
+		// no nearer than the two nearest rows so far
+		assertFalse(filterCopy.accept(
+				model,
+				createData(
+						"c",
+						4)));
+		// beyond the maximum distance
+		assertFalse(filterCopy.accept(
+				model,
+				createData(
+						"d",
+						11)));
+		// another row of a kept entry
+		assertTrue(filterCopy.accept(
+				model,
+				createData(
+						"b",
+						2)));
+		assertTrue(filterCopy.accept(
+				model,
+				createData(
+						"e",
+						1)));
+		// "a" was displaced by "e"
+		assertFalse(filterCopy.accept(
+				model,
+				createData(
+						"f",
+						2.5)));
+	}
+
+	@Test
+	public void testQuery()
+			throws IOException,
+			MismatchedIndexToAdapterMapping {
+		final PrimaryIndex index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+		final MemoryRequiredOptions options = new MemoryRequiredOptions();
+		options.setGeowaveNamespace("test_" + getClass().getName());
+		final DataStore dataStore = new MemoryStoreFactoryFamily().getDataStoreFactory().createStore(
+				options);
+		final PointAdapter adapter = new PointAdapter();
+		final List<Point> points = new ArrayList<Point>();
+		try (IndexWriter indexWriter = dataStore.createWriter(
+				adapter,
+				index)) {
+			for (int x = 0; x < 20; x++) {
+				for (int y = 0; y < 20; y++) {
+					final Point point = createPoint(
+							(x * 0.37) - 3,
+							(y * 0.29) + 40);
+					point.setUserData(x + "_" + y);
+					points.add(point);
+					indexWriter.write(point);
+				}
+			}
+		}
+
+		final Point center = createPoint(
+				-0.4,
+				42.1);
+		Collections.sort(
+				points,
+				new Comparator<Point>() {
+					@Override
+					public int compare(
+							final Point o1,
+							final Point o2 ) {
+						return Double.compare(
+								o1.distance(center),
+								o2.distance(center));
+					}
+				});
+
+		final List<Point> neighbors = new KNearestNeighborQuery(
+				center,
+				7,
+				0.001).query(
+				dataStore,
+				adapter,
+				index);
+		assertEquals(
+				7,
+				neighbors.size());
+		for (int i = 0; i < neighbors.size(); i++) {
+			assertEquals(
+					points.get(
+							i).getUserData(),
+					neighbors.get(
+							i).getUserData());
+		}
+
+		// fewer entries than neighbors
+		assertEquals(
+				points.size(),
+				new KNearestNeighborQuery(
+						center,
+						points.size() + 1).query(
+						dataStore,
+						adapter,
+						index).size());
+	}
+
+	private static Point createPoint(
+			final double x,
+			final double y ) {
+		return GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+				x,
+				y));
+	}
+
+	private static IndexedPersistenceEncoding createData(
+			final String id,
+			final double x ) {
+		final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+		commonData.addOrUpdateValue(new PersistentValue<CommonIndexValue>(
+				GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID,
+				new GeometryWrapper(
+						createPoint(
+								x,
+								0))));
+		return new IndexedPersistenceEncoding(
+				new ByteArrayId(
+						"adapter"),
+				new ByteArrayId(
+						id),
+				new ByteArrayId(
+						id),
+				0,
+				commonData,
+				new PersistentDataset<byte[]>());
+	}
+
+	private static class PointAdapter extends
+			AbstractDataAdapter<Point>
+	{
+		private PointAdapter() {
+			super(
+					Collections
+							.<PersistentIndexFieldHandler<Point, ? extends CommonIndexValue, Object>> singletonList(new PointFieldHandler()),
+					new ArrayList<NativeFieldHandler<Point, Object>>());
+		}
+
+		@Override
+		public ByteArrayId getAdapterId() {
+			return new ByteArrayId(
+					"point");
+		}
+
+		@Override
+		public boolean isSupported(
+				final Point entry ) {
+			return true;
+		}
+
+		@Override
+		public ByteArrayId getDataId(
+				final Point entry ) {
+			return new ByteArrayId(
+					(String) entry.getUserData());
+		}
+
+		@Override
+		public FieldReader<Object> getReader(
+				final ByteArrayId fieldId ) {
+			return null;
+		}
+
+		@Override
+		public FieldWriter<Point, Object> getWriter(
+				final ByteArrayId fieldId ) {
+			return null;
+		}
+
+		@Override
+		protected RowBuilder<Point, Object> newBuilder() {
+			return new RowBuilder<Point, Object>() {
+				private Point point;
+
+				@Override
+				public void setField(
+						final PersistentValue<Object> fieldValue ) {
+					point = (Point) fieldValue.getValue();
+				}
+
+				@Override
+				public Point buildRow(
+						final ByteArrayId dataId ) {
+					point.setUserData(dataId.getString());
+					return point;
+				}
+			};
+		}
+
+		@Override
+		public int getPositionOfOrderedField(
+				final CommonIndexModel model,
+				final ByteArrayId fieldId ) {
+			return 0;
+		}
+
+		@Override
+		public ByteArrayId getFieldIdForPosition(
+				final CommonIndexModel model,
+				final int position ) {
+			return GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID;
+		}
+	}
+
+	private static class PointFieldHandler implements
+			PersistentIndexFieldHandler<Point, GeometryWrapper, Object>
+	{
+		@Override
+		public ByteArrayId[] getNativeFieldIds() {
+			return new ByteArrayId[] {
+				GEOM
+			};
+		}
+
+		@Override
+		public GeometryWrapper toIndexValue(
+				final Point row ) {
+			return new GeometryWrapper(
+					row);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public PersistentValue<Object>[] toNativeValues(
+				final GeometryWrapper indexValue ) {
+			return new PersistentValue[] {
+				new PersistentValue<Object>(
+						GEOM,
+						indexValue.getGeometry())
+			};
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return new byte[0];
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {}
+	}
+}
@@ -17,6 +17,8 @@ public class ByteArrayId implements
 	private final byte[] id;
 	@SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
 	private transient String stringId;
+	// 0 until computed, racy but idempotent like String's hash
+	private transient int hash;
 
 	public ByteArrayId(
 			final byte[] id ) {
@@ -56,11 +58,72 @@ public class ByteArrayId implements
 		return "ByteArrayId [getString()=" + getString() + "]";
 	}
 
+	/**
+	 * 
+	 * @param start
+	 *            the first byte of the slice, inclusive
+	 * @param end
+	 *            the last byte of the slice, exclusive
+	 * @return an ID of the bytes within the range
+	 */
+	public ByteArrayId slice(
+			final int start,
+			final int end ) {
+		if ((start == 0) && (end == id.length)) {
+			return this;
+		}
+		return new ByteArrayId(
+				Arrays.copyOfRange(
+						id,
+						start,
+						end));
+	}
+
+	/**
+	 * 
+	 * @param start
+	 *            the first byte of the view, inclusive
+	 * @param end
+	 *            the last byte of the view, exclusive
+	 * @return a read-only view of the bytes within the range, without copying
+	 *         them
+	 */
+	public ByteBuffer view(
+			final int start,
+			final int end ) {
+		return ByteBuffer.wrap(
+				id,
+				start,
+				end - start).slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * 
+	 * @param prefix
+	 * @return whether this ID begins with the bytes of the prefix
+	 */
+	public boolean startsWith(
+			final ByteArrayId prefix ) {
+		if (prefix.id.length > id.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.id.length; i++) {
+			if (id[i] != prefix.id[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = (prime * result) + Arrays.hashCode(id);
+		int result = hash;
+		if (result == 0) {
+			final int prime = 31;
+			result = 1;
+			result = (prime * result) + Arrays.hashCode(id);
+			hash = result;
+		}
 		return result;
 	}
 
@@ -77,6 +140,9 @@ public class ByteArrayId implements
 			return false;
 		}
 		final ByteArrayId other = (ByteArrayId) obj;
+		if ((hash != 0) && (other.hash != 0) && (hash != other.hash)) {
+			return false;
+		}
 		return Arrays.equals(
 				id,
 				other.id);
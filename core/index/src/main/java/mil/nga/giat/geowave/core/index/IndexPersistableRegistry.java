@@ -0,0 +1,90 @@
+package mil.nga.giat.geowave.core.index;
+
+import mil.nga.giat.geowave.core.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.core.index.dimension.UnboundedDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.BinnedNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.DecomposedNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
+import mil.nga.giat.geowave.core.index.sfc.hilbert.HilbertSFC;
+import mil.nga.giat.geowave.core.index.sfc.tiered.SingleTierSubStrategy;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexStrategy;
+import mil.nga.giat.geowave.core.index.sfc.zorder.ZOrderSFC;
+import mil.nga.giat.geowave.core.index.simple.HashKeyIndexStrategy;
+import mil.nga.giat.geowave.core.index.simple.RoundRobinKeyIndexStrategy;
+import mil.nga.giat.geowave.core.index.simple.SimpleIntegerIndexStrategy;
+import mil.nga.giat.geowave.core.index.simple.SimpleLongIndexStrategy;
+import mil.nga.giat.geowave.core.index.simple.SimpleShortIndexStrategy;
+
+public class IndexPersistableRegistry implements
+		PersistableRegistrySpi
+{
+
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 100,
+					CompoundIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 101,
+					NullNumericIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 102,
+					NumericIndexStrategyWrapper.class),
+			new PersistableIdAndClass(
+					(short) 103,
+					BasicDimensionDefinition.class),
+			new PersistableIdAndClass(
+					(short) 104,
+					UnboundedDimensionDefinition.class),
+			new PersistableIdAndClass(
+					(short) 105,
+					SFCDimensionDefinition.class),
+			new PersistableIdAndClass(
+					(short) 106,
+					BasicNumericDataset.class),
+			new PersistableIdAndClass(
+					(short) 107,
+					BinnedNumericDataset.class),
+			new PersistableIdAndClass(
+					(short) 108,
+					NumericRange.class),
+			new PersistableIdAndClass(
+					(short) 109,
+					NumericValue.class),
+			new PersistableIdAndClass(
+					(short) 110,
+					HilbertSFC.class),
+			new PersistableIdAndClass(
+					(short) 111,
+					ZOrderSFC.class),
+			new PersistableIdAndClass(
+					(short) 112,
+					SingleTierSubStrategy.class),
+			new PersistableIdAndClass(
+					(short) 113,
+					TieredSFCIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 114,
+					HashKeyIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 115,
+					RoundRobinKeyIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 116,
+					SimpleIntegerIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 117,
+					SimpleLongIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 118,
+					SimpleShortIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 119,
+					DecomposedNumericDataset.class)
+		};
+	}
+}
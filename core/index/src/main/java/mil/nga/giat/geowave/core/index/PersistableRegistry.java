@@ -0,0 +1,168 @@
+package mil.nga.giat.geowave.core.index;
+
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mil.nga.giat.geowave.core.index.PersistableRegistrySpi.PersistableIdAndClass;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The registry of persistable IDs provided by each
+ * {@link PersistableRegistrySpi}, along with the constructor of each registered
+ * class so that instances are not resolved by name
+ */
+public class PersistableRegistry
+{
+	private final static Logger LOGGER = Logger.getLogger(PersistableRegistry.class);
+	private static volatile Registry registry = null;
+	private static final Set<Short> RELOADED_IDS = Collections.newSetFromMap(new ConcurrentHashMap<Short, Boolean>());
+
+	private PersistableRegistry() {}
+
+	/**
+	 *
+	 * @param persistableClass
+	 * @return the registered ID of the class, or null if it is not registered
+	 */
+	public static Short getPersistableId(
+			final Class<?> persistableClass ) {
+		return getRegistry().classToId.get(persistableClass);
+	}
+
+	/**
+	 *
+	 * @param persistableId
+	 * @return a new instance of the class registered with the ID, or null if no
+	 *         class is registered with the ID or it cannot be instantiated
+	 */
+	public static Persistable newInstance(
+			final short persistableId ) {
+		Constructor<? extends Persistable> constructor = getRegistry().idToConstructor.get(persistableId);
+		if ((constructor == null) && RELOADED_IDS.add(persistableId)) {
+			// the registry may have been loaded before the class loader that
+			// provides this ID was available
+			registry = loadRegistry();
+			constructor = registry.idToConstructor.get(persistableId);
+		}
+		if (constructor == null) {
+			LOGGER.warn("error creating class: no class is registered with persistable ID " + persistableId);
+			return null;
+		}
+		try {
+			return constructor.newInstance();
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"error creating class: could not create class " + constructor.getDeclaringClass().getName(),
+					e);
+			return null;
+		}
+	}
+
+	private static Registry getRegistry() {
+		Registry currentRegistry = registry;
+		if (currentRegistry == null) {
+			currentRegistry = loadRegistry();
+			registry = currentRegistry;
+		}
+		return currentRegistry;
+	}
+
+	private static Registry loadRegistry() {
+		final Registry newRegistry = new Registry();
+		final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		final ClassLoader classLoader = PersistableRegistry.class.getClassLoader();
+		if (contextClassLoader != null) {
+			register(
+					newRegistry,
+					ServiceLoader.load(
+							PersistableRegistrySpi.class,
+							contextClassLoader).iterator());
+		}
+		if ((classLoader != null) && (classLoader != contextClassLoader)) {
+			register(
+					newRegistry,
+					ServiceLoader.load(
+							PersistableRegistrySpi.class,
+							classLoader).iterator());
+		}
+		return newRegistry;
+	}
+
+	private static void register(
+			final Registry registry,
+			final Iterator<PersistableRegistrySpi> registries ) {
+		while (registries.hasNext()) {
+			final PersistableRegistrySpi spi;
+			try {
+				spi = registries.next();
+			}
+			catch (final Throwable e) {
+				LOGGER.warn(
+						"Unable to load persistable registry",
+						e);
+				continue;
+			}
+			for (final PersistableIdAndClass persistable : spi.getSupportedPersistables()) {
+				register(
+						registry,
+						persistable);
+			}
+		}
+	}
+
+	private static void register(
+			final Registry registry,
+			final PersistableIdAndClass persistable ) {
+		final short persistableId = persistable.getPersistableId();
+		final Class<? extends Persistable> persistableClass = persistable.getPersistableClass();
+		if (persistableId <= 0) {
+			LOGGER.error("Persistable ID " + persistableId + " of " + persistableClass.getName()
+					+ " is not positive, it will be persisted by class name");
+			return;
+		}
+		final Constructor<? extends Persistable> existingConstructor = registry.idToConstructor.get(persistableId);
+		if (existingConstructor != null) {
+			if (!existingConstructor.getDeclaringClass().equals(
+					persistableClass)) {
+				LOGGER.error("Persistable ID " + persistableId + " of " + persistableClass.getName()
+						+ " is already registered to " + existingConstructor.getDeclaringClass().getName());
+			}
+			return;
+		}
+		if (registry.classToId.containsKey(persistableClass)) {
+			LOGGER.error(persistableClass.getName() + " is already registered with persistable ID "
+					+ registry.classToId.get(persistableClass));
+			return;
+		}
+		try {
+			// use the no arg constructor and make sure its accessible
+			final Constructor<? extends Persistable> constructor = persistableClass.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			registry.idToConstructor.put(
+					persistableId,
+					constructor);
+			registry.classToId.put(
+					persistableClass,
+					persistableId);
+		}
+		catch (final Exception e) {
+			LOGGER.error(
+					"Unable to register " + persistableClass.getName() + ", it will be persisted by class name",
+					e);
+		}
+	}
+
+	private static class Registry
+	{
+		private final Map<Short, Constructor<? extends Persistable>> idToConstructor = new HashMap<Short, Constructor<? extends Persistable>>();
+		private final Map<Class<?>, Short> classToId = new HashMap<Class<?>, Short>();
+	}
+}
@@ -0,0 +1,47 @@
+package mil.nga.giat.geowave.core.index;
+
+/**
+ * This interface can be injected and automatically discovered using SPI to
+ * register compact IDs for persistable classes, which are then persisted by
+ * {@link PersistenceUtils} with the ID rather than the class name. IDs must be
+ * unique across all registries; each module uses its own range:
+ * <ul>
+ * <li>100-199 core index</li>
+ * <li>200-299 core store</li>
+ * <li>300-399 core geotime</li>
+ * <li>500-599 vector adapter</li>
+ * </ul>
+ * Once released, an ID must never be reassigned to a different class.
+ */
+public interface PersistableRegistrySpi
+{
+	public PersistableIdAndClass[] getSupportedPersistables();
+
+	public static class PersistableIdAndClass
+	{
+		private final short persistableId;
+		private final Class<? extends Persistable> persistableClass;
+
+		/**
+		 *
+		 * @param persistableId
+		 *            a positive ID
+		 * @param persistableClass
+		 *            the class, which must have a no-arg constructor
+		 */
+		public PersistableIdAndClass(
+				final short persistableId,
+				final Class<? extends Persistable> persistableClass ) {
+			this.persistableId = persistableId;
+			this.persistableClass = persistableClass;
+		}
+
+		public short getPersistableId() {
+			return persistableId;
+		}
+
+		public Class<? extends Persistable> getPersistableClass() {
+			return persistableClass;
+		}
+	}
+}
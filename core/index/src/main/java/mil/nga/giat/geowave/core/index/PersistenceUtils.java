@@ -5,6 +5,8 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.log4j.Logger;
 
@@ -16,6 +18,38 @@ import org.apache.log4j.Logger;
 public class PersistenceUtils
 {
 	private final static Logger LOGGER = Logger.getLogger(PersistenceUtils.class);
+	/**
+	 * The system property that enables persisting registered classes by their
+	 * persistable ID
+	 */
+	public final static String PERSIST_BY_ID_PROPERTY = "geowave.persistence.persistById";
+	private final static int PERSISTABLE_ID_FLAG = 0x8000;
+	private static volatile boolean persistById = Boolean.getBoolean(PERSIST_BY_ID_PROPERTY);
+	private final static ConcurrentMap<String, Constructor<?>> CONSTRUCTOR_CACHE = new ConcurrentHashMap<String, Constructor<?>>();
+
+	/**
+	 * Registered classes are persisted by class name unless this is enabled, as
+	 * builds that predate persistable IDs cannot read them. Either encoding is
+	 * always read, so this should only be enabled once every process that reads
+	 * the binaries, such as tablet or region servers, supports IDs.
+	 *
+	 * @param persistById
+	 *            whether registered classes are persisted by their
+	 *            {@link PersistableRegistry} ID
+	 */
+	public static void setPersistById(
+			final boolean persistById ) {
+		PersistenceUtils.persistById = persistById;
+	}
+
+	/**
+	 *
+	 * @return whether registered classes are persisted by their ID, which
+	 *         defaults to the {@link #PERSIST_BY_ID_PROPERTY} system property
+	 */
+	public static boolean isPersistById() {
+		return persistById;
+	}
 
 	public static byte[] toBinary(
 			final Collection<? extends Persistable> persistables ) {
@@ -44,10 +78,21 @@ public class PersistenceUtils
 		if (persistable == null) {
 			return new byte[0];
 		}
+		final byte[] persistableBinary;
+		final Short persistableId = persistById ? PersistableRegistry.getPersistableId(persistable.getClass()) : null;
+		if (persistableId != null) {
+			// preface the payload with the registered ID of the class, its
+			// high bit distinguishes it from the length of a class name
+			persistableBinary = persistable.toBinary();
+			final ByteBuffer buf = ByteBuffer.allocate(2 + persistableBinary.length);
+			buf.putShort((short) (persistableId | PERSISTABLE_ID_FLAG));
+			buf.put(persistableBinary);
+			return buf.array();
+		}
 		// preface the payload with the class name and a length of the class
 		// name
 		final byte[] className = StringUtils.stringToBinary(persistable.getClass().getName());
-		final byte[] persistableBinary = persistable.toBinary();
+		persistableBinary = persistable.toBinary();
 		final int classNameLength = className.length;
 		final ByteBuffer buf = ByteBuffer.allocate(4 + classNameLength + persistableBinary.length);
 		buf.putInt(classNameLength);
@@ -80,6 +125,20 @@ public class PersistenceUtils
 			final byte[] bytes,
 			final Class<T> expectedType ) {
 		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		if ((bytes.length >= 2) && ((bytes[0] & 0x80) != 0)) {
+			final short persistableId = (short) (buf.getShort() & ~PERSISTABLE_ID_FLAG);
+			final T retVal = cast(
+					PersistableRegistry.newInstance(persistableId),
+					expectedType);
+			if (retVal != null) {
+				final byte[] persistableBinary = new byte[bytes.length - 2];
+				buf.get(persistableBinary);
+				retVal.fromBinary(persistableBinary);
+			}
+			return retVal;
+		}
+		// a class name is never long enough to set the high bit of its
+		// length, so this was persisted by class name
 		final int classNameLength = buf.getInt();
 		final byte[] classNameBinary = new byte[classNameLength];
 		final byte[] persistableBinary = new byte[bytes.length - classNameLength - 4];
@@ -98,28 +157,59 @@ public class PersistenceUtils
 		return retVal;
 	}
 
+	@SuppressWarnings("unchecked")
+	private static <T> T cast(
+			final Object instance,
+			final Class<T> expectedType ) {
+		if (instance == null) {
+			return null;
+		}
+		if (!expectedType.isAssignableFrom(instance.getClass())) {
+			LOGGER.warn("error creating class: " + instance.getClass().getName() + " does not implement "
+					+ expectedType.getCanonicalName());
+			return null;
+		}
+		return (T) instance;
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <T> T classFactory(
 			final String className,
 			final Class<T> expectedType ) {
-		Class<?> factoryType = null;
+		Constructor<?> noArgConstructor = CONSTRUCTOR_CACHE.get(className);
+		if (noArgConstructor == null) {
+			Class<?> factoryType = null;
 
-		try {
-			factoryType = Class.forName(className);
-		}
-		catch (final Throwable e) {
-			LOGGER.warn(
-					"error creating class: could not find class " + className,
-					e);
+			try {
+				factoryType = Class.forName(className);
+			}
+			catch (final Throwable e) {
+				LOGGER.warn(
+						"error creating class: could not find class " + className,
+						e);
+			}
+
+			if (factoryType != null) {
+				try {
+					// use the no arg constructor and make sure its accessible
+					noArgConstructor = factoryType.getDeclaredConstructor();
+					noArgConstructor.setAccessible(true);
+					CONSTRUCTOR_CACHE.put(
+							className,
+							noArgConstructor);
+				}
+				catch (final Throwable e) {
+					LOGGER.warn(
+							"error creating class: could not create class " + className,
+							e);
+				}
+			}
 		}
 
-		if (factoryType != null) {
+		if (noArgConstructor != null) {
 			Object factoryClassInst = null;
 
 			try {
-				// use the no arg constructor and make sure its accessible
-				final Constructor<?> noArgConstructor = factoryType.getDeclaredConstructor();
-				noArgConstructor.setAccessible(true);
 				factoryClassInst = noArgConstructor.newInstance();
 			}
 			catch (final Throwable e) {
@@ -0,0 +1,154 @@
+package mil.nga.giat.geowave.core.index;
+
+import java.util.Arrays;
+
+/**
+ * Builds row keys in a single reusable buffer. A common prefix, such as the
+ * tier and bin of an index or the insertion ID of a row, can be written once
+ * and each key completed by truncating the buffer back to the prefix and
+ * appending the remainder, so that only the final key is allocated.
+ *
+ * A builder is not thread-safe and is intended to be confined to a single call
+ * or thread.
+ */
+public class RowKeyBuilder
+{
+	private static final int DEFAULT_CAPACITY = 64;
+	private byte[] buffer;
+	private int length = 0;
+
+	public RowKeyBuilder() {
+		this(
+				DEFAULT_CAPACITY);
+	}
+
+	public RowKeyBuilder(
+			final int initialCapacity ) {
+		buffer = new byte[Math.max(
+				initialCapacity,
+				1)];
+	}
+
+	public RowKeyBuilder append(
+			final byte value ) {
+		ensureCapacity(length + 1);
+		buffer[length++] = value;
+		return this;
+	}
+
+	public RowKeyBuilder append(
+			final byte[] bytes ) {
+		if (bytes != null) {
+			append(
+					bytes,
+					0,
+					bytes.length);
+		}
+		return this;
+	}
+
+	public RowKeyBuilder append(
+			final byte[] bytes,
+			final int offset,
+			final int count ) {
+		ensureCapacity(length + count);
+		System.arraycopy(
+				bytes,
+				offset,
+				buffer,
+				length,
+				count);
+		length += count;
+		return this;
+	}
+
+	/**
+	 * Appends the value big-endian, as a ByteBuffer would
+	 */
+	public RowKeyBuilder appendInt(
+			final int value ) {
+		ensureCapacity(length + 4);
+		buffer[length++] = (byte) (value >>> 24);
+		buffer[length++] = (byte) (value >>> 16);
+		buffer[length++] = (byte) (value >>> 8);
+		buffer[length++] = (byte) value;
+		return this;
+	}
+
+	/**
+	 * Appends the suffix of the row ID of an entry, following its insertion ID
+	 *
+	 * @param adapterId
+	 * @param dataId
+	 * @param numberOfDuplicates
+	 *            the number of duplicates of the entry, or -1 if deduplication
+	 *            is disabled
+	 */
+	public RowKeyBuilder appendEntrySuffix(
+			final byte[] adapterId,
+			final byte[] dataId,
+			final int numberOfDuplicates ) {
+		ensureCapacity(length + adapterId.length + dataId.length + 12);
+		return append(
+				adapterId).append(
+				dataId).appendInt(
+				adapterId.length).appendInt(
+				dataId.length).appendInt(
+				numberOfDuplicates);
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Truncates the key, typically back to the length of a shared prefix
+	 *
+	 * @param length
+	 *            the new length, no greater than the current length
+	 */
+	public RowKeyBuilder setLength(
+			final int length ) {
+		if ((length < 0) || (length > this.length)) {
+			throw new IndexOutOfBoundsException(
+					"Length " + length + " is outside of [0, " + this.length + "]");
+		}
+		this.length = length;
+		return this;
+	}
+
+	public RowKeyBuilder clear() {
+		length = 0;
+		return this;
+	}
+
+	/**
+	 *
+	 * @return a copy of the key
+	 */
+	public byte[] toBytes() {
+		return Arrays.copyOf(
+				buffer,
+				length);
+	}
+
+	/**
+	 *
+	 * @return an ID of a copy of the key
+	 */
+	public ByteArrayId toByteArrayId() {
+		return new ByteArrayId(
+				toBytes());
+	}
+
+	private void ensureCapacity(
+			final int capacity ) {
+		if (capacity > buffer.length) {
+			buffer = Arrays.copyOf(
+					buffer,
+					Math.max(
+							capacity,
+							buffer.length * 2));
+		}
+	}
+}
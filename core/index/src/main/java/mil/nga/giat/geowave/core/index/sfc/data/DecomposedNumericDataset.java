@@ -0,0 +1,26 @@
+package mil.nga.giat.geowave.core.index.sfc.data;
+
+/**
+ * The constraints of one of the cells that a query geometry was decomposed
+ * into. The cells of a query share the cap on the number of ranges of the query
+ * rather than each being decomposed up to it.
+ * 
+ */
+public class DecomposedNumericDataset extends
+		BasicNumericDataset
+{
+	public DecomposedNumericDataset() {
+		super();
+	}
+
+	/**
+	 * 
+	 * @param dataPerDimension
+	 *            an array of numeric data objects
+	 */
+	public DecomposedNumericDataset(
+			final NumericData[] dataPerDimension ) {
+		super(
+				dataPerDimension);
+	}
+}
@@ -19,6 +19,7 @@ import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.IndexMetaData;
 import mil.nga.giat.geowave.core.index.Mergeable;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.RowKeyBuilder;
 import mil.nga.giat.geowave.core.index.StringUtils;
 import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
 import mil.nga.giat.geowave.core.index.dimension.bin.BinRange;
@@ -118,28 +119,24 @@ public class TieredSFCIndexStrategy implements
 		if ((maxRanges > 1) && (binnedQueries.length > 1)) {
 			maxRangeDecompositionPerBin = (int) Math.ceil((double) maxRanges / (double) binnedQueries.length);
 		}
+		final RowKeyBuilder rowKey = new RowKeyBuilder();
 		for (final BinnedNumericDataset binnedQuery : binnedQueries) {
 			final RangeDecomposition rangeDecomp = sfc.decomposeRange(
 					binnedQuery,
 					true,
 					maxRangeDecompositionPerBin);
-			final byte[] tierAndBinId = ByteArrayUtils.combineArrays(
-					new byte[] {
-						tier
-					// we're assuming tiers only go to 127 (the max byte
-					// value)
-					},
-					binnedQuery.getBinId());
+			// we're assuming tiers only go to 127 (the max byte value)
+			final int tierAndBinIdLength = rowKey.clear().append(
+					tier).append(
+					binnedQuery.getBinId()).getLength();
 			for (final ByteArrayRange range : rangeDecomp.getRanges()) {
 				queryRanges.add(new ByteArrayRange(
-						new ByteArrayId(
-								ByteArrayUtils.combineArrays(
-										tierAndBinId,
-										range.getStart().getBytes())),
-						new ByteArrayId(
-								ByteArrayUtils.combineArrays(
-										tierAndBinId,
-										range.getEnd().getBytes()))));
+						rowKey.setLength(
+								tierAndBinIdLength).append(
+								range.getStart().getBytes()).toByteArrayId(),
+						rowKey.setLength(
+								tierAndBinIdLength).append(
+								range.getEnd().getBytes()).toByteArrayId()));
 			}
 		}
 		return queryRanges;
@@ -382,16 +379,11 @@ public class TieredSFCIndexStrategy implements
 		final List<ByteArrayId> retVal = new ArrayList<ByteArrayId>();
 		final BigInteger rowCount = sfc.getEstimatedIdCount(index);
 		if (rowCount.equals(BigInteger.ONE)) {
-			final byte[] tierAndBinId = ByteArrayUtils.combineArrays(
-					new byte[] {
-						tierId
-					},
-					index.getBinId());
 			final double[] maxValues = index.getMaxValuesPerDimension();
-			retVal.add(new ByteArrayId(
-					ByteArrayUtils.combineArrays(
-							tierAndBinId,
-							sfc.getId(maxValues))));
+			retVal.add(new RowKeyBuilder().append(
+					tierId).append(
+					index.getBinId()).append(
+					sfc.getId(maxValues)).toByteArrayId());
 			return retVal;
 		}
 		else if ((maxEstimatedDuplicateIds == null) || (rowCount.compareTo(maxEstimatedDuplicateIds) <= 0)
@@ -409,11 +401,10 @@ public class TieredSFCIndexStrategy implements
 			final byte tierId,
 			final SpaceFillingCurve sfc ) {
 		final List<ByteArrayId> retVal = new ArrayList<ByteArrayId>();
-		final byte[] tierAndBinId = ByteArrayUtils.combineArrays(
-				new byte[] {
-					tierId
-				},
+		final RowKeyBuilder rowKey = new RowKeyBuilder().append(
+				tierId).append(
 				index.getBinId());
+		final int tierAndBinIdLength = rowKey.getLength();
 		final RangeDecomposition rangeDecomp = sfc.decomposeRange(
 				index,
 				false,
@@ -424,20 +415,18 @@ public class TieredSFCIndexStrategy implements
 			final byte[] currentRowId = Arrays.copyOf(
 					range.getStart().getBytes(),
 					range.getStart().getBytes().length);
-			retVal.add(new ByteArrayId(
-					ByteArrayUtils.combineArrays(
-							tierAndBinId,
-							currentRowId)));
+			retVal.add(rowKey.setLength(
+					tierAndBinIdLength).append(
+					currentRowId).toByteArrayId());
 			while (!Arrays.equals(
 					currentRowId,
 					range.getEnd().getBytes())) {
 				// increment until we reach the end row ID
 				boolean overflow = !ByteArrayUtils.increment(currentRowId);
 				if (!overflow) {
-					retVal.add(new ByteArrayId(
-							ByteArrayUtils.combineArrays(
-									tierAndBinId,
-									currentRowId)));
+					retVal.add(rowKey.setLength(
+							tierAndBinIdLength).append(
+							currentRowId).toByteArrayId());
 				}
 				else {
 					// the increment caused an overflow which shouldn't
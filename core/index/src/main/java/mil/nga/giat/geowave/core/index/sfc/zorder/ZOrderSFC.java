@@ -121,34 +121,80 @@ public class ZOrderSFC implements
 			final MultiDimensionalNumericData query,
 			final boolean overInclusiveOnEdge,
 			final int maxFilteredIndexedRanges ) {
-		// TODO: Because the research and benchmarking show Hilbert to
-		// outperform Z-Order
-		// the optimization of full query decomposition is not implemented at
-		// the moment for Z-Order
 		final double[] queryMins = query.getMinValuesPerDimension();
 		final double[] queryMaxes = query.getMaxValuesPerDimension();
-		final double[] normalizedMins = new double[query.getDimensionCount()];
-		final double[] normalizedMaxes = new double[query.getDimensionCount()];
+		final long bins = ZOrderUtils.getBins(cardinalityPerDimension);
+		final long[] minIndices = new long[query.getDimensionCount()];
+		final long[] maxIndices = new long[query.getDimensionCount()];
 		for (int d = 0; d < query.getDimensionCount(); d++) {
-			normalizedMins[d] = dimensionDefs[d].normalize(queryMins[d]);
-			normalizedMaxes[d] = dimensionDefs[d].normalize(queryMaxes[d]);
+			minIndices[d] = normalizeDimension(
+					dimensionDefs[d],
+					queryMins[d],
+					bins,
+					true,
+					overInclusiveOnEdge);
+			maxIndices[d] = normalizeDimension(
+					dimensionDefs[d],
+					queryMaxes[d],
+					bins,
+					false,
+					overInclusiveOnEdge);
+			if (minIndices[d] > maxIndices[d]) {
+				// because max is treated as exclusive they can cross within a
+				// single bin, in which case treat max as inclusive
+				maxIndices[d] = minIndices[d];
+			}
+		}
+		if ((cardinalityPerDimension * query.getDimensionCount()) > ZOrderUtils.MAX_PRIMITIVE_PRECISION) {
+			// the curve is too precise for primitive values, so fall back to a
+			// single range from the minimum to the maximum Z-Order value
+			return new RangeDecomposition(
+					new ByteArrayRange[] {
+						new ByteArrayRange(
+								new ByteArrayId(
+										ZOrderUtils.encodeIndices(
+												minIndices,
+												cardinalityPerDimension)),
+								new ByteArrayId(
+										ZOrderUtils.encodeIndices(
+												maxIndices,
+												cardinalityPerDimension)))
+					});
 		}
-		final byte[] minZorder = ZOrderUtils.encode(
-				normalizedMins,
-				cardinalityPerDimension,
-				query.getDimensionCount());
-		final byte[] maxZorder = ZOrderUtils.encode(
-				normalizedMaxes,
-				cardinalityPerDimension,
-				query.getDimensionCount());
 		return new RangeDecomposition(
-				new ByteArrayRange[] {
-					new ByteArrayRange(
-							new ByteArrayId(
-									minZorder),
-							new ByteArrayId(
-									maxZorder))
-				});
+				ZOrderUtils.decomposeRange(
+						minIndices,
+						maxIndices,
+						cardinalityPerDimension,
+						maxFilteredIndexedRanges));
+	}
+
+	/**
+	 * Normalizes the value to a bin of the dimension, treating the minimum of a
+	 * range as inclusive and the maximum as exclusive unless it is over
+	 * inclusive on the edge (consistent with the Hilbert SFC)
+	 */
+	private static long normalizeDimension(
+			final SFCDimensionDefinition dimensionDef,
+			final double value,
+			final long bins,
+			final boolean isMin,
+			final boolean overInclusiveOnEdge ) {
+		final double normalizedValue = Math.min(
+				Math.max(
+						dimensionDef.normalize(value),
+						0),
+				1);
+		if ((isMin && !overInclusiveOnEdge) || (!isMin && overInclusiveOnEdge)) {
+			// this will round up on the edge
+			return ZOrderUtils.getBin(
+					normalizedValue,
+					bins);
+		}
+		// this will round down on the edge
+		return (long) Math.max(
+				Math.ceil(normalizedValue * bins) - 1L,
+				0);
 	}
 
 	/***
@@ -1,188 +1,456 @@
 package mil.nga.giat.geowave.core.index.sfc.zorder;
 
-import java.util.Arrays;
-import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.List;
 
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
 
 /**
  * Convenience methods used to decode/encode Z-Order space filling curve values
  * (using a simple bit-interleaving approach).
- * 
+ *
+ * The Z-Order value interleaves the bins of each dimension from the most
+ * significant bit down, with the first dimension taking the most significant
+ * bit of each group, and is written as a big-endian value of the minimum number
+ * of bytes. When the interleaved value fits within a primitive long it is
+ * computed with magic number bit spreading (for 2 and 3 dimensions) rather than
+ * bit by bit.
  */
 public class ZOrderUtils
 {
+	/**
+	 * the maximum total bits of precision for which Z-Order values are computed
+	 * as primitive (non-negative) longs
+	 */
+	public static final int MAX_PRIMITIVE_PRECISION = 62;
+
 	public static NumericRange[] decodeRanges(
 			final byte[] bytes,
 			final int bitsPerDimension,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
-		final byte[] littleEndianBytes = swapEndianFormat(bytes);
-		final BitSet bitSet = BitSet.valueOf(littleEndianBytes);
-		final NumericRange[] normalizedValues = new NumericRange[dimensionDefinitions.length];
+		final long[] indices = decodeIndices(
+				bytes,
+				bitsPerDimension,
+				dimensionDefinitions.length);
+		final double bins = getBins(bitsPerDimension);
+		final NumericRange[] ranges = new NumericRange[dimensionDefinitions.length];
 		for (int d = 0; d < dimensionDefinitions.length; d++) {
-			final BitSet dimensionSet = new BitSet();
-			int j = 0;
-			for (int i = d; i < (bitsPerDimension * dimensionDefinitions.length); i += dimensionDefinitions.length) {
-				dimensionSet.set(
-						j++,
-						bitSet.get(i));
-			}
-
-			normalizedValues[d] = decode(
-					dimensionSet,
-					0,
-					1,
-					dimensionDefinitions[d]);
+			ranges[d] = new NumericRange(
+					dimensionDefinitions[d].denormalize(indices[d] / bins),
+					dimensionDefinitions[d].denormalize((indices[d] + 1) / bins));
 		}
-
-		return normalizedValues;
+		return ranges;
 	}
 
 	public static long[] decodeIndices(
 			final byte[] bytes,
 			final int bitsPerDimension,
 			final int numDimensions ) {
-		final byte[] littleEndianBytes = swapEndianFormat(bytes);
-		final BitSet bitSet = BitSet.valueOf(littleEndianBytes);
-		final long[] coordinates = new long[numDimensions];
-		final long rangePerDimension = (long) Math.pow(
-				2,
-				bitsPerDimension);
-		for (int d = 0; d < numDimensions; d++) {
-			final BitSet dimensionSet = new BitSet();
-			int j = 0;
-			for (int i = d; i < (bitsPerDimension * numDimensions); i += numDimensions) {
-				dimensionSet.set(
-						j++,
-						bitSet.get(i));
+		if ((bitsPerDimension * numDimensions) <= MAX_PRIMITIVE_PRECISION) {
+			return deinterleave(
+					fromBinary(bytes),
+					bitsPerDimension,
+					numDimensions);
+		}
+		final long[] indices = new long[numDimensions];
+		for (int i = 0; i < bitsPerDimension; i++) {
+			for (int d = 0; d < numDimensions; d++) {
+				final int bit = (i * numDimensions) + (numDimensions - 1 - d);
+				if ((bytes[bytes.length - 1 - (bit / 8)] & (1 << (bit % 8))) != 0) {
+					indices[d] |= 1L << i;
+				}
 			}
-
-			coordinates[d] = decodeIndex(
-					dimensionSet,
-					rangePerDimension);
 		}
+		return indices;
+	}
 
-		return coordinates;
+	public static byte[] encode(
+			final double[] normalizedValues,
+			final int bitsPerDimension,
+			final int numDimensions ) {
+		final long bins = getBins(bitsPerDimension);
+		final long[] indices = new long[numDimensions];
+		for (int d = 0; d < numDimensions; d++) {
+			indices[d] = getBin(
+					normalizedValues[d],
+					bins);
+		}
+		return encodeIndices(
+				indices,
+				bitsPerDimension);
 	}
 
-	private static long decodeIndex(
-			final BitSet bs,
-			final long rangePerDimension ) {
-		long floor = 0;
-		long ceiling = rangePerDimension;
-		long mid = 0;
-		for (int i = 0; i < bs.length(); i++) {
-			mid = (floor + ceiling) / 2;
-			if (bs.get(i)) {
-				floor = mid;
-			}
-			else {
-				ceiling = mid;
+	/**
+	 *
+	 * @param indices
+	 *            the bin of each dimension
+	 * @param bitsPerDimension
+	 *            the bits of precision of each dimension
+	 * @return the Z-Order value of the bins
+	 */
+	public static byte[] encodeIndices(
+			final long[] indices,
+			final int bitsPerDimension ) {
+		final int numDimensions = indices.length;
+		final int usedBits = bitsPerDimension * numDimensions;
+		final int usedBytes = (usedBits + 7) / 8;
+		if (usedBits <= MAX_PRIMITIVE_PRECISION) {
+			return toBinary(
+					interleave(
+							indices,
+							bitsPerDimension),
+					usedBytes);
+		}
+		final byte[] retVal = new byte[usedBytes];
+		for (int i = 0; i < bitsPerDimension; i++) {
+			for (int d = 0; d < numDimensions; d++) {
+				if (((indices[d] >>> i) & 1L) != 0) {
+					final int bit = (i * numDimensions) + (numDimensions - 1 - d);
+					retVal[usedBytes - 1 - (bit / 8)] |= (byte) (1 << (bit % 8));
+				}
 			}
 		}
-		return mid;
+		return retVal;
 	}
 
-	private static NumericRange decode(
-			final BitSet bs,
-			double floor,
-			double ceiling,
-			final SFCDimensionDefinition dimensionDefinition ) {
-		double mid = 0;
-		for (int i = 0; i < bs.length(); i++) {
-			mid = (floor + ceiling) / 2;
-			if (bs.get(i)) {
-				floor = mid;
-			}
-			else {
-				ceiling = mid;
-			}
+	/**
+	 *
+	 * @param normalizedValue
+	 *            the value normalized within (0,1)
+	 * @param bins
+	 *            the number of bins of the dimension
+	 * @return the bin of the value, equivalent to bisecting the normalized
+	 *         range once for each bit of precision
+	 */
+	public static long getBin(
+			final double normalizedValue,
+			final long bins ) {
+		if (!(normalizedValue > 0)) {
+			return 0;
 		}
-		return new NumericRange(
-				dimensionDefinition.denormalize(floor),
-				dimensionDefinition.denormalize(ceiling));
+		return (long) Math.min(
+				Math.floor(normalizedValue * bins),
+				bins - 1);
 	}
 
-	public static byte[] encode(
-			final double[] normalizedValues,
+	public static long getBins(
+			final int bitsPerDimension ) {
+		return 1L << bitsPerDimension;
+	}
+
+	/**
+	 * Interleaves the bins of each dimension into a single primitive value,
+	 * requiring the total bits of precision to be no more than
+	 * {@link #MAX_PRIMITIVE_PRECISION}
+	 */
+	public static long interleave(
+			final long[] indices,
+			final int bitsPerDimension ) {
+		switch (indices.length) {
+			case 1:
+				return indices[0];
+			case 2:
+				return (spreadBy1(indices[0]) << 1) | spreadBy1(indices[1]);
+			case 3:
+				return (spreadBy2(indices[0]) << 2) | (spreadBy2(indices[1]) << 1) | spreadBy2(indices[2]);
+			default:
+				long z = 0;
+				for (int i = 0; i < bitsPerDimension; i++) {
+					for (int d = 0; d < indices.length; d++) {
+						z |= ((indices[d] >>> i) & 1L) << ((i * indices.length) + (indices.length - 1 - d));
+					}
+				}
+				return z;
+		}
+	}
+
+	/**
+	 * The inverse of {@link #interleave(long[], int)}
+	 */
+	public static long[] deinterleave(
+			final long z,
 			final int bitsPerDimension,
 			final int numDimensions ) {
-		final BitSet[] bitSets = new BitSet[numDimensions];
+		switch (numDimensions) {
+			case 1:
+				return new long[] {
+					z
+				};
+			case 2:
+				return new long[] {
+					compactBy1(z >>> 1),
+					compactBy1(z)
+				};
+			case 3:
+				return new long[] {
+					compactBy2(z >>> 2),
+					compactBy2(z >>> 1),
+					compactBy2(z)
+				};
+			default:
+				final long[] indices = new long[numDimensions];
+				for (int i = 0; i < bitsPerDimension; i++) {
+					for (int d = 0; d < numDimensions; d++) {
+						indices[d] |= ((z >>> ((i * numDimensions) + (numDimensions - 1 - d))) & 1L) << i;
+					}
+				}
+				return indices;
+		}
+	}
 
-		for (int d = 0; d < numDimensions; d++) {
-			bitSets[d] = getBits(
-					normalizedValues[d],
-					0,
-					1,
-					bitsPerDimension);
-		}
-		int usedBits = bitsPerDimension * numDimensions;
-		int usedBytes = (int) Math.ceil(usedBits / 8.0);
-		int bitsetLength = (usedBytes * 8);
-		int bitOffset = bitsetLength - usedBits;
-		// round up to a bitset divisible by 8
-		final BitSet combinedBitSet = new BitSet(
-				bitsetLength);
-		int j = bitOffset;
-		for (int i = 0; i < bitsPerDimension; i++) {
-			for (int d = 0; d < numDimensions; d++) {
-				combinedBitSet.set(
-						j++,
-						bitSets[d].get(i));
+	/**
+	 * spreads the lower 32 bits so there is a 0 bit between each of them
+	 */
+	private static long spreadBy1(
+			long x ) {
+		x &= 0x00000000FFFFFFFFL;
+		x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x << 2)) & 0x3333333333333333L;
+		x = (x | (x << 1)) & 0x5555555555555555L;
+		return x;
+	}
+
+	private static long compactBy1(
+			long x ) {
+		x &= 0x5555555555555555L;
+		x = (x | (x >>> 1)) & 0x3333333333333333L;
+		x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+		x = (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+		return x;
+	}
+
+	/**
+	 * spreads the lower 21 bits so there are two 0 bits between each of them
+	 */
+	private static long spreadBy2(
+			long x ) {
+		x &= 0x00000000001FFFFFL;
+		x = (x | (x << 32)) & 0x001F00000000FFFFL;
+		x = (x | (x << 16)) & 0x001F0000FF0000FFL;
+		x = (x | (x << 8)) & 0x100F00F00F00F00FL;
+		x = (x | (x << 4)) & 0x10C30C30C30C30C3L;
+		x = (x | (x << 2)) & 0x1249249249249249L;
+		return x;
+	}
+
+	private static long compactBy2(
+			long x ) {
+		x &= 0x1249249249249249L;
+		x = (x | (x >>> 2)) & 0x10C30C30C30C30C3L;
+		x = (x | (x >>> 4)) & 0x100F00F00F00F00FL;
+		x = (x | (x >>> 8)) & 0x001F0000FF0000FFL;
+		x = (x | (x >>> 16)) & 0x001F00000000FFFFL;
+		x = (x | (x >>> 32)) & 0x00000000001FFFFFL;
+		return x;
+	}
+
+	/**
+	 *
+	 * @return the lower bytes of the value in big-endian order
+	 */
+	public static byte[] toBinary(
+			long z,
+			final int byteCount ) {
+		final byte[] retVal = new byte[byteCount];
+		for (int i = byteCount - 1; i >= 0; i--) {
+			retVal[i] = (byte) z;
+			z >>>= 8;
+		}
+		return retVal;
+	}
+
+	public static long fromBinary(
+			final byte[] bytes ) {
+		long z = 0;
+		for (final byte b : bytes) {
+			z = (z << 8) | (b & 0xFF);
+		}
+		return z;
+	}
+
+	/**
+	 * Decomposes a query into the Z-Order ranges that cover it by recursively
+	 * splitting the space into its 2^d children (quadrants in 2 dimensions,
+	 * octants in 3 dimensions). Children fully within the query become ranges
+	 * and children intersecting its boundary are split further, one level of
+	 * the tree at a time, until every range is exact or splitting another level
+	 * would produce more ranges than the maximum. Any boundary cells left at
+	 * that point are included as a whole, so the ranges may be over-inclusive
+	 * and should be filtered. The total bits of precision must be no more than
+	 * {@link #MAX_PRIMITIVE_PRECISION}.
+	 *
+	 * @param minIndices
+	 *            the minimum bin of the query in each dimension (inclusive)
+	 * @param maxIndices
+	 *            the maximum bin of the query in each dimension (inclusive)
+	 * @param bitsPerDimension
+	 *            the bits of precision of each dimension
+	 * @param maxRanges
+	 *            the maximum number of ranges, or a value less than 1 for no
+	 *            maximum
+	 * @return the sorted, non-overlapping ranges
+	 */
+	public static ByteArrayRange[] decomposeRange(
+			final long[] minIndices,
+			final long[] maxIndices,
+			final int bitsPerDimension,
+			final int maxRanges ) {
+		final int numDimensions = minIndices.length;
+		final int childCount = 1 << numDimensions;
+		final long rangeLimit = maxRanges < 1 ? Long.MAX_VALUE : maxRanges;
+		List<ZOrderNode> nodes = new ArrayList<ZOrderNode>();
+		final ZOrderNode root = new ZOrderNode(
+				0,
+				(1L << (bitsPerDimension * numDimensions)) - 1,
+				new long[numDimensions]);
+		root.partial = !contains(
+				minIndices,
+				maxIndices,
+				root.cellMins,
+				getBins(bitsPerDimension) - 1);
+		nodes.add(root);
+		for (int level = 0; level < bitsPerDimension; level++) {
+			final int childBits = bitsPerDimension - level - 1;
+			final long childSide = 1L << childBits;
+			final long childSpan = 1L << (childBits * numDimensions);
+			final List<ZOrderNode> children = new ArrayList<ZOrderNode>();
+			boolean split = false;
+			for (final ZOrderNode node : nodes) {
+				if (!node.partial) {
+					append(
+							children,
+							node);
+					continue;
+				}
+				split = true;
+				for (int c = 0; c < childCount; c++) {
+					final long[] cellMins = new long[numDimensions];
+					for (int d = 0; d < numDimensions; d++) {
+						cellMins[d] = node.cellMins[d] + (((c >>> (numDimensions - 1 - d)) & 1) * childSide);
+					}
+					if (intersects(
+							minIndices,
+							maxIndices,
+							cellMins,
+							childSide - 1)) {
+						final long start = node.start + (c * childSpan);
+						final ZOrderNode child = new ZOrderNode(
+								start,
+								(start + childSpan) - 1,
+								cellMins);
+						child.partial = !contains(
+								minIndices,
+								maxIndices,
+								cellMins,
+								childSide - 1);
+						append(
+								children,
+								child);
+					}
+				}
+				if (children.size() > rangeLimit) {
+					break;
+				}
 			}
+			if (!split || (children.size() > rangeLimit)) {
+				break;
+			}
+			nodes = children;
 		}
-		final byte[] littleEndianBytes = combinedBitSet.toByteArray();
-		byte[] retVal = swapEndianFormat(littleEndianBytes);
-		if (retVal.length < usedBytes) {
-			return Arrays.copyOf(
-					retVal,
-					usedBytes);
+		final List<ZOrderNode> ranges = new ArrayList<ZOrderNode>();
+		for (final ZOrderNode node : nodes) {
+			// boundary nodes that were not split further are included as a
+			// whole
+			node.partial = false;
+			append(
+					ranges,
+					node);
+		}
+		final int byteCount = ((bitsPerDimension * numDimensions) + 7) / 8;
+		final ByteArrayRange[] retVal = new ByteArrayRange[ranges.size()];
+		for (int i = 0; i < retVal.length; i++) {
+			retVal[i] = new ByteArrayRange(
+					new ByteArrayId(
+							toBinary(
+									ranges.get(i).start,
+									byteCount)),
+					new ByteArrayId(
+							toBinary(
+									ranges.get(i).end,
+									byteCount)));
 		}
 		return retVal;
 	}
 
-	public static byte[] swapEndianFormat(
-			final byte[] b ) {
-		final byte[] endianSwappedBytes = new byte[b.length];
-		for (int i = 0; i < b.length; i++) {
-			endianSwappedBytes[i] = swapEndianFormat(b[i]);
+	/**
+	 * appends the node, merging it with the last node if they are both fully
+	 * within the query and their ranges are adjacent
+	 */
+	private static void append(
+			final List<ZOrderNode> nodes,
+			final ZOrderNode node ) {
+		if (!node.partial && !nodes.isEmpty()) {
+			final ZOrderNode last = nodes.get(nodes.size() - 1);
+			if (!last.partial && ((last.end + 1) == node.start)) {
+				last.end = node.end;
+				return;
+			}
 		}
-		return endianSwappedBytes;
+		nodes.add(node);
 	}
 
-	private static byte swapEndianFormat(
-			final byte b ) {
-		int converted = 0x00;
-		converted ^= (b & 0b1000_0000) >> 7;
-		converted ^= (b & 0b0100_0000) >> 5;
-		converted ^= (b & 0b0010_0000) >> 3;
-		converted ^= (b & 0b0001_0000) >> 1;
-		converted ^= (b & 0b0000_1000) << 1;
-		converted ^= (b & 0b0000_0100) << 3;
-		converted ^= (b & 0b0000_0010) << 5;
-		converted ^= (b & 0b0000_0001) << 7;
-		return (byte) (converted & 0xFF);
+	private static boolean intersects(
+			final long[] minIndices,
+			final long[] maxIndices,
+			final long[] cellMins,
+			final long cellExtent ) {
+		for (int d = 0; d < cellMins.length; d++) {
+			if ((cellMins[d] > maxIndices[d]) || ((cellMins[d] + cellExtent) < minIndices[d])) {
+				return false;
+			}
+		}
+		return true;
 	}
 
-	private static BitSet getBits(
-			final double value,
-			double floor,
-			double ceiling,
-			final int bitsPerDimension ) {
-		final BitSet buffer = new BitSet(
-				bitsPerDimension);
-		for (int i = 0; i < bitsPerDimension; i++) {
-			final double mid = (floor + ceiling) / 2;
-			if (value >= mid) {
-				buffer.set(i);
-				floor = mid;
-			}
-			else {
-				ceiling = mid;
+	private static boolean contains(
+			final long[] minIndices,
+			final long[] maxIndices,
+			final long[] cellMins,
+			final long cellExtent ) {
+		for (int d = 0; d < cellMins.length; d++) {
+			if ((cellMins[d] < minIndices[d]) || ((cellMins[d] + cellExtent) > maxIndices[d])) {
+				return false;
 			}
 		}
-		return buffer;
+		return true;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * A contiguous range of the curve, which is either a single cell of the
+	 * tree that intersects the query boundary or adjacent cells fully within
+	 * the query
+	 */
+	private static class ZOrderNode
+	{
+		private final long start;
+		private long end;
+		private final long[] cellMins;
+		private boolean partial;
+
+		private ZOrderNode(
+				final long start,
+				final long end,
+				final long[] cellMins ) {
+			this.start = start;
+			this.end = end;
+			this.cellMins = cellMins;
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package mil.nga.giat.geowave.core.index;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -52,4 +55,80 @@ public class PersistenceUtilsTest
 					persistable
 				}))).size() == 2);
 	}
+
+	@Test
+	public void testRegisteredPersistable() {
+		final NumericRange range = new NumericRange(
+				-1,
+				1);
+		final boolean persistById = PersistenceUtils.isPersistById();
+		final byte[] binary;
+		PersistenceUtils.setPersistById(true);
+		try {
+			binary = PersistenceUtils.toBinary(range);
+		}
+		finally {
+			PersistenceUtils.setPersistById(persistById);
+		}
+		// the registered ID replaces the class name
+		Assert.assertEquals(
+				2 + range.toBinary().length,
+				binary.length);
+		Assert.assertEquals(
+				range,
+				PersistenceUtils.fromBinary(
+						binary,
+						NumericRange.class));
+		Assert.assertNull(PersistenceUtils.fromBinary(
+				binary,
+				APersistable.class));
+	}
+
+	@Test
+	public void testRegisteredPersistableByClassName() {
+		final NumericRange range = new NumericRange(
+				-1,
+				1);
+		final boolean persistById = PersistenceUtils.isPersistById();
+		final byte[] binary;
+		PersistenceUtils.setPersistById(false);
+		try {
+			binary = PersistenceUtils.toBinary(range);
+		}
+		finally {
+			PersistenceUtils.setPersistById(persistById);
+		}
+		// binaries remain readable by builds without persistable IDs
+		final byte[] className = StringUtils.stringToBinary(NumericRange.class.getName());
+		Assert.assertEquals(
+				4 + className.length + range.toBinary().length,
+				binary.length);
+		Assert.assertEquals(
+				className.length,
+				ByteBuffer.wrap(
+						binary).getInt());
+		Assert.assertEquals(
+				range,
+				PersistenceUtils.fromBinary(
+						binary,
+						NumericRange.class));
+	}
+
+	@Test
+	public void testLegacyPersistable() {
+		final NumericRange range = new NumericRange(
+				-1,
+				1);
+		final byte[] className = StringUtils.stringToBinary(NumericRange.class.getName());
+		final byte[] rangeBinary = range.toBinary();
+		final ByteBuffer buf = ByteBuffer.allocate(4 + className.length + rangeBinary.length);
+		buf.putInt(className.length);
+		buf.put(className);
+		buf.put(rangeBinary);
+		Assert.assertEquals(
+				range,
+				PersistenceUtils.fromBinary(
+						buf.array(),
+						NumericRange.class));
+	}
 }
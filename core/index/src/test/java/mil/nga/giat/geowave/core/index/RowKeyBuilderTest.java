@@ -0,0 +1,130 @@
+package mil.nga.giat.geowave.core.index;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RowKeyBuilderTest
+{
+	@Test
+	public void testEntryRowId() {
+		final byte[] insertionId = new byte[] {
+			1,
+			2,
+			3
+		};
+		final byte[] adapterId = StringUtils.stringToBinary("adapter");
+		final byte[] dataId = StringUtils.stringToBinary("data");
+		final ByteBuffer expected = ByteBuffer.allocate(12 + insertionId.length + adapterId.length + dataId.length);
+		expected.put(insertionId);
+		expected.put(adapterId);
+		expected.put(dataId);
+		expected.putInt(adapterId.length);
+		expected.putInt(dataId.length);
+		expected.putInt(-1);
+
+		// a small initial capacity also exercises growing the buffer
+		final RowKeyBuilder rowKey = new RowKeyBuilder(
+				2);
+		Assert.assertArrayEquals(
+				expected.array(),
+				rowKey.append(
+						insertionId).appendEntrySuffix(
+						adapterId,
+						dataId,
+						-1).toBytes());
+	}
+
+	@Test
+	public void testSharedPrefix() {
+		final RowKeyBuilder rowKey = new RowKeyBuilder().append(
+				(byte) 7).append(
+				new byte[] {
+					8,
+					9
+				});
+		final int prefixLength = rowKey.getLength();
+		final ByteArrayId first = rowKey.append(
+				(byte) 1).toByteArrayId();
+		final ByteArrayId second = rowKey.setLength(
+				prefixLength).append(
+				(byte) 2).toByteArrayId();
+		Assert.assertArrayEquals(
+				new byte[] {
+					7,
+					8,
+					9,
+					1
+				},
+				first.getBytes());
+		Assert.assertArrayEquals(
+				new byte[] {
+					7,
+					8,
+					9,
+					2
+				},
+				second.getBytes());
+	}
+
+	@Test
+	public void testByteArrayIdSliceAndView() {
+		final ByteArrayId id = new ByteArrayId(
+				new byte[] {
+					1,
+					2,
+					3,
+					4
+				});
+		final ByteArrayId slice = id.slice(
+				1,
+				3);
+		Assert.assertEquals(
+				new ByteArrayId(
+						new byte[] {
+							2,
+							3
+						}),
+				slice);
+		Assert.assertSame(
+				id,
+				id.slice(
+						0,
+						4));
+		Assert.assertTrue(id.startsWith(id.slice(
+				0,
+				2)));
+		Assert.assertFalse(id.startsWith(slice));
+
+		final ByteBuffer view = id.view(
+				1,
+				3);
+		Assert.assertTrue(view.isReadOnly());
+		Assert.assertEquals(
+				2,
+				view.remaining());
+		Assert.assertEquals(
+				2,
+				view.get());
+		Assert.assertEquals(
+				3,
+				view.get());
+	}
+
+	@Test
+	public void testByteArrayIdHashCode() {
+		final ByteArrayId id = new ByteArrayId(
+				"id");
+		final int hash = id.hashCode();
+		Assert.assertEquals(
+				hash,
+				id.hashCode());
+		Assert.assertEquals(
+				hash,
+				new ByteArrayId(
+						"id").hashCode());
+		Assert.assertFalse(id.equals(new ByteArrayId(
+				"other")));
+	}
+}
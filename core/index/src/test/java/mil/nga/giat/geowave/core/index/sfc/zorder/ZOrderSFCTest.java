@@ -1,7 +1,321 @@
 package mil.nga.giat.geowave.core.index.sfc.zorder;
 
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.RangeDecomposition;
+import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+
 public class ZOrderSFCTest
 {
+	private static final int GRID_BITS = 6;
+	private static final int GRID_SIZE = 1 << GRID_BITS;
+
+	@Test
+	public void testEncodeInterleavesBits() {
+		// x is bin 01 and y is bin 10, interleaved as x1 y1 x0 y0 = 0110
+		Assert.assertArrayEquals(
+				new byte[] {
+					0x06
+				},
+				ZOrderUtils.encode(
+						new double[] {
+							0.25,
+							0.5
+						},
+						2,
+						2));
+		// the maximum normalized value is in the last bin
+		Assert.assertArrayEquals(
+				new byte[] {
+					0x0F
+				},
+				ZOrderUtils.encode(
+						new double[] {
+							1,
+							1
+						},
+						2,
+						2));
+	}
+
+	@Test
+	public void testInterleaveMatchesBitwiseInterleave() {
+		final Random random = new Random(
+				1234);
+		final int[][] dimensionsAndBits = new int[][] {
+			{
+				1,
+				62
+			},
+			{
+				2,
+				31
+			},
+			{
+				3,
+				20
+			},
+			{
+				4,
+				15
+			}
+		};
+		for (final int[] dimensionAndBits : dimensionsAndBits) {
+			final int numDimensions = dimensionAndBits[0];
+			final int bitsPerDimension = dimensionAndBits[1];
+			for (int i = 0; i < 1000; i++) {
+				final long[] indices = new long[numDimensions];
+				for (int d = 0; d < numDimensions; d++) {
+					indices[d] = random.nextLong() & ((1L << bitsPerDimension) - 1);
+				}
+				final long z = ZOrderUtils.interleave(
+						indices,
+						bitsPerDimension);
+				Assert.assertEquals(
+						bitwiseInterleave(
+								indices,
+								bitsPerDimension),
+						z);
+				Assert.assertArrayEquals(
+						indices,
+						ZOrderUtils.deinterleave(
+								z,
+								bitsPerDimension,
+								numDimensions));
+				Assert.assertArrayEquals(
+						indices,
+						ZOrderUtils.decodeIndices(
+								ZOrderUtils.encodeIndices(
+										indices,
+										bitsPerDimension),
+								bitsPerDimension,
+								numDimensions));
+			}
+		}
+	}
+
+	@Test
+	public void testUnboundedEncodeDecode() {
+		final Random random = new Random(
+				1234);
+		final int bitsPerDimension = 30;
+		for (int i = 0; i < 1000; i++) {
+			final long[] indices = new long[3];
+			for (int d = 0; d < indices.length; d++) {
+				indices[d] = random.nextInt(1 << bitsPerDimension);
+			}
+			final byte[] id = ZOrderUtils.encodeIndices(
+					indices,
+					bitsPerDimension);
+			Assert.assertEquals(
+					12,
+					id.length);
+			Assert.assertArrayEquals(
+					indices,
+					ZOrderUtils.decodeIndices(
+							id,
+							bitsPerDimension,
+							indices.length));
+		}
+	}
+
+	@Test
+	public void testGetIdAndRanges() {
+		final ZOrderSFC sfc = new ZOrderSFC(
+				new SFCDimensionDefinition[] {
+					new SFCDimensionDefinition(
+							new BasicDimensionDefinition(
+									-180,
+									180),
+							20),
+					new SFCDimensionDefinition(
+							new BasicDimensionDefinition(
+									-90,
+									90),
+							20)
+				});
+		final double[] values = new double[] {
+			-77.036,
+			38.897
+		};
+		final byte[] id = sfc.getId(values);
+		Assert.assertEquals(
+				5,
+				id.length);
+		final NumericData[] ranges = sfc.getRanges(
+				id).getDataPerDimension();
+		final double[] rangePerDimension = sfc.getInsertionIdRangePerDimension();
+		for (int d = 0; d < values.length; d++) {
+			Assert.assertTrue(ranges[d].getMin() <= values[d]);
+			Assert.assertTrue(ranges[d].getMax() > values[d]);
+			Assert.assertEquals(
+					rangePerDimension[d],
+					ranges[d].getMax() - ranges[d].getMin(),
+					1e-9);
+		}
+		Assert.assertArrayEquals(
+				new long[] {
+					(long) Math.floor(((values[0] + 180) / 360) * (1 << 20)),
+					(long) Math.floor(((values[1] + 90) / 180) * (1 << 20))
+				},
+				sfc.getCoordinates(id));
+	}
+
+	@Test
+	public void testDecomposeRangeFully() {
+		final long[] mins = new long[] {
+			5,
+			17
+		};
+		final long[] maxes = new long[] {
+			40,
+			22
+		};
+		final ByteArrayRange[] ranges = ZOrderUtils.decomposeRange(
+				mins,
+				maxes,
+				GRID_BITS,
+				-1);
+		assertSortedAndDisjoint(ranges);
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				final boolean inQuery = (x >= mins[0]) && (x <= maxes[0]) && (y >= mins[1]) && (y <= maxes[1]);
+				Assert.assertEquals(
+						inQuery,
+						contains(
+								ranges,
+								x,
+								y));
+			}
+		}
+	}
+
+	@Test
+	public void testDecomposeRangeMaxRanges() {
+		final long[] mins = new long[] {
+			5,
+			17
+		};
+		final long[] maxes = new long[] {
+			40,
+			22
+		};
+		final int maxRanges = 8;
+		final ByteArrayRange[] ranges = ZOrderUtils.decomposeRange(
+				mins,
+				maxes,
+				GRID_BITS,
+				maxRanges);
+		Assert.assertTrue(ranges.length <= maxRanges);
+		assertSortedAndDisjoint(ranges);
+		for (long x = mins[0]; x <= maxes[0]; x++) {
+			for (long y = mins[1]; y <= maxes[1]; y++) {
+				Assert.assertTrue(contains(
+						ranges,
+						x,
+						y));
+			}
+		}
+	}
+
+	@Test
+	public void testDecomposeQuery() {
+		final ZOrderSFC sfc = new ZOrderSFC(
+				new SFCDimensionDefinition[] {
+					new SFCDimensionDefinition(
+							new BasicDimensionDefinition(
+									0,
+									GRID_SIZE),
+							GRID_BITS),
+					new SFCDimensionDefinition(
+							new BasicDimensionDefinition(
+									0,
+									GRID_SIZE),
+							GRID_BITS)
+				});
+		// the maximum is exclusive on the edge of a bin so the query covers
+		// bins 0 through 31 in x and bin 0 in y, which is 32 bins of a single
+		// row
+		final RangeDecomposition decomposition = sfc.decomposeRange(
+				new BasicNumericDataset(
+						new NumericData[] {
+							new NumericRange(
+									0,
+									32),
+							new NumericRange(
+									0,
+									0.5)
+						}),
+				false,
+				-1);
+		final ByteArrayRange[] ranges = decomposition.getRanges();
+		assertSortedAndDisjoint(ranges);
+		int count = 0;
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (contains(
+						ranges,
+						x,
+						y)) {
+					Assert.assertTrue((x < 32) && (y == 0));
+					count++;
+				}
+			}
+		}
+		Assert.assertEquals(
+				32,
+				count);
+	}
+
+	private static long bitwiseInterleave(
+			final long[] indices,
+			final int bitsPerDimension ) {
+		long z = 0;
+		for (int i = bitsPerDimension - 1; i >= 0; i--) {
+			for (final long index : indices) {
+				z = (z << 1) | ((index >>> i) & 1L);
+			}
+		}
+		return z;
+	}
+
+	private static boolean contains(
+			final ByteArrayRange[] ranges,
+			final long x,
+			final long y ) {
+		final long z = ZOrderUtils.interleave(
+				new long[] {
+					x,
+					y
+				},
+				GRID_BITS);
+		for (final ByteArrayRange range : ranges) {
+			if ((z >= ZOrderUtils.fromBinary(range.getStart().getBytes()))
+					&& (z <= ZOrderUtils.fromBinary(range.getEnd().getBytes()))) {
+				return true;
+			}
+		}
+		return false;
+	}
 
-	// TODO: add unit tests for ZOrder implementation
+	private static void assertSortedAndDisjoint(
+			final ByteArrayRange[] ranges ) {
+		for (int i = 0; i < ranges.length; i++) {
+			final long start = ZOrderUtils.fromBinary(ranges[i].getStart().getBytes());
+			final long end = ZOrderUtils.fromBinary(ranges[i].getEnd().getBytes());
+			Assert.assertTrue(start <= end);
+			if (i > 0) {
+				// adjacent ranges are merged so there is always a gap
+				Assert.assertTrue(ZOrderUtils.fromBinary(ranges[i - 1].getEnd().getBytes()) < (start - 1));
+			}
+		}
+	}
 }
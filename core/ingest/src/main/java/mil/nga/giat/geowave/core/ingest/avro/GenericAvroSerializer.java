@@ -1,11 +1,19 @@
 package mil.nga.giat.geowave.core.ingest.avro;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DecoderFactory;
@@ -18,6 +26,10 @@ import org.apache.log4j.Logger;
  * Generic Avro serializer/deserializer, can convert Avro Java object to a byte
  * array and a byte array back to a usable Avro Java object.
  * 
+ * This class is safe to use from multiple threads without locking. Datum
+ * readers and writers are cached per schema and shared across threads, while
+ * each thread reuses its own buffer, encoder and decoder.
+ * 
  * @param <T>
  *            - Base Avro class extended by all generated class files
  */
@@ -25,37 +37,217 @@ public class GenericAvroSerializer<T>
 {
 	private final static Logger LOGGER = Logger.getLogger(GenericAvroSerializer.class);
 
+	/**
+	 * The first byte of a message that holds a block of records packed by
+	 * {@link #serializeBlock(List, Schema, CodecFactory)}, followed by the Avro
+	 * container
+	 */
+	public static final byte BLOCK_MARKER = (byte) 0xB1;
+
 	private static final EncoderFactory ef = EncoderFactory.get();
 	private static final DecoderFactory df = DecoderFactory.get();
-	private static final Map<String, SpecificDatumWriter> writers = new HashMap<>();
-	private static final Map<String, SpecificDatumReader> readers = new HashMap<>();
+	private static final ConcurrentMap<String, SpecificDatumWriter<?>> writers = new ConcurrentHashMap<String, SpecificDatumWriter<?>>();
+	private static final ConcurrentMap<String, SpecificDatumReader<?>> readers = new ConcurrentHashMap<String, SpecificDatumReader<?>>();
+
+	private static final ThreadLocal<ThreadCodec> codecs = new ThreadLocal<ThreadCodec>() {
+		@Override
+		protected ThreadCodec initialValue() {
+			return new ThreadCodec();
+		}
+	};
+
+	/**
+	 * The buffer, encoder and decoder reused by a single thread
+	 */
+	private static class ThreadCodec
+	{
+		private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		private BinaryEncoder encoder = null;
+		private BinaryDecoder decoder = null;
+
+		private BinaryEncoder getEncoder() {
+			os.reset();
+			encoder = ef.binaryEncoder(
+					os,
+					encoder);
+			return encoder;
+		}
+
+		private BinaryDecoder getDecoder(
+				final byte[] avroData ) {
+			decoder = df.binaryDecoder(
+					avroData,
+					decoder);
+			return decoder;
+		}
+	}
 
 	public GenericAvroSerializer() {}
 
-	synchronized public static <T> byte[] serialize(
+	public static <T> byte[] serialize(
 			final T avroObject,
 			final Schema avroSchema ) {
+		final SpecificDatumWriter<T> writer = getWriter(avroSchema);
+		return serialize(
+				avroObject,
+				writer,
+				codecs.get());
+	}
 
-		try {
+	/**
+	 * Serializes each of the records, reusing the writer and encoder of the
+	 * schema for the whole list
+	 * 
+	 * @return the serialized records, in the same order, with null entries for
+	 *         records that could not be serialized
+	 */
+	public static <T> List<byte[]> serialize(
+			final List<T> avroObjects,
+			final Schema avroSchema ) {
+		final SpecificDatumWriter<T> writer = getWriter(avroSchema);
+		final ThreadCodec codec = codecs.get();
+		final List<byte[]> results = new ArrayList<byte[]>(
+				avroObjects.size());
+		for (final T avroObject : avroObjects) {
+			results.add(serialize(
+					avroObject,
+					writer,
+					codec));
+		}
+		return results;
+	}
+
+	public static <T> T deserialize(
+			final byte[] avroData,
+			final Schema avroSchema ) {
+		final SpecificDatumReader<T> reader = getReader(avroSchema);
+		return deserialize(
+				avroData,
+				reader,
+				codecs.get());
+	}
+
+	/**
+	 * Deserializes each of the byte arrays, reusing the reader and decoder of
+	 * the schema for the whole list
+	 * 
+	 * @return the deserialized records, in the same order, with null entries
+	 *         for byte arrays that could not be deserialized
+	 */
+	public static <T> List<T> deserialize(
+			final List<byte[]> avroData,
+			final Schema avroSchema ) {
+		final SpecificDatumReader<T> reader = getReader(avroSchema);
+		final ThreadCodec codec = codecs.get();
+		final List<T> results = new ArrayList<T>(
+				avroData.size());
+		for (final byte[] data : avroData) {
+			results.add(deserialize(
+					data,
+					reader,
+					codec));
+		}
+		return results;
+	}
+
+	/**
+	 * Packs the records into compressed Avro container blocks, so that many
+	 * records can be transferred and decoded as one message. The container is
+	 * preceded by {@link #BLOCK_MARKER} to tell it apart from a single record.
+	 * 
+	 * @return the marker and container bytes, or null if the records could not
+	 *         be serialized
+	 */
+	public static <T> byte[] serializeBlock(
+			final List<T> avroObjects,
+			final Schema avroSchema,
+			final CodecFactory codec ) {
+		// the container writer sets its schema on the datum writer, so a
+		// shared writer cannot be used
+		try (final DataFileWriter<T> dfw = new DataFileWriter<T>(
+				new SpecificDatumWriter<T>(
+						avroSchema))) {
 			final ByteArrayOutputStream os = new ByteArrayOutputStream();
-			final BinaryEncoder encoder = ef.binaryEncoder(
-					os,
-					null);
-
-			final String schemaName = getSchemaName(avroSchema);
-			if (!writers.containsKey(schemaName)) {
-				writers.put(
-						schemaName,
-						new SpecificDatumWriter<T>(
-								avroSchema));
+			os.write(BLOCK_MARKER);
+			dfw.setCodec(codec);
+			dfw.create(
+					avroSchema,
+					os);
+			for (final T avroObject : avroObjects) {
+				dfw.append(avroObject);
+			}
+			dfw.close();
+			return os.toByteArray();
+		}
+		catch (final Exception e) {
+			LOGGER.error("Unable to serialize Avro records to a container: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Unpacks all of the records of an Avro container written by
+	 * {@link #serializeBlock(List, Schema, CodecFactory)}
+	 * 
+	 * @return the records, or null if the block could not be deserialized
+	 */
+	public static <T> List<T> deserializeBlock(
+			final byte[] avroData,
+			final Schema avroSchema ) {
+		if (!isBlock(avroData)) {
+			LOGGER.error("Unable to deserialize Avro container: missing block marker");
+			return null;
+		}
+		try (final DataFileStream<T> stream = new DataFileStream<T>(
+				new ByteArrayInputStream(
+						avroData,
+						1,
+						avroData.length - 1),
+				new SpecificDatumReader<T>(
+						avroSchema))) {
+			final List<T> results = new ArrayList<T>();
+			while (stream.hasNext()) {
+				results.add(stream.next());
 			}
+			return results;
+		}
+		catch (final IOException e) {
+			LOGGER.error("Unable to deserialize Avro container: " + e.getMessage());
+			return null;
+		}
+	}
 
-			final SpecificDatumWriter<T> writer = writers.get(schemaName);
+	/**
+	 * A single record may happen to start with the marker byte, so the marker
+	 * must also be followed by the Avro container header
+	 * 
+	 * @return true if the bytes are a block of records, as written by
+	 *         {@link #serializeBlock(List, Schema, CodecFactory)}
+	 */
+	public static boolean isBlock(
+			final byte[] avroData ) {
+		if ((avroData == null) || (avroData.length <= DataFileConstants.MAGIC.length) || (avroData[0] != BLOCK_MARKER)) {
+			return false;
+		}
+		return Arrays.equals(
+				DataFileConstants.MAGIC,
+				Arrays.copyOfRange(
+						avroData,
+						1,
+						DataFileConstants.MAGIC.length + 1));
+	}
+
+	private static <T> byte[] serialize(
+			final T avroObject,
+			final SpecificDatumWriter<T> writer,
+			final ThreadCodec codec ) {
+		try {
+			final BinaryEncoder encoder = codec.getEncoder();
 			writer.write(
 					avroObject,
 					encoder);
 			encoder.flush();
-			return os.toByteArray();
+			return codec.os.toByteArray();
 		}
 		catch (final Exception e) {
 			LOGGER.error("Unable to serialize Avro record to byte[]: " + e.getMessage());
@@ -63,25 +255,14 @@ public class GenericAvroSerializer<T>
 		}
 	}
 
-	synchronized public static <T> T deserialize(
+	private static <T> T deserialize(
 			final byte[] avroData,
-			final Schema avroSchema ) {
+			final SpecificDatumReader<T> reader,
+			final ThreadCodec codec ) {
 		try {
-			final BinaryDecoder decoder = df.binaryDecoder(
-					avroData,
-					null);
-
-			final String schemaName = getSchemaName(avroSchema);
-			if (!readers.containsKey(schemaName)) {
-				readers.put(
-						schemaName,
-						new SpecificDatumReader<T>(
-								avroSchema));
-			}
-			final SpecificDatumReader<T> reader = readers.get(schemaName);
 			return reader.read(
 					null,
-					decoder);
+					codec.getDecoder(avroData));
 		}
 		catch (final IOException e) {
 			LOGGER.error("Unable to deserialize byte[] to Avro object: " + e.getMessage());
@@ -89,13 +270,50 @@ public class GenericAvroSerializer<T>
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private static <T> SpecificDatumWriter<T> getWriter(
+			final Schema avroSchema ) {
+		final String schemaName = getSchemaName(avroSchema);
+		SpecificDatumWriter<?> writer = writers.get(schemaName);
+		if (writer == null) {
+			writer = new SpecificDatumWriter<T>(
+					avroSchema);
+			final SpecificDatumWriter<?> existing = writers.putIfAbsent(
+					schemaName,
+					writer);
+			if (existing != null) {
+				writer = existing;
+			}
+		}
+		return (SpecificDatumWriter<T>) writer;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> SpecificDatumReader<T> getReader(
+			final Schema avroSchema ) {
+		final String schemaName = getSchemaName(avroSchema);
+		SpecificDatumReader<?> reader = readers.get(schemaName);
+		if (reader == null) {
+			reader = new SpecificDatumReader<T>(
+					avroSchema);
+			final SpecificDatumReader<?> existing = readers.putIfAbsent(
+					schemaName,
+					reader);
+			if (existing != null) {
+				reader = existing;
+			}
+		}
+		return (SpecificDatumReader<T>) reader;
+	}
+
 	private static String getSchemaName(
 			final Schema schema ) {
 		try {
 			return schema.getNamespace() + "." + schema.getName();
 		}
 		catch (final Exception e) {
-			return null;
+			// ConcurrentHashMap does not permit null keys
+			return String.valueOf(schema);
 		}
 	}
 }
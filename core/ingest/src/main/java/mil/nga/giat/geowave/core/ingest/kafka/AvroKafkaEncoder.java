@@ -14,14 +14,15 @@ import org.apache.avro.specific.SpecificRecordBase;
  * 
  * Value: mil.nga.giat.geowave.core.ingest.kafka.AvroKafkaEncoder
  * 
+ * Messages that are already binary, such as blocks of records packed by
+ * {@link GenericAvroSerializer#serializeBlock}, are sent as is.
+ * 
  * @param <T>
  *            - Base Avro class extended by all generated class files
  */
 public class AvroKafkaEncoder<T extends SpecificRecordBase> implements
-		Encoder<T>
+		Encoder<Object>
 {
-	private final GenericAvroSerializer<T> serializer = new GenericAvroSerializer<T>();
-
 	public AvroKafkaEncoder(
 			final VerifiableProperties verifiableProperties ) {
 		// This constructor must be present to avoid runtime errors
@@ -29,9 +30,13 @@ public class AvroKafkaEncoder<T extends SpecificRecordBase> implements
 
 	@Override
 	public byte[] toBytes(
-			final T object ) {
-		return serializer.serialize(
-				object,
-				object.getSchema());
+			final Object object ) {
+		if (object instanceof byte[]) {
+			return (byte[]) object;
+		}
+		final T avroObject = (T) object;
+		return GenericAvroSerializer.serialize(
+				avroObject,
+				avroObject.getSchema());
 	}
-}
\ No newline at end of file
+}
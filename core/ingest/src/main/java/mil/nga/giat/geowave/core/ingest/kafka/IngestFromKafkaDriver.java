@@ -8,28 +8,25 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
 import kafka.consumer.Consumer;
 import kafka.consumer.ConsumerConfig;
-import kafka.consumer.ConsumerIterator;
-import kafka.consumer.ConsumerTimeoutException;
 import kafka.consumer.KafkaStream;
 import kafka.javaapi.consumer.ConsumerConnector;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
-import mil.nga.giat.geowave.core.ingest.GeoWaveData;
 import mil.nga.giat.geowave.core.ingest.IngestPluginBase;
 import mil.nga.giat.geowave.core.ingest.avro.AvroFormatPlugin;
-import mil.nga.giat.geowave.core.ingest.avro.GenericAvroSerializer;
 import mil.nga.giat.geowave.core.ingest.index.IndexProvider;
-import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.DataStore;
-import mil.nga.giat.geowave.core.store.IndexWriter;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
 import mil.nga.giat.geowave.core.store.operations.remote.options.DataStorePluginOptions;
@@ -51,6 +48,7 @@ public class IngestFromKafkaDriver
 	private final KafkaConsumerCommandLineOptions kafkaOptions;
 	private final VisibilityOptions ingestOptions;
 	private final List<Future<?>> futures = new ArrayList<Future<?>>();
+	private final Map<String, KafkaIngestMetrics> metrics = new ConcurrentHashMap<String, KafkaIngestMetrics>();
 
 	public IngestFromKafkaDriver(
 			DataStorePluginOptions storeOptions,
@@ -69,7 +67,9 @@ public class IngestFromKafkaDriver
 
 		final DataStore dataStore = storeOptions.createDataStore();
 
-		final List<String> queue = new ArrayList<String>();
+		// consumer threads remove their topic once all of its streams are
+		// registered
+		final List<String> queue = new CopyOnWriteArrayList<String>();
 		addPluginsToQueue(
 				ingestPlugins,
 				queue);
@@ -123,8 +123,6 @@ public class IngestFromKafkaDriver
 			final List<String> queue ) {
 		try {
 			for (Entry<String, AvroFormatPlugin<?, ?>> pluginProvider : pluginProviders.entrySet()) {
-				final List<WritableDataAdapter<?>> adapters = new ArrayList<WritableDataAdapter<?>>();
-
 				AvroFormatPlugin<?, ?> avroFormatPlugin = null;
 				try {
 					avroFormatPlugin = pluginProvider.getValue();
@@ -132,15 +130,19 @@ public class IngestFromKafkaDriver
 					final IngestPluginBase<?, ?> ingestWithAvroPlugin = avroFormatPlugin.getIngestWithAvroPlugin();
 					final WritableDataAdapter<?>[] dataAdapters = ingestWithAvroPlugin.getDataAdapters(ingestOptions
 							.getVisibility());
-					adapters.addAll(Arrays.asList(dataAdapters));
-					final KafkaIngestRunData runData = new KafkaIngestRunData(
-							adapters,
-							dataStore);
+					final KafkaIngestMetrics topicMetrics = new KafkaIngestMetrics(
+							pluginProvider.getKey());
+					metrics.put(
+							pluginProvider.getKey(),
+							topicMetrics);
 
-					futures.add(launchTopicConsumer(
+					futures.addAll(launchTopicConsumers(
 							pluginProvider.getKey(),
 							avroFormatPlugin,
-							runData,
+							Arrays.asList(dataAdapters),
+							getIndexMap(avroFormatPlugin),
+							dataStore,
+							topicMetrics,
 							queue));
 				}
 				catch (final UnsupportedOperationException e) {
@@ -158,9 +160,42 @@ public class IngestFromKafkaDriver
 		}
 	}
 
+	private Map<ByteArrayId, PrimaryIndex> getIndexMap(
+			final IndexProvider indexProvider )
+			throws IOException {
+		final Map<ByteArrayId, PrimaryIndex> indexMap = new HashMap<ByteArrayId, PrimaryIndex>();
+
+		for (IndexPluginOptions indexOption : indexOptions) {
+			final PrimaryIndex primaryIndex = indexOption.createPrimaryIndex();
+			if (primaryIndex == null) {
+				LOGGER.error("Could not get index instance, getIndex() returned null;");
+				throw new IOException(
+						"Could not get index instance, getIndex() returned null");
+			}
+			indexMap.put(
+					primaryIndex.getId(),
+					primaryIndex);
+		}
+
+		final PrimaryIndex[] requiredIndices = indexProvider.getRequiredIndices();
+		if ((requiredIndices != null) && (requiredIndices.length > 0)) {
+			for (final PrimaryIndex requiredIndex : requiredIndices) {
+				indexMap.put(
+						requiredIndex.getId(),
+						requiredIndex);
+			}
+		}
+		return indexMap;
+	}
+
 	private ConsumerConnector buildKafkaConsumer() {
 
-		Properties kafkaProperties = kafkaOptions.getProperties();
+		final Properties kafkaProperties = new Properties();
+		kafkaProperties.putAll(kafkaOptions.getProperties());
+		// offsets are committed by each stream once its entries are flushed
+		kafkaProperties.setProperty(
+				"auto.commit.enable",
+				"false");
 
 		final ConsumerConnector consumer = Consumer.createJavaConsumerConnector(new ConsumerConfig(
 				kafkaProperties));
@@ -168,38 +203,68 @@ public class IngestFromKafkaDriver
 		return consumer;
 	}
 
-	private Future<?> launchTopicConsumer(
+	private List<Future<?>> launchTopicConsumers(
 			final String formatPluginName,
 			final AvroFormatPlugin<?, ?> avroFormatPlugin,
-			final KafkaIngestRunData ingestRunData,
+			final List<WritableDataAdapter<?>> adapters,
+			final Map<ByteArrayId, PrimaryIndex> indexMap,
+			final DataStore dataStore,
+			final KafkaIngestMetrics topicMetrics,
 			final List<String> queue )
 			throws Exception {
-		final ExecutorService executorService = Executors.newFixedThreadPool(queue.size());
-		return executorService.submit(new Runnable() {
-
-			@Override
-			public void run() {
-				try {
-					consumeFromTopic(
-							formatPluginName,
-							avroFormatPlugin,
-							ingestRunData,
-							queue);
-				}
-				catch (final Exception e) {
-					LOGGER.error(
-							"Error consuming from Kafka topic [" + formatPluginName + "]",
-							e);
+		final int streamCount = Math.max(
+				1,
+				kafkaOptions.getConsumerThreads());
+		final AtomicInteger registeredStreams = new AtomicInteger();
+		final List<Future<?>> topicFutures = new ArrayList<Future<?>>();
+		final ExecutorService executorService = Executors.newFixedThreadPool(streamCount);
+		for (int i = 0; i < streamCount; i++) {
+			topicFutures.add(executorService.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						consumeFromTopic(
+								formatPluginName,
+								avroFormatPlugin,
+								new KafkaIngestRunData(
+										adapters,
+										dataStore),
+								indexMap,
+								topicMetrics,
+								new Runnable() {
+									@Override
+									public void run() {
+										if (registeredStreams.incrementAndGet() == streamCount) {
+											queue.remove(formatPluginName);
+										}
+									}
+								});
+					}
+					catch (final Exception e) {
+						LOGGER.error(
+								"Error consuming from Kafka topic [" + formatPluginName + "]",
+								e);
+					}
 				}
-			}
-		});
+			}));
+		}
+		executorService.shutdown();
+		return topicFutures;
 	}
 
+	/**
+	 * Consumes a single stream of the topic with its own consumer connector,
+	 * committing the offsets of the connector only after the consumed messages
+	 * are flushed to the data store
+	 */
 	public <T> void consumeFromTopic(
 			final String formatPluginName,
 			final AvroFormatPlugin<T, ?> avroFormatPlugin,
 			final KafkaIngestRunData ingestRunData,
-			final List<String> queue )
+			final Map<ByteArrayId, PrimaryIndex> indexMap,
+			final KafkaIngestMetrics topicMetrics,
+			final Runnable onRegistered )
 			throws Exception {
 
 		final ConsumerConnector consumer = buildKafkaConsumer();
@@ -219,159 +284,38 @@ public class IngestFromKafkaDriver
 					.createMessageStreams(topicCount);
 			final List<KafkaStream<byte[], byte[]>> streams = consumerStreams.get(formatPluginName);
 
-			queue.remove(formatPluginName);
-			consumeMessages(
+			onRegistered.run();
+			new KafkaTopicConsumer<T>(
 					formatPluginName,
 					avroFormatPlugin,
+					consumer,
+					streams.get(0),
 					ingestRunData,
-					streams.get(0));
+					indexMap,
+					ingestOptions.getVisibility(),
+					kafkaOptions.getBatchSize(),
+					kafkaOptions.isFlushAndReconnect(),
+					topicMetrics).consume();
 		}
 		finally {
-			consumer.shutdown();
-		}
-	}
-
-	protected <T> void consumeMessages(
-			final String formatPluginName,
-			final AvroFormatPlugin<T, ?> avroFormatPlugin,
-			final KafkaIngestRunData ingestRunData,
-			final KafkaStream<byte[], byte[]> stream ) {
-		int currentBatchId = 0;
-		final int batchSize = kafkaOptions.getBatchSize();
-		try {
-			final ConsumerIterator<byte[], byte[]> messageIterator = stream.iterator();
-			while (messageIterator.hasNext()) {
-				final byte[] msg = messageIterator.next().message();
-				LOGGER.info("[" + formatPluginName + "] message received");
-				final T dataRecord = GenericAvroSerializer.deserialize(
-						msg,
-						avroFormatPlugin.getAvroSchema());
-
-				if (dataRecord != null) {
-					try {
-						processMessage(
-								dataRecord,
-								ingestRunData,
-								avroFormatPlugin);
-						if (++currentBatchId > batchSize) {
-							if (LOGGER.isDebugEnabled()) {
-								LOGGER.debug(String.format(
-										"Flushing %d items",
-										currentBatchId));
-							}
-							ingestRunData.flush();
-							currentBatchId = 0;
-						}
-					}
-					catch (final Exception e) {
-						LOGGER.error(
-								"Error processing message: " + e.getMessage(),
-								e);
-					}
-				}
-			}
-		}
-		catch (final ConsumerTimeoutException te) {
-			// Flush any outstanding items
-			if (currentBatchId > 0) {
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug(String.format(
-							"Flushing %d items",
-							currentBatchId));
-				}
-				ingestRunData.flush();
-				currentBatchId = 0;
-			}
-			if (kafkaOptions.isFlushAndReconnect()) {
-				LOGGER.info(
-						"Consumer timed out from Kafka topic [" + formatPluginName + "]... Reconnecting...",
-						te);
-				consumeMessages(
-						formatPluginName,
-						avroFormatPlugin,
-						ingestRunData,
-						stream);
+			try {
+				ingestRunData.close();
 			}
-			else {
-				LOGGER.info(
-						"Consumer timed out from Kafka topic [" + formatPluginName + "]... ",
-						te);
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close writers for Kafka topic [" + formatPluginName + "]",
+						e);
 			}
+			consumer.shutdown();
 		}
-		catch (final Exception e) {
-			LOGGER.warn(
-					"Consuming from Kafka topic [" + formatPluginName + "] was interrupted... ",
-					e);
-		}
-
 	}
 
-	synchronized protected <T> void processMessage(
-			final T dataRecord,
-			final KafkaIngestRunData ingestRunData,
-			final AvroFormatPlugin<T, ?> plugin )
-			throws IOException {
-
-		IngestPluginBase<T, ?> ingestPlugin = plugin.getIngestWithAvroPlugin();
-		IndexProvider indexProvider = plugin;
-
-		final Map<ByteArrayId, IndexWriter> writerMap = new HashMap<ByteArrayId, IndexWriter>();
-		final Map<ByteArrayId, PrimaryIndex> indexMap = new HashMap<ByteArrayId, PrimaryIndex>();
-
-		for (IndexPluginOptions indexOption : indexOptions) {
-			final PrimaryIndex primaryIndex = indexOption.createPrimaryIndex();
-			if (primaryIndex == null) {
-				LOGGER.error("Could not get index instance, getIndex() returned null;");
-				throw new IOException(
-						"Could not get index instance, getIndex() returned null");
-			}
-			indexMap.put(
-					primaryIndex.getId(),
-					primaryIndex);
-		}
-
-		final PrimaryIndex[] requiredIndices = indexProvider.getRequiredIndices();
-		if ((requiredIndices != null) && (requiredIndices.length > 0)) {
-			for (final PrimaryIndex requiredIndex : requiredIndices) {
-				indexMap.put(
-						requiredIndex.getId(),
-						requiredIndex);
-			}
-		}
-
-		try (CloseableIterator<?> geowaveDataIt = ingestPlugin.toGeoWaveData(
-				dataRecord,
-				indexMap.keySet(),
-				ingestOptions.getVisibility())) {
-			while (geowaveDataIt.hasNext()) {
-				final GeoWaveData<?> geowaveData = (GeoWaveData<?>) geowaveDataIt.next();
-				final WritableDataAdapter adapter = ingestRunData.getDataAdapter(geowaveData);
-				if (adapter == null) {
-					LOGGER.warn("Adapter not found for " + geowaveData.getValue());
-					continue;
-				}
-				IndexWriter indexWriter = writerMap.get(adapter.getAdapterId());
-				if (indexWriter == null) {
-					List<PrimaryIndex> indexList = new ArrayList<PrimaryIndex>();
-					for (final ByteArrayId indexId : geowaveData.getIndexIds()) {
-						final PrimaryIndex index = indexMap.get(indexId);
-						if (index == null) {
-							LOGGER.warn("Index '" + indexId.getString() + "' not found for " + geowaveData.getValue());
-							continue;
-						}
-						indexList.add(index);
-					}
-					indexWriter = ingestRunData.getIndexWriter(
-							adapter,
-							indexList.toArray(new PrimaryIndex[indexList.size()]));
-					writerMap.put(
-							adapter.getAdapterId(),
-							indexWriter);
-				}
-				indexWriter.write(geowaveData.getValue());
-
-			}
-		}
+	/**
+	 *
+	 * @return the ingest metrics of each topic, keyed by format plugin name
+	 */
+	public Map<String, KafkaIngestMetrics> getMetrics() {
+		return metrics;
 	}
 
 	public List<Future<?>> getFutures() {
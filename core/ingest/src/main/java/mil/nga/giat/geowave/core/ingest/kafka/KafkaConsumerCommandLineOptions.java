@@ -34,6 +34,9 @@ public class KafkaConsumerCommandLineOptions extends
 	@Parameter(names = "--batchSize", description = "The data will automatically flush after this number of entries")
 	private int batchSize = 10000;
 
+	@Parameter(names = "--consumerThreads", description = "The number of streams consumed in parallel for each topic, each with its own consumer, decoder and writers. Streams beyond the number of partitions of the topic will remain idle.")
+	private int consumerThreads = 1;
+
 	public boolean isFlushAndReconnect() {
 		return reconnectOnTimeout;
 	}
@@ -101,4 +104,13 @@ public class KafkaConsumerCommandLineOptions extends
 		this.batchSize = batchSize;
 	}
 
+	public int getConsumerThreads() {
+		return consumerThreads;
+	}
+
+	public void setConsumerThreads(
+			int consumerThreads ) {
+		this.consumerThreads = consumerThreads;
+	}
+
 }
@@ -0,0 +1,131 @@
+package mil.nga.giat.geowave.core.ingest.kafka;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and lag counters for the ingest of a single Kafka topic, shared by
+ * all of the streams consuming that topic. The lag is measured as the number of
+ * messages that have been received but whose offsets have not yet been
+ * committed, that is messages that would be consumed again if the ingest
+ * process were restarted.
+ */
+public class KafkaIngestMetrics
+{
+	private final String topic;
+	private final long startTime = System.currentTimeMillis();
+	private final AtomicLong messagesReceived = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final AtomicLong recordsReceived = new AtomicLong();
+	private final AtomicLong messagesFailed = new AtomicLong();
+	private final AtomicLong messagesCommitted = new AtomicLong();
+	private final AtomicLong commits = new AtomicLong();
+	private final Map<Integer, Long> consumedOffsets = new ConcurrentHashMap<Integer, Long>();
+
+	public KafkaIngestMetrics(
+			final String topic ) {
+		this.topic = topic;
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	protected void messageReceived(
+			final int partition,
+			final long offset,
+			final int size ) {
+		messagesReceived.incrementAndGet();
+		bytesReceived.addAndGet(size);
+		consumedOffsets.put(
+				partition,
+				offset);
+	}
+
+	protected void recordsReceived(
+			final int count ) {
+		recordsReceived.addAndGet(count);
+	}
+
+	protected void messageFailed() {
+		messagesFailed.incrementAndGet();
+	}
+
+	protected void messagesCommitted(
+			final long count ) {
+		messagesCommitted.addAndGet(count);
+		commits.incrementAndGet();
+	}
+
+	public long getMessagesReceived() {
+		return messagesReceived.get();
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * 
+	 * @return the number of Avro records decoded, which exceeds the number of
+	 *         messages when records are packed into blocks
+	 */
+	public long getRecordsReceived() {
+		return recordsReceived.get();
+	}
+
+	public long getMessagesFailed() {
+		return messagesFailed.get();
+	}
+
+	public long getMessagesCommitted() {
+		return messagesCommitted.get();
+	}
+
+	public long getCommits() {
+		return commits.get();
+	}
+
+	/**
+	 *
+	 * @return the number of messages received that have not been committed
+	 */
+	public long getLag() {
+		return messagesReceived.get() - messagesCommitted.get();
+	}
+
+	/**
+	 *
+	 * @return the last offset consumed from each partition of the topic
+	 */
+	public Map<Integer, Long> getConsumedOffsets() {
+		return consumedOffsets;
+	}
+
+	/**
+	 *
+	 * @return the average number of messages received per second since the
+	 *         consumers were started
+	 */
+	public double getMessagesPerSecond() {
+		final long elapsed = System.currentTimeMillis() - startTime;
+		if (elapsed <= 0) {
+			return 0;
+		}
+		return (messagesReceived.get() * 1000.0) / elapsed;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"[%s] received=%d records=%d failed=%d committed=%d lag=%d rate=%.1f msg/s",
+				topic,
+				getMessagesReceived(),
+				getRecordsReceived(),
+				getMessagesFailed(),
+				getMessagesCommitted(),
+				getLag(),
+				getMessagesPerSecond());
+	}
+}
@@ -26,6 +26,12 @@ public class KafkaProducerCommandLineOptions extends
 	@Parameter(names = "--retryBackoffMs", description = "The amount of time to wait before attempting to retry a failed produce request to a given topic partition. This avoids repeated sending-and-failing in a tight loop.")
 	private String retryBackoffMs;
 
+	@Parameter(names = "--recordsPerMessage", description = "The number of Avro records packed into a single compressed Avro block per message. By default each record is sent as its own message.")
+	private int recordsPerMessage = 1;
+
+	@Parameter(names = "--blockCodec", description = "The Avro codec used to compress blocks of records when more than one record is sent per message (null, deflate, snappy, bzip2 or xz)")
+	private String blockCodec = "snappy";
+
 	public String getMetadataBrokerList() {
 		return metadataBrokerList;
 	}
@@ -70,4 +76,22 @@ public class KafkaProducerCommandLineOptions extends
 			String retryBackoffMs ) {
 		this.retryBackoffMs = retryBackoffMs;
 	}
+
+	public int getRecordsPerMessage() {
+		return recordsPerMessage;
+	}
+
+	public void setRecordsPerMessage(
+			int recordsPerMessage ) {
+		this.recordsPerMessage = recordsPerMessage;
+	}
+
+	public String getBlockCodec() {
+		return blockCodec;
+	}
+
+	public void setBlockCodec(
+			String blockCodec ) {
+		this.blockCodec = blockCodec;
+	}
 }
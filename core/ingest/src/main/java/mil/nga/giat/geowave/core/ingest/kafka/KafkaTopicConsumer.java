@@ -0,0 +1,233 @@
+package mil.nga.giat.geowave.core.ingest.kafka;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import kafka.consumer.ConsumerIterator;
+import kafka.consumer.ConsumerTimeoutException;
+import kafka.consumer.KafkaStream;
+import kafka.javaapi.consumer.ConsumerConnector;
+import kafka.message.MessageAndMetadata;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.ingest.GeoWaveData;
+import mil.nga.giat.geowave.core.ingest.IngestPluginBase;
+import mil.nga.giat.geowave.core.ingest.avro.AvroFormatPlugin;
+import mil.nga.giat.geowave.core.ingest.avro.GenericAvroSerializer;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+
+/**
+ * This class consumes a single Kafka stream of a topic. Each stream has its own
+ * consumer connector and index writers so that several streams of the same
+ * topic can be ingested in parallel. The offsets of the connector are only
+ * committed once the entries written for the consumed messages have been
+ * flushed, so messages that were not yet written will be consumed again after a
+ * restart. Messages may hold either a single Avro record or a block of records
+ * packed by {@link GenericAvroSerializer#serializeBlock}.
+ *
+ * @param <T>
+ *            the Avro type of the messages on the topic
+ */
+public class KafkaTopicConsumer<T>
+{
+	private final static Logger LOGGER = Logger.getLogger(KafkaTopicConsumer.class);
+
+	private final String formatPluginName;
+	private final AvroFormatPlugin<T, ?> avroFormatPlugin;
+	private final ConsumerConnector consumer;
+	private final KafkaStream<byte[], byte[]> stream;
+	private final KafkaIngestRunData ingestRunData;
+	private final Map<ByteArrayId, PrimaryIndex> indexMap;
+	private final String visibility;
+	private final int batchSize;
+	private final boolean reconnectOnTimeout;
+	private final KafkaIngestMetrics metrics;
+
+	private final Map<ByteArrayId, IndexWriter> writerMap = new HashMap<ByteArrayId, IndexWriter>();
+	private long uncommittedMessages = 0;
+
+	public KafkaTopicConsumer(
+			final String formatPluginName,
+			final AvroFormatPlugin<T, ?> avroFormatPlugin,
+			final ConsumerConnector consumer,
+			final KafkaStream<byte[], byte[]> stream,
+			final KafkaIngestRunData ingestRunData,
+			final Map<ByteArrayId, PrimaryIndex> indexMap,
+			final String visibility,
+			final int batchSize,
+			final boolean reconnectOnTimeout,
+			final KafkaIngestMetrics metrics ) {
+		this.formatPluginName = formatPluginName;
+		this.avroFormatPlugin = avroFormatPlugin;
+		this.consumer = consumer;
+		this.stream = stream;
+		this.ingestRunData = ingestRunData;
+		this.indexMap = indexMap;
+		this.visibility = visibility;
+		this.batchSize = batchSize;
+		this.reconnectOnTimeout = reconnectOnTimeout;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Consumes the stream until the connector is shut down, or until the
+	 * consumer times out if it is not set to reconnect
+	 */
+	public void consume() {
+		final ConsumerIterator<byte[], byte[]> messageIterator = stream.iterator();
+		try {
+			while (true) {
+				try {
+					while (messageIterator.hasNext()) {
+						consumeMessage(messageIterator.next());
+					}
+					break;
+				}
+				catch (final ConsumerTimeoutException te) {
+					// Flush any outstanding items
+					flushAndCommit();
+					if (reconnectOnTimeout) {
+						LOGGER.info(
+								"Consumer timed out from Kafka topic [" + formatPluginName + "]... Reconnecting...",
+								te);
+					}
+					else {
+						LOGGER.info(
+								"Consumer timed out from Kafka topic [" + formatPluginName + "]... ",
+								te);
+						break;
+					}
+				}
+			}
+			flushAndCommit();
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"Consuming from Kafka topic [" + formatPluginName + "] was interrupted... ",
+					e);
+		}
+	}
+
+	private void consumeMessage(
+			final MessageAndMetadata<byte[], byte[]> messageAndMetadata ) {
+		final byte[] msg = messageAndMetadata.message();
+		metrics.messageReceived(
+				messageAndMetadata.partition(),
+				messageAndMetadata.offset(),
+				msg.length);
+		uncommittedMessages++;
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("[" + formatPluginName + "] message received from partition " + messageAndMetadata.partition()
+					+ " at offset " + messageAndMetadata.offset());
+		}
+		final List<T> dataRecords;
+		if (GenericAvroSerializer.isBlock(msg)) {
+			dataRecords = GenericAvroSerializer.deserializeBlock(
+					msg,
+					avroFormatPlugin.getAvroSchema());
+		}
+		else {
+			final T dataRecord = GenericAvroSerializer.deserialize(
+					msg,
+					avroFormatPlugin.getAvroSchema());
+			dataRecords = dataRecord == null ? null : Collections.singletonList(dataRecord);
+		}
+		if (dataRecords == null) {
+			metrics.messageFailed();
+		}
+		else {
+			metrics.recordsReceived(dataRecords.size());
+			try {
+				for (final T dataRecord : dataRecords) {
+					processMessage(dataRecord);
+				}
+			}
+			catch (final Exception e) {
+				metrics.messageFailed();
+				LOGGER.error(
+						"Error processing message: " + e.getMessage(),
+						e);
+			}
+		}
+		if (uncommittedMessages >= batchSize) {
+			flushAndCommit();
+		}
+	}
+
+	/**
+	 * Flushes the writers of this stream and, once the entries are written,
+	 * commits the offsets of the messages consumed by this stream
+	 */
+	protected void flushAndCommit() {
+		if (uncommittedMessages == 0) {
+			return;
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(String.format(
+					"Flushing %d items",
+					uncommittedMessages));
+		}
+		try {
+			ingestRunData.flush();
+		}
+		catch (final RuntimeException e) {
+			// leave the offsets uncommitted so the messages are consumed again
+			LOGGER.error(
+					"Unable to flush Kafka topic [" + formatPluginName + "], offsets will not be committed",
+					e);
+			return;
+		}
+		consumer.commitOffsets();
+		metrics.messagesCommitted(uncommittedMessages);
+		uncommittedMessages = 0;
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(metrics.toString());
+		}
+	}
+
+	protected void processMessage(
+			final T dataRecord )
+			throws IOException {
+		final IngestPluginBase<T, ?> ingestPlugin = avroFormatPlugin.getIngestWithAvroPlugin();
+		try (CloseableIterator<?> geowaveDataIt = ingestPlugin.toGeoWaveData(
+				dataRecord,
+				indexMap.keySet(),
+				visibility)) {
+			while (geowaveDataIt.hasNext()) {
+				final GeoWaveData<?> geowaveData = (GeoWaveData<?>) geowaveDataIt.next();
+				final WritableDataAdapter adapter = ingestRunData.getDataAdapter(geowaveData);
+				if (adapter == null) {
+					LOGGER.warn("Adapter not found for " + geowaveData.getValue());
+					continue;
+				}
+				IndexWriter indexWriter = writerMap.get(adapter.getAdapterId());
+				if (indexWriter == null) {
+					final List<PrimaryIndex> indexList = new ArrayList<PrimaryIndex>();
+					for (final ByteArrayId indexId : geowaveData.getIndexIds()) {
+						final PrimaryIndex index = indexMap.get(indexId);
+						if (index == null) {
+							LOGGER.warn("Index '" + indexId.getString() + "' not found for " + geowaveData.getValue());
+							continue;
+						}
+						indexList.add(index);
+					}
+					indexWriter = ingestRunData.getIndexWriter(
+							adapter,
+							indexList.toArray(new PrimaryIndex[indexList.size()]));
+					writerMap.put(
+							adapter.getAdapterId(),
+							indexWriter);
+				}
+				indexWriter.write(geowaveData.getValue());
+			}
+		}
+	}
+}
@@ -2,14 +2,20 @@ package mil.nga.giat.geowave.core.ingest.kafka;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.log4j.Logger;
 
 import kafka.javaapi.producer.Producer;
 import kafka.producer.KeyedMessage;
 import mil.nga.giat.geowave.core.ingest.avro.AvroFormatPlugin;
+import mil.nga.giat.geowave.core.ingest.avro.GenericAvroSerializer;
 import mil.nga.giat.geowave.core.ingest.local.AbstractLocalFileDriver;
 import mil.nga.giat.geowave.core.ingest.local.LocalInputCommandLineOptions;
 
@@ -47,6 +53,16 @@ public class StageToKafkaDriver<T extends SpecificRecordBase> extends
 					typeName,
 					plugin);
 			final Object[] avroRecords = plugin.toAvroObjects(file);
+			final int recordsPerMessage = kafkaOptions.getRecordsPerMessage();
+			if (recordsPerMessage > 1) {
+				sendBlocks(
+						producer,
+						typeName,
+						plugin.getAvroSchema(),
+						avroRecords,
+						recordsPerMessage);
+				return;
+			}
 			for (final Object avroRecord : avroRecords) {
 				final KeyedMessage<String, Object> data = new KeyedMessage<String, Object>(
 						typeName,
@@ -59,6 +75,38 @@ public class StageToKafkaDriver<T extends SpecificRecordBase> extends
 		}
 	}
 
+	/**
+	 * Packs the records into compressed Avro container blocks of up to
+	 * recordsPerMessage records, sending each block as a single message
+	 */
+	private void sendBlocks(
+			final Producer<String, Object> producer,
+			final String typeName,
+			final Schema avroSchema,
+			final Object[] avroRecords,
+			final int recordsPerMessage ) {
+		final CodecFactory codec = CodecFactory.fromString(kafkaOptions.getBlockCodec());
+		final List<Object> recordList = Arrays.asList(avroRecords);
+		final List<KeyedMessage<String, Object>> messages = new ArrayList<KeyedMessage<String, Object>>();
+		for (int i = 0; i < avroRecords.length; i += recordsPerMessage) {
+			final List<Object> records = recordList.subList(
+					i,
+					Math.min(
+							i + recordsPerMessage,
+							avroRecords.length));
+			final byte[] block = GenericAvroSerializer.serializeBlock(
+					records,
+					avroSchema,
+					codec);
+			if (block != null) {
+				messages.add(new KeyedMessage<String, Object>(
+						typeName,
+						block));
+			}
+		}
+		producer.send(messages);
+	}
+
 	public boolean runOperation(
 			String inputPath ) {
 
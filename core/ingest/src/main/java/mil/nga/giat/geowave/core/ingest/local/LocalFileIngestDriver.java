@@ -2,6 +2,7 @@ package mil.nga.giat.geowave.core.ingest.local;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -144,6 +145,52 @@ public class LocalFileIngestDriver extends
 		}
 	}
 
+	/**
+	 * Ingests the contents of a single stream using a plugin that supports
+	 * streaming input. Entries are written as they are decoded from the stream,
+	 * so the input never needs to be staged to a local file.
+	 */
+	public boolean runOperation(
+			final InputStream input,
+			final String name,
+			final LocalStreamIngestPlugin<?> plugin ) {
+		if (!checkIndexesAgainstProvider(
+				name,
+				plugin,
+				indexOptions)) {
+			return false;
+		}
+		final List<WritableDataAdapter<?>> adapters = new ArrayList<WritableDataAdapter<?>>();
+		adapters.addAll(Arrays.asList(plugin.getDataAdapters(ingestOptions.getVisibility())));
+
+		DataStore dataStore = storeOptions.createDataStore();
+		try (LocalIngestRunData runData = new LocalIngestRunData(
+				adapters,
+				dataStore)) {
+
+			startExecutor();
+
+			processStream(
+					input,
+					name,
+					plugin,
+					runData);
+
+			// wait for the ingest threads before the index writers are closed
+			shutdownExecutor();
+		}
+		catch (final IOException e) {
+			LOGGER.error(
+					"Unexpected I/O exception when reading input stream",
+					e);
+			return false;
+		}
+		finally {
+			shutdownExecutor();
+		}
+		return true;
+	}
+
 	@Override
 	protected void processFile(
 			final File file,
@@ -156,9 +203,65 @@ public class LocalFileIngestDriver extends
 				"Beginning ingest for file: [%s]",
 				file.getName()));
 
-		// This loads up the primary indexes that are specified on the command
-		// line.
-		// Usually spatial or spatial-temporal
+		final Map<ByteArrayId, PrimaryIndex> specifiedPrimaryIndexes = getSpecifiedPrimaryIndexes();
+		final Map<ByteArrayId, PrimaryIndex> requiredIndexMap = getRequiredIndexMap(plugin);
+
+		// Read files until EOF from the command line.
+		try (CloseableIterator<?> geowaveDataIt = plugin.toGeoWaveData(
+				file,
+				specifiedPrimaryIndexes.keySet(),
+				ingestOptions.getVisibility())) {
+			ingestData(
+					file.getName(),
+					geowaveDataIt,
+					specifiedPrimaryIndexes,
+					requiredIndexMap,
+					ingestRunData);
+		}
+
+		LOGGER.info(String.format(
+				"Finished ingest for file: [%s]",
+				file.getName()));
+	}
+
+	protected void processStream(
+			final InputStream input,
+			final String name,
+			final LocalStreamIngestPlugin<?> plugin,
+			final LocalIngestRunData ingestRunData )
+			throws IOException {
+
+		LOGGER.info(String.format(
+				"Beginning ingest for stream: [%s]",
+				name));
+
+		final Map<ByteArrayId, PrimaryIndex> specifiedPrimaryIndexes = getSpecifiedPrimaryIndexes();
+		final Map<ByteArrayId, PrimaryIndex> requiredIndexMap = getRequiredIndexMap(plugin);
+
+		try (CloseableIterator<?> geowaveDataIt = plugin.toGeoWaveData(
+				input,
+				name,
+				specifiedPrimaryIndexes.keySet(),
+				ingestOptions.getVisibility())) {
+			ingestData(
+					name,
+					geowaveDataIt,
+					specifiedPrimaryIndexes,
+					requiredIndexMap,
+					ingestRunData);
+		}
+
+		LOGGER.info(String.format(
+				"Finished ingest for stream: [%s]",
+				name));
+	}
+
+	/**
+	 * This loads up the primary indexes that are specified on the command line.
+	 * Usually spatial or spatial-temporal
+	 */
+	private Map<ByteArrayId, PrimaryIndex> getSpecifiedPrimaryIndexes()
+			throws IOException {
 		final Map<ByteArrayId, PrimaryIndex> specifiedPrimaryIndexes = new HashMap<ByteArrayId, PrimaryIndex>();
 		for (final IndexPluginOptions dimensionType : indexOptions) {
 			final PrimaryIndex primaryIndex = dimensionType.createPrimaryIndex();
@@ -171,15 +274,17 @@ public class LocalFileIngestDriver extends
 					primaryIndex.getId(),
 					primaryIndex);
 		}
+		return specifiedPrimaryIndexes;
+	}
 
-		// This gets the list of required indexes from the Plugin.
-		// If for some reason a GeoWaveData specifies an index that isn't
-		// originally
-		// in the specifiedPrimaryIndexes list, then this array is used to
-		// determine
-		// if the Plugin supports it. If it does, then we allow the creation of
-		// the
-		// index.
+	/**
+	 * This gets the list of required indexes from the Plugin. If for some
+	 * reason a GeoWaveData specifies an index that isn't originally in the
+	 * specifiedPrimaryIndexes list, then this array is used to determine if the
+	 * Plugin supports it. If it does, then we allow the creation of the index.
+	 */
+	private static Map<ByteArrayId, PrimaryIndex> getRequiredIndexMap(
+			final LocalFileIngestPlugin<?> plugin ) {
 		final Map<ByteArrayId, PrimaryIndex> requiredIndexMap = new HashMap<ByteArrayId, PrimaryIndex>();
 		final PrimaryIndex[] requiredIndices = plugin.getRequiredIndices();
 		if ((requiredIndices != null) && (requiredIndices.length > 0)) {
@@ -189,7 +294,15 @@ public class LocalFileIngestDriver extends
 						requiredIndex);
 			}
 		}
+		return requiredIndexMap;
+	}
 
+	private void ingestData(
+			final String name,
+			final CloseableIterator<?> geowaveDataIt,
+			final Map<ByteArrayId, PrimaryIndex> specifiedPrimaryIndexes,
+			final Map<ByteArrayId, PrimaryIndex> requiredIndexMap,
+			final LocalIngestRunData ingestRunData ) {
 		// Create our queue. We will post GeoWaveData items to these queue until
 		// there are no more items, at which point we will tell the workers to
 		// complete. Ingest batch size is the total max number of items to read
@@ -199,15 +312,15 @@ public class LocalFileIngestDriver extends
 		// Create our Jobs. We submit as many jobs as we have executors for.
 		// These folks will read our blocking queue
 		LOGGER.debug(String.format(
-				"Creating [%d] threads to ingest file: [%s]",
+				"Creating [%d] threads to ingest: [%s]",
 				threads,
-				file.getName()));
+				name));
 		List<IngestTask> ingestTasks = new ArrayList<IngestTask>();
 		try {
 			for (int i = 0; i < threads; i++) {
 				String id = String.format(
 						"%s-%d",
-						file.getName(),
+						name,
 						i);
 				IngestTask task = new IngestTask(
 						id,
@@ -219,53 +332,46 @@ public class LocalFileIngestDriver extends
 				ingestExecutor.submit(task);
 			}
 
-			// Read files until EOF from the command line.
-			try (CloseableIterator<?> geowaveDataIt = plugin.toGeoWaveData(
-					file,
-					specifiedPrimaryIndexes.keySet(),
-					ingestOptions.getVisibility())) {
-
-				while (geowaveDataIt.hasNext()) {
-					final GeoWaveData<?> geowaveData = (GeoWaveData<?>) geowaveDataIt.next();
-					try {
-						while (!queue.offer(
-								geowaveData,
-								1,
-								TimeUnit.SECONDS)) {
-							// Determine if we have any workers left. The point
-							// of this code is so we
-							// aren't hanging after our workers exit (before the
-							// file is done) due to
-							// some un-handled exception.
-							boolean workerAlive = false;
-							for (IngestTask task : ingestTasks) {
-								if (!task.isFinished()) {
-									workerAlive = true;
-									break;
-								}
+			while (geowaveDataIt.hasNext()) {
+				final GeoWaveData<?> geowaveData = (GeoWaveData<?>) geowaveDataIt.next();
+				try {
+					while (!queue.offer(
+							geowaveData,
+							1,
+							TimeUnit.SECONDS)) {
+						// Determine if we have any workers left. The point
+						// of this code is so we
+						// aren't hanging after our workers exit (before the
+						// file is done) due to
+						// some un-handled exception.
+						boolean workerAlive = false;
+						for (IngestTask task : ingestTasks) {
+							if (!task.isFinished()) {
+								workerAlive = true;
+								break;
 							}
+						}
 
-							// If the workers are still there, then just try to
-							// offer again.
-							// This will loop forever until there are no workers
-							// left.
-							if (workerAlive) {
-								LOGGER.debug("Worker threads are overwhelmed, waiting 1 second");
-							}
-							else {
-								String message = "Datastore error, all workers have terminated! Aborting...";
-								LOGGER.error(message);
-								throw new RuntimeException(
-										message);
-							}
+						// If the workers are still there, then just try to
+						// offer again.
+						// This will loop forever until there are no workers
+						// left.
+						if (workerAlive) {
+							LOGGER.debug("Worker threads are overwhelmed, waiting 1 second");
+						}
+						else {
+							String message = "Datastore error, all workers have terminated! Aborting...";
+							LOGGER.error(message);
+							throw new RuntimeException(
+									message);
 						}
 					}
-					catch (InterruptedException e) {
-						// I can't see how this will ever happen, except maybe
-						// someone kills the process?
-						throw new RuntimeException(
-								"Interrupted placing GeoWaveData on queue");
-					}
+				}
+				catch (InterruptedException e) {
+					// I can't see how this will ever happen, except maybe
+					// someone kills the process?
+					throw new RuntimeException(
+							"Interrupted placing GeoWaveData on queue");
 				}
 			}
 		}
@@ -275,9 +381,5 @@ public class LocalFileIngestDriver extends
 				task.terminate();
 			}
 		}
-
-		LOGGER.info(String.format(
-				"Finished ingest for file: [%s]",
-				file.getName()));
 	}
 }
@@ -0,0 +1,43 @@
+package mil.nga.giat.geowave.core.ingest.local;
+
+import java.io.InputStream;
+import java.util.Collection;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.ingest.GeoWaveData;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+
+/**
+ * A local ingest plugin that is also able to consume its input directly from a
+ * stream, such that data can be ingested as it arrives (for example, as the
+ * body of an upload) rather than first being staged to a local file.
+ *
+ * @param <O>
+ *            The type of data to write to GeoWave
+ */
+public interface LocalStreamIngestPlugin<O> extends
+		LocalFileIngestPlugin<O>
+{
+	/**
+	 * Convert the contents of a stream to data that can be directly ingested
+	 * into GeoWave. The stream is read incrementally as the returned iterator
+	 * is consumed and is closed when the iterator is closed.
+	 *
+	 * @param input
+	 *            The stream of input data, in the format supported by this
+	 *            plugin
+	 * @param name
+	 *            A name identifying the input, used in place of a file name
+	 * @param primaryIndexIds
+	 *            The set of index IDs specified for the ingest
+	 * @param globalVisibility
+	 *            The global visibility to write to the visibility column, if
+	 *            any
+	 * @return The objects that can be directly ingested into GeoWave
+	 */
+	public CloseableIterator<GeoWaveData<O>> toGeoWaveData(
+			InputStream input,
+			String name,
+			Collection<ByteArrayId> primaryIndexIds,
+			String globalVisibility );
+}
@@ -0,0 +1,121 @@
+package mil.nga.giat.geowave.core.store;
+
+import mil.nga.giat.geowave.core.index.PersistableRegistrySpi;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
+import mil.nga.giat.geowave.core.store.filter.AdapterIdQueryFilter;
+import mil.nga.giat.geowave.core.store.filter.AfterRowIdQueryFilter;
+import mil.nga.giat.geowave.core.store.filter.BasicQueryFilter;
+import mil.nga.giat.geowave.core.store.filter.DataIdQueryFilter;
+import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
+import mil.nga.giat.geowave.core.store.filter.DistributableFilterList;
+import mil.nga.giat.geowave.core.store.filter.PrefixIdQueryFilter;
+import mil.nga.giat.geowave.core.store.filter.RowIdQueryFilter;
+import mil.nga.giat.geowave.core.store.index.BasicIndexModel;
+import mil.nga.giat.geowave.core.store.index.CustomIdIndex;
+import mil.nga.giat.geowave.core.store.index.IndexMetaDataSet;
+import mil.nga.giat.geowave.core.store.index.NullIndex;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.numeric.NumberRangeFilter;
+import mil.nga.giat.geowave.core.store.index.numeric.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.store.index.temporal.DateRangeFilter;
+import mil.nga.giat.geowave.core.store.index.temporal.TemporalIndexStrategy;
+import mil.nga.giat.geowave.core.store.index.text.LikeFilter;
+import mil.nga.giat.geowave.core.store.index.text.TextIndexStrategy;
+import mil.nga.giat.geowave.core.store.index.text.TextRangeFilter;
+import mil.nga.giat.geowave.core.store.query.BasicQuery;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.aggregate.CountResult;
+
+public class StorePersistableRegistry implements
+		PersistableRegistrySpi
+{
+
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 200,
+					AdapterToIndexMapping.class),
+			new PersistableIdAndClass(
+					(short) 201,
+					CountDataStatistics.class),
+			new PersistableIdAndClass(
+					(short) 202,
+					RowRangeDataStatistics.class),
+			new PersistableIdAndClass(
+					(short) 203,
+					RowRangeHistogramStatistics.class),
+			new PersistableIdAndClass(
+					(short) 204,
+					AdapterIdQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 205,
+					BasicQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 206,
+					DataIdQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 207,
+					DedupeFilter.class),
+			new PersistableIdAndClass(
+					(short) 208,
+					DistributableFilterList.class),
+			new PersistableIdAndClass(
+					(short) 209,
+					PrefixIdQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 210,
+					RowIdQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 211,
+					BasicIndexModel.class),
+			new PersistableIdAndClass(
+					(short) 212,
+					CustomIdIndex.class),
+			new PersistableIdAndClass(
+					(short) 213,
+					IndexMetaDataSet.class),
+			new PersistableIdAndClass(
+					(short) 214,
+					NullIndex.class),
+			new PersistableIdAndClass(
+					(short) 215,
+					PrimaryIndex.class),
+			new PersistableIdAndClass(
+					(short) 216,
+					NumberRangeFilter.class),
+			new PersistableIdAndClass(
+					(short) 217,
+					NumericIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 218,
+					DateRangeFilter.class),
+			new PersistableIdAndClass(
+					(short) 219,
+					TemporalIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 220,
+					LikeFilter.class),
+			new PersistableIdAndClass(
+					(short) 221,
+					TextIndexStrategy.class),
+			new PersistableIdAndClass(
+					(short) 222,
+					TextRangeFilter.class),
+			new PersistableIdAndClass(
+					(short) 223,
+					BasicQuery.class),
+			new PersistableIdAndClass(
+					(short) 224,
+					QueryOptions.class),
+			new PersistableIdAndClass(
+					(short) 225,
+					CountResult.class),
+			new PersistableIdAndClass(
+					(short) 226,
+					AfterRowIdQueryFilter.class)
+		};
+	}
+}
@@ -4,7 +4,9 @@ import java.io.Closeable;
 import java.io.Flushable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
@@ -20,6 +22,12 @@ import mil.nga.giat.geowave.core.store.ScanCallback;
  * null or the provided data adapter does not implement
  * {@link DataStatisticsStore}.
  * 
+ * Statistics are accumulated in a number of independently locked shards, and
+ * each thread updates the shard selected by its thread ID, so that concurrent
+ * writers rarely contend on the same lock. The shards are merged when the
+ * statistics are flushed, which yields the same statistics as accumulating all
+ * of the entries in a single set of statistics.
+ * 
  * @param <T>
  *            Entry type
  */
@@ -33,11 +41,10 @@ public class StatsCompositionTool<T> implements
 {
 	private final static Logger LOGGER = Logger.getLogger(StatsCompositionTool.class);
 	public static final int FLUSH_STATS_THRESHOLD = 16384;
+	private static final int MAX_SHARDS = 16;
 
-	int updateCount = 0;
 	DataStatisticsStore statisticsStore;
-	List<DataStatisticsBuilder<T>> statisticsBuilders = null;
-	final Object MUTEX = new Object();
+	StatisticsShard<T>[] shards = null;
 	protected boolean skipFlush = false;
 
 	public StatsCompositionTool() {
@@ -57,15 +64,21 @@ public class StatsCompositionTool<T> implements
 		this.init(statisticsProvider);
 	}
 
+	@SuppressWarnings("unchecked")
 	private void init(
 			final StatisticsProvider<T> statisticsProvider ) {
 		final ByteArrayId[] statisticsIds = statisticsProvider.getSupportedStatisticsIds();
-		statisticsBuilders = new ArrayList<DataStatisticsBuilder<T>>(
-				statisticsIds.length);
-		for (final ByteArrayId id : statisticsIds) {
-			statisticsBuilders.add(new DataStatisticsBuilder<T>(
+		// a power of two at least the number of processors
+		final int shardCount = Math.min(
+				MAX_SHARDS,
+				Integer.highestOneBit(Math.max(
+						1,
+						(Runtime.getRuntime().availableProcessors() * 2) - 1)));
+		shards = new StatisticsShard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new StatisticsShard<T>(
 					statisticsProvider,
-					id));
+					statisticsIds);
 		}
 		try {
 			final Object v = System.getProperty("StatsCompositionTool.skipFlush");
@@ -79,21 +92,27 @@ public class StatsCompositionTool<T> implements
 		}
 	}
 
+	private StatisticsShard<T> getShard() {
+		return shards[(int) (Thread.currentThread().getId() & (shards.length - 1))];
+	}
+
 	@Override
 	public void entryDeleted(
 			final DataStoreEntryInfo entryInfo,
 			final T entry ) {
-		if (statisticsBuilders == null) {
+		if (shards == null) {
 			return;
 		}
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
+		// deletes all go to the same shard, as statistics such as the count
+		// de-duplicate the deleted entries they have seen
+		final StatisticsShard<T> shard = shards[0];
+		synchronized (shard) {
+			for (final DataStatisticsBuilder<T> builder : shard.statisticsBuilders) {
 				builder.entryDeleted(
 						entryInfo,
 						entry);
 			}
-			updateCount++;
-			checkStats();
+			checkStats(shard);
 		}
 
 	}
@@ -102,18 +121,17 @@ public class StatsCompositionTool<T> implements
 	public void entryScanned(
 			final DataStoreEntryInfo entryInfo,
 			final T entry ) {
-		if (statisticsBuilders == null) {
+		if (shards == null) {
 			return;
 		}
-
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
+		final StatisticsShard<T> shard = getShard();
+		synchronized (shard) {
+			for (final DataStatisticsBuilder<T> builder : shard.statisticsBuilders) {
 				builder.entryScanned(
 						entryInfo,
 						entry);
 			}
-			updateCount++;
-			checkStats();
+			checkStats(shard);
 		}
 
 	}
@@ -123,17 +141,45 @@ public class StatsCompositionTool<T> implements
 	 */
 	@Override
 	public void flush() {
-		if (statisticsBuilders == null) {
+		if (shards == null) {
 			return;
 		}
-
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
-				final Collection<DataStatistics<T>> statistics = builder.getStatistics();
-				for (final DataStatistics<T> s : statistics) {
-					statisticsStore.incorporateStatistics(s);
+		// merge the shards by statistics ID and visibility before writing, so
+		// the store sees one update per statistic regardless of the sharding
+		final Map<ByteArrayId, Map<ByteArrayId, DataStatistics<T>>> mergedStatistics = new LinkedHashMap<ByteArrayId, Map<ByteArrayId, DataStatistics<T>>>();
+		for (final StatisticsShard<T> shard : shards) {
+			final List<DataStatistics<T>> shardStatistics = new ArrayList<DataStatistics<T>>();
+			synchronized (shard) {
+				for (final DataStatisticsBuilder<T> builder : shard.statisticsBuilders) {
+					final Collection<DataStatistics<T>> statistics = builder.getStatistics();
+					shardStatistics.addAll(statistics);
+					statistics.clear();
 				}
-				statistics.clear();
+			}
+			for (final DataStatistics<T> s : shardStatistics) {
+				Map<ByteArrayId, DataStatistics<T>> statisticsByVisibility = mergedStatistics.get(s.getStatisticsId());
+				if (statisticsByVisibility == null) {
+					statisticsByVisibility = new LinkedHashMap<ByteArrayId, DataStatistics<T>>();
+					mergedStatistics.put(
+							s.getStatisticsId(),
+							statisticsByVisibility);
+				}
+				final ByteArrayId visibility = new ByteArrayId(
+						s.getVisibility() == null ? new byte[0] : s.getVisibility());
+				final DataStatistics<T> merged = statisticsByVisibility.get(visibility);
+				if (merged == null) {
+					statisticsByVisibility.put(
+							visibility,
+							s);
+				}
+				else {
+					merged.merge(s);
+				}
+			}
+		}
+		for (final Map<ByteArrayId, DataStatistics<T>> statisticsByVisibility : mergedStatistics.values()) {
+			for (final DataStatistics<T> s : statisticsByVisibility.values()) {
+				statisticsStore.incorporateStatistics(s);
 			}
 		}
 	}
@@ -142,14 +188,16 @@ public class StatsCompositionTool<T> implements
 	 * Reset statistics, losing and updates since last flush
 	 */
 	public void reset() {
-		if (statisticsBuilders == null) {
+		if (shards == null) {
 			return;
 		}
 
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
-				final Collection<DataStatistics<T>> statistics = builder.getStatistics();
-				statistics.clear();
+		for (final StatisticsShard<T> shard : shards) {
+			synchronized (shard) {
+				for (final DataStatisticsBuilder<T> builder : shard.statisticsBuilders) {
+					final Collection<DataStatistics<T>> statistics = builder.getStatistics();
+					statistics.clear();
+				}
 			}
 		}
 	}
@@ -158,18 +206,17 @@ public class StatsCompositionTool<T> implements
 	public void entryIngested(
 			final DataStoreEntryInfo entryInfo,
 			final T entry ) {
-		if (statisticsBuilders == null) {
+		if (shards == null) {
 			return;
 		}
-
-		synchronized (MUTEX) {
-			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
+		final StatisticsShard<T> shard = getShard();
+		synchronized (shard) {
+			for (final DataStatisticsBuilder<T> builder : shard.statisticsBuilders) {
 				builder.entryIngested(
 						entryInfo,
 						entry);
 			}
-			updateCount++;
-			checkStats();
+			checkStats(shard);
 		}
 	}
 
@@ -183,9 +230,33 @@ public class StatsCompositionTool<T> implements
 		this.statisticsStore = statisticsStore;
 	}
 
-	private void checkStats() {
-		if (!skipFlush && (updateCount > FLUSH_STATS_THRESHOLD)) {
-			updateCount = 0;
+	private void checkStats(
+			final StatisticsShard<T> shard ) {
+		shard.updateCount++;
+		if (!skipFlush && (shard.updateCount > FLUSH_STATS_THRESHOLD)) {
+			shard.updateCount = 0;
+		}
+	}
+
+	/**
+	 * The statistics builders updated by a subset of the threads, guarded by
+	 * the shard itself.
+	 */
+	static class StatisticsShard<T>
+	{
+		private final List<DataStatisticsBuilder<T>> statisticsBuilders;
+		private int updateCount = 0;
+
+		private StatisticsShard(
+				final StatisticsProvider<T> statisticsProvider,
+				final ByteArrayId[] statisticsIds ) {
+			statisticsBuilders = new ArrayList<DataStatisticsBuilder<T>>(
+					statisticsIds.length);
+			for (final ByteArrayId id : statisticsIds) {
+				statisticsBuilders.add(new DataStatisticsBuilder<T>(
+						statisticsProvider,
+						id));
+			}
 		}
 	}
 
@@ -19,49 +19,58 @@ package mil.nga.giat.geowave.core.store.adapter.statistics.histogram;
  */
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import java.util.Arrays;
 
 /**
  * Dynamic Histogram:
- * 
+ *
  * Derived from work for Hive and based on Yael Ben-Haim and Elad Tom-Tov,
  * "A streaming parallel decision tree algorithm", J. Machine Learning Research
  * 11 (2010), pp. 849--872.
- * 
+ *
  * Note: the paper refers to a bins as a pair (p,m) where p = lower bound and m
  * = count. Some of the interpolation treats the pair as a coordinate.
- * 
+ *
  * Although there are no approximation guarantees, it appears to work well with
  * adequate data and a large number of histogram bins.
+ *
+ * Rather than inserting every value into the bins and trimming them one value
+ * at a time, values are collected in a buffer. When the buffer is full, or the
+ * histogram is read, the sorted buffer is merged into the bins in a single pass
+ * and the closest pairs of bins are merged, using a heap of the distances
+ * between neighboring bins, until no more than the maximum number of bins
+ * remain. This keeps the cost of adding a value roughly constant. The bins are
+ * held in primitive arrays and serialized as (lower bound, count) pairs.
+ *
+ * As reading the histogram flushes the buffer into the bins, reads modify the
+ * histogram as well, so every method that touches the bins or the buffer is
+ * synchronized.
  */
 public class MinimalBinDistanceHistogram implements
 		NumericHistogram
 {
+	private static final double EQUALITY_TOLERANCE = 1E-12;
 
 	// Class variables
 	private int nbins = 1024; // the fix maximum number of bins to maintain
 	private long totalCount; // cache to avoid counting all the bins
-	private ArrayList<Bin> bins;
-	private final Random prng;
 	private double maxValue; // the maximum value consumed
 
+	// the bins, sorted by lower bound
+	private double[] lowerBounds;
+	// counts can be split fractionally
+	private double[] counts;
+	private int binCount = 0;
+
+	// values with a count of one that are not yet in the bins
+	private double[] buffer;
+	private int bufferCount = 0;
+
 	/**
 	 * Creates a new histogram object.
 	 */
 	public MinimalBinDistanceHistogram() {
-		totalCount = 0;
-
-		// init the RNG for breaking ties in histogram merging. A fixed seed is
-		// specified here
-		// to aid testing, but can be eliminated to use a time-based seed (which
-		// would
-		// make the algorithm non-deterministic).
-		prng = new Random(
-				31183);
-
-		bins = new ArrayList<Bin>(
+		this(
 				1024);
 	}
 
@@ -71,47 +80,43 @@ public class MinimalBinDistanceHistogram implements
 	public MinimalBinDistanceHistogram(
 			final int size ) {
 		totalCount = 0;
-
-		// init the RNG for breaking ties in histogram merging. A fixed seed is
-		// specified here
-		// to aid testing, but can be eliminated to use a time-based seed (which
-		// would
-		// make the algorithm non-deterministic).
-		prng = new Random(
-				31183);
-
-		bins = new ArrayList<Bin>(
-				size);
 		nbins = size;
+		lowerBounds = new double[0];
+		counts = new double[0];
+		buffer = new double[Math.max(
+				size,
+				16)];
 	}
 
 	/**
 	 * Resets a histogram object to its initial state.
 	 */
-	public void reset() {
-		bins.clear();
+	public synchronized void reset() {
+		binCount = 0;
+		bufferCount = 0;
 		totalCount = 0;
 	}
 
 	/**
-	 * 
+	 *
 	 * @return the total number of consumed values
 	 */
 
-	public long getTotalCount() {
+	public synchronized long getTotalCount() {
 		return totalCount;
 	}
 
 	/**
-	 * 
+	 *
 	 * @return the number of bins used
 	 */
-	public int getNumBins() {
-		return bins.size();
+	public synchronized int getNumBins() {
+		flushBuffer();
+		return binCount;
 	}
 
 	/**
-	 * 
+	 *
 	 * @param other
 	 *            A serialized histogram created by the serialize() method
 	 * @see #merge
@@ -122,51 +127,45 @@ public class MinimalBinDistanceHistogram implements
 			return;
 		}
 
-		MinimalBinDistanceHistogram myTypeOfHist = (MinimalBinDistanceHistogram) other;
-
-		totalCount += myTypeOfHist.totalCount;
-		maxValue = Math.max(
-				myTypeOfHist.maxValue,
-				maxValue);
-		if ((nbins == 0) || (bins.size() == 0)) {
-			// Just make a copy
-			bins = new ArrayList<Bin>(
-					myTypeOfHist.bins.size());
-			for (final Bin coord : myTypeOfHist.bins) {
-				bins.add(coord);
-			}
-			// the constrained bin sizes may not match
-			trim();
+		final MinimalBinDistanceHistogram myTypeOfHist = (MinimalBinDistanceHistogram) other;
+		// copy the other histogram's bins so that both histograms are never
+		// locked at once
+		final long otherTotalCount;
+		final double otherMaxValue;
+		final double[] otherBounds;
+		final double[] otherCounts;
+		synchronized (myTypeOfHist) {
+			myTypeOfHist.flushBuffer();
+			otherTotalCount = myTypeOfHist.totalCount;
+			otherMaxValue = myTypeOfHist.maxValue;
+			otherBounds = Arrays.copyOf(
+					myTypeOfHist.lowerBounds,
+					myTypeOfHist.binCount);
+			otherCounts = Arrays.copyOf(
+					myTypeOfHist.counts,
+					myTypeOfHist.binCount);
 		}
-		else {
-			// The aggregation buffer already contains a partial histogram.
-			// Merge using Algorithm #2 from the Ben-Haim and
-			// Tom-Tov paper.
-
-			final ArrayList<Bin> mergedBins = new ArrayList<Bin>(
-					getNumBins() + other.getNumBins());
-			mergedBins.addAll(bins);
-			for (final Bin oldBin : myTypeOfHist.bins) {
-				mergedBins.add(new Bin(
-						oldBin.lowerBound,
-						oldBin.count));
-			}
-			Collections.sort(mergedBins);
-
-			bins = mergedBins;
-
-			// Now trim the overstuffed histogram down to the correct number of
-			// bins
-			trim();
+		synchronized (this) {
+			flushBuffer();
+
+			totalCount += otherTotalCount;
+			maxValue = Math.max(
+					otherMaxValue,
+					maxValue);
+			// Merge using Algorithm #2 from the Ben-Haim and Tom-Tov paper.
+			mergeSortedBins(
+					otherBounds,
+					otherCounts,
+					otherBounds.length);
 		}
 	}
 
 	/**
-	 * Adds a new data point to the histogram approximation. Make sure you have
-	 * called either allocate() or merge() first. This method implements
-	 * Algorithm #1 from Ben-Haim and Tom-Tov,
-	 * "A Streaming Parallel Decision Tree Algorithm", JMLR 2010.
-	 * 
+	 * Adds a new data point to the histogram approximation. This method
+	 * implements Algorithm #1 from Ben-Haim and Tom-Tov,
+	 * "A Streaming Parallel Decision Tree Algorithm", JMLR 2010, deferring the
+	 * insertion and trimming until the buffer is full.
+	 *
 	 * @param v
 	 *            The data point to add to the histogram approximation.
 	 */
@@ -177,111 +176,181 @@ public class MinimalBinDistanceHistogram implements
 				v);
 	}
 
-	public void add(
-			long count,
-			double v ) {
-		// Binary search to find the closest bucket that v should go into.
-		// 'bin' should be interpreted as the bin to shift right in order to
-		// accomodate
-		// v. As a result, bin is in the range [0,N], where N means that the
-		// value v is
-		// greater than all the N bins currently in the histogram. It is also
-		// possible that
-		// a bucket centered at 'v' already exists, so this must be checked in
-		// the next step.
-		totalCount++;
+	public synchronized void add(
+			final long count,
+			final double v ) {
+		totalCount += count;
 		maxValue = Math.max(
 				maxValue,
 				v);
-		int bin = 0;
-		for (int l = 0, r = bins.size(); l < r;) {
-			bin = (l + r) / 2;
-			if (bins.get(bin).lowerBound > v) {
-				r = bin;
+		if (count == 1) {
+			buffer[bufferCount++] = v;
+			if (bufferCount == buffer.length) {
+				flushBuffer();
+			}
+		}
+		else {
+			flushBuffer();
+			mergeSortedBins(
+					new double[] {
+						v
+					},
+					new double[] {
+						count
+					},
+					1);
+		}
+	}
+
+	private void flushBuffer() {
+		if (bufferCount == 0) {
+			return;
+		}
+		Arrays.sort(
+				buffer,
+				0,
+				bufferCount);
+		// collapse equal values so each contributes a single bin
+		final double[] bufferBounds = new double[bufferCount];
+		final double[] bufferCounts = new double[bufferCount];
+		int size = 0;
+		for (int i = 0; i < bufferCount; i++) {
+			if ((size > 0) && (Math.abs(bufferBounds[size - 1] - buffer[i]) < EQUALITY_TOLERANCE)) {
+				bufferCounts[size - 1]++;
 			}
 			else {
-				if (bins.get(bin).lowerBound < v) {
-					l = ++bin;
-				}
-				else {
-					break; // break loop on equal comparator
-				}
+				bufferBounds[size] = buffer[i];
+				bufferCounts[size] = 1;
+				size++;
 			}
 		}
+		bufferCount = 0;
+		mergeSortedBins(
+				bufferBounds,
+				bufferCounts,
+				size);
+	}
 
-		// If we found an exact bin match for value v, then just increment that
-		// bin's count.
-		// Otherwise, we need to insert a new bin and trim the resulting
-		// histogram back to size.
-		// A possible optimization here might be to set some threshold under
-		// which 'v' is just
-		// assumed to be equal to the closest bin -- if fabs(v-bins[bin].x) <
-		// THRESHOLD, then
-		// just increment 'bin'. This is not done now because we don't want to
-		// make any
-		// assumptions about the range of numeric data being analyzed.
-		if ((bin < bins.size()) && Math.abs(bins.get(bin).lowerBound - v) < 1E-12) {
-			bins.get(bin).count += count;
+	/**
+	 * Merges sorted bins into the bins of this histogram, adding the counts of
+	 * bins with the same lower bound, and trims the result.
+	 */
+	private void mergeSortedBins(
+			final double[] otherBounds,
+			final double[] otherCounts,
+			final int otherCount ) {
+		if (otherCount == 0) {
+			return;
 		}
-		else {
-			bins.add(
-					bin,
-					new Bin(
-							v,
-							count));
-
-			// Trim the bins down to the correct number of bins.
-			if (bins.size() > nbins) {
-				trim();
+		final double[] mergedBounds = new double[binCount + otherCount];
+		final double[] mergedCounts = new double[binCount + otherCount];
+		int size = 0;
+		int i = 0, j = 0;
+		while ((i < binCount) || (j < otherCount)) {
+			final double bound;
+			final double count;
+			if ((j >= otherCount) || ((i < binCount) && (lowerBounds[i] <= otherBounds[j]))) {
+				bound = lowerBounds[i];
+				count = counts[i++];
+			}
+			else {
+				bound = otherBounds[j];
+				count = otherCounts[j++];
+			}
+			if ((size > 0) && (Math.abs(mergedBounds[size - 1] - bound) < EQUALITY_TOLERANCE)) {
+				mergedCounts[size - 1] += count;
+			}
+			else {
+				mergedBounds[size] = bound;
+				mergedCounts[size] = count;
+				size++;
 			}
 		}
-
+		lowerBounds = mergedBounds;
+		counts = mergedCounts;
+		binCount = size;
+		trim();
 	}
 
 	/**
 	 * Trims a histogram down to 'nbins' bins by iteratively merging the closest
-	 * bins. If two pairs of bins are equally close to each other, decide
-	 * uniformly at random which pair to merge, based on a PRNG.
+	 * bins. The distances between neighboring bins are kept in a heap, and
+	 * entries made stale by a merge are skipped as they are popped.
 	 */
 	private void trim() {
-		while (bins.size() > nbins) {
-			// Find the closest pair of bins in terms of x coordinates. Break
-			// ties randomly.
-			double smallestdiff = bins.get(1).lowerBound - bins.get(0).lowerBound;
-			int smallestdiffloc = 0, smallestdiffcount = 1;
-			final int s = bins.size() - 1;
-			for (int i = 1; i < s; i++) {
-				final double diff = bins.get(i + 1).lowerBound - bins.get(i).lowerBound;
-				if (diff < smallestdiff) {
-					smallestdiff = diff;
-					smallestdiffloc = i;
-					smallestdiffcount = 1;
-				}
-				else {
-					if (((diff - smallestdiff) < 1E-12) && (prng.nextDouble() <= (1.0 / ++smallestdiffcount))) {
-						smallestdiffloc = i;
-					}
-				}
+		if ((binCount <= nbins) || (nbins <= 0)) {
+			return;
+		}
+		final int[] next = new int[binCount];
+		final int[] prev = new int[binCount];
+		final int[] version = new int[binCount];
+		for (int i = 0; i < binCount; i++) {
+			next[i] = i + 1 < binCount ? i + 1 : -1;
+			prev[i] = i - 1;
+		}
+		final GapHeap heap = new GapHeap(
+				binCount * 3);
+		for (int i = 0; i < (binCount - 1); i++) {
+			heap.push(
+					lowerBounds[i + 1] - lowerBounds[i],
+					i,
+					0);
+		}
+		int remaining = binCount;
+		while ((remaining > nbins) && !heap.isEmpty()) {
+			final int left = heap.peekBin();
+			final int leftVersion = heap.peekVersion();
+			heap.pop();
+			final int right = next[left];
+			if ((leftVersion != version[left]) || (right < 0)) {
+				// stale, the bin or its right neighbor changed
+				continue;
 			}
 
 			// Merge the two closest bins into their average x location,
 			// weighted by their heights.
 			// The height of the new bin is the sum of the heights of the old
 			// bins.
+			final double d = counts[left] + counts[right];
+			lowerBounds[left] = ((lowerBounds[left] * counts[left]) / d) + ((lowerBounds[right] / d) * counts[right]);
+			counts[left] = d;
+			counts[right] = 0;
+			version[right]++;
+			next[left] = next[right];
+			if (next[right] >= 0) {
+				prev[next[right]] = left;
+			}
+			version[left]++;
+			remaining--;
+
+			if (next[left] >= 0) {
+				heap.push(
+						lowerBounds[next[left]] - lowerBounds[left],
+						left,
+						version[left]);
+			}
+			final int before = prev[left];
+			if (before >= 0) {
+				version[before]++;
+				heap.push(
+						lowerBounds[left] - lowerBounds[before],
+						before,
+						version[before]);
+			}
+		}
 
-			final Bin smallestdiffbin = bins.get(smallestdiffloc);
-			final double d = smallestdiffbin.count + bins.get(smallestdiffloc + 1).count;
-			smallestdiffbin.lowerBound *= smallestdiffbin.count / d;
-			smallestdiffbin.lowerBound += (bins.get(smallestdiffloc + 1).lowerBound / d)
-					* bins.get(smallestdiffloc + 1).count;
-			smallestdiffbin.count = d;
-			// Shift the remaining bins left one position
-			bins.remove(smallestdiffloc + 1);
+		// compact the remaining bins
+		int size = 0;
+		for (int i = 0; i >= 0; i = next[i]) {
+			lowerBounds[size] = lowerBounds[i];
+			counts[size] = counts[i];
+			size++;
 		}
+		binCount = size;
 	}
 
 	/**
-	 * 
+	 *
 	 * @return The quantiles over the given number of bins.
 	 */
 	public double[] quantile(
@@ -298,28 +367,27 @@ public class MinimalBinDistanceHistogram implements
 	/**
 	 * Gets an approximate quantile value from the current histogram. Some
 	 * popular quantiles are 0.5 (median), 0.95, and 0.98.
-	 * 
+	 *
 	 * @param q
 	 *            The requested quantile, must be strictly within the range
 	 *            (0,1).
 	 * @return The quantile value.
 	 */
-	public double quantile(
+	public synchronized double quantile(
 			final double q ) {
-		assert ((bins != null) && (bins.size() > 0) && (nbins > 0));
+		flushBuffer();
+		assert ((binCount > 0) && (nbins > 0));
 		double csum = 0;
-		final int binsCount = bins.size();
-		for (int b = 0; b < binsCount; b++) {
-			csum += bins.get(b).count;
+		for (int b = 0; b < binCount; b++) {
+			csum += counts[b];
 			if ((csum / totalCount) >= q) {
 				if (b == 0) {
-					return bins.get(b).lowerBound;
+					return lowerBounds[b];
 				}
 
-				csum -= bins.get(b).count;
-				final double r = bins.get(b - 1).lowerBound
-						+ ((((q * totalCount) - csum) * (bins.get(b).lowerBound - bins.get(b - 1).lowerBound)) / (bins
-								.get(b).count));
+				csum -= counts[b];
+				final double r = lowerBounds[b - 1]
+						+ ((((q * totalCount) - csum) * (lowerBounds[b] - lowerBounds[b - 1])) / (counts[b]));
 				return r;
 			}
 		}
@@ -328,18 +396,19 @@ public class MinimalBinDistanceHistogram implements
 
 	/**
 	 * Estimate number of values consumed up to provided value.
-	 * 
+	 *
 	 * @param val
 	 * @return the number of estimated points
 	 */
-	public double sum(
+	public synchronized double sum(
 			final double val,
 			final boolean inclusive ) {
-		if (bins.isEmpty()) {
+		flushBuffer();
+		if (binCount == 0) {
 			return 0.0;
 		}
 
-		final double minValue = bins.get(0).lowerBound;
+		final double minValue = lowerBounds[0];
 		final double range = maxValue - minValue;
 		// one value
 
@@ -352,20 +421,15 @@ public class MinimalBinDistanceHistogram implements
 
 		double foundCount = 0;
 		int i = 0;
-		for (final Bin coord : bins) {
-			if (coord.lowerBound < val) {
-				foundCount += coord.count;
-			}
-			else {
-				break;
-			}
+		while ((i < binCount) && (lowerBounds[i] < val)) {
+			foundCount += counts[i];
 			i++;
 		}
 
-		final double upperBoundary = (i < getNumBins()) ? bins.get(i).lowerBound : maxValue;
-		final double lowerBoundary = i > 0 ? bins.get(i - 1).lowerBound : 0.0;
-		final double upperCount = (i < getNumBins()) ? bins.get(i).count : 0;
-		final double lowerCount = i > 0 ? bins.get(i - 1).count : 0;
+		final double upperBoundary = (i < binCount) ? lowerBounds[i] : maxValue;
+		final double lowerBoundary = i > 0 ? lowerBounds[i - 1] : 0.0;
+		final double upperCount = (i < binCount) ? counts[i] : 0;
+		final double lowerCount = i > 0 ? counts[i - 1] : 0;
 		foundCount -= lowerCount;
 
 		// from paper 'sum' procedure
@@ -380,14 +444,14 @@ public class MinimalBinDistanceHistogram implements
 		return r > 1.0 ? r : (inclusive ? 1.0 : r);
 	}
 
-	public double cdf(
+	public synchronized double cdf(
 			final double val ) {
 		return sum(
 				val,
 				false) / totalCount;
 	}
 
-	public long[] count(
+	public synchronized long[] count(
 			final int bins ) {
 		final long[] result = new long[bins];
 		double start = this.getMinValue();
@@ -405,116 +469,186 @@ public class MinimalBinDistanceHistogram implements
 		return result;
 	}
 
-	public int bufferSize() {
-		// 20 = 8 bytes for total count, 4 bytes for number of used bins, 4
-		// bytes for number of bins, 8 bytes for maxValue
-		return (bins.size() * Bin.bufferSize()) + 24;
+	public synchronized int bufferSize() {
+		flushBuffer();
+		// 24 = 8 bytes for total count, 4 bytes for number of used bins, 4
+		// bytes for number of bins, 8 bytes for maxValue, and 16 bytes for
+		// each bin
+		return (binCount * 16) + 24;
 	}
 
-	public void toBinary(
+	public synchronized void toBinary(
 			final ByteBuffer buffer ) {
+		flushBuffer();
 		buffer.putLong(totalCount);
 		buffer.putDouble(maxValue);
 		buffer.putInt(nbins);
-		buffer.putInt(bins.size());
-		for (final Bin bin : bins) {
-			bin.toBuffer(buffer);
+		buffer.putInt(binCount);
+		for (int i = 0; i < binCount; i++) {
+			buffer.putDouble(lowerBounds[i]);
+			buffer.putDouble(counts[i]);
 		}
 	}
 
-	public void fromBinary(
+	public synchronized void fromBinary(
 			final ByteBuffer buffer ) {
 		totalCount = buffer.getLong();
 		maxValue = buffer.getDouble();
 		nbins = buffer.getInt();
-		final int usedBinCount = buffer.getInt();
-		bins.clear();
-		bins.ensureCapacity(nbins);
-		for (int i = 0; i < usedBinCount; i++) {
-			bins.add(new Bin().fromBuffer(buffer));
+		binCount = buffer.getInt();
+		lowerBounds = new double[binCount];
+		counts = new double[binCount];
+		for (int i = 0; i < binCount; i++) {
+			lowerBounds[i] = buffer.getDouble();
+			counts[i] = buffer.getDouble();
+		}
+		bufferCount = 0;
+		if (this.buffer.length < nbins) {
+			this.buffer = new double[nbins];
 		}
 	}
 
+	public synchronized double getMaxValue() {
+		return maxValue;
+	};
+
+	public synchronized double getMinValue() {
+		flushBuffer();
+		return binCount > 0 ? lowerBounds[0] : 0.0;
+	};
+
 	/**
-	 * The Bin class defines a histogram bin, which is just an (x,y) pair.
+	 * A binary min heap of the distances between neighboring bins, ordered by
+	 * distance and then by the position of the left bin.
 	 */
-	static class Bin implements
-			Comparable<Bin>
+	private static class GapHeap
 	{
-		double lowerBound;
-		// Counts can be split fractionally
-		double count;
-
-		public Bin() {
-
+		private double[] gaps;
+		private int[] bins;
+		private int[] versions;
+		private int size = 0;
+
+		private GapHeap(
+				final int capacity ) {
+			gaps = new double[Math.max(
+					capacity,
+					1)];
+			bins = new int[gaps.length];
+			versions = new int[gaps.length];
 		}
 
-		public Bin(
-				final double lowerBound,
-				final double count ) {
-			super();
-			this.lowerBound = lowerBound;
-			this.count = count;
+		private boolean isEmpty() {
+			return size == 0;
 		}
 
-		@Override
-		public int compareTo(
-				final Bin other ) {
-			return Double.compare(
-					lowerBound,
-					other.lowerBound);
+		private int peekBin() {
+			return bins[0];
 		}
 
-		public void toBuffer(
-				final ByteBuffer buffer ) {
-			buffer.putDouble(lowerBound);
-			buffer.putDouble(count);
+		private int peekVersion() {
+			return versions[0];
 		}
 
-		public Bin fromBuffer(
-				final ByteBuffer buffer ) {
-			lowerBound = buffer.getDouble();
-			count = buffer.getDouble();
-			return this;
+		private void push(
+				final double gap,
+				final int bin,
+				final int version ) {
+			if (size == gaps.length) {
+				gaps = Arrays.copyOf(
+						gaps,
+						size * 2);
+				bins = Arrays.copyOf(
+						bins,
+						size * 2);
+				versions = Arrays.copyOf(
+						versions,
+						size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				final int parent = (i - 1) >>> 1;
+				if (!less(
+						gap,
+						bin,
+						gaps[parent],
+						bins[parent])) {
+					break;
+				}
+				set(
+						i,
+						gaps[parent],
+						bins[parent],
+						versions[parent]);
+				i = parent;
+			}
+			set(
+					i,
+					gap,
+					bin,
+					version);
 		}
 
-		static int bufferSize() {
-			return 16;
+		private void pop() {
+			size--;
+			if (size == 0) {
+				return;
+			}
+			final double gap = gaps[size];
+			final int bin = bins[size];
+			final int version = versions[size];
+			int i = 0;
+			while (true) {
+				int child = (2 * i) + 1;
+				if (child >= size) {
+					break;
+				}
+				if (((child + 1) < size) && less(
+						gaps[child + 1],
+						bins[child + 1],
+						gaps[child],
+						bins[child])) {
+					child++;
+				}
+				if (!less(
+						gaps[child],
+						bins[child],
+						gap,
+						bin)) {
+					break;
+				}
+				set(
+						i,
+						gaps[child],
+						bins[child],
+						versions[child]);
+				i = child;
+			}
+			set(
+					i,
+					gap,
+					bin,
+					version);
 		}
 
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			long temp;
-			temp = Double.doubleToLongBits(count);
-			result = prime * result + (int) (temp ^ (temp >>> 32));
-			temp = Double.doubleToLongBits(lowerBound);
-			result = prime * result + (int) (temp ^ (temp >>> 32));
-			return result;
+		private void set(
+				final int i,
+				final double gap,
+				final int bin,
+				final int version ) {
+			gaps[i] = gap;
+			bins[i] = bin;
+			versions[i] = version;
 		}
 
-		@Override
-		public boolean equals(
-				Object obj ) {
-			if (this == obj) return true;
-			if (obj == null) return false;
-			if (getClass() != obj.getClass()) return false;
-			Bin other = (Bin) obj;
-			if (Double.doubleToLongBits(count) != Double.doubleToLongBits(other.count)) return false;
-			if (Double.doubleToLongBits(lowerBound) != Double.doubleToLongBits(other.lowerBound)) return false;
-			return true;
+		private static boolean less(
+				final double gap1,
+				final int bin1,
+				final double gap2,
+				final int bin2 ) {
+			return (gap1 < gap2) || ((gap1 == gap2) && (bin1 < bin2));
 		}
 	}
 
-	public double getMaxValue() {
-		return maxValue;
-	};
-
-	public double getMinValue() {
-		return !bins.isEmpty() ? bins.get(0).lowerBound : 0.0;
-	};
-
 	public static class MinimalBinDistanceHistogramFactory implements
 			NumericHistogramFactory
 	{
@@ -0,0 +1,127 @@
+package mil.nga.giat.geowave.core.store.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+
+/**
+ * This is a persistent data set that holds on to the binary representation of
+ * its fields and only uses the field reader to decode a field when its value is
+ * first requested. Filters typically look at a small subset of the fields of an
+ * entry and reject most of the entries they see, so the cost of decoding the
+ * remaining fields is only paid for entries that are actually used.
+ *
+ * @param <T>
+ *            The most specific generalization for the type for all of the
+ *            values in this dataset.
+ */
+public class LazyReadPersistentDataset<T> extends
+		PersistentDataset<T>
+{
+	private final Map<ByteArrayId, LazyValue<T>> unreadValues = new LinkedHashMap<ByteArrayId, LazyValue<T>>();
+
+	public LazyReadPersistentDataset() {
+		super();
+	}
+
+	/**
+	 * Add the binary value of a field, to be decoded with the given reader when
+	 * it is first requested. Do not overwrite.
+	 *
+	 * @param fieldId
+	 *            the field ID
+	 * @param reader
+	 *            the reader for the field
+	 * @param value
+	 *            the binary value of the field
+	 * @param visibility
+	 *            if not null, the visibility to set on common index values once
+	 *            they are read
+	 */
+	public void addValue(
+			final ByteArrayId fieldId,
+			final FieldReader<? extends T> reader,
+			final byte[] value,
+			final byte[] visibility ) {
+		if (unreadValues.containsKey(fieldId) || (super.getValue(fieldId) != null)) {
+			return;
+		}
+		unreadValues.put(
+				fieldId,
+				new LazyValue<T>(
+						reader,
+						value,
+						visibility));
+	}
+
+	@Override
+	public void addValue(
+			final PersistentValue<T> value ) {
+		if (unreadValues.containsKey(value.getId())) {
+			return;
+		}
+		super.addValue(value);
+	}
+
+	@Override
+	public void addOrUpdateValue(
+			final PersistentValue<T> value ) {
+		unreadValues.remove(value.getId());
+		super.addOrUpdateValue(value);
+	}
+
+	@Override
+	public T getValue(
+			final ByteArrayId fieldId ) {
+		final LazyValue<T> unreadValue = unreadValues.remove(fieldId);
+		if (unreadValue != null) {
+			final T value = unreadValue.read();
+			super.addValue(new PersistentValue<T>(
+					fieldId,
+					value));
+			return value;
+		}
+		return super.getValue(fieldId);
+	}
+
+	@Override
+	public List<PersistentValue<T>> getValues() {
+		if (!unreadValues.isEmpty()) {
+			final List<ByteArrayId> fieldIds = new ArrayList<ByteArrayId>(
+					unreadValues.keySet());
+			for (final ByteArrayId fieldId : fieldIds) {
+				getValue(fieldId);
+			}
+		}
+		return super.getValues();
+	}
+
+	private static class LazyValue<T>
+	{
+		private final FieldReader<? extends T> reader;
+		private final byte[] value;
+		private final byte[] visibility;
+
+		private LazyValue(
+				final FieldReader<? extends T> reader,
+				final byte[] value,
+				final byte[] visibility ) {
+			this.reader = reader;
+			this.value = value;
+			this.visibility = visibility;
+		}
+
+		private T read() {
+			final T fieldValue = reader.readField(value);
+			if ((visibility != null) && (fieldValue instanceof CommonIndexValue)) {
+				((CommonIndexValue) fieldValue).setVisibility(visibility);
+			}
+			return fieldValue;
+		}
+	}
+}
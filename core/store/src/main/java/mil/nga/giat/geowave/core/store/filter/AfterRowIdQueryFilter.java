@@ -0,0 +1,147 @@
+package mil.nga.giat.geowave.core.store.filter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.store.data.CommonIndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.memory.EntryRowID;
+
+/**
+ * This filter accepts only the rows of an index that follow a given row ID, so
+ * that rows scanned in order can be resumed from the last row that was
+ * returned.
+ *
+ * An entry that is stored in several rows is returned from the first of its
+ * rows that is scanned, so it is also rejected if any of its other rows that
+ * satisfy the index constraints precedes the given row ID, as the entry has
+ * then already been returned.
+ */
+public class AfterRowIdQueryFilter implements
+		DistributableQueryFilter
+{
+	private ByteArrayId afterRowId;
+	private PrimaryIndex index;
+	private List<MultiDimensionalNumericData> constraints;
+	private IndexCellFilter cellFilter;
+
+	protected AfterRowIdQueryFilter() {}
+
+	/**
+	 *
+	 * @param afterRowId
+	 *            the row ID after which rows are accepted
+	 * @param index
+	 *            the index being scanned
+	 * @param constraints
+	 *            the constraints of the query on the index
+	 */
+	public AfterRowIdQueryFilter(
+			final ByteArrayId afterRowId,
+			final PrimaryIndex index,
+			final List<MultiDimensionalNumericData> constraints ) {
+		this.afterRowId = afterRowId;
+		this.index = index;
+		this.constraints = constraints;
+		init();
+	}
+
+	private void init() {
+		cellFilter = new IndexCellFilter(
+				index.getIndexStrategy(),
+				constraints);
+	}
+
+	@Override
+	public boolean accept(
+			final CommonIndexModel indexModel,
+			final IndexedPersistenceEncoding<?> persistenceEncoding ) {
+		final byte[] adapterId = persistenceEncoding.getAdapterId().getBytes();
+		final byte[] dataId = persistenceEncoding.getDataId().getBytes();
+		if (getRowId(
+				persistenceEncoding.getIndexInsertionId(),
+				adapterId,
+				dataId,
+				persistenceEncoding.getDuplicateCount()).compareTo(
+				afterRowId) <= 0) {
+			return false;
+		}
+		if (!persistenceEncoding.isDuplicated() || !(persistenceEncoding instanceof CommonIndexedPersistenceEncoding)) {
+			return true;
+		}
+		for (final ByteArrayId insertionId : ((CommonIndexedPersistenceEncoding) persistenceEncoding)
+				.getInsertionIds(index)) {
+			final ByteArrayId rowId = getRowId(
+					insertionId,
+					adapterId,
+					dataId,
+					persistenceEncoding.getDuplicateCount());
+			if ((rowId.compareTo(afterRowId) <= 0) && cellFilter.acceptRow(
+					rowId.getBytes(),
+					0,
+					rowId.getBytes().length)) {
+				// the entry was returned from this row
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static ByteArrayId getRowId(
+			final ByteArrayId insertionId,
+			final byte[] adapterId,
+			final byte[] dataId,
+			final int duplicateCount ) {
+		return new ByteArrayId(
+				new EntryRowID(
+						insertionId.getBytes(),
+						dataId,
+						adapterId,
+						duplicateCount).getRowId());
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] afterRowIdBinary = afterRowId.getBytes();
+		final byte[] indexBinary = PersistenceUtils.toBinary(index);
+		final byte[] constraintsBinary = PersistenceUtils.toBinary(constraints);
+		final ByteBuffer buf = ByteBuffer.allocate(8 + afterRowIdBinary.length + indexBinary.length
+				+ constraintsBinary.length);
+		buf.putInt(afterRowIdBinary.length);
+		buf.put(afterRowIdBinary);
+		buf.putInt(indexBinary.length);
+		buf.put(indexBinary);
+		buf.put(constraintsBinary);
+		return buf.array();
+	}
+
+	@SuppressWarnings({
+		"unchecked",
+		"rawtypes"
+	})
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		final byte[] afterRowIdBinary = new byte[buf.getInt()];
+		buf.get(afterRowIdBinary);
+		afterRowId = new ByteArrayId(
+				afterRowIdBinary);
+		final byte[] indexBinary = new byte[buf.getInt()];
+		buf.get(indexBinary);
+		index = PersistenceUtils.fromBinary(
+				indexBinary,
+				PrimaryIndex.class);
+		final byte[] constraintsBinary = new byte[buf.remaining()];
+		buf.get(constraintsBinary);
+		constraints = new ArrayList<MultiDimensionalNumericData>(
+				(List) PersistenceUtils.fromBinary(constraintsBinary));
+		init();
+	}
+}
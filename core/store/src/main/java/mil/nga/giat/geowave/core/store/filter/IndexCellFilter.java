@@ -0,0 +1,203 @@
+package mil.nga.giat.geowave.core.store.filter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+
+/**
+ * This filter decides whether a row can possibly satisfy a set of query
+ * constraints using only the insertion ID of the row, without decoding any of
+ * its fields. The insertion ID is resolved by the index strategy to the range
+ * of the space filling curve cell that it represents, and the row is rejected
+ * if that cell does not overlap any of the query constraints. Every entry is
+ * stored in cells that cover its extent, so an entry that intersects the query
+ * always has a row whose cell does, and only redundant rows are rejected.
+ *
+ * Consecutive rows frequently share an insertion ID, so the decision for the
+ * last insertion ID is retained. When the index strategy cannot resolve an
+ * insertion ID the row is accepted and left to the field-level filters.
+ *
+ * The row ID is expected to be laid out as the insertion ID followed by the
+ * adapter ID and the data ID, and lastly the adapter ID length, data ID length
+ * and number of duplicates as 4 byte integers.
+ */
+public class IndexCellFilter
+{
+	private final static Logger LOGGER = Logger.getLogger(IndexCellFilter.class);
+	private static final int ROW_METADATA_LENGTH = 12;
+	// guards against rounding when cell ranges are denormalized
+	private static final double CELL_TOLERANCE = 1E-9;
+
+	private final NumericIndexStrategy indexStrategy;
+	private final double[][] constraintMins;
+	private final double[][] constraintMaxes;
+
+	private byte[] lastInsertionId = new byte[0];
+	private int lastInsertionIdLength = -1;
+	private boolean lastDecision = true;
+
+	public IndexCellFilter(
+			final NumericIndexStrategy indexStrategy,
+			final List<MultiDimensionalNumericData> constraints ) {
+		this.indexStrategy = indexStrategy;
+		constraintMins = new double[constraints.size()][];
+		constraintMaxes = new double[constraints.size()][];
+		for (int i = 0; i < constraints.size(); i++) {
+			constraintMins[i] = constraints.get(
+					i).getMinValuesPerDimension();
+			constraintMaxes[i] = constraints.get(
+					i).getMaxValuesPerDimension();
+		}
+	}
+
+	private IndexCellFilter(
+			final NumericIndexStrategy indexStrategy,
+			final double[][] constraintMins,
+			final double[][] constraintMaxes ) {
+		this.indexStrategy = indexStrategy;
+		this.constraintMins = constraintMins;
+		this.constraintMaxes = constraintMaxes;
+	}
+
+	/**
+	 * The retained decision makes this filter stateful, so each scan needs its
+	 * own copy.
+	 *
+	 * @return a filter with the same constraints and no retained decision
+	 */
+	public IndexCellFilter copy() {
+		return new IndexCellFilter(
+				indexStrategy,
+				constraintMins,
+				constraintMaxes);
+	}
+
+	/**
+	 * @param row
+	 *            the array containing the row ID
+	 * @param offset
+	 *            the offset of the row ID within the array
+	 * @param length
+	 *            the length of the row ID
+	 * @return false only if the cell of the row is outside of all constraints
+	 */
+	public boolean acceptRow(
+			final byte[] row,
+			final int offset,
+			final int length ) {
+		if ((constraintMins.length == 0) || (length < ROW_METADATA_LENGTH)) {
+			return true;
+		}
+		final ByteBuffer metadataBuf = ByteBuffer.wrap(
+				row,
+				(offset + length) - ROW_METADATA_LENGTH,
+				ROW_METADATA_LENGTH);
+		final int adapterIdLength = metadataBuf.getInt();
+		final int dataIdLength = metadataBuf.getInt();
+		final int insertionIdLength = length - ROW_METADATA_LENGTH - adapterIdLength - dataIdLength;
+		if (insertionIdLength <= 0) {
+			return true;
+		}
+		return acceptInsertionId(
+				row,
+				offset,
+				insertionIdLength);
+	}
+
+	public boolean acceptInsertionId(
+			final byte[] bytes,
+			final int offset,
+			final int length ) {
+		if (isLastInsertionId(
+				bytes,
+				offset,
+				length)) {
+			return lastDecision;
+		}
+		if (lastInsertionId.length < length) {
+			lastInsertionId = new byte[length];
+		}
+		System.arraycopy(
+				bytes,
+				offset,
+				lastInsertionId,
+				0,
+				length);
+		lastInsertionIdLength = length;
+		lastDecision = overlaps(Arrays.copyOf(
+				lastInsertionId,
+				length));
+		return lastDecision;
+	}
+
+	private boolean isLastInsertionId(
+			final byte[] bytes,
+			final int offset,
+			final int length ) {
+		if (length != lastInsertionIdLength) {
+			return false;
+		}
+		// compare from the end, where consecutive insertion IDs differ
+		for (int i = length - 1; i >= 0; i--) {
+			if (bytes[offset + i] != lastInsertionId[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean overlaps(
+			final byte[] insertionId ) {
+		final MultiDimensionalNumericData cell;
+		try {
+			cell = indexStrategy.getRangeForId(new ByteArrayId(
+					insertionId));
+		}
+		catch (final RuntimeException e) {
+			LOGGER.warn(
+					"Unable to resolve the cell of an insertion ID, accepting row",
+					e);
+			return true;
+		}
+		if ((cell == null) || cell.isEmpty()) {
+			return true;
+		}
+		final double[] cellMins = cell.getMinValuesPerDimension();
+		final double[] cellMaxes = cell.getMaxValuesPerDimension();
+		for (int c = 0; c < constraintMins.length; c++) {
+			if (overlaps(
+					cellMins,
+					cellMaxes,
+					constraintMins[c],
+					constraintMaxes[c])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean overlaps(
+			final double[] cellMins,
+			final double[] cellMaxes,
+			final double[] queryMins,
+			final double[] queryMaxes ) {
+		final int dimensions = Math.min(
+				cellMins.length,
+				queryMins.length);
+		for (int d = 0; d < dimensions; d++) {
+			final double tolerance = Math.max(
+					Math.abs(cellMaxes[d] - cellMins[d]),
+					Double.MIN_NORMAL) * CELL_TOLERANCE;
+			if (((cellMaxes[d] + tolerance) < queryMins[d]) || ((cellMins[d] - tolerance) > queryMaxes[d])) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -43,7 +43,8 @@ public interface SecondaryIndexDataStore
 	 * @param constraints
 	 * @param primaryIndexId
 	 * @param visibility
-	 * @return
+	 * @return the primary index row IDs of the matching entries, streamed as
+	 *         they are scanned and possibly containing duplicates
 	 */
 	public CloseableIterator<ByteArrayId> query(
 			SecondaryIndex<?> secondaryIndex,
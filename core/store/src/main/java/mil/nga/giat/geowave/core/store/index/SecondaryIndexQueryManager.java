@@ -2,7 +2,10 @@ package mil.nga.giat.geowave.core.store.index;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.query.BasicQuery;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
 
 /**
  * Manages query the secondary indices given a query. Eventually is replaced by
@@ -45,4 +48,40 @@ public class SecondaryIndexQueryManager
 		return new CloseableIterator.Empty<ByteArrayId>();
 	}
 
+	/**
+	 * Queries the secondary index and fetches the referenced entries from the
+	 * primary index, in batches of distinct row IDs as the secondary index
+	 * results are streamed
+	 * 
+	 * @param dataStore
+	 * @param adapter
+	 * @param query
+	 * @param secondaryIndex
+	 * @param primaryIndex
+	 * @param visibility
+	 * @return
+	 */
+	public <T> CloseableIterator<T> query(
+			final DataStore dataStore,
+			final DataAdapter<T> adapter,
+			final BasicQuery query,
+			final SecondaryIndex<?> secondaryIndex,
+			final PrimaryIndex primaryIndex,
+			final String... visibility ) {
+		if (query.isSupported(secondaryIndex)) {
+			return new SecondaryIndexRowIterator<T>(
+					dataStore,
+					new QueryOptions(
+							adapter,
+							primaryIndex,
+							visibility),
+					query(
+							query,
+							secondaryIndex,
+							primaryIndex,
+							visibility));
+		}
+		return new CloseableIterator.Empty<T>();
+	}
+
 }
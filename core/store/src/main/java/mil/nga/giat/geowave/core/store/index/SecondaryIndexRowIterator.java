@@ -0,0 +1,152 @@
+package mil.nga.giat.geowave.core.store.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.RowIdQuery;
+
+/**
+ * Resolves the primary index row IDs matched by a secondary index into the
+ * entries they reference. The row IDs are consumed lazily, duplicates are
+ * dropped, and each batch of row IDs is fetched from the primary index with a
+ * single {@link RowIdQuery} so the data store can look up the exact rows in
+ * parallel rather than one at a time.
+ *
+ * @param <T>
+ *            The type of entity being returned
+ */
+public class SecondaryIndexRowIterator<T> implements
+		CloseableIterator<T>
+{
+	private final static Logger LOGGER = Logger.getLogger(SecondaryIndexRowIterator.class);
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private final DataStore dataStore;
+	private final QueryOptions queryOptions;
+	private final CloseableIterator<ByteArrayId> primaryRowIds;
+	private final int batchSize;
+	private final Set<ByteArrayId> fetchedRowIds = new HashSet<ByteArrayId>();
+	private CloseableIterator<T> batch = null;
+	private T next = null;
+
+	public SecondaryIndexRowIterator(
+			final DataStore dataStore,
+			final QueryOptions queryOptions,
+			final CloseableIterator<ByteArrayId> primaryRowIds ) {
+		this(
+				dataStore,
+				queryOptions,
+				primaryRowIds,
+				DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 *
+	 * @param dataStore
+	 *            the data store holding the primary index
+	 * @param queryOptions
+	 *            the adapter, primary index and authorizations used to fetch
+	 *            each batch
+	 * @param primaryRowIds
+	 *            the primary index row IDs matched by the secondary index,
+	 *            which is closed along with this iterator
+	 * @param batchSize
+	 *            the maximum number of rows fetched by each primary index query
+	 */
+	public SecondaryIndexRowIterator(
+			final DataStore dataStore,
+			final QueryOptions queryOptions,
+			final CloseableIterator<ByteArrayId> primaryRowIds,
+			final int batchSize ) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException(
+					"Batch size must be positive");
+		}
+		this.dataStore = dataStore;
+		this.queryOptions = queryOptions;
+		this.primaryRowIds = primaryRowIds;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (next == null) {
+			if ((batch != null) && batch.hasNext()) {
+				next = batch.next();
+			}
+			else if (!nextBatch()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public T next()
+			throws NoSuchElementException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final T retVal = next;
+		next = null;
+		return retVal;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Remove is not supported on secondary index results");
+	}
+
+	private boolean nextBatch() {
+		closeBatch();
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>(
+				batchSize);
+		while (primaryRowIds.hasNext() && (rowIds.size() < batchSize)) {
+			final ByteArrayId rowId = primaryRowIds.next();
+			// several secondary index entries can reference the same row
+			if (fetchedRowIds.add(rowId)) {
+				rowIds.add(rowId);
+			}
+		}
+		if (rowIds.isEmpty()) {
+			return false;
+		}
+		batch = dataStore.query(
+				queryOptions,
+				new RowIdQuery(
+						rowIds));
+		return true;
+	}
+
+	private void closeBatch() {
+		if (batch != null) {
+			try {
+				batch.close();
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close primary index batch",
+						e);
+			}
+			batch = null;
+		}
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		closeBatch();
+		primaryRowIds.close();
+	}
+}
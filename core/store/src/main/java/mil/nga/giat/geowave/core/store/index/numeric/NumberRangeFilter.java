@@ -77,11 +77,15 @@ public class NumberRangeFilter implements
 
 	@Override
 	public byte[] toBinary() {
-		final ByteBuffer bb = ByteBuffer.allocate(4 + fieldId.getBytes().length + 16);
+		final ByteBuffer bb = ByteBuffer.allocate(4 + fieldId.getBytes().length + 16 + 8);
 		bb.putInt(fieldId.getBytes().length);
 		bb.put(fieldId.getBytes());
 		bb.putDouble(lowerValue.doubleValue());
 		bb.putDouble(upperValue.doubleValue());
+		final int rangeInclusiveHighInt = (inclusiveHigh) ? 1 : 0;
+		final int rangeInclusiveLowInt = (inclusiveLow) ? 1 : 0;
+		bb.putInt(rangeInclusiveLowInt);
+		bb.putInt(rangeInclusiveHighInt);
 		return bb.array();
 	}
 
@@ -97,7 +101,8 @@ public class NumberRangeFilter implements
 				bb.getDouble());
 		upperValue = new Double(
 				bb.getDouble());
-
+		inclusiveLow = (bb.getInt() == 1) ? true : false;
+		inclusiveHigh = (bb.getInt() == 1) ? true : false;
 	}
 
 }
@@ -36,6 +36,14 @@ public class NumericQueryConstraint implements
 		return fieldId;
 	}
 
+	public Number getLowerValue() {
+		return lowerValue;
+	}
+
+	public Number getUpperValue() {
+		return upperValue;
+	}
+
 	@Override
 	public int getDimensionCount() {
 		return 1;
@@ -35,6 +35,14 @@ public class TemporalQueryConstraint implements
 		return fieldId;
 	}
 
+	public Date getStart() {
+		return start;
+	}
+
+	public Date getEnd() {
+		return end;
+	}
+
 	public TemporalQueryConstraint(
 			final ByteArrayId fieldId,
 			final Date start,
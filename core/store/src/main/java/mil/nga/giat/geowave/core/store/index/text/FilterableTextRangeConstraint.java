@@ -47,6 +47,18 @@ public class FilterableTextRangeConstraint extends
 		return fieldId;
 	}
 
+	public String getStart() {
+		return start;
+	}
+
+	public String getEnd() {
+		return end;
+	}
+
+	public boolean isCaseSensitive() {
+		return caseSensitive;
+	}
+
 	private int subStringSize(
 			final int minNGramSize,
 			final int maxNGramSize ) {
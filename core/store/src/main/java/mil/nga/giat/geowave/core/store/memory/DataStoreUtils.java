@@ -16,7 +16,9 @@ import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.ByteArrayRange.MergeOperation;
 import mil.nga.giat.geowave.core.index.IndexMetaData;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.RowKeyBuilder;
 import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.index.sfc.data.DecomposedNumericDataset;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
@@ -81,11 +83,28 @@ public class DataStoreUtils
 		}
 		else {
 			final List<ByteArrayRange> ranges = new ArrayList<ByteArrayRange>();
+			// the cells of a decomposed query geometry share the range cap
+			// rather than each being decomposed up to it
+			int decomposedCount = 0;
 			for (final MultiDimensionalNumericData nd : constraints) {
-				ranges.addAll(indexStrategy.getQueryRanges(
+				if (nd instanceof DecomposedNumericDataset) {
+					decomposedCount++;
+				}
+			}
+			int maxRangesPerCell = maxRanges;
+			if ((maxRanges > 1) && (decomposedCount > 1)) {
+				maxRangesPerCell = (int) Math.ceil((double) maxRanges / (double) decomposedCount);
+			}
+			for (final MultiDimensionalNumericData nd : constraints) {
+				final List<ByteArrayRange> constraintRanges = indexStrategy.getQueryRanges(
 						nd,
-						maxRanges,
-						hints));
+						(nd instanceof DecomposedNumericDataset) ? maxRangesPerCell : maxRanges,
+						hints);
+				if (constraintRanges == null) {
+					// the index strategy cannot constrain the query
+					return new ArrayList<ByteArrayRange>();
+				}
+				ranges.addAll(constraintRanges);
 			}
 			if (constraints.size() > 1) {
 				return ByteArrayRange.mergeIntersections(
@@ -249,6 +268,7 @@ public class DataStoreUtils
 			final boolean enableDeduplication ) {
 
 		final int numberOfDuplicates = insertionIds.size() - 1;
+		final RowKeyBuilder rowKey = new RowKeyBuilder();
 
 		for (final ByteArrayId insertionId : insertionIds) {
 			final byte[] indexId = insertionId.getBytes();
@@ -258,13 +278,12 @@ public class DataStoreUtils
 			// enough length values to be able to read the row ID again, we
 			// lastly add a number of duplicates which can be useful as
 			// metadata in our de-duplication
-			// step
-			rowIds.add(new ByteArrayId(
-					new EntryRowID(
-							indexId,
-							dataId,
-							adapterId,
-							enableDeduplication ? numberOfDuplicates : -1).getRowId()));
+			// step (this is the layout of EntryRowID)
+			rowIds.add(rowKey.clear().append(
+					indexId).appendEntrySuffix(
+					adapterId,
+					dataId,
+					enableDeduplication ? numberOfDuplicates : -1).toByteArrayId());
 		}
 	}
 
@@ -21,19 +21,13 @@ public class EntryRowID implements
 
 	public EntryRowID(
 			final byte[] byteID ) {
-		final byte[] metadata = Arrays.copyOfRange(
-				byteID,
-				byteID.length - 12,
-				byteID.length);
-		final ByteBuffer metadataBuf = ByteBuffer.wrap(metadata);
-		final int adapterIdLength = metadataBuf.getInt();
-		final int dataIdLength = metadataBuf.getInt();
-		final int numberOfDuplicates = metadataBuf.getInt();
-
-		final ByteBuffer buf = ByteBuffer.wrap(
-				byteID,
-				0,
-				byteID.length - 12);
+		// read the metadata in place rather than copying it
+		final ByteBuffer buf = ByteBuffer.wrap(byteID);
+		final int metadataOffset = byteID.length - 12;
+		final int adapterIdLength = buf.getInt(metadataOffset);
+		final int dataIdLength = buf.getInt(metadataOffset + 4);
+		final int numberOfDuplicates = buf.getInt(metadataOffset + 8);
+
 		final byte[] insertionId = new byte[byteID.length - 12 - adapterIdLength - dataIdLength];
 		final byte[] adapterId = new byte[adapterIdLength];
 		final byte[] dataId = new byte[dataIdLength];
@@ -121,7 +115,9 @@ public class EntryRowID implements
 			if (b.length <= j) {
 				break;
 			}
-			final int val = aByte - b[j];
+			// compare unsigned, consistent with ByteArrayId and the query
+			// ranges of the index strategies
+			final int val = (aByte & 0xff) - (b[j] & 0xff);
 			if (val != 0) {
 				return val;
 			}
@@ -3,14 +3,18 @@ package mil.nga.giat.geowave.core.store.memory;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
@@ -18,11 +22,14 @@ import org.apache.log4j.Logger;
 import com.google.common.collect.Iterators;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.ByteArrayRange.MergeOperation;
 import mil.nga.giat.geowave.core.store.AdapterToIndexMapping;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.core.store.DataStore;
 import mil.nga.giat.geowave.core.store.DataStoreCallbackManager;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
 import mil.nga.giat.geowave.core.store.IndexCompositeWriter;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
 import mil.nga.giat.geowave.core.store.IndexWriter;
@@ -42,6 +49,7 @@ import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
 import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataStore;
+import mil.nga.giat.geowave.core.store.query.AfterRowIdQuery;
 import mil.nga.giat.geowave.core.store.query.Query;
 import mil.nga.giat.geowave.core.store.query.QueryOptions;
 
@@ -49,8 +57,9 @@ public class MemoryDataStore implements
 		DataStore
 {
 	private final static Logger LOGGER = Logger.getLogger(MemoryDataStore.class);
-	private final Map<ByteArrayId, TreeSet<EntryRow>> storeData = Collections
-			.synchronizedMap(new HashMap<ByteArrayId, TreeSet<EntryRow>>());
+	private static final int MAX_RANGE_DECOMPOSITION = 5000;
+	// rows of each index, sorted by row ID so queries can seek to their ranges
+	private final ConcurrentMap<ByteArrayId, ConcurrentNavigableMap<EntryRowID, EntryRow>> storeData = new ConcurrentHashMap<ByteArrayId, ConcurrentNavigableMap<EntryRowID, EntryRow>>();
 	private final AdapterStore adapterStore;
 	private final IndexStore indexStore;
 	private final DataStatisticsStore statsStore;
@@ -158,15 +167,13 @@ public class MemoryDataStore implements
 					entry,
 					callback,
 					fieldVisibilityWriter);
+			final ConcurrentNavigableMap<EntryRowID, EntryRow> indexRows = getRowsForIndex(index.getId());
 			for (final EntryRow row : rows) {
 				ids.add(row.getRowId());
-				final TreeSet<EntryRow> rowTreeSet = getRowsForIndex(index.getId());
-				if (rowTreeSet.contains(row)) {
-					rowTreeSet.remove(row);
-				}
-				if (!rowTreeSet.add(row)) {
-					LOGGER.warn("Unable to add new entry");
-				}
+				// replaces any existing entry with the same row ID
+				indexRows.put(
+						row.getTableRowId(),
+						row);
 			}
 
 			return ids;
@@ -193,16 +200,19 @@ public class MemoryDataStore implements
 
 	}
 
-	private TreeSet<EntryRow> getRowsForIndex(
+	private ConcurrentNavigableMap<EntryRowID, EntryRow> getRowsForIndex(
 			final ByteArrayId id ) {
-		TreeSet<EntryRow> set = storeData.get(id);
-		if (set == null) {
-			set = new TreeSet<EntryRow>();
-			storeData.put(
+		ConcurrentNavigableMap<EntryRowID, EntryRow> rows = storeData.get(id);
+		if (rows == null) {
+			rows = new ConcurrentSkipListMap<EntryRowID, EntryRow>();
+			final ConcurrentNavigableMap<EntryRowID, EntryRow> existingRows = storeData.putIfAbsent(
 					id,
-					set);
+					rows);
+			if (existingRows != null) {
+				rows = existingRows;
+			}
 		}
-		return set;
+		return rows;
 	}
 
 	@Override
@@ -328,9 +338,17 @@ public class MemoryDataStore implements
 			final QueryOptions queryOptions,
 			final boolean isDelete,
 			final DataStoreCallbackManager callbackCache ) {
-		final TreeSet<EntryRow> set = getRowsForIndex(index.getId());
-		final Iterator<EntryRow> rowIt = ((query == null) || query.isSupported(index)) ? ((TreeSet<EntryRow>) set
-				.clone()).iterator() : Collections.<EntryRow> emptyIterator();
+		final ConcurrentNavigableMap<EntryRowID, EntryRow> rows = getRowsForIndex(index.getId());
+		final Iterator<EntryRow> rowIt = ((query == null) || query.isSupported(index)) ? new RangeRowIterator(
+				rows,
+				getQueryRanges(
+						query,
+						index),
+				((query instanceof AfterRowIdQuery) && (((AfterRowIdQuery) query).getAfterRowId() != null)) ? new EntryRowID(
+						((AfterRowIdQuery) query).getAfterRowId().getBytes())
+						: null)
+				: Collections.<EntryRow> emptyIterator();
+		final byte[] adapterId = adapter.getAdapterId().getBytes();
 		final List<QueryFilter> filters = (query == null) ? new ArrayList<QueryFilter>() : new ArrayList<QueryFilter>(
 				query.createFilters(index.getIndexModel()));
 		filters.add(new QueryFilter() {
@@ -354,24 +372,33 @@ public class MemoryDataStore implements
 			private boolean getNext() {
 				while ((nextRow == null) && rowIt.hasNext()) {
 					final EntryRow row = rowIt.next();
+					// skip rows of other adapters before decoding them
+					if (!Arrays.equals(
+							adapterId,
+							row.getTableRowId().getAdapterId())) {
+						continue;
+					}
 					final DataAdapter<?> adapter = adapterStore.getAdapter(new ByteArrayId(
 							row.getTableRowId().getAdapterId()));
 					encoding = DataStoreUtils.getEncoding(
 							index.getIndexModel(),
 							adapter,
 							row);
-					boolean ok = true;
-					for (final QueryFilter filter : filters) {
-						if (!filter.accept(
-								index.getIndexModel(),
-								encoding)) {
-							ok = false;
-							break;
-						}
-					}
-					ok &= isAuthorized(
+					// rows are authorized before they are filtered, as
+					// filters may keep state about the rows they accept
+					boolean ok = isAuthorized(
 							row,
 							queryOptions.getAuthorizations());
+					if (ok) {
+						for (final QueryFilter filter : filters) {
+							if (!filter.accept(
+									index.getIndexModel(),
+									encoding)) {
+								ok = false;
+								break;
+							}
+						}
+					}
 					if (ok) {
 						nextRow = row;
 						break;
@@ -398,8 +425,13 @@ public class MemoryDataStore implements
 								(T) currentRow.entry);
 					}
 				}
+				// as with the other data stores, the callback is given the
+				// row that was scanned rather than every row of the entry
 				((ScanCallback<T>) queryOptions.getScanCallback()).entryScanned(
-						currentRow.getInfo(),
+						new DataStoreEntryInfo(
+								currentRow.getInfo().getDataId(),
+								Collections.singletonList(currentRow.getRowId()),
+								currentRow.getInfo().getFieldInfo()),
 						(T) currentRow.entry);
 				nextRow = null;
 				return (T) currentRow.entry;
@@ -408,7 +440,7 @@ public class MemoryDataStore implements
 			@Override
 			public void remove() {
 				if (currentRow != null) {
-					set.remove(currentRow);
+					rows.remove(currentRow.getTableRowId());
 				}
 			}
 
@@ -424,6 +456,154 @@ public class MemoryDataStore implements
 
 	}
 
+	/**
+	 * 
+	 * @return the row ranges of the index that can satisfy the query, or null
+	 *         if every row of the index must be scanned
+	 */
+	private static List<ByteArrayRange> getQueryRanges(
+			final Query query,
+			final PrimaryIndex index ) {
+		if (query == null) {
+			return null;
+		}
+		final List<ByteArrayRange> ranges = DataStoreUtils.constraintsToByteArrayRanges(
+				query.getIndexConstraints(index.getIndexStrategy()),
+				index.getIndexStrategy(),
+				MAX_RANGE_DECOMPOSITION);
+		if (ranges.isEmpty()) {
+			return null;
+		}
+		return ByteArrayRange.mergeIntersections(
+				ranges,
+				MergeOperation.UNION);
+	}
+
+	/**
+	 * Iterates the rows of an index within sorted row ranges by seeking
+	 * directly to the start of each range. As with the other data stores, the
+	 * end of each range is treated as a prefix. The skip list iterators are
+	 * weakly consistent, so rows can be written and deleted concurrently
+	 * without copying the rows of the index.
+	 */
+	private static class RangeRowIterator implements
+			Iterator<EntryRow>
+	{
+		private final NavigableMap<EntryRowID, EntryRow> rows;
+		private final Iterator<ByteArrayRange> rangeIt;
+		private ByteArrayRange currentRange = null;
+		private Iterator<EntryRow> currentIt;
+		private EntryRowID lastRowId = null;
+		private EntryRow next = null;
+
+		/**
+		 * 
+		 * @param rows
+		 *            the rows of the index
+		 * @param ranges
+		 *            the ranges to scan, or null to scan every row
+		 * @param afterRowId
+		 *            the row after which rows are scanned, or null to scan from
+		 *            the start of the ranges
+		 */
+		private RangeRowIterator(
+				final NavigableMap<EntryRowID, EntryRow> rows,
+				final List<ByteArrayRange> ranges,
+				final EntryRowID afterRowId ) {
+			this.rows = rows;
+			lastRowId = afterRowId;
+			if (ranges == null) {
+				rangeIt = Collections.<ByteArrayRange> emptyIterator();
+				currentIt = (afterRowId == null) ? rows.values().iterator() : rows.tailMap(
+						afterRowId,
+						false).values().iterator();
+			}
+			else {
+				rangeIt = ranges.iterator();
+				currentIt = Collections.<EntryRow> emptyIterator();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null) {
+				if (currentIt.hasNext()) {
+					final EntryRow row = currentIt.next();
+					if ((currentRange != null) && isAfter(
+							row.getTableRowId().getInsertionId(),
+							currentRange.getEnd().getBytes())) {
+						currentIt = Collections.<EntryRow> emptyIterator();
+						continue;
+					}
+					next = row;
+					lastRowId = row.getTableRowId();
+				}
+				else if (rangeIt.hasNext()) {
+					currentRange = rangeIt.next();
+					currentIt = seek(currentRange.getStart().getBytes());
+				}
+				else {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private Iterator<EntryRow> seek(
+				final byte[] start ) {
+			final EntryRowID startRowId = new EntryRowID(
+					start,
+					new byte[0],
+					new byte[0],
+					0);
+			// ranges with prefix ends can overlap, so never go back before a
+			// row that has already been returned
+			if ((lastRowId != null) && (lastRowId.compareTo(startRowId) >= 0)) {
+				return rows.tailMap(
+						lastRowId,
+						false).values().iterator();
+			}
+			return rows.tailMap(
+					startRowId,
+					true).values().iterator();
+		}
+
+		@Override
+		public EntryRow next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final EntryRow retVal = next;
+			next = null;
+			return retVal;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * 
+		 * @return true if the insertion ID sorts after every row ID starting
+		 *         with the range end
+		 */
+		private static boolean isAfter(
+				final byte[] insertionId,
+				final byte[] rangeEnd ) {
+			final int length = Math.min(
+					insertionId.length,
+					rangeEnd.length);
+			for (int i = 0; i < length; i++) {
+				final int diff = (insertionId[i] & 0xff) - (rangeEnd[i] & 0xff);
+				if (diff != 0) {
+					return diff > 0;
+				}
+			}
+			return false;
+		}
+	}
+
 	private boolean isAuthorized(
 			final EntryRow row,
 			final String... authorizations ) {
@@ -0,0 +1,86 @@
+package mil.nga.giat.geowave.core.store.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.store.filter.AfterRowIdQueryFilter;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+
+/**
+ * This query resumes another query on a single index from the row following a
+ * given row ID, typically the last row returned by a previous page of results.
+ * Data stores scan the rows of this query in order, starting after the row ID
+ * rather than from the beginning of the query ranges. Without a row ID the rows
+ * are scanned in order from the beginning, so that the first page of results
+ * can be resumed from its last row.
+ */
+public class AfterRowIdQuery implements
+		Query
+{
+	private final Query query;
+	private final PrimaryIndex index;
+	private final ByteArrayId afterRowId;
+
+	/**
+	 *
+	 * @param query
+	 *            the query to resume, or null to resume a scan of every row
+	 * @param index
+	 *            the index that is scanned
+	 * @param afterRowId
+	 *            the row ID after which rows are returned, or null to return
+	 *            every row in order
+	 */
+	public AfterRowIdQuery(
+			final Query query,
+			final PrimaryIndex index,
+			final ByteArrayId afterRowId ) {
+		this.query = query;
+		this.index = index;
+		this.afterRowId = afterRowId;
+	}
+
+	public ByteArrayId getAfterRowId() {
+		return afterRowId;
+	}
+
+	@Override
+	public List<QueryFilter> createFilters(
+			final CommonIndexModel indexModel ) {
+		final List<QueryFilter> filters = new ArrayList<QueryFilter>();
+		if (afterRowId != null) {
+			// the row ID is compared before any of the fields are filtered
+			filters.add(new AfterRowIdQueryFilter(
+					afterRowId,
+					index,
+					getIndexConstraints(index.getIndexStrategy())));
+		}
+		if (query != null) {
+			filters.addAll(query.createFilters(indexModel));
+		}
+		return filters;
+	}
+
+	@Override
+	public boolean isSupported(
+			final Index<?, ?> index ) {
+		return this.index.getId().equals(
+				index.getId()) && ((query == null) || query.isSupported(index));
+	}
+
+	@Override
+	public List<MultiDimensionalNumericData> getIndexConstraints(
+			final NumericIndexStrategy indexStrategy ) {
+		if (query == null) {
+			return Collections.emptyList();
+		}
+		return query.getIndexConstraints(indexStrategy);
+	}
+}
@@ -0,0 +1,121 @@
+package mil.nga.giat.geowave.core.store.adapter.statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.EntryVisibilityHandler;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+
+import org.junit.Test;
+
+public class StatsCompositionToolTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"adapter");
+	private static final ByteArrayId ROW_RANGE_ID = RowRangeDataStatistics.getId(ADAPTER_ID);
+
+	private static class TestStatisticsProvider implements
+			StatisticsProvider<Integer>
+	{
+		@Override
+		public ByteArrayId[] getSupportedStatisticsIds() {
+			return new ByteArrayId[] {
+				CountDataStatistics.STATS_ID,
+				ROW_RANGE_ID
+			};
+		}
+
+		@Override
+		public DataStatistics<Integer> createDataStatistics(
+				final ByteArrayId statisticsId ) {
+			if (CountDataStatistics.STATS_ID.equals(statisticsId)) {
+				return new CountDataStatistics<Integer>(
+						ADAPTER_ID);
+			}
+			return new RowRangeDataStatistics<Integer>(
+					ADAPTER_ID);
+		}
+
+		@Override
+		public EntryVisibilityHandler<Integer> getVisibilityHandler(
+				final ByteArrayId statisticsId ) {
+			return new EmptyStatisticVisibility<Integer>();
+		}
+	}
+
+	@Test
+	public void testConcurrentIngest()
+			throws InterruptedException {
+		final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore();
+		final StatsCompositionTool<Integer> tool = new StatsCompositionTool<Integer>(
+				new TestStatisticsProvider(),
+				statisticsStore);
+		final int threadCount = 8;
+		final int entriesPerThread = 5000;
+		final List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < threadCount; t++) {
+			final int thread = t;
+			threads.add(new Thread(
+					new Runnable() {
+						@Override
+						public void run() {
+							for (int i = 0; i < entriesPerThread; i++) {
+								final int value = (thread * entriesPerThread) + i;
+								tool.entryIngested(
+										new DataStoreEntryInfo(
+												Integer.toString(
+														value).getBytes(),
+												Collections.singletonList(new ByteArrayId(
+														String.format(
+																"%08d",
+																value))),
+												Collections.<FieldInfo<?>> emptyList()),
+										value);
+							}
+						}
+					}));
+		}
+		for (final Thread thread : threads) {
+			thread.start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		tool.flush();
+
+		final CountDataStatistics<?> count = (CountDataStatistics<?>) statisticsStore.getDataStatistics(
+				ADAPTER_ID,
+				CountDataStatistics.STATS_ID);
+		assertEquals(
+				threadCount * entriesPerThread,
+				count.getCount());
+		final RowRangeDataStatistics<?> range = (RowRangeDataStatistics<?>) statisticsStore.getDataStatistics(
+				ADAPTER_ID,
+				ROW_RANGE_ID);
+		assertArrayEquals(
+				new ByteArrayId(
+						"00000000").getBytes(),
+				range.getMin());
+		assertArrayEquals(
+				new ByteArrayId(
+						String.format(
+								"%08d",
+								(threadCount * entriesPerThread) - 1)).getBytes(),
+				range.getMax());
+
+		// a second flush has nothing new to incorporate
+		tool.flush();
+		assertEquals(
+				threadCount * entriesPerThread,
+				((CountDataStatistics<?>) statisticsStore.getDataStatistics(
+						ADAPTER_ID,
+						CountDataStatistics.STATS_ID)).getCount());
+	}
+}
@@ -1,8 +1,16 @@
 package mil.nga.giat.geowave.core.store.adapter.statistics.histogram;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import mil.nga.giat.geowave.core.store.adapter.statistics.histogram.MinimalBinDistanceHistogram;
 
@@ -74,4 +82,92 @@ public class NumericHistogramTest
 				stats2.quantile(0.75) / 1000.0,
 				0.1);
 	}
+
+	@Test
+	public void testMergeAndSerialize() {
+		final MinimalBinDistanceHistogram first = new MinimalBinDistanceHistogram(
+				64);
+		final MinimalBinDistanceHistogram second = new MinimalBinDistanceHistogram(
+				64);
+		for (long i = 0; i < 10000; i++) {
+			first.add(r.nextDouble() * 1000.0);
+			second.add(
+					2,
+					1000.0 + (r.nextDouble() * 1000.0));
+		}
+		assertEquals(
+				20000,
+				second.getTotalCount());
+
+		final ByteBuffer buffer = ByteBuffer.allocate(first.bufferSize());
+		first.toBinary(buffer);
+		buffer.rewind();
+		final MinimalBinDistanceHistogram copy = new MinimalBinDistanceHistogram();
+		copy.fromBinary(buffer);
+		assertEquals(
+				first.getNumBins(),
+				copy.getNumBins());
+		assertEquals(
+				first.quantile(0.5),
+				copy.quantile(0.5),
+				0.0);
+
+		copy.merge(second);
+		assertEquals(
+				30000,
+				copy.getTotalCount());
+		assertEquals(
+				64,
+				copy.getNumBins());
+		assertEquals(
+				1.0 / 3.0,
+				copy.cdf(1000),
+				0.02);
+		assertEquals(
+				1500,
+				copy.quantile(0.666),
+				50);
+	}
+
+	@Test
+	public void testConcurrentReads()
+			throws Exception {
+		final MinimalBinDistanceHistogram histogram = new MinimalBinDistanceHistogram(
+				64);
+		for (long i = 0; i < 10000; i++) {
+			histogram.add(r.nextDouble() * 1000.0);
+		}
+		// reads flush the values that are still buffered, so concurrent reads
+		// of the same histogram must not corrupt its bins
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Double>> medians = new ArrayList<Future<Double>>();
+			for (int i = 0; i < 16; i++) {
+				medians.add(executor.submit(new Callable<Double>() {
+					@Override
+					public Double call() {
+						assertTrue(histogram.getNumBins() <= 64);
+						return histogram.quantile(0.5);
+					}
+				}));
+			}
+			final double median = histogram.quantile(0.5);
+			for (final Future<Double> future : medians) {
+				assertEquals(
+						median,
+						future.get(),
+						0.0);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(
+				10000,
+				histogram.getTotalCount());
+		assertEquals(
+				500,
+				histogram.quantile(0.5),
+				50);
+	}
 }
@@ -0,0 +1,97 @@
+package mil.nga.giat.geowave.core.store.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+
+import org.junit.Test;
+
+public class LazyReadPersistentDatasetTest
+{
+	private static class CountingReader implements
+			FieldReader<String>
+	{
+		private int reads = 0;
+
+		@Override
+		public String readField(
+				final byte[] fieldData ) {
+			reads++;
+			return StringUtils.stringFromBinary(fieldData);
+		}
+	}
+
+	@Test
+	public void testReadOnDemand() {
+		final CountingReader reader = new CountingReader();
+		final LazyReadPersistentDataset<String> dataset = new LazyReadPersistentDataset<String>();
+		final ByteArrayId a = new ByteArrayId(
+				"a");
+		final ByteArrayId b = new ByteArrayId(
+				"b");
+		dataset.addValue(
+				a,
+				reader,
+				StringUtils.stringToBinary("valueA"),
+				null);
+		dataset.addValue(
+				b,
+				reader,
+				StringUtils.stringToBinary("valueB"),
+				null);
+		assertEquals(
+				0,
+				reader.reads);
+
+		assertEquals(
+				"valueA",
+				dataset.getValue(a));
+		assertEquals(
+				"valueA",
+				dataset.getValue(a));
+		assertEquals(
+				1,
+				reader.reads);
+		assertNull(dataset.getValue(new ByteArrayId(
+				"c")));
+
+		final List<PersistentValue<String>> values = dataset.getValues();
+		assertEquals(
+				2,
+				values.size());
+		assertEquals(
+				2,
+				reader.reads);
+	}
+
+	@Test
+	public void testNoOverwrite() {
+		final CountingReader reader = new CountingReader();
+		final LazyReadPersistentDataset<String> dataset = new LazyReadPersistentDataset<String>();
+		final ByteArrayId a = new ByteArrayId(
+				"a");
+		dataset.addValue(
+				a,
+				reader,
+				StringUtils.stringToBinary("first"),
+				null);
+		dataset.addValue(new PersistentValue<String>(
+				a,
+				"second"));
+		assertEquals(
+				"first",
+				dataset.getValue(a));
+
+		dataset.addOrUpdateValue(new PersistentValue<String>(
+				a,
+				"third"));
+		assertEquals(
+				"third",
+				dataset.getValue(a));
+	}
+}
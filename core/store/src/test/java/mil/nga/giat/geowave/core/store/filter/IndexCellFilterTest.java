@@ -0,0 +1,163 @@
+package mil.nga.giat.geowave.core.store.filter;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory;
+
+import org.junit.Test;
+
+public class IndexCellFilterTest
+{
+	private static final NumericDimensionDefinition[] SPATIAL_DIMENSIONS = new NumericDimensionDefinition[] {
+		new BasicDimensionDefinition(
+				-180,
+				180),
+		new BasicDimensionDefinition(
+				-90,
+				90)
+	};
+
+	private static final NumericIndexStrategy STRATEGY = TieredSFCIndexFactory.createSingleTierStrategy(
+			SPATIAL_DIMENSIONS,
+			new int[] {
+				16,
+				16
+			},
+			SFCType.HILBERT);
+
+	private static final List<MultiDimensionalNumericData> QUERY = Collections
+			.<MultiDimensionalNumericData> singletonList(new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								10,
+								20),
+						new NumericRange(
+								10,
+								20)
+					}));
+
+	@Test
+	public void testInsertionIds() {
+		final IndexCellFilter filter = new IndexCellFilter(
+				STRATEGY,
+				QUERY);
+		assertTrue(accept(
+				filter,
+				15,
+				15));
+		// on the boundary of the query
+		assertTrue(accept(
+				filter,
+				20,
+				10));
+		assertFalse(accept(
+				filter,
+				25,
+				15));
+		assertFalse(accept(
+				filter,
+				15,
+				-45));
+		// the retained decision must not leak into other insertion IDs
+		assertFalse(accept(
+				filter,
+				25,
+				15));
+		assertTrue(accept(
+				filter,
+				12,
+				18));
+	}
+
+	@Test
+	public void testRowIds() {
+		final IndexCellFilter filter = new IndexCellFilter(
+				STRATEGY,
+				QUERY);
+		assertTrue(acceptRow(
+				filter,
+				15,
+				15));
+		assertFalse(acceptRow(
+				filter,
+				-150,
+				80));
+	}
+
+	@Test
+	public void testUnconstrained() {
+		final IndexCellFilter filter = new IndexCellFilter(
+				STRATEGY,
+				Collections.<MultiDimensionalNumericData> emptyList());
+		assertTrue(acceptRow(
+				filter,
+				-150,
+				80));
+	}
+
+	private static byte[] insertionId(
+			final double x,
+			final double y ) {
+		final List<ByteArrayId> ids = STRATEGY.getInsertionIds(new BasicNumericDataset(
+				new NumericData[] {
+					new NumericValue(
+							x),
+					new NumericValue(
+							y)
+				}));
+		return ids.get(
+				0).getBytes();
+	}
+
+	private static boolean accept(
+			final IndexCellFilter filter,
+			final double x,
+			final double y ) {
+		final byte[] id = insertionId(
+				x,
+				y);
+		return filter.acceptInsertionId(
+				id,
+				0,
+				id.length);
+	}
+
+	private static boolean acceptRow(
+			final IndexCellFilter filter,
+			final double x,
+			final double y ) {
+		final byte[] id = insertionId(
+				x,
+				y);
+		final byte[] adapterId = "adapter".getBytes();
+		final byte[] dataId = "data".getBytes();
+		// pad the row to check that the offset is honored
+		final ByteBuffer buf = ByteBuffer.allocate(3 + id.length + adapterId.length + dataId.length + 12);
+		buf.put(new byte[3]);
+		buf.put(id);
+		buf.put(adapterId);
+		buf.put(dataId);
+		buf.putInt(adapterId.length);
+		buf.putInt(dataId.length);
+		buf.putInt(0);
+		return filter.acceptRow(
+				buf.array(),
+				3,
+				buf.capacity() - 3);
+	}
+}
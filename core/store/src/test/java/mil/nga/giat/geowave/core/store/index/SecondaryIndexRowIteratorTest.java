@@ -0,0 +1,125 @@
+package mil.nga.giat.geowave.core.store.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.RowIdQuery;
+
+import org.junit.Test;
+
+public class SecondaryIndexRowIteratorTest
+{
+	private static class RowIdDataStore implements
+			DataStore
+	{
+		private final List<List<ByteArrayId>> batches = new ArrayList<List<ByteArrayId>>();
+
+		@Override
+		public <T> IndexWriter createWriter(
+				final DataAdapter<T> adapter,
+				final PrimaryIndex... index ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> CloseableIterator<T> query(
+				final QueryOptions queryOptions,
+				final Query query ) {
+			final List<ByteArrayId> rowIds = ((RowIdQuery) query).getRowIds();
+			batches.add(rowIds);
+			return new CloseableIterator.Wrapper<T>(
+					(java.util.Iterator<T>) new ArrayList<ByteArrayId>(
+							rowIds).iterator());
+		}
+
+		@Override
+		public boolean delete(
+				final QueryOptions queryOptions,
+				final Query query ) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static CloseableIterator<ByteArrayId> rowIds(
+			final String... ids ) {
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>();
+		for (final String id : ids) {
+			rowIds.add(new ByteArrayId(
+					id));
+		}
+		return new CloseableIterator.Wrapper<ByteArrayId>(
+				rowIds.iterator());
+	}
+
+	@Test
+	public void testBatchesAndDeduplicates()
+			throws IOException {
+		final RowIdDataStore dataStore = new RowIdDataStore();
+		final List<ByteArrayId> results = new ArrayList<ByteArrayId>();
+		try (SecondaryIndexRowIterator<ByteArrayId> it = new SecondaryIndexRowIterator<ByteArrayId>(
+				dataStore,
+				new QueryOptions(),
+				rowIds(
+						"a",
+						"b",
+						"a",
+						"c",
+						"b",
+						"d",
+						"e"),
+				2)) {
+			while (it.hasNext()) {
+				results.add(it.next());
+			}
+			assertFalse(it.hasNext());
+		}
+		assertEquals(
+				Arrays.asList(
+						new ByteArrayId(
+								"a"),
+						new ByteArrayId(
+								"b"),
+						new ByteArrayId(
+								"c"),
+						new ByteArrayId(
+								"d"),
+						new ByteArrayId(
+								"e")),
+				results);
+		assertEquals(
+				3,
+				dataStore.batches.size());
+		assertEquals(
+				2,
+				dataStore.batches.get(
+						1).size());
+	}
+
+	@Test
+	public void testNoMatches()
+			throws IOException {
+		final RowIdDataStore dataStore = new RowIdDataStore();
+		try (SecondaryIndexRowIterator<ByteArrayId> it = new SecondaryIndexRowIterator<ByteArrayId>(
+				dataStore,
+				new QueryOptions(),
+				rowIds())) {
+			assertFalse(it.hasNext());
+		}
+		assertEquals(
+				0,
+				dataStore.batches.size());
+	}
+}
@@ -1,12 +1,27 @@
 package mil.nga.giat.geowave.core.store.utils;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.ByteArrayRange.MergeOperation;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.DecomposedNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
 import mil.nga.giat.geowave.core.store.EntryVisibilityHandler;
 import mil.nga.giat.geowave.core.store.IngestCallback;
@@ -29,6 +44,91 @@ import org.junit.Test;
 
 public class DataStoreUtilsTest
 {
+	private static final int MAX_RANGES = 8;
+
+	private static final NumericIndexStrategy STRATEGY = TieredSFCIndexFactory.createSingleTierStrategy(
+			new NumericDimensionDefinition[] {
+				new BasicDimensionDefinition(
+						-180,
+						180),
+				new BasicDimensionDefinition(
+						-90,
+						90)
+			},
+			new int[] {
+				16,
+				16
+			},
+			SFCType.HILBERT);
+
+	private static final NumericData[][] BOXES = new NumericData[][] {
+		new NumericData[] {
+			new NumericRange(
+					-101.3,
+					-87.9),
+			new NumericRange(
+					13.7,
+					29.2)
+		},
+		new NumericData[] {
+			new NumericRange(
+					52.1,
+					71.6),
+			new NumericRange(
+					-41.9,
+					-33.4)
+		}
+	};
+
+	@Test
+	public void testConstraintsKeepRangeCap() {
+		final List<MultiDimensionalNumericData> constraints = new ArrayList<MultiDimensionalNumericData>();
+		final List<ByteArrayRange> expectedRanges = new ArrayList<ByteArrayRange>();
+		for (final NumericData[] box : BOXES) {
+			final BasicNumericDataset constraint = new BasicNumericDataset(
+					box);
+			constraints.add(constraint);
+			expectedRanges.addAll(STRATEGY.getQueryRanges(
+					constraint,
+					MAX_RANGES));
+		}
+		// each constraint set of a query is decomposed up to the cap
+		assertEquals(
+				ByteArrayRange.mergeIntersections(
+						expectedRanges,
+						MergeOperation.UNION),
+				DataStoreUtils.constraintsToByteArrayRanges(
+						constraints,
+						STRATEGY,
+						MAX_RANGES));
+		assertTrue(expectedRanges.size() > MAX_RANGES);
+	}
+
+	@Test
+	public void testDecomposedConstraintsShareRangeCap() {
+		final List<MultiDimensionalNumericData> constraints = new ArrayList<MultiDimensionalNumericData>();
+		for (final NumericData[] box : BOXES) {
+			constraints.add(new DecomposedNumericDataset(
+					box));
+		}
+		final List<ByteArrayRange> ranges = DataStoreUtils.constraintsToByteArrayRanges(
+				constraints,
+				STRATEGY,
+				MAX_RANGES);
+		assertTrue(ranges.size() > 1);
+		assertTrue(ranges.size() <= MAX_RANGES);
+
+		// a single cell is decomposed up to the cap
+		assertEquals(
+				STRATEGY.getQueryRanges(
+						constraints.get(0),
+						MAX_RANGES),
+				DataStoreUtils.constraintsToByteArrayRanges(
+						Arrays.asList(constraints.get(0)),
+						STRATEGY,
+						MAX_RANGES));
+	}
+
 	@Test
 	public void testEntryToRows() {
 		final AtomicInteger count = new AtomicInteger(
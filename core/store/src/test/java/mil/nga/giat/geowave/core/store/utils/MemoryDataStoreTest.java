@@ -5,15 +5,21 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.simple.SimpleIntegerIndexStrategy;
 import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
@@ -444,6 +450,88 @@ public class MemoryDataStoreTest
 
 	}
 
+	@Test
+	public void testRangeQueriesWithConcurrentWrites()
+			throws Exception {
+		final PrimaryIndex index = new PrimaryIndex(
+				new SimpleIntegerIndexStrategy(),
+				new MockComponents.TestIndexModel());
+		final String namespace = "test3_" + getClass().getName();
+		final StoreFactoryFamilySpi storeFamily = new MemoryStoreFactoryFamily();
+		final MemoryRequiredOptions opts = new MemoryRequiredOptions();
+		opts.setGeowaveNamespace(namespace);
+		final DataStore dataStore = storeFamily.getDataStoreFactory().createStore(
+				opts);
+		final WritableDataAdapter<Integer> adapter = new MockComponents.MockAbstractDataAdapter();
+
+		try (final IndexWriter indexWriter = dataStore.createWriter(
+				adapter,
+				index)) {
+			for (int i = -500; i < 500; i++) {
+				indexWriter.write(i);
+			}
+		}
+
+		// write more entries while querying
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final Future<?> writes = executor.submit(new Callable<Void>() {
+			@Override
+			public Void call()
+					throws Exception {
+				try (final IndexWriter indexWriter = dataStore.createWriter(
+						adapter,
+						index)) {
+					for (int i = 500; i < 5000; i++) {
+						indexWriter.write(i);
+					}
+				}
+				return null;
+			}
+		});
+		for (int q = 0; q < 20; q++) {
+			final List<Integer> results = new ArrayList<Integer>();
+			try (CloseableIterator<Integer> itemIt = dataStore.query(
+					new QueryOptions(
+							adapter,
+							index),
+					new TestQuery(
+							-10,
+							20))) {
+				while (itemIt.hasNext()) {
+					results.add(itemIt.next());
+				}
+			}
+			final List<Integer> expected = new ArrayList<Integer>();
+			for (int i = -10; i < 20; i++) {
+				expected.add(i);
+			}
+			// results are sorted by row ID, so the negative entries are last
+			Collections.sort(results);
+			assertEquals(
+					expected,
+					results);
+		}
+		writes.get();
+		executor.shutdown();
+
+		try (CloseableIterator<?> itemIt = dataStore.query(
+				new QueryOptions(
+						adapter,
+						index),
+				new TestQuery(
+						4990,
+						6000))) {
+			int count = 0;
+			while (itemIt.hasNext()) {
+				itemIt.next();
+				count++;
+			}
+			assertEquals(
+					10,
+					count);
+		}
+	}
+
 	private boolean checkStats(
 			final Iterator<DataStatistics<?>> statIt,
 			final int count,
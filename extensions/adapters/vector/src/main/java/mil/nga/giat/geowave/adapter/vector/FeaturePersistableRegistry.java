@@ -0,0 +1,55 @@
+package mil.nga.giat.geowave.adapter.vector;
+
+import mil.nga.giat.geowave.adapter.vector.query.cql.CQLQueryFilter;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureBoundingBoxStatistics;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureCountMinSketchStatistics;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureFixedBinNumericStatistics;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureHyperLogLogStatistics;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureNumericHistogramStatistics;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureNumericRangeStatistics;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureTimeRangeStatistics;
+import mil.nga.giat.geowave.core.index.PersistableRegistrySpi;
+
+public class FeaturePersistableRegistry implements
+		PersistableRegistrySpi
+{
+
+	@Override
+	public PersistableIdAndClass[] getSupportedPersistables() {
+		return new PersistableIdAndClass[] {
+			new PersistableIdAndClass(
+					(short) 500,
+					FeatureDataAdapter.class),
+			new PersistableIdAndClass(
+					(short) 501,
+					WholeFeatureDataAdapter.class),
+			new PersistableIdAndClass(
+					(short) 502,
+					AvroFeatureDataAdapter.class),
+			new PersistableIdAndClass(
+					(short) 503,
+					CQLQueryFilter.class),
+			new PersistableIdAndClass(
+					(short) 504,
+					FeatureBoundingBoxStatistics.class),
+			new PersistableIdAndClass(
+					(short) 505,
+					FeatureCountMinSketchStatistics.class),
+			new PersistableIdAndClass(
+					(short) 506,
+					FeatureFixedBinNumericStatistics.class),
+			new PersistableIdAndClass(
+					(short) 507,
+					FeatureHyperLogLogStatistics.class),
+			new PersistableIdAndClass(
+					(short) 508,
+					FeatureNumericHistogramStatistics.class),
+			new PersistableIdAndClass(
+					(short) 509,
+					FeatureNumericRangeStatistics.class),
+			new PersistableIdAndClass(
+					(short) 510,
+					FeatureTimeRangeStatistics.class)
+		};
+	}
+}
@@ -0,0 +1,420 @@
+package mil.nga.giat.geowave.adapter.vector.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.giat.geowave.adapter.vector.query.cql.PropertyConstraintSet;
+import mil.nga.giat.geowave.adapter.vector.query.cql.PropertyFilterVisitor;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureCountMinSketchStatistics;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureHyperLogLogStatistics;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureNumericHistogramStatistics;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
+import mil.nga.giat.geowave.core.store.index.FilterableConstraints;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
+import mil.nga.giat.geowave.core.store.index.numeric.NumericQueryConstraint;
+import mil.nga.giat.geowave.core.store.index.temporal.TemporalQueryConstraint;
+import mil.nga.giat.geowave.core.store.index.text.FilterableTextRangeConstraint;
+import mil.nga.giat.geowave.core.store.memory.DataStoreUtils;
+import mil.nga.giat.geowave.core.store.query.BasicQuery;
+
+import org.apache.log4j.Logger;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.And;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Not;
+import org.opengis.filter.Or;
+
+/**
+ * Chooses the index with the lowest estimated scan cost for the constraints of
+ * the query. The rows a primary index scans are estimated from its
+ * RowRangeHistogramStatistics over the ranges of the query. The rows a
+ * secondary index matches are estimated from the statistics associated with
+ * the secondary index for its constrained fields
+ * (FeatureNumericHistogramStatistics for numeric and temporal fields,
+ * FeatureCountMinSketchStatistics or FeatureHyperLogLogStatistics for text
+ * equality). Each row matched by a
+ * secondary index costs an additional lookup into the primary index, so a
+ * secondary index is only chosen when its constraints are selective.
+ *
+ * Through the {@link IndexQueryStrategySPI} interface only primary indices are
+ * chosen. The feature reader uses {@link #plan} to also consider the secondary
+ * indices of the adapter. When none of the primary indices has statistics, the
+ * choice falls back to {@link ChooseHeuristicMatchIndexQueryStrategy}.
+ */
+public class ChooseLowestCostIndexQueryStrategy implements
+		IndexQueryStrategySPI
+{
+	public static final String NAME = "Lowest Cost";
+	private final static Logger LOGGER = Logger.getLogger(ChooseLowestCostIndexQueryStrategy.class);
+
+	/**
+	 * The cost of seeking to the start of a range, relative to reading a row
+	 */
+	public static final double RANGE_SEEK_COST = 2.0;
+	/**
+	 * The cost of fetching a primary index row matched by a secondary index,
+	 * relative to reading a row in sequence
+	 */
+	public static final double PRIMARY_LOOKUP_COST = 4.0;
+	private static final int MAX_RANGE_DECOMPOSITION = 5000;
+
+	@Override
+	public String toString() {
+		return NAME;
+	}
+
+	@Override
+	public CloseableIterator<Index<?, ?>> getIndices(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final BasicQuery query,
+			final PrimaryIndex[] indices ) {
+		final IndexQueryPlan plan = plan(
+				stats,
+				query,
+				indices,
+				Collections.<SecondaryIndex<SimpleFeature>> emptyList(),
+				null);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(plan.explain());
+		}
+		final Iterator<Index<?, ?>> it;
+		if (plan.getPrimaryIndex() == null) {
+			it = Collections.<Index<?, ?>> emptyIterator();
+		}
+		else {
+			it = Collections.<Index<?, ?>> singletonList(
+					plan.getPrimaryIndex()).iterator();
+		}
+		return new CloseableIteratorWrapper<Index<?, ?>>(
+				new Closeable() {
+					@Override
+					public void close()
+							throws IOException {}
+				},
+				it);
+	}
+
+	/**
+	 * Estimates the cost of each primary index and each secondary index that
+	 * has constraints in the query, choosing the cheapest.
+	 *
+	 * @param stats
+	 *            the statistics of the adapter
+	 * @param query
+	 *            the constraints on the dimensions of the primary indices
+	 * @param indices
+	 *            the primary indices of the adapter
+	 * @param secondaryIndices
+	 *            the secondary indices of the adapter
+	 * @param attributeConstraints
+	 *            the constraints on attributes, null if the secondary indices
+	 *            cannot be used for the query
+	 * @return the plan
+	 */
+	public IndexQueryPlan plan(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final BasicQuery query,
+			final PrimaryIndex[] indices,
+			final List<SecondaryIndex<SimpleFeature>> secondaryIndices,
+			final PropertyConstraintSet attributeConstraints ) {
+		final IndexQueryPlan plan = new IndexQueryPlan();
+		final long totalRows = getTotalRows(stats);
+		IndexQueryPlan.Candidate bestPrimary = null;
+		for (final PrimaryIndex index : indices) {
+			if (index.getIndexStrategy().getOrderedDimensionDefinitions().length == 0) {
+				continue;
+			}
+			final IndexQueryPlan.Candidate candidate = estimatePrimary(
+					stats,
+					query,
+					index,
+					totalRows);
+			plan.addCandidate(candidate);
+			if (candidate.isEstimated() && ((bestPrimary == null) || (candidate.getCost() < bestPrimary.getCost()))) {
+				bestPrimary = candidate;
+			}
+		}
+		if (bestPrimary == null) {
+			// without statistics fall back to matching the dimensions
+			try (CloseableIterator<Index<?, ?>> it = new ChooseHeuristicMatchIndexQueryStrategy().getIndices(
+					stats,
+					query,
+					indices)) {
+				if (it.hasNext()) {
+					final Index<?, ?> index = it.next();
+					for (final IndexQueryPlan.Candidate candidate : plan.getCandidates()) {
+						if (candidate.getPrimaryIndex() == index) {
+							bestPrimary = candidate;
+						}
+					}
+				}
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close index iterator",
+						e);
+			}
+		}
+		if (bestPrimary == null) {
+			return plan;
+		}
+		plan.choose(bestPrimary);
+
+		if ((attributeConstraints == null) || (secondaryIndices == null)) {
+			return plan;
+		}
+		// a primary scan without statistics is assumed to read every row
+		final double primaryCost = bestPrimary.isEstimated() ? bestPrimary.getCost()
+				: (totalRows == IndexQueryPlan.UNKNOWN_ROWS ? Double.MAX_VALUE : totalRows);
+		IndexQueryPlan.Candidate best = bestPrimary;
+		double bestCost = primaryCost;
+		for (final SecondaryIndex<SimpleFeature> secondaryIndex : secondaryIndices) {
+			final IndexQueryPlan.Candidate candidate = estimateSecondary(
+					stats,
+					secondaryIndex,
+					bestPrimary.getPrimaryIndex(),
+					attributeConstraints,
+					totalRows);
+			if (candidate == null) {
+				continue;
+			}
+			plan.addCandidate(candidate);
+			if (candidate.isEstimated() && (candidate.getCost() < bestCost)) {
+				best = candidate;
+				bestCost = candidate.getCost();
+			}
+		}
+		plan.choose(best);
+		return plan;
+	}
+
+	/**
+	 * The attribute constraints of a filter can only replace the filter if the
+	 * filter is a conjunction, otherwise rows matching another branch of the
+	 * filter would be missed.
+	 *
+	 * @param filter
+	 *            the query filter
+	 * @return the constraints on attributes, or null if there are none that
+	 *         can be used to select rows
+	 */
+	public static PropertyConstraintSet getAttributeConstraints(
+			final Filter filter ) {
+		if ((filter == null) || !isConjunction(filter)) {
+			return null;
+		}
+		final Object constraints = filter.accept(
+				new PropertyFilterVisitor(),
+				null);
+		return constraints instanceof PropertyConstraintSet ? (PropertyConstraintSet) constraints : null;
+	}
+
+	private static boolean isConjunction(
+			final Filter filter ) {
+		if ((filter instanceof Or) || (filter instanceof Not)) {
+			return false;
+		}
+		if (filter instanceof And) {
+			for (final Filter child : ((And) filter).getChildren()) {
+				if (!isConjunction(child)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static long getTotalRows(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats ) {
+		final DataStatistics<SimpleFeature> count = stats.get(CountDataStatistics.STATS_ID);
+		if (count instanceof CountDataStatistics) {
+			return ((CountDataStatistics<?>) count).getCount();
+		}
+		return IndexQueryPlan.UNKNOWN_ROWS;
+	}
+
+	private static IndexQueryPlan.Candidate estimatePrimary(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final BasicQuery query,
+			final PrimaryIndex index,
+			final long totalRows ) {
+		final List<MultiDimensionalNumericData> constraints = query.getIndexConstraints(index.getIndexStrategy());
+		if (ChooseBestMatchIndexQueryStrategy.isFullTableScan(constraints)) {
+			return new IndexQueryPlan.Candidate(
+					index,
+					null,
+					totalRows,
+					totalRows,
+					"full scan");
+		}
+		if (!stats.containsKey(RowRangeHistogramStatistics.composeId(index.getId()))) {
+			return new IndexQueryPlan.Candidate(
+					index,
+					null,
+					IndexQueryPlan.UNKNOWN_ROWS,
+					Double.MAX_VALUE,
+					"no row range histogram");
+		}
+		final List<ByteArrayRange> ranges = DataStoreUtils.constraintsToByteArrayRanges(
+				constraints,
+				index.getIndexStrategy(),
+				MAX_RANGE_DECOMPOSITION);
+		final long rows = DataStoreUtils.cardinality(
+				index,
+				stats,
+				ranges);
+		return new IndexQueryPlan.Candidate(
+				index,
+				null,
+				rows,
+				rows + (ranges.size() * RANGE_SEEK_COST),
+				ranges.size() + " ranges");
+	}
+
+	private static IndexQueryPlan.Candidate estimateSecondary(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final SecondaryIndex<SimpleFeature> secondaryIndex,
+			final PrimaryIndex primaryIndex,
+			final PropertyConstraintSet attributeConstraints,
+			final long totalRows ) {
+		final Map<ByteArrayId, DataStatistics<SimpleFeature>> indexStats = getSecondaryIndexStatistics(
+				stats,
+				secondaryIndex);
+		long scannedRows = 0;
+		long matchedRows = Long.MAX_VALUE;
+		boolean constrained = false;
+		for (final ByteArrayId fieldId : secondaryIndex.getFieldIDs()) {
+			final FilterableConstraints constraints = attributeConstraints.getConstraintsById(fieldId);
+			if (constraints == null) {
+				continue;
+			}
+			constrained = true;
+			final long rows = estimateMatches(
+					indexStats,
+					fieldId.getString(),
+					constraints,
+					totalRows);
+			if (rows == IndexQueryPlan.UNKNOWN_ROWS) {
+				return new IndexQueryPlan.Candidate(
+						primaryIndex,
+						secondaryIndex,
+						IndexQueryPlan.UNKNOWN_ROWS,
+						Double.MAX_VALUE,
+						"no statistics for " + fieldId.getString());
+			}
+			scannedRows += rows;
+			matchedRows = Math.min(
+					matchedRows,
+					rows);
+		}
+		if (!constrained) {
+			return null;
+		}
+		return new IndexQueryPlan.Candidate(
+				primaryIndex,
+				secondaryIndex,
+				matchedRows,
+				scannedRows + (matchedRows * PRIMARY_LOOKUP_COST),
+				scannedRows + " index entries");
+	}
+
+	/**
+	 * The statistics of the adapter that are maintained for a secondary index,
+	 * so that a secondary index is only estimated from the statistics that
+	 * describe its own entries.
+	 */
+	private static Map<ByteArrayId, DataStatistics<SimpleFeature>> getSecondaryIndexStatistics(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final SecondaryIndex<SimpleFeature> secondaryIndex ) {
+		final Map<ByteArrayId, DataStatistics<SimpleFeature>> indexStats = new HashMap<ByteArrayId, DataStatistics<SimpleFeature>>();
+		for (final DataStatistics<SimpleFeature> associatedStatistics : secondaryIndex.getAssociatedStatistics()) {
+			final DataStatistics<SimpleFeature> statistics = stats.get(associatedStatistics.getStatisticsId());
+			if (statistics != null) {
+				indexStats.put(
+						associatedStatistics.getStatisticsId(),
+						statistics);
+			}
+		}
+		return indexStats;
+	}
+
+	private static long estimateMatches(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final String fieldName,
+			final FilterableConstraints constraints,
+			final long totalRows ) {
+		if ((constraints instanceof NumericQueryConstraint) || (constraints instanceof TemporalQueryConstraint)) {
+			final DataStatistics<SimpleFeature> histogram = stats.get(FeatureNumericHistogramStatistics
+					.composeId(fieldName));
+			if (!(histogram instanceof FeatureNumericHistogramStatistics)) {
+				return IndexQueryPlan.UNKNOWN_ROWS;
+			}
+			final double min;
+			final double max;
+			if (constraints instanceof NumericQueryConstraint) {
+				min = ((NumericQueryConstraint) constraints).getLowerValue().doubleValue();
+				max = ((NumericQueryConstraint) constraints).getUpperValue().doubleValue();
+			}
+			else {
+				min = ((TemporalQueryConstraint) constraints).getStart().getTime();
+				max = ((TemporalQueryConstraint) constraints).getEnd().getTime();
+			}
+			return estimateRange(
+					(FeatureNumericHistogramStatistics) histogram,
+					min,
+					max);
+		}
+		if (constraints instanceof FilterableTextRangeConstraint) {
+			final FilterableTextRangeConstraint textConstraints = (FilterableTextRangeConstraint) constraints;
+			if (!textConstraints.getStart().equals(
+					textConstraints.getEnd())) {
+				return IndexQueryPlan.UNKNOWN_ROWS;
+			}
+			// the sketch holds values as ingested, so it only applies to case
+			// sensitive matches
+			final DataStatistics<SimpleFeature> sketch = stats.get(FeatureCountMinSketchStatistics
+					.composeId(fieldName));
+			if (textConstraints.isCaseSensitive() && (sketch instanceof FeatureCountMinSketchStatistics)) {
+				return ((FeatureCountMinSketchStatistics) sketch).count(textConstraints.getStart());
+			}
+			final DataStatistics<SimpleFeature> hll = stats.get(FeatureHyperLogLogStatistics.composeId(fieldName));
+			if ((hll instanceof FeatureHyperLogLogStatistics) && (totalRows != IndexQueryPlan.UNKNOWN_ROWS)) {
+				// assume values are uniformly distributed
+				return totalRows / Math.max(
+						((FeatureHyperLogLogStatistics) hll).cardinality(),
+						1);
+			}
+		}
+		return IndexQueryPlan.UNKNOWN_ROWS;
+	}
+
+	private static long estimateRange(
+			final FeatureNumericHistogramStatistics histogram,
+			final double min,
+			final double max ) {
+		final long sampleSize = histogram.totalSampleSize();
+		if (sampleSize == 0) {
+			return 0;
+		}
+		// step below the lower bound so an equality constraint covers the
+		// values at the bound
+		final double fraction = histogram.cdf(max) - histogram.cdf(min - Math.ulp(min));
+		return (long) Math.ceil(Math.max(
+				0.0,
+				fraction) * sampleSize);
+	}
+}
@@ -0,0 +1,172 @@
+package mil.nga.giat.geowave.adapter.vector.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
+
+/**
+ * The result of planning a query over the indices of an adapter. It holds the
+ * estimated cost of every candidate index that was considered along with the
+ * candidate that was chosen, and can describe itself through
+ * {@link #explain()}.
+ */
+public class IndexQueryPlan
+{
+	/**
+	 * Used when there are no statistics to estimate the number of rows.
+	 */
+	public static final long UNKNOWN_ROWS = Long.MAX_VALUE - 1;
+
+	private final List<Candidate> candidates = new ArrayList<Candidate>();
+	private Candidate chosen = null;
+
+	public void addCandidate(
+			final Candidate candidate ) {
+		candidates.add(candidate);
+	}
+
+	public void choose(
+			final Candidate candidate ) {
+		chosen = candidate;
+	}
+
+	public List<Candidate> getCandidates() {
+		return Collections.unmodifiableList(candidates);
+	}
+
+	public Candidate getChosen() {
+		return chosen;
+	}
+
+	/**
+	 *
+	 * @return the primary index to query, either directly or to fetch the rows
+	 *         matched by a secondary index
+	 */
+	public PrimaryIndex getPrimaryIndex() {
+		return chosen == null ? null : chosen.getPrimaryIndex();
+	}
+
+	/**
+	 *
+	 * @return the secondary index to query or null if the primary index is
+	 *         scanned directly
+	 */
+	public SecondaryIndex<?> getSecondaryIndex() {
+		return chosen == null ? null : chosen.getSecondaryIndex();
+	}
+
+	public boolean isSecondaryIndexChosen() {
+		return getSecondaryIndex() != null;
+	}
+
+	/**
+	 *
+	 * @return a human readable description of each candidate with its estimate,
+	 *         marking the chosen plan
+	 */
+	public String explain() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("Query plan: ");
+		if (chosen == null) {
+			builder.append("no index available");
+		}
+		else {
+			builder.append(chosen.describe());
+		}
+		for (final Candidate candidate : candidates) {
+			builder.append(
+					"\n  ").append(
+					candidate == chosen ? "* " : "  ").append(
+					candidate.describe());
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public String toString() {
+		return explain();
+	}
+
+	public static class Candidate
+	{
+		private final PrimaryIndex primaryIndex;
+		private final SecondaryIndex<?> secondaryIndex;
+		private final long estimatedRows;
+		private final double cost;
+		private final String note;
+
+		public Candidate(
+				final PrimaryIndex primaryIndex,
+				final SecondaryIndex<?> secondaryIndex,
+				final long estimatedRows,
+				final double cost,
+				final String note ) {
+			this.primaryIndex = primaryIndex;
+			this.secondaryIndex = secondaryIndex;
+			this.estimatedRows = estimatedRows;
+			this.cost = cost;
+			this.note = note;
+		}
+
+		public PrimaryIndex getPrimaryIndex() {
+			return primaryIndex;
+		}
+
+		public SecondaryIndex<?> getSecondaryIndex() {
+			return secondaryIndex;
+		}
+
+		public Index<?, ?> getIndex() {
+			return secondaryIndex == null ? primaryIndex : secondaryIndex;
+		}
+
+		public long getEstimatedRows() {
+			return estimatedRows;
+		}
+
+		public double getCost() {
+			return cost;
+		}
+
+		public boolean isEstimated() {
+			return estimatedRows != UNKNOWN_ROWS;
+		}
+
+		public String describe() {
+			final StringBuilder builder = new StringBuilder();
+			if (secondaryIndex != null) {
+				builder.append(
+						"secondary index ").append(
+						secondaryIndex.getId().getString()).append(
+						" -> ");
+			}
+			builder.append(
+					"primary index ").append(
+					primaryIndex.getId().getString());
+			if (isEstimated()) {
+				builder.append(
+						" rows=").append(
+						estimatedRows).append(
+						" cost=").append(
+						String.format(
+								"%.1f",
+								cost));
+			}
+			else {
+				builder.append(" rows=unknown");
+			}
+			if (note != null) {
+				builder.append(
+						" (").append(
+						note).append(
+						")");
+			}
+			return builder.toString();
+		}
+	}
+}
@@ -1,14 +1,18 @@
 package mil.nga.giat.geowave.adapter.vector.plugin;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.Filter;
 
 import mil.nga.giat.geowave.adapter.vector.GeotoolsFeatureDataAdapter;
+import mil.nga.giat.geowave.adapter.vector.index.ChooseLowestCostIndexQueryStrategy;
+import mil.nga.giat.geowave.adapter.vector.index.IndexQueryPlan;
 import mil.nga.giat.geowave.adapter.vector.plugin.transaction.GeoWaveTransaction;
 import mil.nga.giat.geowave.adapter.vector.plugin.transaction.TransactionsAllocator;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
@@ -24,6 +28,8 @@ import mil.nga.giat.geowave.core.store.data.visibility.UniformVisibilityWriter;
 import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataAdapter;
 import mil.nga.giat.geowave.core.store.query.BasicQuery;
 import mil.nga.giat.geowave.core.store.query.DataIdQuery;
 import mil.nga.giat.geowave.core.store.query.QueryOptions;
@@ -79,6 +85,18 @@ public class GeoWaveDataStoreComponents
 		return dataStatisticsStore;
 	}
 
+	/**
+	 *
+	 * @param authorizations
+	 * @return the cached statistics of the adapter, which must not be modified
+	 */
+	public Map<ByteArrayId, DataStatistics<SimpleFeature>> getDataStatistics(
+			final String... authorizations ) {
+		return gtStore.getStatisticsCache().getDataStatistics(
+				adapter.getAdapterId(),
+				authorizations);
+	}
+
 	public CloseableIterator<Index<?, ?>> getIndices(
 			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
 			final BasicQuery query ) {
@@ -88,6 +106,42 @@ public class GeoWaveDataStoreComponents
 				gtStore.getIndicesForAdapter(adapter));
 	}
 
+	/**
+	 * Plans the query across the primary and secondary indices of the adapter
+	 * when the index query strategy is cost based.
+	 *
+	 * @param stats
+	 * @param query
+	 * @param filter
+	 *            the filter of the query, used for the constraints on indexed
+	 *            attributes
+	 * @return the plan or null if the index query strategy does not plan
+	 *         queries
+	 */
+	@SuppressWarnings("unchecked")
+	public IndexQueryPlan planQuery(
+			final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats,
+			final BasicQuery query,
+			final Filter filter ) {
+		if (!(getGTstore().getIndexQueryStrategy() instanceof ChooseLowestCostIndexQueryStrategy)) {
+			return null;
+		}
+		List<SecondaryIndex<SimpleFeature>> secondaryIndices = Collections.emptyList();
+		// the secondary index data store is only created once an adapter has
+		// secondary indices to query
+		if ((adapter instanceof SecondaryIndexDataAdapter)
+				&& !((SecondaryIndexDataAdapter<SimpleFeature>) adapter).getSupportedSecondaryIndices().isEmpty()
+				&& (gtStore.getSecondaryIndexDataStore() != null)) {
+			secondaryIndices = ((SecondaryIndexDataAdapter<SimpleFeature>) adapter).getSupportedSecondaryIndices();
+		}
+		return ((ChooseLowestCostIndexQueryStrategy) getGTstore().getIndexQueryStrategy()).plan(
+				stats,
+				query,
+				gtStore.getIndicesForAdapter(adapter),
+				secondaryIndices,
+				ChooseLowestCostIndexQueryStrategy.getAttributeConstraints(filter));
+	}
+
 	public void remove(
 			final SimpleFeature feature,
 			final GeoWaveTransaction transaction )
@@ -97,11 +151,16 @@ public class GeoWaveDataStoreComponents
 				adapter);
 		options.setAuthorizations(transaction.composeAuthorizations());
 
-		dataStore.delete(
-				options,
-				new DataIdQuery(
-						adapter.getAdapterId(),
-						adapter.getDataId(feature)));
+		try {
+			dataStore.delete(
+					options,
+					new DataIdQuery(
+							adapter.getAdapterId(),
+							adapter.getDataId(feature)));
+		}
+		finally {
+			invalidateStatistics();
+		}
 	}
 
 	public void remove(
@@ -113,13 +172,17 @@ public class GeoWaveDataStoreComponents
 				adapter);
 		options.setAuthorizations(transaction.composeAuthorizations());
 
-		dataStore.delete(
-				options,
-				new DataIdQuery(
-						new ByteArrayId(
-								StringUtils.stringToBinary(fid)),
-						adapter.getAdapterId()));
-
+		try {
+			dataStore.delete(
+					options,
+					new DataIdQuery(
+							new ByteArrayId(
+									StringUtils.stringToBinary(fid)),
+							adapter.getAdapterId()));
+		}
+		finally {
+			invalidateStatistics();
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -143,7 +206,9 @@ public class GeoWaveDataStoreComponents
 						visibilityWriter);
 			}
 		}
-
+		finally {
+			invalidateStatistics();
+		}
 	}
 
 	public void writeCommit(
@@ -162,7 +227,15 @@ public class GeoWaveDataStoreComponents
 					feature,
 					visibilityWriter);
 		}
+		finally {
+			invalidateStatistics();
+		}
+	}
 
+	private void invalidateStatistics() {
+		// statistics are updated as the writer is closed
+		gtStore.getStatisticsCache().invalidate(
+				adapter.getAdapterId());
 	}
 
 	public String getTransaction()
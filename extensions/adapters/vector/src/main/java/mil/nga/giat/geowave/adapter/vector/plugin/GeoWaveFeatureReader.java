@@ -23,6 +23,7 @@ import java.util.TimeZone;
 import org.apache.log4j.Logger;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.filter.FidFilterImpl;
 import org.geotools.geometry.jts.Decimator;
 import org.geotools.geometry.jts.ReferencedEnvelope;
@@ -38,13 +39,19 @@ import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.operation.MathTransform2D;
 import org.opengis.referencing.operation.TransformException;
 
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.collect.Iterators;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
+import mil.nga.giat.geowave.adapter.vector.index.IndexQueryPlan;
 import mil.nga.giat.geowave.adapter.vector.plugin.transaction.GeoWaveTransaction;
 import mil.nga.giat.geowave.adapter.vector.query.cql.CQLQuery;
 import mil.nga.giat.geowave.adapter.vector.render.DistributableRenderer;
+import mil.nga.giat.geowave.adapter.vector.render.DistributedRenderAggregation;
+import mil.nga.giat.geowave.adapter.vector.render.RenderedMaster;
 import mil.nga.giat.geowave.adapter.vector.stats.FeatureStatistic;
 import mil.nga.giat.geowave.adapter.vector.util.QueryIndexHelper;
 import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
@@ -59,6 +66,8 @@ import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexRowIterator;
 import mil.nga.giat.geowave.core.store.query.BasicQuery;
 import mil.nga.giat.geowave.core.store.query.BasicQuery.Constraints;
 import mil.nga.giat.geowave.core.store.query.DataIdQuery;
@@ -179,21 +188,45 @@ public class GeoWaveFeatureReader implements
 				geoConstraints,
 				timeConstraints);
 
-		try (CloseableIterator<Index<?, ?>> indexIt = getComponents().getIndices(
+		final boolean secondaryIndexSupported = (issuer instanceof BaseIssuer)
+				&& ((BaseIssuer) issuer).isSecondaryIndexSupported();
+		final IndexQueryPlan plan = getComponents().planQuery(
 				statsMap,
-				query)) {
-			while (indexIt.hasNext()) {
-				final PrimaryIndex index = (PrimaryIndex) indexIt.next();
+				query,
+				secondaryIndexSupported ? issuer.getFilter() : null);
+		if (plan != null) {
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug(plan.explain());
+			}
+			if (plan.isSecondaryIndexChosen()) {
+				results.add(((BaseIssuer) issuer).querySecondaryIndex(
+						plan.getPrimaryIndex(),
+						plan.getSecondaryIndex(),
+						query));
+			}
+			else if (plan.getPrimaryIndex() != null) {
 				results.add(issuer.query(
-						index,
+						plan.getPrimaryIndex(),
 						query));
-
 			}
 		}
-		catch (final IOException e) {
-			LOGGER.warn(
-					"unable to close index iterator for query",
-					e);
+		else {
+			try (CloseableIterator<Index<?, ?>> indexIt = getComponents().getIndices(
+					statsMap,
+					query)) {
+				while (indexIt.hasNext()) {
+					final PrimaryIndex index = (PrimaryIndex) indexIt.next();
+					results.add(issuer.query(
+							index,
+							query));
+
+				}
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"unable to close index iterator for query",
+						e);
+			}
 		}
 		return interweaveTransaction(
 				issuer.getLimit(),
@@ -284,6 +317,62 @@ public class GeoWaveFeatureReader implements
 							components.getAdapter()));
 		}
 
+		/**
+		 *
+		 * @return true if the rows of this query can be selected through a
+		 *         secondary index and filtered on the client
+		 */
+		public boolean isSecondaryIndexSupported() {
+			return filter != null;
+		}
+
+		public CloseableIterator<SimpleFeature> querySecondaryIndex(
+				final PrimaryIndex index,
+				final SecondaryIndex<?> secondaryIndex,
+				final mil.nga.giat.geowave.core.store.query.Query query ) {
+			final CQLQuery cqlQuery = new CQLQuery(
+					query,
+					filter,
+					components.getAdapter());
+			final CloseableIterator<ByteArrayId> rowIds = components
+					.getGTstore()
+					.getSecondaryIndexDataStore()
+					.query(
+							secondaryIndex,
+							cqlQuery.getSecondaryIndexConstraints(secondaryIndex),
+							cqlQuery.getSecondaryQueryFilter(secondaryIndex),
+							index.getId(),
+							transaction.composeAuthorizations());
+			// the limit is applied once the rows are filtered and all of the
+			// fields are read because the filter may reference fields outside
+			// of the requested subset
+			final QueryOptions queryOptions = new QueryOptions(
+					components.getAdapter(),
+					index,
+					null,
+					null,
+					transaction.composeAuthorizations());
+			// the matches are fetched from the primary index in batches as
+			// they are streamed from the secondary index
+			final CloseableIterator<SimpleFeature> rows = new SecondaryIndexRowIterator<SimpleFeature>(
+					components.getDataStore(),
+					queryOptions,
+					rowIds);
+			// the secondary index only satisfies the constraints on indexed
+			// attributes, the rest of the filter is evaluated here
+			return new CloseableIteratorWrapper<SimpleFeature>(
+					rows,
+					Iterators.filter(
+							rows,
+							new Predicate<SimpleFeature>() {
+								@Override
+								public boolean apply(
+										final SimpleFeature feature ) {
+									return filter.evaluate(feature);
+								}
+							}));
+		}
+
 		@Override
 		public Filter getFilter() {
 			return filter;
@@ -321,6 +410,11 @@ public class GeoWaveFeatureReader implements
 
 		}
 
+		@Override
+		public boolean isSecondaryIndexSupported() {
+			return false;
+		}
+
 		@Override
 		public CloseableIterator<SimpleFeature> query(
 				final PrimaryIndex index,
@@ -400,6 +494,11 @@ public class GeoWaveFeatureReader implements
 
 		}
 
+		@Override
+		public boolean isSecondaryIndexSupported() {
+			return false;
+		}
+
 		@Override
 		public CloseableIterator<SimpleFeature> query(
 				final PrimaryIndex index,
@@ -413,14 +512,36 @@ public class GeoWaveFeatureReader implements
 						getSubset(),
 						components.getAdapter());
 			}
-			return components.getDataStore().query(
+			// features are rendered within the tablet servers and only the
+			// partial images are returned to be composited here
+			queryOptions.setAggregation(
+					new DistributedRenderAggregation(
+							renderer),
+					components.getAdapter());
+			final CloseableIterator<RenderedMaster> images = components.getDataStore().query(
 					queryOptions,
 					new CQLQuery(
 							query,
 							filter,
 							components.getAdapter()));
-			// TODO: ? need to figure out how to add back CqlQueryRenderIterator
-			// renderer,
+			return new CloseableIteratorWrapper<SimpleFeature>(
+					images,
+					Iterators.transform(
+							Iterators.filter(
+									images,
+									Predicates.notNull()),
+							new Function<RenderedMaster, SimpleFeature>() {
+								@Override
+								public SimpleFeature apply(
+										final RenderedMaster image ) {
+									return SimpleFeatureBuilder.build(
+											GeoWaveFeatureCollection.getDistributedRenderFeatureType(),
+											new Object[] {
+												image
+											},
+											index.getId().getString());
+								}
+							}));
 		}
 	}
 
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import org.geotools.data.FeatureListenerManager;
@@ -52,6 +53,7 @@ import mil.nga.giat.geowave.core.store.dimension.NumericDimensionField;
 import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataStore;
 import mil.nga.giat.geowave.core.store.query.EverythingQuery;
 import mil.nga.giat.geowave.core.store.query.QueryOptions;
 
@@ -84,6 +86,7 @@ public class GeoWaveGTDataStore extends
 	protected DataStatisticsStore dataStatisticsStore;
 	protected DataStore dataStore;
 	protected AdapterIndexMappingStore adapterIndexMappingStore;
+	private GeoWavePluginConfig pluginConfig;
 	private final Map<String, PrimaryIndex[]> preferredIndexes = new ConcurrentHashMap<String, PrimaryIndex[]>();
 
 	private final VisibilityManagement<SimpleFeature> visibilityManagement = VisibilityManagementHelper
@@ -93,6 +96,7 @@ public class GeoWaveGTDataStore extends
 	private final URI featureNameSpaceURI;
 	private int transactionBufferSize = 10000;
 	private final TransactionsAllocator transactionsAllocator;
+	private GeoWaveStatisticsCache statisticsCache;
 
 	public GeoWaveGTDataStore(
 			final GeoWavePluginConfig config )
@@ -117,6 +121,10 @@ public class GeoWaveGTDataStore extends
 		indexStore = config.getIndexStore();
 		adapterStore = config.getAdapterStore();
 		adapterIndexMappingStore = config.getAdapterIndexMappingStore();
+		pluginConfig = config;
+		statisticsCache = new GeoWaveStatisticsCache(
+				dataStatisticsStore,
+				TimeUnit.SECONDS.toMillis(config.getStatisticsCacheTTL()));
 	}
 
 	public AuthorizationSPI getAuthorizationSPI() {
@@ -147,6 +155,18 @@ public class GeoWaveGTDataStore extends
 		return dataStatisticsStore;
 	}
 
+	public GeoWaveStatisticsCache getStatisticsCache() {
+		return statisticsCache;
+	}
+
+	/**
+	 * The secondary index data store is created by the plugin configuration
+	 * the first time it is requested.
+	 */
+	public SecondaryIndexDataStore getSecondaryIndexDataStore() {
+		return pluginConfig.getSecondaryIndexDataStore();
+	}
+
 	protected PrimaryIndex[] getIndicesForAdapter(
 			final GeotoolsFeatureDataAdapter adapter ) {
 		PrimaryIndex[] currentSelections = preferredIndexes.get(adapter.getType().getName().toString());
@@ -288,6 +308,7 @@ public class GeoWaveGTDataStore extends
 							adapter,
 							authorizations),
 					new EverythingQuery());
+			statisticsCache.invalidate(adapter.getAdapterId());
 			// TODO do we want to delete the adapter from the adapter store?
 		}
 	}
@@ -28,6 +28,7 @@ import mil.nga.giat.geowave.adapter.vector.index.ChooseHeuristicMatchIndexQueryS
 import mil.nga.giat.geowave.adapter.vector.index.IndexQueryStrategySPI;
 import mil.nga.giat.geowave.adapter.vector.plugin.lock.LockingManagementFactory;
 import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.GenericStoreFactory;
 import mil.nga.giat.geowave.core.store.GeoWaveStoreFinder;
 import mil.nga.giat.geowave.core.store.StoreFactoryFamilySpi;
 import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
@@ -37,6 +38,7 @@ import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
 import mil.nga.giat.geowave.core.store.config.ConfigOption;
 import mil.nga.giat.geowave.core.store.config.ConfigUtils;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataStore;
 
 /**
  * This class encapsulates the parameterized configuration that can be provided
@@ -55,6 +57,8 @@ public class GeoWavePluginConfig
 	protected static final String AUTH_MGT_KEY = "Authorization Management Provider";
 	protected static final String AUTH_URL_KEY = "Authorization Data URL";
 	protected static final String TRANSACTION_BUFFER_SIZE = "Transaction Buffer Size";
+	protected static final String STATISTICS_CACHE_TTL_KEY = "Statistics Cache TTL";
+	private static final Integer DEFAULT_STATISTICS_CACHE_TTL = 10;
 	public static final String QUERY_INDEX_STRATEGY_KEY = "Query Index Strategy";
 
 	private static final Param GEOWAVE_NAMESPACE = new Param(
@@ -67,6 +71,12 @@ public class GeoWavePluginConfig
 			Integer.class,
 			"Number of buffered feature insertions before flushing to the datastore.",
 			false);
+	private static final Param STATISTICS_CACHE_TTL_PARAM = new Param(
+			STATISTICS_CACHE_TTL_KEY,
+			Integer.class,
+			"Number of seconds cached statistics are used before being refreshed, 0 to disable caching.",
+			false,
+			DEFAULT_STATISTICS_CACHE_TTL);
 
 	private static final Param FEATURE_NAMESPACE = new Param(
 			FEATURE_NAMESPACE_KEY,
@@ -114,8 +124,13 @@ public class GeoWavePluginConfig
 	private final AuthorizationFactorySPI authorizationFactory;
 	private final URL authorizationURL;
 	private final Integer transactionBufferSize;
+	private final Integer statisticsCacheTTL;
 	private final IndexQueryStrategySPI indexQueryStrategy;
 	private final AdapterIndexMappingStore adapterIndexMappingStore;
+	private final GenericStoreFactory<SecondaryIndexDataStore> secondaryIndexDataStoreFactory;
+	private final StoreFactoryOptions secondaryIndexDataStoreOptions;
+	// created on first use as only the lowest cost query strategy reads it
+	private SecondaryIndexDataStore secondaryIndexDataStore;
 
 	private static Map<String, List<Param>> paramMap = new HashMap<String, List<Param>>();
 
@@ -141,6 +156,7 @@ public class GeoWavePluginConfig
 			params.add(AUTH_MGT);
 			params.add(AUTH_URL);
 			params.add(TRANSACTION_BUFFER_SIZE_PARAM);
+			params.add(STATISTICS_CACHE_TTL_PARAM);
 			params.add(QUERY_INDEX_STRATEGY);
 			paramMap.put(
 					storeFactoryFamily.getName(),
@@ -196,6 +212,19 @@ public class GeoWavePluginConfig
 		}
 		transactionBufferSize = bufferSizeFromParam;
 
+		param = params.get(STATISTICS_CACHE_TTL_KEY);
+		Integer statisticsCacheTTLFromParam = DEFAULT_STATISTICS_CACHE_TTL;
+		if ((param != null) && !param.toString().isEmpty()) {
+			try {
+				statisticsCacheTTLFromParam = param instanceof Integer ? (Integer) param : Integer.parseInt(param
+						.toString());
+			}
+			catch (final Exception e) {
+				LOGGER.error("Malformed statistics cache TTL : " + param);
+			}
+		}
+		statisticsCacheTTL = statisticsCacheTTLFromParam;
+
 		param = params.get(LOCK_MGT_KEY);
 
 		final Iterator<LockingManagementFactory> it = getLockManagementFactoryList();
@@ -231,6 +260,10 @@ public class GeoWavePluginConfig
 				ConfigUtils.populateOptionsFromList(
 						storeFactoryFamily.getAdapterIndexMappingStoreFactory().createOptionsInstance(),
 						paramStrs));
+		secondaryIndexDataStoreFactory = storeFactoryFamily.getSecondaryIndexDataStore();
+		secondaryIndexDataStoreOptions = ConfigUtils.populateOptionsFromList(
+				secondaryIndexDataStoreFactory.createOptionsInstance(),
+				paramStrs);
 		lockingManagementFactory = factory;
 
 		authorizationFactory = getAuthorizationFactory(params);
@@ -283,6 +316,13 @@ public class GeoWavePluginConfig
 		return dataStatisticsStore;
 	}
 
+	public synchronized SecondaryIndexDataStore getSecondaryIndexDataStore() {
+		if (secondaryIndexDataStore == null) {
+			secondaryIndexDataStore = secondaryIndexDataStoreFactory.createStore(secondaryIndexDataStoreOptions);
+		}
+		return secondaryIndexDataStore;
+	}
+
 	public static IndexQueryStrategySPI getIndexQueryStrategy(
 			final Map<String, Serializable> params )
 			throws GeoWavePluginException {
@@ -341,6 +381,15 @@ public class GeoWavePluginConfig
 		return transactionBufferSize;
 	}
 
+	/**
+	 *
+	 * @return the number of seconds cached statistics are used before being
+	 *         refreshed
+	 */
+	public Integer getStatisticsCacheTTL() {
+		return statisticsCacheTTL;
+	}
+
 	private static Map<String, List<String>> getLockMgtOptions() {
 		final List<String> options = new ArrayList<String>();
 		final Iterator<LockingManagementFactory> it = getLockManagementFactoryList();
@@ -0,0 +1,263 @@
+package mil.nga.giat.geowave.adapter.vector.plugin;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+import org.opengis.feature.simple.SimpleFeature;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+
+/**
+ * Caches an immutable snapshot of the statistics of each adapter, per set of
+ * authorizations, so that feature counts, bounds and query planning do not
+ * each scan the statistics store.
+ *
+ * A snapshot is invalidated by writes made through this data store, after
+ * which it is reloaded on its next use. A snapshot older than the time to
+ * live, which may miss writes made by other clients, is still returned while
+ * it is refreshed in the background.
+ */
+public class GeoWaveStatisticsCache
+{
+	private final static Logger LOGGER = Logger.getLogger(GeoWaveStatisticsCache.class);
+	private static final ExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(
+				final Runnable r ) {
+			final Thread thread = new Thread(
+					r,
+					"GeoWave statistics cache refresh");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final DataStatisticsStore statisticsStore;
+	private final long timeToLiveMillis;
+	private final ConcurrentMap<ByteArrayId, AtomicLong> generations = new ConcurrentHashMap<ByteArrayId, AtomicLong>();
+	private final ConcurrentMap<SnapshotKey, Snapshot> snapshots = new ConcurrentHashMap<SnapshotKey, Snapshot>();
+
+	/**
+	 *
+	 * @param statisticsStore
+	 * @param timeToLiveMillis
+	 *            the age after which a snapshot is refreshed, snapshots are
+	 *            not cached if this is not positive
+	 */
+	public GeoWaveStatisticsCache(
+			final DataStatisticsStore statisticsStore,
+			final long timeToLiveMillis ) {
+		this.statisticsStore = statisticsStore;
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	/**
+	 *
+	 * @param adapterId
+	 * @param authorizations
+	 * @return the statistics of the adapter keyed by statistics ID; the map and
+	 *         the statistics are shared and must not be modified
+	 */
+	public Map<ByteArrayId, DataStatistics<SimpleFeature>> getDataStatistics(
+			final ByteArrayId adapterId,
+			final String... authorizations ) {
+		if (timeToLiveMillis <= 0) {
+			return loadDataStatistics(
+					adapterId,
+					authorizations);
+		}
+		final SnapshotKey key = new SnapshotKey(
+				adapterId,
+				authorizations);
+		final long generation = getGeneration(
+				adapterId).get();
+		final Snapshot snapshot = snapshots.get(key);
+		if ((snapshot == null) || (snapshot.generation != generation)) {
+			final Snapshot newSnapshot = new Snapshot(
+					loadDataStatistics(
+							adapterId,
+							authorizations),
+					generation);
+			snapshots.put(
+					key,
+					newSnapshot);
+			return newSnapshot.statistics;
+		}
+		if (((System.currentTimeMillis() - snapshot.loadTime) > timeToLiveMillis)
+				&& snapshot.refreshing.compareAndSet(
+						false,
+						true)) {
+			refresh(
+					key,
+					snapshot);
+		}
+		return snapshot.statistics;
+	}
+
+	/**
+	 * Invalidates the snapshots of an adapter, called after features of the
+	 * adapter are written or removed
+	 *
+	 * @param adapterId
+	 */
+	public void invalidate(
+			final ByteArrayId adapterId ) {
+		getGeneration(
+				adapterId).incrementAndGet();
+	}
+
+	private AtomicLong getGeneration(
+			final ByteArrayId adapterId ) {
+		final AtomicLong generation = generations.get(adapterId);
+		if (generation != null) {
+			return generation;
+		}
+		final AtomicLong newGeneration = new AtomicLong();
+		final AtomicLong existingGeneration = generations.putIfAbsent(
+				adapterId,
+				newGeneration);
+		return existingGeneration == null ? newGeneration : existingGeneration;
+	}
+
+	private void refresh(
+			final SnapshotKey key,
+			final Snapshot snapshot ) {
+		try {
+			REFRESH_EXECUTOR.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						// a snapshot invalidated in the meantime is reloaded
+						// on its next use instead
+						final long generation = getGeneration(
+								key.adapterId).get();
+						if (generation == snapshot.generation) {
+							snapshots.replace(
+									key,
+									snapshot,
+									new Snapshot(
+											loadDataStatistics(
+													key.adapterId,
+													key.authorizations),
+											generation));
+						}
+					}
+					finally {
+						snapshot.refreshing.set(false);
+					}
+				}
+			});
+		}
+		catch (final RejectedExecutionException e) {
+			LOGGER.warn(
+					"Unable to refresh statistics",
+					e);
+			snapshot.refreshing.set(false);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<ByteArrayId, DataStatistics<SimpleFeature>> loadDataStatistics(
+			final ByteArrayId adapterId,
+			final String... authorizations ) {
+		final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats = new HashMap<ByteArrayId, DataStatistics<SimpleFeature>>();
+		try (CloseableIterator<DataStatistics<?>> it = statisticsStore.getDataStatistics(
+				adapterId,
+				authorizations)) {
+			while (it.hasNext()) {
+				final DataStatistics<?> stat = it.next();
+				stats.put(
+						stat.getStatisticsId(),
+						(DataStatistics<SimpleFeature>) stat);
+			}
+
+		}
+		catch (final Exception e) {
+			LOGGER.error(
+					"Failed to access statistics from data store",
+					e);
+		}
+		return Collections.unmodifiableMap(stats);
+	}
+
+	private static class Snapshot
+	{
+		private final Map<ByteArrayId, DataStatistics<SimpleFeature>> statistics;
+		private final long generation;
+		private final long loadTime = System.currentTimeMillis();
+		private final AtomicBoolean refreshing = new AtomicBoolean(
+				false);
+
+		private Snapshot(
+				final Map<ByteArrayId, DataStatistics<SimpleFeature>> statistics,
+				final long generation ) {
+			this.statistics = statistics;
+			this.generation = generation;
+		}
+	}
+
+	private static class SnapshotKey
+	{
+		private final ByteArrayId adapterId;
+		private final String[] authorizations;
+		private final String[] sortedAuthorizations;
+
+		private SnapshotKey(
+				final ByteArrayId adapterId,
+				final String[] authorizations ) {
+			this.adapterId = adapterId;
+			this.authorizations = authorizations == null ? new String[0] : authorizations.clone();
+			sortedAuthorizations = this.authorizations.clone();
+			Arrays.sort(sortedAuthorizations);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + ((adapterId == null) ? 0 : adapterId.hashCode());
+			result = (prime * result) + Arrays.hashCode(sortedAuthorizations);
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			final SnapshotKey other = (SnapshotKey) obj;
+			if (adapterId == null) {
+				if (other.adapterId != null) {
+					return false;
+				}
+			}
+			else if (!adapterId.equals(other.adapterId)) {
+				return false;
+			}
+			return Arrays.equals(
+					sortedAuthorizations,
+					other.sortedAuthorizations);
+		}
+	}
+}
@@ -28,6 +28,7 @@ public class CQLQueryFilter implements
 	private final static Logger LOGGER = Logger.getLogger(CQLQueryFilter.class);
 	private GeotoolsFeatureDataAdapter adapter;
 	private Filter filter;
+	private CompiledCQLFilter compiledFilter;
 
 	protected CQLQueryFilter() {
 		super();
@@ -48,6 +49,9 @@ public class CQLQueryFilter implements
 			this.filter = filter;
 		}
 		this.adapter = adapter;
+		compiledFilter = CompiledCQLFilter.compile(
+				this.filter,
+				adapter);
 	}
 
 	@Override
@@ -57,6 +61,17 @@ public class CQLQueryFilter implements
 		if ((filter != null) && (indexModel != null) && (adapter != null)) {
 			if (adapter.getAdapterId().equals(
 					persistenceEncoding.getAdapterId())) {
+				if (compiledFilter != null) {
+					// evaluate against the encoded attributes the filter
+					// references, only decoding the feature if one of them is
+					// unavailable
+					final Boolean result = compiledFilter.evaluate(
+							indexModel,
+							persistenceEncoding);
+					if (result != null) {
+						return result;
+					}
+				}
 				final PersistentDataset<Object> adapterExtendedValues = new PersistentDataset<Object>();
 				if (persistenceEncoding instanceof AbstractAdapterPersistenceEncoding) {
 					((AbstractAdapterPersistenceEncoding) persistenceEncoding).convertUnknownValues(
@@ -175,5 +190,8 @@ public class CQLQueryFilter implements
 			LOGGER.warn("Feature Data Adapter is empty bytes");
 			adapter = null;
 		}
+		compiledFilter = CompiledCQLFilter.compile(
+				filter,
+				adapter);
 	}
 }
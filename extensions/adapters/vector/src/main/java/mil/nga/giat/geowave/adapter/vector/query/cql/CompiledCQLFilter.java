@@ -0,0 +1,380 @@
+package mil.nga.giat.geowave.adapter.vector.query.cql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
+import mil.nga.giat.geowave.adapter.vector.utils.TimeDescriptors;
+import mil.nga.giat.geowave.core.geotime.TimeUtils;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.core.geotime.store.dimension.Time;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.store.adapter.AbstractAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.dimension.NumericDimensionField;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+
+import org.apache.log4j.Logger;
+import org.geotools.filter.visitor.DuplicatingFilterVisitor;
+import org.geotools.util.Converters;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Id;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.ExpressionVisitor;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.PropertyName;
+
+/**
+ * A CQL filter compiled to evaluate directly against the encoded attributes of
+ * a row rather than a decoded SimpleFeature. Each property name of the filter
+ * is bound to the attribute it references, so evaluating the filter only reads
+ * (and deserializes) the attributes it references, while comparisons, BETWEEN,
+ * LIKE, IN, null checks, spatial and temporal operators are still evaluated by
+ * GeoTools with their usual semantics.
+ *
+ * Filters on feature IDs or using functions are not compiled, and rows with a
+ * referenced attribute that cannot be found within the encoding cannot be
+ * evaluated; in either case the caller should fall back to decoding the
+ * feature.
+ */
+public class CompiledCQLFilter
+{
+	private final static Logger LOGGER = Logger.getLogger(CompiledCQLFilter.class);
+	private final FeatureDataAdapter adapter;
+	private final Filter filter;
+	private final List<ByteArrayId> attributeIds;
+	private final int geometryAttribute;
+	private final int timeAttribute;
+	private final int startTimeAttribute;
+	private final int endTimeAttribute;
+
+	private CompiledCQLFilter(
+			final FeatureDataAdapter adapter,
+			final Filter filter,
+			final List<String> attributeNames ) {
+		this.adapter = adapter;
+		this.filter = filter;
+		attributeIds = new ArrayList<ByteArrayId>(
+				attributeNames.size());
+		for (final String attributeName : attributeNames) {
+			attributeIds.add(new ByteArrayId(
+					attributeName));
+		}
+		final SimpleFeatureType type = adapter.getType();
+		geometryAttribute = indexOf(
+				attributeNames,
+				type.getGeometryDescriptor());
+		final TimeDescriptors timeDescriptors = adapter.getTimeDescriptors();
+		if ((timeDescriptors.getStartRange() != null) && (timeDescriptors.getEndRange() != null)) {
+			// this matches the time handler of the feature data adapter
+			timeAttribute = -1;
+			startTimeAttribute = indexOf(
+					attributeNames,
+					timeDescriptors.getStartRange());
+			endTimeAttribute = indexOf(
+					attributeNames,
+					timeDescriptors.getEndRange());
+		}
+		else {
+			timeAttribute = indexOf(
+					attributeNames,
+					timeDescriptors.getTime());
+			startTimeAttribute = -1;
+			endTimeAttribute = -1;
+		}
+	}
+
+	private static int indexOf(
+			final List<String> attributeNames,
+			final AttributeDescriptor descriptor ) {
+		if (descriptor == null) {
+			return -1;
+		}
+		return attributeNames.indexOf(descriptor.getLocalName());
+	}
+
+	/**
+	 *
+	 * @param filter
+	 *            the filter to compile
+	 * @param adapter
+	 *            the adapter of the features to be filtered
+	 * @return the compiled filter, or null if the filter or the adapter is not
+	 *         supported
+	 */
+	public static CompiledCQLFilter compile(
+			final Filter filter,
+			final Object adapter ) {
+		// only the feature data adapter encodes each attribute as its own field
+		if ((filter == null) || !(adapter instanceof FeatureDataAdapter)) {
+			return null;
+		}
+		final FeatureDataAdapter featureAdapter = (FeatureDataAdapter) adapter;
+		try {
+			final CompilingFilterVisitor visitor = new CompilingFilterVisitor(
+					featureAdapter.getType());
+			final Filter compiledFilter = (Filter) filter.accept(
+					visitor,
+					null);
+			if (!visitor.supported) {
+				return null;
+			}
+			return new CompiledCQLFilter(
+					featureAdapter,
+					compiledFilter,
+					visitor.attributeNames);
+		}
+		catch (final RuntimeException e) {
+			LOGGER.debug(
+					"Unable to compile filter, features will be decoded to evaluate it",
+					e);
+			return null;
+		}
+	}
+
+	/**
+	 *
+	 * @return whether the row is accepted by the filter, or null if a
+	 *         referenced attribute is not within the encoding
+	 */
+	public Boolean evaluate(
+			final CommonIndexModel indexModel,
+			final IndexedPersistenceEncoding<?> encoding ) {
+		try {
+			return filter.evaluate(new EncodedAttributes(
+					indexModel,
+					encoding));
+		}
+		catch (final UnresolvedAttributeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The attributes of a single row, each read from the encoding the first
+	 * time it is referenced
+	 */
+	private class EncodedAttributes
+	{
+		private final CommonIndexModel indexModel;
+		private final IndexedPersistenceEncoding<?> encoding;
+		private final Object[] values;
+		private final boolean[] read;
+
+		private EncodedAttributes(
+				final CommonIndexModel indexModel,
+				final IndexedPersistenceEncoding<?> encoding ) {
+			this.indexModel = indexModel;
+			this.encoding = encoding;
+			values = new Object[attributeIds.size()];
+			read = new boolean[attributeIds.size()];
+		}
+
+		private Object getAttribute(
+				final int attribute ) {
+			if (!read[attribute]) {
+				values[attribute] = readAttribute(attribute);
+				read[attribute] = true;
+			}
+			return values[attribute];
+		}
+
+		private Object readAttribute(
+				final int attribute ) {
+			final ByteArrayId attributeId = attributeIds.get(attribute);
+			if (encoding instanceof AbstractAdapterPersistenceEncoding) {
+				final PersistentDataset<Object> extendedData = ((AbstractAdapterPersistenceEncoding) encoding)
+						.getAdapterExtendedData();
+				if (extendedData != null) {
+					final Object value = extendedData.getValue(attributeId);
+					if (value != null) {
+						return value;
+					}
+				}
+			}
+			final PersistentDataset<byte[]> unknownData = encoding.getUnknownData();
+			if (unknownData != null) {
+				final byte[] value = unknownData.getValue(attributeId);
+				if (value != null) {
+					return adapter.getReader(
+							attributeId).readField(
+							value);
+				}
+			}
+			// attributes mapped to the index are within the common data
+			if ((attribute == geometryAttribute) || (attribute == timeAttribute) || (attribute == startTimeAttribute)
+					|| (attribute == endTimeAttribute)) {
+				for (final NumericDimensionField<? extends CommonIndexValue> dimension : indexModel.getDimensions()) {
+					final Object value = encoding.getCommonData().getValue(
+							dimension.getFieldId());
+					if ((value instanceof GeometryWrapper) && (attribute == geometryAttribute)) {
+						return ((GeometryWrapper) value).getGeometry();
+					}
+					if ((value instanceof Time) && (attribute != geometryAttribute)) {
+						return toNativeTime(
+								attribute,
+								((Time) value).toNumericData());
+					}
+				}
+			}
+			throw new UnresolvedAttributeException();
+		}
+
+		private Object toNativeTime(
+				final int attribute,
+				final NumericData time ) {
+			final Class<?> binding = adapter.getType().getDescriptor(
+					attributeIds.get(
+							attribute).getString()).getType().getBinding();
+			final double value;
+			if (attribute == startTimeAttribute) {
+				value = time.getMin();
+			}
+			else if (attribute == endTimeAttribute) {
+				value = time.getMax();
+			}
+			else {
+				value = time.getCentroid();
+			}
+			return TimeUtils.getTimeValue(
+					binding,
+					(long) value);
+		}
+	}
+
+	/**
+	 * An expression that replaces a property name, reading the attribute from
+	 * the encoded attributes of the row being evaluated
+	 */
+	private static class EncodedAttributeExpression implements
+			Expression
+	{
+		private final PropertyName propertyName;
+		private final String attributeName;
+		private final int attribute;
+
+		private EncodedAttributeExpression(
+				final PropertyName propertyName,
+				final String attributeName,
+				final int attribute ) {
+			this.propertyName = propertyName;
+			this.attributeName = attributeName;
+			this.attribute = attribute;
+		}
+
+		@Override
+		public Object evaluate(
+				final Object object ) {
+			if (object instanceof EncodedAttributes) {
+				return ((EncodedAttributes) object).getAttribute(attribute);
+			}
+			if (object instanceof SimpleFeature) {
+				return ((SimpleFeature) object).getAttribute(attributeName);
+			}
+			return null;
+		}
+
+		@Override
+		public <T> T evaluate(
+				final Object object,
+				final Class<T> context ) {
+			return Converters.convert(
+					evaluate(object),
+					context);
+		}
+
+		@Override
+		public Object accept(
+				final ExpressionVisitor visitor,
+				final Object extraData ) {
+			return propertyName.accept(
+					visitor,
+					extraData);
+		}
+
+		@Override
+		public String toString() {
+			return propertyName.toString();
+		}
+	}
+
+	/**
+	 * Copies the filter, binding each property name to the attribute it
+	 * references
+	 */
+	private static class CompilingFilterVisitor extends
+			DuplicatingFilterVisitor
+	{
+		private final SimpleFeatureType type;
+		private final List<String> attributeNames = new ArrayList<String>();
+		private boolean supported = true;
+
+		private CompilingFilterVisitor(
+				final SimpleFeatureType type ) {
+			this.type = type;
+		}
+
+		@Override
+		public Object visit(
+				final PropertyName expression,
+				final Object extraData ) {
+			String attributeName = expression.getPropertyName();
+			if ((attributeName == null) || attributeName.isEmpty()) {
+				// an empty property name refers to the default geometry
+				attributeName = type.getGeometryDescriptor() == null ? null : type
+						.getGeometryDescriptor()
+						.getLocalName();
+			}
+			if ((attributeName == null) || (type.getDescriptor(attributeName) == null)) {
+				supported = false;
+				return super.visit(
+						expression,
+						extraData);
+			}
+			int attribute = attributeNames.indexOf(attributeName);
+			if (attribute < 0) {
+				attribute = attributeNames.size();
+				attributeNames.add(attributeName);
+			}
+			return new EncodedAttributeExpression(
+					expression,
+					attributeName,
+					attribute);
+		}
+
+		@Override
+		public Object visit(
+				final Id filter,
+				final Object extraData ) {
+			// feature IDs are not attributes
+			supported = false;
+			return super.visit(
+					filter,
+					extraData);
+		}
+
+		@Override
+		public Object visit(
+				final Function expression,
+				final Object extraData ) {
+			// functions may evaluate the feature itself rather than their
+			// parameters
+			supported = false;
+			return super.visit(
+					expression,
+					extraData);
+		}
+	}
+
+	private static class UnresolvedAttributeException extends
+			RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+	}
+}
@@ -0,0 +1,81 @@
+package mil.nga.giat.geowave.adapter.vector.render;
+
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.query.aggregate.Aggregation;
+
+import org.apache.log4j.Logger;
+import org.opengis.feature.simple.SimpleFeature;
+
+/**
+ * This aggregation renders features within the tablet servers using a
+ * distributable renderer. Each tablet server returns a rendered master image
+ * with an image per style, and the client composites these partial results by
+ * merging them, so only a few images are transferred rather than every
+ * feature.
+ *
+ */
+public class DistributedRenderAggregation implements
+		Aggregation<DistributableRenderer, RenderedMaster, SimpleFeature>
+{
+	private final static Logger LOGGER = Logger.getLogger(DistributedRenderAggregation.class);
+	private DistributableRenderer renderer;
+	// the renderer as it was before rendering, used to start over when the
+	// result is cleared
+	private byte[] rendererBinary;
+	private boolean rendered = false;
+
+	protected DistributedRenderAggregation() {}
+
+	public DistributedRenderAggregation(
+			final DistributableRenderer renderer ) {
+		setParameters(renderer);
+	}
+
+	@Override
+	public DistributableRenderer getParameters() {
+		return renderer;
+	}
+
+	@Override
+	public void setParameters(
+			final DistributableRenderer parameters ) {
+		renderer = parameters;
+		rendererBinary = parameters == null ? null : PersistenceUtils.toBinary(parameters);
+		rendered = false;
+	}
+
+	@Override
+	public RenderedMaster getResult() {
+		if (!rendered) {
+			return null;
+		}
+		return renderer.getResult();
+	}
+
+	@Override
+	public void clearResult() {
+		if (rendered && (rendererBinary != null)) {
+			renderer = PersistenceUtils.fromBinary(
+					rendererBinary,
+					DistributableRenderer.class);
+		}
+		rendered = false;
+	}
+
+	@Override
+	public void aggregate(
+			final SimpleFeature entry ) {
+		if (renderer == null) {
+			return;
+		}
+		try {
+			renderer.render(entry);
+			rendered = true;
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"Unable to render feature '" + entry.getID() + "'",
+					e);
+		}
+	}
+}
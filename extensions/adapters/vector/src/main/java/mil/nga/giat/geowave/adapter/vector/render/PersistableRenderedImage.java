@@ -1,5 +1,6 @@
 package mil.nga.giat.geowave.adapter.vector.render;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -33,6 +34,51 @@ abstract public class PersistableRenderedImage implements
 		return image;
 	}
 
+	/**
+	 * Draws the overlay on top of the base image, as when compositing the
+	 * images rendered by separate tablet servers
+	 * 
+	 * @param base
+	 *            the image to draw on, which may be replaced if it cannot hold
+	 *            translucent pixels
+	 * @param overlay
+	 *            the image to draw
+	 * @return the composite image
+	 */
+	protected static BufferedImage composite(
+			final BufferedImage base,
+			final BufferedImage overlay ) {
+		if (base == null) {
+			return overlay;
+		}
+		if (overlay == null) {
+			return base;
+		}
+		BufferedImage composite = base;
+		if (base.getType() != BufferedImage.TYPE_INT_ARGB) {
+			// images decoded from png may be indexed or opaque
+			composite = new BufferedImage(
+					base.getWidth(),
+					base.getHeight(),
+					BufferedImage.TYPE_INT_ARGB);
+			final Graphics2D g = composite.createGraphics();
+			g.drawImage(
+					base,
+					0,
+					0,
+					null);
+			g.dispose();
+		}
+		final Graphics2D g = composite.createGraphics();
+		g.drawImage(
+				overlay,
+				0,
+				0,
+				null);
+		g.dispose();
+		return composite;
+	}
+
 	@Override
 	public byte[] toBinary() {
 		if (image == null) {
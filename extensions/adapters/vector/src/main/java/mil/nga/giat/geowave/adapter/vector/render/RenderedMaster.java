@@ -5,17 +5,20 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import mil.nga.giat.geowave.core.index.Mergeable;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
 
 /**
  * In addition to a main persisted image, this class also wraps rendered styles.
  * The main image contains any labels, and the styles each persist a per-style
  * image so that all of the images can be correctly layered from each Accumulo
- * Iterator for the composite image.
+ * Iterator for the composite image. Merging the results of each Accumulo
+ * Iterator composites the images style by style.
  * 
  */
 public class RenderedMaster extends
-		PersistableRenderedImage
+		PersistableRenderedImage implements
+		Mergeable
 {
 	private List<RenderedStyle> renderedStyles = new ArrayList<RenderedStyle>();
 
@@ -38,6 +41,35 @@ public class RenderedMaster extends
 		return renderedStyles;
 	}
 
+	@Override
+	public void merge(
+			final Mergeable merge ) {
+		if (merge instanceof RenderedMaster) {
+			final RenderedMaster other = (RenderedMaster) merge;
+			image = composite(
+					image,
+					other.image);
+			for (final RenderedStyle otherStyle : other.renderedStyles) {
+				RenderedStyle match = null;
+				for (final RenderedStyle style : renderedStyles) {
+					if (style.getStyleId().equals(
+							otherStyle.getStyleId())) {
+						match = style;
+						break;
+					}
+				}
+				if (match == null) {
+					renderedStyles.add(otherStyle);
+				}
+				else {
+					match.image = composite(
+							match.image,
+							otherStyle.image);
+				}
+			}
+		}
+	}
+
 	@Override
 	public byte[] toBinary() {
 		final byte[] selfBinary = super.toBinary();
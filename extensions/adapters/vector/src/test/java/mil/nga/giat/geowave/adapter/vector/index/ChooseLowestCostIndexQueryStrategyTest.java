@@ -0,0 +1,202 @@
+package mil.nga.giat.geowave.adapter.vector.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.adapter.vector.index.ChooseBestMatchIndexQueryStrategyTest.ConstrainedIndexValue;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureNumericHistogramStatistics;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider.SpatialIndexBuilder;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
+import mil.nga.giat.geowave.core.store.index.numeric.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.store.query.BasicQuery;
+import mil.nga.giat.geowave.core.store.query.BasicQuery.ConstraintData;
+import mil.nga.giat.geowave.core.store.query.BasicQuery.ConstraintSet;
+import mil.nga.giat.geowave.core.store.query.BasicQuery.Constraints;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.text.cql2.CQL;
+import org.geotools.filter.text.cql2.CQLException;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class ChooseLowestCostIndexQueryStrategyTest
+{
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"sp.geostuff");
+	private static final int FEATURE_COUNT = 10000;
+	private final GeometryFactory factory = new GeometryFactory();
+	private final Map<ByteArrayId, DataStatistics<SimpleFeature>> statsMap = new HashMap<ByteArrayId, DataStatistics<SimpleFeature>>();
+	private final PrimaryIndex spatialIndex = new SpatialIndexBuilder().createIndex();
+	private final SecondaryIndex<SimpleFeature> popIndex = new SecondaryIndex<SimpleFeature>(
+			new NumericIndexStrategy(),
+			new ByteArrayId[] {
+				new ByteArrayId(
+						"pop")
+			},
+			Collections.<DataStatistics<SimpleFeature>> singletonList(new FeatureNumericHistogramStatistics(
+					ADAPTER_ID,
+					"pop")));
+	private BasicQuery query;
+
+	@Before
+	public void setup()
+			throws SchemaException {
+		final SimpleFeatureType schema = DataUtilities.createType(
+				"sp.geostuff",
+				"geometry:Geometry:srid=4326,pop:java.lang.Long");
+		final CountDataStatistics<SimpleFeature> count = new CountDataStatistics<SimpleFeature>(
+				ADAPTER_ID);
+		final FeatureNumericHistogramStatistics histogram = new FeatureNumericHistogramStatistics(
+				ADAPTER_ID,
+				"pop");
+		for (int i = 0; i < FEATURE_COUNT; i++) {
+			final SimpleFeature feature = SimpleFeatureBuilder.build(
+					schema,
+					new Object[] {
+						factory.createPoint(new Coordinate(
+								27.25,
+								41.25)),
+						Long.valueOf(i)
+					},
+					UUID.randomUUID().toString());
+			count.entryIngested(
+					null,
+					feature);
+			histogram.entryIngested(
+					null,
+					feature);
+		}
+		statsMap.put(
+				CountDataStatistics.STATS_ID,
+				count);
+		statsMap.put(
+				histogram.getStatisticsId(),
+				histogram);
+
+		final ConstraintSet cs = new ConstraintSet();
+		cs.addConstraint(
+				LatitudeDefinition.class,
+				new ConstraintData(
+						new ConstrainedIndexValue(
+								0.3,
+								0.5),
+						true));
+		cs.addConstraint(
+				LongitudeDefinition.class,
+				new ConstraintData(
+						new ConstrainedIndexValue(
+								0.4,
+								0.7),
+						true));
+		query = new BasicQuery(
+				new Constraints(
+						Collections.singletonList(cs)));
+	}
+
+	private IndexQueryPlan plan(
+			final String cql )
+			throws CQLException {
+		return plan(
+				cql,
+				popIndex);
+	}
+
+	private IndexQueryPlan plan(
+			final String cql,
+			final SecondaryIndex<SimpleFeature> secondaryIndex )
+			throws CQLException {
+		return new ChooseLowestCostIndexQueryStrategy().plan(
+				statsMap,
+				query,
+				new PrimaryIndex[] {
+					spatialIndex
+				},
+				Collections.singletonList(secondaryIndex),
+				ChooseLowestCostIndexQueryStrategy.getAttributeConstraints(CQL.toFilter(cql)));
+	}
+
+	@Test
+	public void testSelectiveAttributeUsesSecondaryIndex()
+			throws CQLException {
+		final IndexQueryPlan plan = plan("pop < 10 AND BBOX(geometry, 0.4, 0.3, 0.7, 0.5)");
+		assertTrue(plan.isSecondaryIndexChosen());
+		assertEquals(
+				popIndex,
+				plan.getSecondaryIndex());
+		assertEquals(
+				spatialIndex,
+				plan.getPrimaryIndex());
+		assertTrue(plan.getChosen().getEstimatedRows() < 100);
+		assertTrue(plan.explain().contains(
+				"* secondary index"));
+	}
+
+	@Test
+	public void testBroadAttributeUsesPrimaryIndex()
+			throws CQLException {
+		final IndexQueryPlan plan = plan("pop > 100 AND BBOX(geometry, 0.4, 0.3, 0.7, 0.5)");
+		assertFalse(plan.isSecondaryIndexChosen());
+		assertEquals(
+				spatialIndex,
+				plan.getPrimaryIndex());
+		final List<IndexQueryPlan.Candidate> candidates = plan.getCandidates();
+		assertEquals(
+				2,
+				candidates.size());
+	}
+
+	@Test
+	public void testDisjunctionUsesPrimaryIndex()
+			throws CQLException {
+		assertNull(ChooseLowestCostIndexQueryStrategy.getAttributeConstraints(CQL
+				.toFilter("pop < 10 OR BBOX(geometry, 0.4, 0.3, 0.7, 0.5)")));
+		final IndexQueryPlan plan = plan("pop < 10 OR BBOX(geometry, 0.4, 0.3, 0.7, 0.5)");
+		assertFalse(plan.isSecondaryIndexChosen());
+		assertEquals(
+				spatialIndex,
+				plan.getPrimaryIndex());
+	}
+
+	@Test
+	public void testSecondaryIndexWithoutStatisticsUsesPrimaryIndex()
+			throws CQLException {
+		// the adapter has a histogram of the field, but the secondary index
+		// does not maintain it
+		final SecondaryIndex<SimpleFeature> unmeasuredIndex = new SecondaryIndex<SimpleFeature>(
+				new NumericIndexStrategy(),
+				new ByteArrayId[] {
+					new ByteArrayId(
+							"pop")
+				});
+		final IndexQueryPlan plan = plan(
+				"pop < 10 AND BBOX(geometry, 0.4, 0.3, 0.7, 0.5)",
+				unmeasuredIndex);
+		assertFalse(plan.isSecondaryIndexChosen());
+		assertEquals(
+				spatialIndex,
+				plan.getPrimaryIndex());
+		assertTrue(plan.explain().contains(
+				"no statistics for pop"));
+	}
+}
@@ -0,0 +1,104 @@
+package mil.nga.giat.geowave.adapter.vector.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.memory.MemoryDataStatisticsStore;
+
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+
+public class GeoWaveStatisticsCacheTest
+{
+	private final ByteArrayId adapterId = new ByteArrayId(
+			"adapter");
+
+	@Test
+	public void testSnapshotInvalidatedByWrites() {
+		final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore();
+		final GeoWaveStatisticsCache cache = new GeoWaveStatisticsCache(
+				statisticsStore,
+				60000);
+		final Map<ByteArrayId, DataStatistics<SimpleFeature>> emptyStats = cache.getDataStatistics(
+				adapterId,
+				"a",
+				"b");
+		assertEquals(
+				0,
+				emptyStats.size());
+
+		statisticsStore.setStatistics(new CountDataStatistics<SimpleFeature>(
+				adapterId));
+		// the snapshot is shared until it is invalidated, regardless of the
+		// order of the authorizations
+		assertSame(
+				emptyStats,
+				cache.getDataStatistics(
+						adapterId,
+						"b",
+						"a"));
+
+		cache.invalidate(adapterId);
+		final Map<ByteArrayId, DataStatistics<SimpleFeature>> stats = cache.getDataStatistics(
+				adapterId,
+				"a",
+				"b");
+		assertNotSame(
+				emptyStats,
+				stats);
+		assertEquals(
+				1,
+				stats.size());
+	}
+
+	@Test
+	public void testSnapshotRefreshedAfterTimeToLive()
+			throws InterruptedException {
+		final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore();
+		final GeoWaveStatisticsCache cache = new GeoWaveStatisticsCache(
+				statisticsStore,
+				1);
+		final Map<ByteArrayId, DataStatistics<SimpleFeature>> emptyStats = cache.getDataStatistics(adapterId);
+		statisticsStore.setStatistics(new CountDataStatistics<SimpleFeature>(
+				adapterId));
+		Thread.sleep(10);
+		// the expired snapshot is still returned while it is refreshed in the
+		// background
+		assertSame(
+				emptyStats,
+				cache.getDataStatistics(adapterId));
+		final long deadline = System.currentTimeMillis() + 10000;
+		Map<ByteArrayId, DataStatistics<SimpleFeature>> stats = emptyStats;
+		while (stats.isEmpty() && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+			stats = cache.getDataStatistics(adapterId);
+		}
+		assertEquals(
+				1,
+				stats.size());
+	}
+
+	@Test
+	public void testCachingDisabled() {
+		final MemoryDataStatisticsStore statisticsStore = new MemoryDataStatisticsStore();
+		final GeoWaveStatisticsCache cache = new GeoWaveStatisticsCache(
+				statisticsStore,
+				0);
+		assertEquals(
+				0,
+				cache.getDataStatistics(
+						adapterId).size());
+		statisticsStore.setStatistics(new CountDataStatistics<SimpleFeature>(
+				adapterId));
+		assertEquals(
+				1,
+				cache.getDataStatistics(
+						adapterId).size());
+	}
+}
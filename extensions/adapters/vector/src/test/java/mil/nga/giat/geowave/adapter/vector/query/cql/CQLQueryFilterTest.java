@@ -1,13 +1,23 @@
 package mil.nga.giat.geowave.adapter.vector.query.cql;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TimeZone;
 import java.util.UUID;
 
 import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
 import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialTemporalDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
 import mil.nga.giat.geowave.core.store.filter.DistributableFilterList;
 import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.core.store.filter.QueryFilter;
@@ -19,6 +29,7 @@ import org.geotools.feature.SchemaException;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.filter.FilterFactoryImpl;
 import org.geotools.filter.text.cql2.CQLException;
+import org.geotools.filter.text.ecql.ECQL;
 import org.junit.Before;
 import org.junit.Test;
 import org.opengis.feature.simple.SimpleFeature;
@@ -34,6 +45,8 @@ public class CQLQueryFilterTest
 {
 	SimpleFeatureType type;
 
+	SimpleFeatureType timeType;
+
 	Object[] defaults;
 
 	GeometryFactory factory = new GeometryFactory();
@@ -53,6 +66,9 @@ public class CQLQueryFilterTest
 			defaults[p++] = descriptor.getDefaultValue();
 		}
 
+		timeType = DataUtilities.createType(
+				"geotime",
+				"geom:Geometry:srid=4326,pop:java.lang.Long,when:Date,pid:String");
 	}
 
 	@Test
@@ -93,6 +109,207 @@ public class CQLQueryFilterTest
 						0)));
 	}
 
+	@Test
+	public void testCompiledFilterMatchesDecodedFeature()
+			throws CQLException {
+		final FeatureDataAdapter adapter = new FeatureDataAdapter(
+				type);
+		final PrimaryIndex spatialIndex = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+		final SimpleFeature feature = createFeature();
+		final String[] cqls = new String[] {
+			"pid = 'a89dhd-123-abc'",
+			"pid <> 'a89dhd-123-abc'",
+			"pop > 50 AND pop < 150",
+			"pop BETWEEN 101 AND 200",
+			"pop IN (1, 2, 100)",
+			"pid LIKE 'a89%'",
+			"pid IS NULL",
+			"BBOX(geom, 27, 41, 28, 42)",
+			"BBOX(geom, 28, 42, 29, 43) OR pop = 100",
+			"INTERSECTS(geom, POLYGON((27 41, 28 41, 28 42, 27 42, 27 41)))",
+			"NOT (pop >= 100)"
+		};
+		for (final String cql : cqls) {
+			final Filter filter = ECQL.toFilter(cql);
+			final CompiledCQLFilter compiledFilter = CompiledCQLFilter.compile(
+					filter,
+					adapter);
+			assertNotNull(
+					cql,
+					compiledFilter);
+			final IndexedPersistenceEncoding<?> encoding = DataStoreUtils.getEncodings(
+					spatialIndex,
+					adapter.encode(
+							feature,
+							spatialIndex.getIndexModel())).get(
+					0);
+			assertEquals(
+					cql,
+					filter.evaluate(feature),
+					compiledFilter.evaluate(
+							spatialIndex.getIndexModel(),
+							encoding));
+		}
+		// feature IDs are not encoded as attributes
+		assertNull(CompiledCQLFilter.compile(
+				ECQL.toFilter("IN ('fid1')"),
+				adapter));
+	}
+
+	@Test
+	public void testBBox()
+			throws CQLException {
+		final SimpleFeature feature = createFeature();
+		assertTrue(accept(
+				"BBOX(geom, 27, 41, 28, 42)",
+				feature));
+		assertFalse(accept(
+				"BBOX(geom, 28, 42, 29, 43)",
+				feature));
+		assertTrue(accept(
+				"BBOX(geom, 28, 42, 29, 43) OR pop = 100",
+				feature));
+	}
+
+	@Test
+	public void testLike()
+			throws CQLException {
+		final SimpleFeature feature = createFeature();
+		assertTrue(accept(
+				"pid LIKE 'a89%'",
+				feature));
+		assertTrue(accept(
+				"pid LIKE '%-123-%'",
+				feature));
+		assertFalse(accept(
+				"pid LIKE 'b%'",
+				feature));
+		assertFalse(accept(
+				"pid NOT LIKE 'a89%'",
+				feature));
+	}
+
+	@Test
+	public void testNullAttribute()
+			throws CQLException {
+		final SimpleFeature feature = createFeature();
+		feature.setAttribute(
+				"pid",
+				null);
+		assertTrue(accept(
+				"pid IS NULL",
+				feature));
+		assertFalse(accept(
+				"pid IS NOT NULL",
+				feature));
+		assertFalse(accept(
+				"pid = 'a89dhd-123-abc'",
+				feature));
+		assertFalse(accept(
+				"pid LIKE 'a89%'",
+				feature));
+		assertTrue(accept(
+				"pid IS NULL AND pop = 100",
+				feature));
+	}
+
+	@Test
+	public void testTemporalRange()
+			throws CQLException,
+			ParseException {
+		final SimpleDateFormat format = new SimpleDateFormat(
+				"yyyy-MM-dd'T'HH:mm:ss'Z'");
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		final SimpleFeature feature = SimpleFeatureBuilder.build(
+				timeType,
+				new Object[] {
+					factory.createPoint(new Coordinate(
+							27.25,
+							41.25)),
+					Long.valueOf(100),
+					format.parse("2005-05-19T21:00:00Z"),
+					"a89dhd-123-abc"
+				},
+				UUID.randomUUID().toString());
+		final FeatureDataAdapter adapter = new FeatureDataAdapter(
+				timeType);
+		// the time is within the common data of a spatial temporal index and
+		// an attribute of its own otherwise
+		for (final PrimaryIndex index : new PrimaryIndex[] {
+			new SpatialDimensionalityTypeProvider().createPrimaryIndex(),
+			new SpatialTemporalDimensionalityTypeProvider().createPrimaryIndex()
+		}) {
+			assertTrue(accept(
+					"when DURING 2005-05-19T20:32:56Z/2005-05-19T21:32:56Z",
+					feature,
+					adapter,
+					index));
+			assertFalse(accept(
+					"when DURING 2005-05-19T21:32:56Z/2005-05-19T22:32:56Z",
+					feature,
+					adapter,
+					index));
+			assertTrue(accept(
+					"when BEFORE 2005-05-19T21:32:56Z",
+					feature,
+					adapter,
+					index));
+			assertFalse(accept(
+					"when AFTER 2005-05-19T21:32:56Z",
+					feature,
+					adapter,
+					index));
+			assertTrue(accept(
+					"BBOX(geom, 27, 41, 28, 42) AND when DURING 2005-05-19T20:32:56Z/2005-05-19T21:32:56Z",
+					feature,
+					adapter,
+					index));
+		}
+	}
+
+	private boolean accept(
+			final String cql,
+			final SimpleFeature feature )
+			throws CQLException {
+		return accept(
+				cql,
+				feature,
+				new FeatureDataAdapter(
+						type),
+				new SpatialDimensionalityTypeProvider().createPrimaryIndex());
+	}
+
+	/**
+	 * Accepts the feature with a CQL query filter that was serialized, as it is
+	 * for a distributed scan, checking the result against the decoded feature
+	 */
+	private static boolean accept(
+			final String cql,
+			final SimpleFeature feature,
+			final FeatureDataAdapter adapter,
+			final PrimaryIndex index )
+			throws CQLException {
+		final Filter filter = ECQL.toFilter(cql);
+		final CQLQueryFilter queryFilter = PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(new CQLQueryFilter(
+						filter,
+						adapter)),
+				CQLQueryFilter.class);
+		final boolean accepted = queryFilter.accept(
+				index.getIndexModel(),
+				DataStoreUtils.getEncodings(
+						index,
+						adapter.encode(
+								feature,
+								index.getIndexModel())).get(
+						0));
+		assertEquals(
+				cql,
+				filter.evaluate(feature),
+				accepted);
+		return accepted;
+	}
+
 	private SimpleFeature createFeature() {
 		final SimpleFeature instance = SimpleFeatureBuilder.build(
 				type,
@@ -0,0 +1,212 @@
+package mil.nga.giat.geowave.adapter.vector.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class RenderedMasterTest
+{
+	private static final int SIZE = 4;
+	private static final int TRANSPARENT = 0;
+
+	@Test
+	public void testMergeCompositesImages() {
+		final RenderedMaster master = createMaster(
+				image(
+						0,
+						0,
+						Color.RED),
+				new RenderedStyle(
+						"style1",
+						image(
+								1,
+								1,
+								Color.BLUE)));
+		final RenderedMaster other = createMaster(
+				image(
+						2,
+						2,
+						Color.GREEN),
+				new RenderedStyle(
+						"style1",
+						image(
+								3,
+								3,
+								Color.BLUE)),
+				new RenderedStyle(
+						"style2",
+						image(
+								0,
+								3,
+								Color.YELLOW)));
+		master.merge(other);
+
+		// the transparent pixels of the other image leave the base untouched
+		assertEquals(
+				Color.RED.getRGB(),
+				master.getImage().getRGB(
+						0,
+						0));
+		assertEquals(
+				Color.GREEN.getRGB(),
+				master.getImage().getRGB(
+						2,
+						2));
+		assertEquals(
+				TRANSPARENT,
+				master.getImage().getRGB(
+						1,
+						1));
+
+		// styles are composited by style ID, keeping the order of the master
+		assertEquals(
+				2,
+				master.getRenderedStyles().size());
+		final RenderedStyle style1 = master.getRenderedStyles().get(
+				0);
+		assertEquals(
+				"style1",
+				style1.getStyleId());
+		assertEquals(
+				Color.BLUE.getRGB(),
+				style1.getImage().getRGB(
+						1,
+						1));
+		assertEquals(
+				Color.BLUE.getRGB(),
+				style1.getImage().getRGB(
+						3,
+						3));
+		final RenderedStyle style2 = master.getRenderedStyles().get(
+				1);
+		assertEquals(
+				"style2",
+				style2.getStyleId());
+		assertEquals(
+				Color.YELLOW.getRGB(),
+				style2.getImage().getRGB(
+						0,
+						3));
+	}
+
+	@Test
+	public void testMergeIntoEmptyMaster() {
+		final RenderedMaster master = createMaster(null);
+		final BufferedImage image = image(
+				1,
+				2,
+				Color.RED);
+		master.merge(createMaster(image));
+		assertSame(
+				image,
+				master.getImage());
+
+		// merging an empty master leaves the image as it was
+		master.merge(createMaster(null));
+		assertSame(
+				image,
+				master.getImage());
+	}
+
+	@Test
+	public void testMergeOntoOpaqueImage() {
+		// images decoded from png may not have an alpha channel
+		final BufferedImage opaque = new BufferedImage(
+				SIZE,
+				SIZE,
+				BufferedImage.TYPE_3BYTE_BGR);
+		opaque.setRGB(
+				0,
+				0,
+				Color.RED.getRGB());
+		final RenderedMaster master = createMaster(opaque);
+		master.merge(createMaster(image(
+				1,
+				0,
+				Color.GREEN)));
+		assertEquals(
+				BufferedImage.TYPE_INT_ARGB,
+				master.getImage().getType());
+		assertEquals(
+				Color.RED.getRGB(),
+				master.getImage().getRGB(
+						0,
+						0));
+		assertEquals(
+				Color.GREEN.getRGB(),
+				master.getImage().getRGB(
+						1,
+						0));
+	}
+
+	@Test
+	public void testMergedMasterSerialization() {
+		final RenderedMaster master = createMaster(
+				image(
+						0,
+						0,
+						Color.RED),
+				new RenderedStyle(
+						"style1",
+						image(
+								1,
+								1,
+								Color.BLUE)));
+		master.merge(createMaster(image(
+				2,
+				2,
+				Color.GREEN)));
+		final RenderedMaster copy = new RenderedMaster();
+		copy.fromBinary(master.toBinary());
+		assertEquals(
+				Color.RED.getRGB(),
+				copy.getImage().getRGB(
+						0,
+						0));
+		assertEquals(
+				Color.GREEN.getRGB(),
+				copy.getImage().getRGB(
+						2,
+						2));
+		assertEquals(
+				1,
+				copy.getRenderedStyles().size());
+		assertEquals(
+				Color.BLUE.getRGB(),
+				copy.getRenderedStyles().get(
+						0).getImage().getRGB(
+						1,
+						1));
+	}
+
+	private static RenderedMaster createMaster(
+			final BufferedImage image,
+			final RenderedStyle... styles ) {
+		final RenderedMaster master = new RenderedMaster();
+		master.image = image;
+		for (final RenderedStyle style : styles) {
+			master.getRenderedStyles().add(
+					style);
+		}
+		return master;
+	}
+
+	private static BufferedImage image(
+			final int x,
+			final int y,
+			final Color color ) {
+		final BufferedImage image = new BufferedImage(
+				SIZE,
+				SIZE,
+				BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(
+				x,
+				y,
+				color.getRGB());
+		return image;
+	}
+}
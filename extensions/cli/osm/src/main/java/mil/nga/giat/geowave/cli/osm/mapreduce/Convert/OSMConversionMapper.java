@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.cli.osm.mapreduce.Convert;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +29,9 @@ public class OSMConversionMapper extends
 	private final SimpleFeatureGenerator sfg = new SimpleFeatureGenerator();
 	private OsmProvider osmProvider = null;
 
+	private final List<SimpleFeatureGenerator.OSMUnion> batch = new ArrayList<>();
+	private int batchSize = 1;
+
 	@Override
 	protected void map(
 			final Key key,
@@ -35,22 +39,41 @@ public class OSMConversionMapper extends
 			final Context context )
 			throws IOException,
 			InterruptedException {
-		final List<SimpleFeature> sf = sfg.mapOSMtoSimpleFeature(
+		batch.add(new SimpleFeatureGenerator.OSMUnion(
 				WholeRowIterator.decodeRow(
 						key,
-						value),
-				osmProvider);
-		if ((sf != null) && (sf.size() > 0)) {
-			for (final SimpleFeature feat : sf) {
-				final String name = feat.getType().getTypeName();
-				context.write(
-						new GeoWaveOutputKey(
-								new ByteArrayId(
-										name),
-								indexId),
-						feat);
+						value)));
+		if (batch.size() >= batchSize) {
+			flushBatch(context);
+		}
+	}
+
+	private void flushBatch(
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		if (batch.isEmpty()) {
+			return;
+		}
+		// resolve every node referenced by the batch in one sorted scan
+		osmProvider.prefetch(batch);
+		for (final SimpleFeatureGenerator.OSMUnion osmunion : batch) {
+			final List<SimpleFeature> sf = sfg.mapOSMtoSimpleFeature(
+					osmunion,
+					osmProvider);
+			if ((sf != null) && (sf.size() > 0)) {
+				for (final SimpleFeature feat : sf) {
+					final String name = feat.getType().getTypeName();
+					context.write(
+							new GeoWaveOutputKey(
+									new ByteArrayId(
+											name),
+									indexId),
+							feat);
+				}
 			}
 		}
+		batch.clear();
 	}
 
 	@Override
@@ -58,6 +81,7 @@ public class OSMConversionMapper extends
 			final Context context )
 			throws IOException,
 			InterruptedException {
+		flushBatch(context);
 		osmProvider.close();
 
 		super.cleanup(context);
@@ -89,6 +113,9 @@ public class OSMConversionMapper extends
 					req,
 					storeOptions);
 
+			batchSize = Math.max(
+					args.getConversionBatchSize(),
+					1);
 			osmProvider = new OsmProvider(
 					args,
 					req);
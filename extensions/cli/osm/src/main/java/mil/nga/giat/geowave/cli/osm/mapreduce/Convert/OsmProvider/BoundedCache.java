@@ -0,0 +1,29 @@
+package mil.nga.giat.geowave.cli.osm.mapreduce.Convert.OsmProvider;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded, least-recently-used cache
+ */
+class BoundedCache<K, V> extends
+		LinkedHashMap<K, V>
+{
+	private static final long serialVersionUID = 1L;
+	private final int maxSize;
+
+	public BoundedCache(
+			final int maxSize ) {
+		super(
+				16,
+				0.75f,
+				true);
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	protected boolean removeEldestEntry(
+			final Map.Entry<K, V> eldest ) {
+		return size() > maxSize;
+	}
+}
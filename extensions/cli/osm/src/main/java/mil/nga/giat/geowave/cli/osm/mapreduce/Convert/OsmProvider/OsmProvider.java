@@ -3,9 +3,12 @@ package mil.nga.giat.geowave.cli.osm.mapreduce.Convert.OsmProvider;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -14,7 +17,6 @@ import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.client.ZooKeeperInstance;
 import org.apache.accumulo.core.client.security.tokens.PasswordToken;
-import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
@@ -34,6 +36,7 @@ import mil.nga.giat.geowave.cli.osm.mapreduce.Convert.SimpleFeatureGenerator;
 import mil.nga.giat.geowave.cli.osm.operations.options.OSMIngestCommandArgs;
 import mil.nga.giat.geowave.cli.osm.osmfeature.types.features.FeatureDefinition;
 import mil.nga.giat.geowave.cli.osm.types.TypeUtils;
+import mil.nga.giat.geowave.cli.osm.types.generated.MemberType;
 import mil.nga.giat.geowave.core.geotime.GeometryUtils;
 import mil.nga.giat.geowave.core.store.data.field.FieldReader;
 import mil.nga.giat.geowave.core.store.data.field.FieldUtils;
@@ -44,12 +47,15 @@ public class OsmProvider
 {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(OsmProvider.class);
+	private static final int QUERY_THREADS = 4;
 	private Connector conn = null;
 	private BatchScanner bs = null;
 	private final FieldWriter<?, Long> longWriter = FieldUtils.getDefaultWriterForClass(Long.class);
 	private final FieldReader<Long> longReader = FieldUtils.getDefaultReaderForClass(Long.class);
 	private final FieldReader<Double> doubleReader = FieldUtils.getDefaultReaderForClass(Double.class);
 	private static final byte EMPTY_BYTES[] = new byte[0];
+	private final Map<Long, Coordinate> nodeCache;
+	private final Map<Long, List<Long>> wayCache;
 
 	public OsmProvider(
 			OSMIngestCommandArgs args,
@@ -67,7 +73,14 @@ public class OsmProvider
 				args.getQualifiedTableName(),
 				new Authorizations(
 						args.getVisibilityOptions().getVisibility()),
-				1);
+				QUERY_THREADS);
+		nodeCache = new BoundedCache<>(
+				args.getNodeCacheSize());
+		// way reference lists average roughly ten nodes each
+		wayCache = new BoundedCache<>(
+				Math.max(
+						args.getNodeCacheSize() / 10,
+						1));
 	}
 
 	public Geometry processRelation(
@@ -233,6 +246,63 @@ public class OsmProvider
 		}
 	}
 
+	/**
+	 * Resolves the member way references and node coordinates needed by a
+	 * batch of ways and relations into the local caches. Each level of the
+	 * lookup is answered by a single pass of the batch scanner over sorted,
+	 * merged row ranges rather than by one scan per way or relation.
+	 */
+	public void prefetch(
+			final List<SimpleFeatureGenerator.OSMUnion> batch ) {
+		final Set<Long> wayIds = new HashSet<>();
+		for (final SimpleFeatureGenerator.OSMUnion osmunion : batch) {
+			if (osmunion.OsmType.equals(SimpleFeatureGenerator.OSMType.RELATION) && (osmunion.relationSets != null)) {
+				for (final SimpleFeatureGenerator.RelationSet rs : osmunion.relationSets.values()) {
+					if (MemberType.WAY.equals(rs.memType) && !wayCache.containsKey(rs.memId)) {
+						wayIds.add(rs.memId);
+					}
+				}
+			}
+		}
+		final Map<Long, List<Long>> ways = readWays(wayIds);
+		wayCache.putAll(ways);
+
+		final Set<Long> nodeIds = new HashSet<>();
+		for (final SimpleFeatureGenerator.OSMUnion osmunion : batch) {
+			if (osmunion.OsmType.equals(SimpleFeatureGenerator.OSMType.WAY) && (osmunion.Nodes != null)) {
+				addUncachedNodes(
+						osmunion.Nodes,
+						nodeIds);
+			}
+			else if (osmunion.OsmType.equals(SimpleFeatureGenerator.OSMType.RELATION)
+					&& (osmunion.relationSets != null)) {
+				for (final SimpleFeatureGenerator.RelationSet rs : osmunion.relationSets.values()) {
+					// node and relation members share the id space of ways
+					if (!MemberType.WAY.equals(rs.memType)) {
+						continue;
+					}
+					final List<Long> refs = ways.containsKey(rs.memId) ? ways.get(rs.memId) : wayCache.get(rs.memId);
+					if (refs != null) {
+						addUncachedNodes(
+								refs,
+								nodeIds);
+					}
+				}
+			}
+		}
+		nodeCache.putAll(readNodes(nodeIds));
+	}
+
+	private void addUncachedNodes(
+			final List<Long> nodes,
+			final Set<Long> nodeIds ) {
+		for (final Long l : nodes) {
+			if (!nodeCache.containsKey(l)) {
+				nodeIds.add(l);
+			}
+		}
+	}
+
 	private Map<String, List<LinearRing>> waysFromAccumulo(
 			Map<Integer, SimpleFeatureGenerator.RelationSet> relations,
 			SimpleFeatureGenerator.OSMUnion osmunion ) {
@@ -271,87 +341,34 @@ public class OsmProvider
 
 		}
 
-		List<Range> ranges = new ArrayList<>(
-				outerWays.size() + innerWays.size());
-		if (ranges.size() == 0) {
+		if (outerWays.isEmpty() && innerWays.isEmpty()) {
 			LOGGER.warn("No multipolygon relations found for relation: " + osmunion.Id);
 			return null;
 		}
 
+		Map<Long, List<Long>> vals = new HashMap<>();
+		Set<Long> missingWays = new HashSet<>();
 		for (Long l : outerWays) {
-			byte[] row = Schema.getIdHash(l);
-			ranges.add(new Range(
-					new Text(
-							row)));
+			addCachedWay(
+					l,
+					vals,
+					missingWays);
 		}
 		for (Long l : innerWays) {
-			byte[] row = Schema.getIdHash(l);
-			ranges.add(new Range(
-					new Text(
-							row)));
+			addCachedWay(
+					l,
+					vals,
+					missingWays);
 		}
-
-		bs.setRanges(ranges);
-		bs.clearColumns();
-		bs.fetchColumn(
-				new Text(
-						Schema.CF.WAY),
-				new Text(
-						Schema.CQ.ID));
-		bs.fetchColumn(
-				new Text(
-						Schema.CF.WAY),
-				new Text(
-						Schema.CQ.REFERENCES));
-
-		Map<Long, List<Long>> vals = new HashMap<>();
-
-		long id = -1;
-		List<Long> tvals = null;
-		ByteSequence lastkey = null;
-
-		for (Map.Entry<Key, Value> row : bs) {
-			if (lastkey == null) {
-				lastkey = row.getKey().getRowData();
-			}
-
-			if (Schema.arraysEqual(
-					row.getKey().getColumnQualifierData(),
-					Schema.CQ.ID)) {
-				id = longReader.readField(row.getValue().get());
-			}
-			else if (Schema.arraysEqual(
-					row.getKey().getColumnQualifierData(),
-					Schema.CQ.REFERENCES)) {
-				try {
-					tvals = TypeUtils.deserializeLongArray(
-							row.getValue().get(),
-							null).getIds();
-				}
-				catch (IOException e) {
-					LOGGER.error("Error deserializing member array for way: ");
-				}
-			}
-
-			if (id != -1 && tvals != null) {
-				vals.put(
-						id,
-						tvals);
-				tvals = null;
-				id = -1;
-				lastkey = null;
-			}
-			else if (!lastkey.equals(row.getKey().getRowData())) {
-				tvals = null;
-				id = -1;
-				lastkey = null;
-			}
-
+		if (!missingWays.isEmpty()) {
+			Map<Long, List<Long>> fetched = readWays(missingWays);
+			wayCache.putAll(fetched);
+			vals.putAll(fetched);
 		}
 
 		for (Map.Entry<Long, List<Long>> kvp : vals.entrySet()) {
 			Map<Long, Coordinate> ring = nodesFromAccumulo(kvp.getValue());
-			Coordinate[] sortedCoords = new Coordinate[ring.size()];
+			Coordinate[] sortedCoords = new Coordinate[kvp.getValue().size()];
 			List<String> missingIds = new ArrayList<>();
 			int i = 0;
 			for (long l : kvp.getValue()) {
@@ -370,12 +387,12 @@ public class OsmProvider
 				return null;
 			}
 
-			if (sortedCoords[0] != sortedCoords[sortedCoords.length - 1]) {
+			if (!sortedCoords[0].equals2D(sortedCoords[sortedCoords.length - 1])) {
 				// ring not closed, should be by definition -f ix
 				Coordinate[] closedCords = Arrays.copyOf(
 						sortedCoords,
 						sortedCoords.length + 1);
-				closedCords[sortedCoords.length + 1] = closedCords[0];
+				closedCords[sortedCoords.length] = closedCords[0];
 				sortedCoords = closedCords;
 			}
 
@@ -405,21 +422,134 @@ public class OsmProvider
 		return rings;
 	}
 
+	private void addCachedWay(
+			final Long wayId,
+			final Map<Long, List<Long>> vals,
+			final Set<Long> missingWays ) {
+		final List<Long> refs = wayCache.get(wayId);
+		if (refs != null) {
+			vals.put(
+					wayId,
+					refs);
+		}
+		else {
+			missingWays.add(wayId);
+		}
+	}
+
 	private Map<Long, Coordinate> nodesFromAccumulo(
 			List<Long> vals ) {
+		Map<Long, Coordinate> coords = new HashMap<>();
+		Set<Long> missingNodes = new HashSet<>();
+		for (Long l : vals) {
+			Coordinate crd = nodeCache.get(l);
+			if (crd != null) {
+				// cached coordinates are shared, so hand out copies
+				coords.put(
+						l,
+						new Coordinate(
+								crd));
+			}
+			else {
+				missingNodes.add(l);
+			}
+		}
+		if (!missingNodes.isEmpty()) {
+			Map<Long, Coordinate> fetched = readNodes(missingNodes);
+			for (Map.Entry<Long, Coordinate> kvp : fetched.entrySet()) {
+				nodeCache.put(
+						kvp.getKey(),
+						kvp.getValue());
+				coords.put(
+						kvp.getKey(),
+						new Coordinate(
+								kvp.getValue()));
+			}
+		}
+		return coords;
+	}
 
+	private List<Range> getSortedRanges(
+			Collection<Long> ids ) {
 		List<Range> ranges = new ArrayList<>(
-				vals.size());
-		for (Long l : vals) {
+				ids.size());
+		for (Long l : ids) {
 			byte[] row = Schema.getIdHash(l);
 			ranges.add(new Range(
 					new Text(
 							row)));
-			// ranges.add(new Range(l.toString()));
 		}
-		ranges = Range.mergeOverlapping(ranges);
+		// merging also sorts the ranges so the scan walks the table in order
+		return Range.mergeOverlapping(ranges);
+	}
 
-		bs.setRanges(ranges);
+	private Map<Long, List<Long>> readWays(
+			Collection<Long> wayIds ) {
+		Map<Long, List<Long>> vals = new HashMap<>();
+		if (wayIds.isEmpty()) {
+			return vals;
+		}
+
+		bs.setRanges(getSortedRanges(wayIds));
+		bs.clearColumns();
+		bs.fetchColumn(
+				new Text(
+						Schema.CF.WAY),
+				new Text(
+						Schema.CQ.ID));
+		bs.fetchColumn(
+				new Text(
+						Schema.CF.WAY),
+				new Text(
+						Schema.CQ.REFERENCES));
+
+		// with several query threads the cells of a row may arrive in
+		// separate batches, so they are gathered per row before the way is
+		// built
+		final Map<Text, Long> ids = new HashMap<>();
+		final Map<Text, List<Long>> references = new HashMap<>();
+		for (Map.Entry<Key, Value> row : bs) {
+			if (Schema.arraysEqual(
+					row.getKey().getColumnQualifierData(),
+					Schema.CQ.ID)) {
+				ids.put(
+						row.getKey().getRow(),
+						longReader.readField(row.getValue().get()));
+			}
+			else if (Schema.arraysEqual(
+					row.getKey().getColumnQualifierData(),
+					Schema.CQ.REFERENCES)) {
+				try {
+					references.put(
+							row.getKey().getRow(),
+							TypeUtils.deserializeLongArray(
+									row.getValue().get(),
+									null).getIds());
+				}
+				catch (IOException e) {
+					LOGGER.error("Error deserializing member array for way: ");
+				}
+			}
+		}
+		for (Map.Entry<Text, Long> id : ids.entrySet()) {
+			final List<Long> tvals = references.get(id.getKey());
+			if (tvals != null) {
+				vals.put(
+						id.getValue(),
+						tvals);
+			}
+		}
+		return vals;
+	}
+
+	private Map<Long, Coordinate> readNodes(
+			Collection<Long> nodeIds ) {
+		Map<Long, Coordinate> coords = new HashMap<>();
+		if (nodeIds.isEmpty()) {
+			return coords;
+		}
+
+		bs.setRanges(getSortedRanges(nodeIds));
 		bs.clearColumns();
 		// bs.fetchColumnFamily(new Text(Schema.CF.NODE));
 		bs.fetchColumn(
@@ -438,53 +568,45 @@ public class OsmProvider
 				new Text(
 						Schema.CQ.ID));
 
-		Map<Long, Coordinate> coords = new HashMap<>();
-
-		long id = -1;
-		Coordinate crd = new Coordinate(
-				-1,
-				-1);
-		ByteSequence lastkey = null;
-
+		// with several query threads the cells of a row may arrive in
+		// separate batches, so they are gathered per row before the node is
+		// built
+		final Map<Text, Long> ids = new HashMap<>();
+		final Map<Text, Double> longitudes = new HashMap<>();
+		final Map<Text, Double> latitudes = new HashMap<>();
 		for (Map.Entry<Key, Value> row : bs) {
-			if (lastkey == null) {
-				lastkey = row.getKey().getRowData();
-			}
-
 			if (Schema.arraysEqual(
 					row.getKey().getColumnQualifierData(),
 					Schema.CQ.LONGITUDE)) {
-				crd.x = doubleReader.readField(row.getValue().get());
+				longitudes.put(
+						row.getKey().getRow(),
+						doubleReader.readField(row.getValue().get()));
 			}
 			else if (Schema.arraysEqual(
 					row.getKey().getColumnQualifierData(),
 					Schema.CQ.LATITUDE)) {
-				crd.y = doubleReader.readField(row.getValue().get());
+				latitudes.put(
+						row.getKey().getRow(),
+						doubleReader.readField(row.getValue().get()));
 			}
 			else if (Schema.arraysEqual(
 					row.getKey().getColumnQualifierData(),
 					Schema.CQ.ID)) {
-				id = longReader.readField(row.getValue().get());
+				ids.put(
+						row.getKey().getRow(),
+						longReader.readField(row.getValue().get()));
 			}
-
-			if (id != -1 && crd.x != -1 && crd.y != -1) {
+		}
+		for (Map.Entry<Text, Long> id : ids.entrySet()) {
+			final Double longitude = longitudes.get(id.getKey());
+			final Double latitude = latitudes.get(id.getKey());
+			if ((longitude != null) && (latitude != null)) {
 				coords.put(
-						id,
-						crd);
-				id = -1;
-				crd = new Coordinate(
-						-1,
-						-1);
-				lastkey = null;
+						id.getValue(),
+						new Coordinate(
+								longitude,
+								latitude));
 			}
-			else if (!lastkey.equals(row.getKey().getRowData())) {
-				id = -1;
-				crd = new Coordinate(
-						-1,
-						-1);
-				lastkey = null;
-			}
-
 		}
 		return coords;
 	}
@@ -41,10 +41,17 @@ public class SimpleFeatureGenerator
 	public List<SimpleFeature> mapOSMtoSimpleFeature(
 			final Map<Key, Value> items,
 			final OsmProvider osmProvider ) {
+		return mapOSMtoSimpleFeature(
+				new OSMUnion(
+						items),
+				osmProvider);
+	}
+
+	public List<SimpleFeature> mapOSMtoSimpleFeature(
+			final OSMUnion osmunion,
+			final OsmProvider osmProvider ) {
 
 		final List<SimpleFeature> features = new ArrayList<>();
-		final OSMUnion osmunion = new OSMUnion(
-				items);
 
 		for (final FeatureDefinition fd : FeatureDefinitionSet.Features) {
 
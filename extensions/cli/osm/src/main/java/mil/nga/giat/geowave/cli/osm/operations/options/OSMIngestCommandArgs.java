@@ -45,6 +45,16 @@ public class OSMIngestCommandArgs
 	}, required = false, description = "OSM Table name in GeoWave")
 	private String osmTableName = "OSM";
 
+	@Parameter(names = {
+		"--conversionBatchSize"
+	}, required = false, description = "Number of ways/relations whose nodes are resolved together in one batch scan during conversion")
+	private int conversionBatchSize = 500;
+
+	@Parameter(names = {
+		"--nodeCacheSize"
+	}, required = false, description = "Maximum number of node coordinates cached locally by each conversion mapper")
+	private int nodeCacheSize = 500000;
+
 	private String hdfsBasePath;
 	private String nameNode;
 	private String osmNamespace;
@@ -118,6 +128,24 @@ public class OSMIngestCommandArgs
 		this.osmTableName = osmTableName;
 	}
 
+	public int getConversionBatchSize() {
+		return conversionBatchSize;
+	}
+
+	public void setConversionBatchSize(
+			int conversionBatchSize ) {
+		this.conversionBatchSize = conversionBatchSize;
+	}
+
+	public int getNodeCacheSize() {
+		return nodeCacheSize;
+	}
+
+	public void setNodeCacheSize(
+			int nodeCacheSize ) {
+		this.nodeCacheSize = nodeCacheSize;
+	}
+
 	public String getQualifiedTableName() {
 		return AccumuloUtils.getQualifiedTableName(
 				osmNamespace,
@@ -169,7 +197,11 @@ public class OSMIngestCommandArgs
 				separator).append(
 				jobName).append(
 				separator).append(
-				mapperType);
+				mapperType).append(
+				separator).append(
+				conversionBatchSize).append(
+				separator).append(
+				nodeCacheSize);
 		return sb.toString();
 	}
 
@@ -181,6 +213,10 @@ public class OSMIngestCommandArgs
 		hdfsBasePath = settings[2];
 		jobName = settings[3];
 		mapperType = settings[4];
+		if (settings.length > 6) {
+			conversionBatchSize = Integer.parseInt(settings[5]);
+			nodeCacheSize = Integer.parseInt(settings[6]);
+		}
 	}
 
 	// This the imposm3 "test_mapping.json" file
@@ -0,0 +1,49 @@
+package mil.nga.giat.geowave.cli.osm.mapreduce.Convert.OsmProvider;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BoundedCacheTest
+{
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		final BoundedCache<Long, String> cache = new BoundedCache<>(
+				2);
+		cache.put(
+				1L,
+				"a");
+		cache.put(
+				2L,
+				"b");
+		// reading 1 makes 2 the least recently used entry
+		Assert.assertEquals(
+				"a",
+				cache.get(1L));
+		cache.put(
+				3L,
+				"c");
+		Assert.assertEquals(
+				2,
+				cache.size());
+		Assert.assertTrue(cache.containsKey(1L));
+		Assert.assertFalse(cache.containsKey(2L));
+		Assert.assertTrue(cache.containsKey(3L));
+	}
+
+	@Test
+	public void testPutAllBeyondBound() {
+		final BoundedCache<Long, String> cache = new BoundedCache<>(
+				3);
+		for (long i = 0; i < 10; i++) {
+			cache.put(
+					i,
+					Long.toString(i));
+		}
+		Assert.assertEquals(
+				3,
+				cache.size());
+		for (long i = 7; i < 10; i++) {
+			Assert.assertTrue(cache.containsKey(i));
+		}
+	}
+}
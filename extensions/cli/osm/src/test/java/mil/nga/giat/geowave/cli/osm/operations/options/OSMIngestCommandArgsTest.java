@@ -0,0 +1,45 @@
+package mil.nga.giat.geowave.cli.osm.operations.options;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OSMIngestCommandArgsTest
+{
+	@Test
+	public void testBatchOptionsRoundTrip() {
+		final OSMIngestCommandArgs args = new OSMIngestCommandArgs();
+		args.setOsmNamespace("osm");
+		args.getVisibilityOptions().setVisibility(
+				"public");
+		args.setHdfsBasePath("/osm");
+		args.setJobName("job");
+		args.setMapperType("NODE");
+		args.setConversionBatchSize(42);
+		args.setNodeCacheSize(1000);
+
+		final OSMIngestCommandArgs copy = new OSMIngestCommandArgs();
+		copy.deserializeFromString(args.serializeToString());
+		Assert.assertEquals(
+				42,
+				copy.getConversionBatchSize());
+		Assert.assertEquals(
+				1000,
+				copy.getNodeCacheSize());
+		Assert.assertEquals(
+				"NODE",
+				copy.getMapperType());
+	}
+
+	@Test
+	public void testDefaultsKeptForOlderArguments() {
+		final OSMIngestCommandArgs copy = new OSMIngestCommandArgs();
+		// arguments serialized before the batch options existed
+		copy.deserializeFromString("osm|||public|||/osm|||job|||NODE");
+		Assert.assertEquals(
+				500,
+				copy.getConversionBatchSize());
+		Assert.assertEquals(
+				500000,
+				copy.getNodeCacheSize());
+	}
+}
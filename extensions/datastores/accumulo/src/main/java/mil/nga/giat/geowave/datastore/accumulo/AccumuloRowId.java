@@ -1,7 +1,6 @@
 package mil.nga.giat.geowave.datastore.accumulo;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 
 import org.apache.accumulo.core.data.Key;
 
@@ -33,19 +32,13 @@ public class AccumuloRowId
 
 	public AccumuloRowId(
 			final byte[] accumuloRowId ) {
-		final byte[] metadata = Arrays.copyOfRange(
-				accumuloRowId,
-				accumuloRowId.length - 12,
-				accumuloRowId.length);
-		final ByteBuffer metadataBuf = ByteBuffer.wrap(metadata);
-		final int adapterIdLength = metadataBuf.getInt();
-		final int dataIdLength = metadataBuf.getInt();
-		final int numberOfDuplicates = metadataBuf.getInt();
+		// read the metadata in place rather than copying it
+		final ByteBuffer buf = ByteBuffer.wrap(accumuloRowId);
+		final int metadataOffset = accumuloRowId.length - 12;
+		final int adapterIdLength = buf.getInt(metadataOffset);
+		final int dataIdLength = buf.getInt(metadataOffset + 4);
+		final int numberOfDuplicates = buf.getInt(metadataOffset + 8);
 
-		final ByteBuffer buf = ByteBuffer.wrap(
-				accumuloRowId,
-				0,
-				accumuloRowId.length - 12);
 		final byte[] insertionId = new byte[accumuloRowId.length - 12 - adapterIdLength - dataIdLength];
 		final byte[] adapterId = new byte[adapterIdLength];
 		final byte[] dataId = new byte[dataIdLength];
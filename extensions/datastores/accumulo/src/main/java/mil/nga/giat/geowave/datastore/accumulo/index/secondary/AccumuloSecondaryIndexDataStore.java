@@ -11,8 +11,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.IteratorSetting;
-import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
@@ -22,6 +22,10 @@ import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
+
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
@@ -185,47 +189,60 @@ public class AccumuloSecondaryIndexDataStore implements
 			final List<DistributableQueryFilter> constraints,
 			final ByteArrayId primaryIndexId,
 			final String... visibility ) {
-		final Scanner scanner = getScanner(
+		final BatchScanner scanner = getScanner(
 				secondaryIndex.getIndexStrategy().getId(),
+				ranges,
+				constraints,
+				primaryIndexId,
 				visibility);
 		if (scanner != null) {
-			final Collection<ByteArrayId> primaryIndexRowIds = new ArrayList<>();
-			scanner.addScanIterator(getScanIteratorSettings(
-					constraints,
-					primaryIndexId));
-			final Collection<Range> scanRanges = getScanRanges(ranges);
-			for (final Range range : scanRanges) {
-				scanner.setRange(range);
-				for (final Entry<Key, Value> entry : scanner) {
-					if (entry.getKey().getColumnQualifier().toString().equals(
-							primaryIndexId.getString())) {
-						// found query match: keep track of primaryIndexRowId
-						primaryIndexRowIds.add(new ByteArrayId(
-								entry.getValue().get()));
-					}
-				}
-			}
+			// the ranges are scanned in parallel and the matches are streamed
+			// to the caller rather than collected up front
+			final Text primaryIndexIdText = new Text(
+					primaryIndexId.getBytes());
 			return new CloseableIteratorWrapper<ByteArrayId>(
-					new Closeable() {
-						@Override
-						public void close()
-								throws IOException {
-							scanner.close();
-						}
-					},
-					primaryIndexRowIds.iterator());
+					new ScannerCloser(
+							scanner),
+					Iterators.transform(
+							Iterators.filter(
+									scanner.iterator(),
+									new Predicate<Entry<Key, Value>>() {
+										@Override
+										public boolean apply(
+												final Entry<Key, Value> entry ) {
+											return entry.getKey().compareColumnQualifier(
+													primaryIndexIdText) == 0;
+										}
+									}),
+							new Function<Entry<Key, Value>, ByteArrayId>() {
+								@Override
+								public ByteArrayId apply(
+										final Entry<Key, Value> entry ) {
+									// found query match: keep track of
+									// primaryIndexRowId
+									return new ByteArrayId(
+											entry.getValue().get());
+								}
+							}));
 		}
 		return new CloseableIterator.Empty<ByteArrayId>();
 	}
 
-	private Scanner getScanner(
+	private BatchScanner getScanner(
 			final String secondaryIndexId,
+			final List<ByteArrayRange> ranges,
+			final List<DistributableQueryFilter> constraints,
+			final ByteArrayId primaryIndexId,
 			final String... visibility ) {
-		Scanner scanner = null;
+		BatchScanner scanner = null;
 		try {
-			scanner = accumuloOperations.createScanner(
+			scanner = accumuloOperations.createBatchScanner(
 					TABLE_PREFIX + secondaryIndexId,
 					visibility);
+			scanner.setRanges(getScanRanges(ranges));
+			scanner.addScanIterator(getScanIteratorSettings(
+					constraints,
+					primaryIndexId));
 		}
 		catch (final TableNotFoundException e) {
 			LOGGER.error(
@@ -235,6 +252,23 @@ public class AccumuloSecondaryIndexDataStore implements
 		return scanner;
 	}
 
+	private static class ScannerCloser implements
+			Closeable
+	{
+		private final BatchScanner scanner;
+
+		public ScannerCloser(
+				final BatchScanner scanner ) {
+			this.scanner = scanner;
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			scanner.close();
+		}
+	}
+
 	private Collection<Range> getScanRanges(
 			final List<ByteArrayRange> ranges ) {
 		if (ranges == null || ranges.isEmpty()) {
@@ -18,6 +18,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.Mergeable;
+import mil.nga.giat.geowave.core.index.Persistable;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.store.ScanCallback;
@@ -30,6 +31,7 @@ import mil.nga.giat.geowave.core.store.filter.QueryFilter;
 import mil.nga.giat.geowave.core.store.index.IndexMetaDataSet;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
 import mil.nga.giat.geowave.core.store.memory.DataStoreUtils;
+import mil.nga.giat.geowave.core.store.query.AfterRowIdQuery;
 import mil.nga.giat.geowave.core.store.query.Query;
 import mil.nga.giat.geowave.core.store.query.aggregate.Aggregation;
 
@@ -46,6 +48,8 @@ public class AccumuloConstraintsQuery extends
 	protected boolean queryFiltersEnabled;
 	protected final IndexMetaDataSet indexMetaData;
 	protected final Pair<DataAdapter<?>, Aggregation<?, ?, ?>> aggregation;
+	protected boolean orderedScan = false;
+	protected ByteArrayId afterRowId = null;
 
 	public AccumuloConstraintsQuery(
 			final List<ByteArrayId> adapterIds,
@@ -68,6 +72,10 @@ public class AccumuloConstraintsQuery extends
 				fieldIdsAdapterPair,
 				indexMetaData,
 				authorizations);
+		if (query instanceof AfterRowIdQuery) {
+			orderedScan = true;
+			afterRowId = ((AfterRowIdQuery) query).getAfterRowId();
+		}
 	}
 
 	public AccumuloConstraintsQuery(
@@ -115,12 +123,27 @@ public class AccumuloConstraintsQuery extends
 		return ((aggregation != null) && (aggregation.getLeft() != null) && (aggregation.getRight() != null));
 	}
 
+	@Override
+	protected boolean isOrderedScan() {
+		return orderedScan;
+	}
+
+	@Override
+	protected ByteArrayId getAfterRowId() {
+		return afterRowId;
+	}
+
 	@Override
 	protected void addScanIteratorSettings(
 			final ScannerBase scanner ) {
 		addFieldSubsettingToIterator(scanner);
+		addIndexCellFilterToIterator(scanner);
 
-		if ((distributableFilters != null) && !distributableFilters.isEmpty() && queryFiltersEnabled) {
+		final boolean hasFilters = (distributableFilters != null) && !distributableFilters.isEmpty()
+				&& queryFiltersEnabled;
+		// an aggregation is always computed within the tablet servers, even
+		// when there is nothing to filter
+		if (hasFilters || isAggregation()) {
 
 			final IteratorSetting iteratorSettings;
 			if (isAggregation()) {
@@ -135,6 +158,12 @@ public class AccumuloConstraintsQuery extends
 				iteratorSettings.addOption(
 						AggregationIterator.AGGREGATION_OPTION_NAME,
 						aggr.getClass().getName());
+				final Persistable aggregationParams = aggr.getParameters();
+				if (aggregationParams != null) {
+					iteratorSettings.addOption(
+							AggregationIterator.PARAMETER_OPTION_NAME,
+							ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(aggregationParams)));
+				}
 				iteratorSettings.addOption(
 						AggregationIterator.CONSTRAINTS_OPTION_NAME,
 						ByteArrayUtils.byteArrayToString((PersistenceUtils.toBinary((List) constraints))));
@@ -151,7 +180,7 @@ public class AccumuloConstraintsQuery extends
 						QueryFilterIterator.class);
 			}
 			final DistributableQueryFilter filterList = new DistributableFilterList(
-					distributableFilters);
+					hasFilters ? distributableFilters : new ArrayList<DistributableQueryFilter>());
 			iteratorSettings.addOption(
 					QueryFilterIterator.FILTER,
 					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(filterList)));
@@ -173,6 +202,26 @@ public class AccumuloConstraintsQuery extends
 
 	}
 
+	protected void addIndexCellFilterToIterator(
+			final ScannerBase scanner ) {
+		if ((constraints == null) || constraints.isEmpty() || !queryFiltersEnabled) {
+			return;
+		}
+		// reject rows of decomposed ranges that fall outside of the
+		// constraints using only the row ID, before any fields are decoded
+		final IteratorSetting iteratorSettings = new IteratorSetting(
+				IndexCellFilterIterator.INDEX_CELL_FILTER_ITERATOR_PRIORITY,
+				IndexCellFilterIterator.INDEX_CELL_FILTER_ITERATOR_NAME,
+				IndexCellFilterIterator.class);
+		iteratorSettings.addOption(
+				IndexCellFilterIterator.INDEX_STRATEGY,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexStrategy())));
+		iteratorSettings.addOption(
+				IndexCellFilterIterator.CONSTRAINTS,
+				ByteArrayUtils.byteArrayToString((PersistenceUtils.toBinary((List) constraints))));
+		scanner.addScanIterator(iteratorSettings);
+	}
+
 	@Override
 	protected List<ByteArrayRange> getRanges() {
 		if (isAggregation()) {
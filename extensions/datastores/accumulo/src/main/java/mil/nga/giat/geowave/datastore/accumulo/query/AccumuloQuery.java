@@ -62,6 +62,24 @@ abstract public class AccumuloQuery
 		return false;
 	}
 
+	/**
+	 * 
+	 * @return whether the rows must be returned in order, such as for a page of
+	 *         results that is resumed from the row ID of its last row
+	 */
+	protected boolean isOrderedScan() {
+		return false;
+	}
+
+	/**
+	 * 
+	 * @return the row ID after which the rows of an ordered scan are returned,
+	 *         or null to return them from the beginning of the ranges
+	 */
+	protected ByteArrayId getAfterRowId() {
+		return null;
+	}
+
 	protected ScannerBase getScanner(
 			final AccumuloOperations accumuloOperations,
 			final double[] maxResolutionSubsamplingPerDimension,
@@ -70,7 +88,18 @@ abstract public class AccumuloQuery
 		final String tableName = StringUtils.stringFromBinary(index.getId().getBytes());
 		ScannerBase scanner;
 		try {
-			if (!isAggregation() && (ranges != null) && (ranges.size() == 1)) {
+			if (isOrderedScan()) {
+				// unlike a batch scanner, a single scanner returns the rows in
+				// order, any rows between the ranges are rejected by the index
+				// cell filter
+				scanner = accumuloOperations.createScanner(
+						tableName,
+						getAdditionalAuthorizations());
+				((Scanner) scanner).setRange(AccumuloUtils.byteArrayRangesToAccumuloRangeAfterRowId(
+						ranges,
+						getAfterRowId()));
+			}
+			else if (!isAggregation() && (ranges != null) && (ranges.size() == 1)) {
 				scanner = accumuloOperations.createScanner(
 						tableName,
 						getAdditionalAuthorizations());
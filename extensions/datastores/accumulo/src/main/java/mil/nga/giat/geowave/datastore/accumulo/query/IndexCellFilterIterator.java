@@ -0,0 +1,89 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.store.filter.IndexCellFilter;
+
+/**
+ * This iterator rejects the keys of rows whose space filling curve cell lies
+ * entirely outside of the query constraints, looking only at the row ID. It
+ * runs beneath the whole row iterator of the query so that false positives of
+ * the range decomposition are discarded before their rows are buffered and
+ * their fields decoded. The index strategy and the constraints are passed as
+ * serialized options. If either is missing this iterator accepts everything.
+ */
+public class IndexCellFilterIterator extends
+		Filter
+{
+	private final static Logger LOGGER = Logger.getLogger(IndexCellFilterIterator.class);
+	public static final String INDEX_CELL_FILTER_ITERATOR_NAME = "GEOWAVE_INDEX_CELL_FILTER";
+	public static final int INDEX_CELL_FILTER_ITERATOR_PRIORITY = QueryFilterIterator.WHOLE_ROW_ITERATOR_PRIORITY - 2;
+	public static final String INDEX_STRATEGY = "indexstrategy";
+	public static final String CONSTRAINTS = "constraints";
+	private IndexCellFilter cellFilter;
+
+	@Override
+	public boolean accept(
+			final Key k,
+			final Value v ) {
+		if (cellFilter == null) {
+			return true;
+		}
+		final ByteSequence row = k.getRowData();
+		return cellFilter.acceptRow(
+				row.getBackingArray(),
+				row.offset(),
+				row.length());
+	}
+
+	@Override
+	public SortedKeyValueIterator<Key, Value> deepCopy(
+			final IteratorEnvironment env ) {
+		final IndexCellFilterIterator iterator = (IndexCellFilterIterator) super.deepCopy(env);
+		if (cellFilter != null) {
+			iterator.cellFilter = cellFilter.copy();
+		}
+		return iterator;
+	}
+
+	@Override
+	public void init(
+			final SortedKeyValueIterator<Key, Value> source,
+			final Map<String, String> options,
+			final IteratorEnvironment env )
+			throws IOException {
+		super.init(
+				source,
+				options,
+				env);
+		final String indexStrategyStr = options.get(INDEX_STRATEGY);
+		final String constraintsStr = options.get(CONSTRAINTS);
+		if ((indexStrategyStr == null) || (constraintsStr == null)) {
+			LOGGER.warn("Index strategy or constraints not set for " + IndexCellFilterIterator.class.getName()
+					+ ", accepting all rows");
+			return;
+		}
+		final NumericIndexStrategy indexStrategy = PersistenceUtils.fromBinary(
+				ByteArrayUtils.byteArrayFromString(indexStrategyStr),
+				NumericIndexStrategy.class);
+		final List<MultiDimensionalNumericData> constraints = (List) PersistenceUtils.fromBinary(ByteArrayUtils
+				.byteArrayFromString(constraintsStr));
+		cellFilter = new IndexCellFilter(
+				indexStrategy,
+				constraints);
+	}
+}
@@ -20,8 +20,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
 import mil.nga.giat.geowave.core.store.data.CommonIndexedPersistenceEncoding;
-import mil.nga.giat.geowave.core.store.data.PersistentDataset;
-import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.LazyReadPersistentDataset;
 import mil.nga.giat.geowave.core.store.data.field.FieldReader;
 import mil.nga.giat.geowave.core.store.dimension.NumericDimensionField;
 import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
@@ -53,6 +52,7 @@ public class QueryFilterIterator extends
 	private DistributableQueryFilter filter;
 	private CommonIndexModel model;
 	private final List<ByteArrayId> commonIndexFieldIds = new ArrayList<>();
+	private final List<FieldReader<? extends CommonIndexValue>> commonIndexFieldReaders = new ArrayList<>();
 
 	static {
 		initialize();
@@ -110,29 +110,33 @@ public class QueryFilterIterator extends
 		if ((filter != null) && (model != null)) {
 			final AccumuloRowId rowId = new AccumuloRowId(
 					currentRow.getBytes());
-			final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+			// common index fields are only decoded once the filter asks for
+			// them, so rows rejected on a subset of the fields (or none of
+			// them, as with de-duplication) skip the cost of the rest
+			final LazyReadPersistentDataset<CommonIndexValue> commonData = new LazyReadPersistentDataset<CommonIndexValue>();
 			final List<AccumuloFieldInfo> unknownData = new ArrayList<AccumuloFieldInfo>();
 			for (int i = 0; (i < keys.size()) && (i < values.size()); i++) {
 				final Key key = keys.get(i);
-				final ByteArrayId colQual = new ByteArrayId(
-						key.getColumnQualifierData().getBackingArray());
 				final byte[] valueBytes = values.get(
 						i).get();
+				// the backing arrays of the key's byte sequences may be larger
+				// than the sequences themselves, so they are copied
+				final byte[] visibility = key.getColumnVisibilityData().toArray();
 				final List<AccumuloFieldInfo> fieldInfos = AccumuloUtils.decomposeFlattenedFields(
-						colQual.getBytes(),
+						key.getColumnQualifierData().toArray(),
 						valueBytes,
-						key.getColumnVisibilityData().getBackingArray());
+						visibility);
 				for (final AccumuloFieldInfo fieldInfo : fieldInfos) {
 					final int ordinal = fieldInfo.getFieldPosition();
-					if (ordinal < model.getDimensions().length) {
+					if (ordinal < commonIndexFieldIds.size()) {
 						final ByteArrayId commonIndexFieldId = commonIndexFieldIds.get(ordinal);
-						final FieldReader<? extends CommonIndexValue> reader = model.getReader(commonIndexFieldId);
+						final FieldReader<? extends CommonIndexValue> reader = commonIndexFieldReaders.get(ordinal);
 						if (reader != null) {
-							final CommonIndexValue fieldValue = reader.readField(fieldInfo.getValue());
-							fieldValue.setVisibility(key.getColumnVisibility().getBytes());
-							commonData.addValue(new PersistentValue<CommonIndexValue>(
+							commonData.addValue(
 									commonIndexFieldId,
-									fieldValue));
+									reader,
+									fieldInfo.getValue(),
+									visibility);
 						}
 						else {
 							LOGGER.error("Could not find reader for common index field: "
@@ -204,6 +208,7 @@ public class QueryFilterIterator extends
 					CommonIndexModel.class);
 			for (final NumericDimensionField<? extends CommonIndexValue> numericDimension : model.getDimensions()) {
 				commonIndexFieldIds.add(numericDimension.getFieldId());
+				commonIndexFieldReaders.add(model.getReader(numericDimension.getFieldId()));
 			}
 		}
 		catch (final Exception e) {
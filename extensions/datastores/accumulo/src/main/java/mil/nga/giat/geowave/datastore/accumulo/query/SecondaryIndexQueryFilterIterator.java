@@ -58,7 +58,9 @@ public class SecondaryIndexQueryFilterIterator extends
 			while (rowIterator.hasTop()) {
 				final Key key = rowIterator.getTopKey();
 				final Value value = rowIterator.getTopValue();
-				final String cq = StringUtils.stringFromBinary(key.getColumnQualifierData().getBackingArray());
+				// the backing array of the key can extend past the qualifier
+				final byte[] cqBytes = key.getColumnQualifierData().toArray();
+				final String cq = StringUtils.stringFromBinary(cqBytes);
 				if (!cq.equals(primaryIndexId)) {
 					final IndexedPersistenceEncoding<ByteArrayId> persistenceEncoding = new IndexedPersistenceEncoding<ByteArrayId>(
 							null, // not needed
@@ -68,7 +70,7 @@ public class SecondaryIndexQueryFilterIterator extends
 							new PersistentDataset<ByteArrayId>(
 									new PersistentValue<ByteArrayId>(
 											new ByteArrayId(
-													key.getColumnQualifierData().getBackingArray()),
+													cqBytes),
 											new ByteArrayId(
 													value.get()))),
 							null);
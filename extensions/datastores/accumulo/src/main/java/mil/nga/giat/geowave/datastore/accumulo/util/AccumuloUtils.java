@@ -26,6 +26,7 @@ import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
@@ -135,6 +136,56 @@ public class AccumuloUtils
 		return accumuloRanges;
 	}
 
+	/**
+	 * 
+	 * @param byteArrayRanges
+	 *            the ranges to scan, an empty list or null implying a full
+	 *            table scan
+	 * @param afterRowId
+	 *            the row ID after which rows are scanned, or null to scan from
+	 *            the beginning of the first range
+	 * @return a single range spanning every row of the ranges that follows the
+	 *         row ID, which is empty if there is no such row. The rows between
+	 *         the ranges are read as well, so for ranges spread across the
+	 *         tiers or bins of an index this may span most of the table.
+	 */
+	public static Range byteArrayRangesToAccumuloRangeAfterRowId(
+			final List<ByteArrayRange> byteArrayRanges,
+			final ByteArrayId afterRowId ) {
+		final List<Range> ranges = Range.mergeOverlapping(byteArrayRangesToAccumuloRanges(byteArrayRanges));
+		final Range span = new Range(
+				ranges.get(
+						0).getStartKey(),
+				ranges.get(
+						0).isStartKeyInclusive(),
+				ranges.get(
+						ranges.size() - 1).getEndKey(),
+				ranges.get(
+						ranges.size() - 1).isEndKeyInclusive());
+		if (afterRowId == null) {
+			return span;
+		}
+		final Range clipped = new Range(
+				new Text(
+						afterRowId.getBytes()),
+				false,
+				null,
+				true).clip(
+				span,
+				true);
+		if (clipped == null) {
+			final Key key = new Key(
+					new Text(
+							afterRowId.getBytes())).followingKey(PartialKey.ROW);
+			return new Range(
+					key,
+					true,
+					key,
+					false);
+		}
+		return clipped;
+	}
+
 	public static String getQualifiedTableName(
 			final String tableNamespace,
 			final String unqualifiedTableName ) {
@@ -0,0 +1,154 @@
+package mil.nga.giat.geowave.datastore.accumulo.index.secondary;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Before;
+import org.junit.Test;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.lexicoder.Lexicoders;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
+import mil.nga.giat.geowave.core.store.index.numeric.NumberRangeFilter;
+import mil.nga.giat.geowave.core.store.index.numeric.NumericIndexStrategy;
+import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
+
+public class AccumuloSecondaryIndexDataStoreTest
+{
+	private static final ByteArrayId POP = new ByteArrayId(
+			"pop");
+	private static final ByteArrayId PRIMARY_INDEX_ID = new ByteArrayId(
+			"SPATIAL_IDX");
+	private final MockInstance mockInstance = new MockInstance();
+	private final SecondaryIndex<Object> popIndex = new SecondaryIndex<Object>(
+			new NumericIndexStrategy(),
+			new ByteArrayId[] {
+				POP
+			});
+	private AccumuloSecondaryIndexDataStore secondaryIndexDataStore;
+
+	@Before
+	public void setUp()
+			throws AccumuloException,
+			AccumuloSecurityException {
+		final Connector mockConnector = mockInstance.getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+		secondaryIndexDataStore = new AccumuloSecondaryIndexDataStore(
+				new BasicAccumuloOperations(
+						mockConnector));
+		for (int i = 0; i < 10; i++) {
+			store(
+					"row" + i,
+					i);
+		}
+		secondaryIndexDataStore.flush();
+	}
+
+	private void store(
+			final String primaryRowId,
+			final double pop ) {
+		final List<FieldInfo<?>> attributes = new ArrayList<FieldInfo<?>>();
+		attributes.add(new FieldInfo<Number>(
+				new PersistentValue<Number>(
+						POP,
+						pop),
+				Lexicoders.DOUBLE.toByteArray(pop),
+				new byte[0]));
+		secondaryIndexDataStore.store(
+				popIndex,
+				PRIMARY_INDEX_ID,
+				new ByteArrayId(
+						primaryRowId),
+				attributes);
+	}
+
+	private static List<DistributableQueryFilter> popBetween(
+			final double lower,
+			final double upper ) {
+		return Collections.<DistributableQueryFilter> singletonList(new NumberRangeFilter(
+				POP,
+				lower,
+				upper,
+				true,
+				true));
+	}
+
+	@Test
+	public void testQueryStreamsPrimaryRowIds()
+			throws IOException {
+		final Set<ByteArrayId> rowIds = new HashSet<ByteArrayId>();
+		try (CloseableIterator<ByteArrayId> it = secondaryIndexDataStore.query(
+				popIndex,
+				null,
+				popBetween(
+						2,
+						4),
+				PRIMARY_INDEX_ID)) {
+			while (it.hasNext()) {
+				rowIds.add(it.next());
+			}
+		}
+		assertEquals(
+				3,
+				rowIds.size());
+		for (int i = 2; i <= 4; i++) {
+			assertEquals(
+					true,
+					rowIds.contains(new ByteArrayId(
+							"row" + i)));
+		}
+	}
+
+	@Test
+	public void testQueryRowsSharingAValue()
+			throws IOException {
+		// rows with the same value share a secondary index row
+		store(
+				"row7b",
+				7);
+		store(
+				"row7c",
+				7);
+		secondaryIndexDataStore.flush();
+		final Set<ByteArrayId> rowIds = new HashSet<ByteArrayId>();
+		try (CloseableIterator<ByteArrayId> it = secondaryIndexDataStore.query(
+				popIndex,
+				null,
+				popBetween(
+						6,
+						8),
+				PRIMARY_INDEX_ID)) {
+			while (it.hasNext()) {
+				rowIds.add(it.next());
+			}
+		}
+		assertEquals(
+				5,
+				rowIds.size());
+		assertEquals(
+				true,
+				rowIds.contains(new ByteArrayId(
+						"row7b")));
+		assertEquals(
+				true,
+				rowIds.contains(new ByteArrayId(
+						"row7c")));
+	}
+}
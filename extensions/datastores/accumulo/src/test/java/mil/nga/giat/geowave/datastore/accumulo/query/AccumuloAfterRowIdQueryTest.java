@@ -0,0 +1,233 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.ScanCallback;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.IndexMetaDataSet;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.query.AfterRowIdQuery;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRangeQueryTest.TestGeometry;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRangeQueryTest.TestGeometryAdapter;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+public class AccumuloAfterRowIdQueryTest
+{
+	private static final int PAGE_SIZE = 7;
+	private BasicAccumuloOperations accumuloOperations;
+	private DataStore mockDataStore;
+	private PrimaryIndex index;
+	private WritableDataAdapter<TestGeometry> adapter;
+
+	@Before
+	public void ingestGeometries()
+			throws AccumuloException,
+			AccumuloSecurityException,
+			IOException {
+		final MockInstance mockInstance = new MockInstance();
+		final Connector mockConnector = mockInstance.getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+		accumuloOperations = new BasicAccumuloOperations(
+				mockConnector);
+		mockDataStore = new AccumuloDataStore(
+				accumuloOperations);
+
+		index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+		adapter = new TestGeometryAdapter();
+
+		try (IndexWriter writer = mockDataStore.createWriter(
+				adapter,
+				index)) {
+			for (int i = 0; i < 60; i++) {
+				// boxes of varying sizes, some of which are stored in several
+				// rows
+				final double size = 0.1 + ((i % 6) * 1.7);
+				writer.write(new TestGeometry(
+						GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+								(i * 2.9) - 80,
+								((i * 2.9) - 80) + size,
+								(i * 1.3) - 40,
+								((i * 1.3) - 40) + size)),
+						"box" + i));
+			}
+		}
+	}
+
+	@Test
+	public void testPageEverything() {
+		assertPagesMatch(null);
+	}
+
+	@Test
+	public void testPageSpatialQuery() {
+		assertPagesMatch(new SpatialQuery(
+				GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+						-50,
+						50,
+						-30,
+						30))));
+	}
+
+	@Test
+	public void testFirstPageScannedInOrder() {
+		final AccumuloConstraintsQuery accumuloQuery = new AccumuloConstraintsQuery(
+				Collections.singletonList(adapter.getAdapterId()),
+				index,
+				new AfterRowIdQuery(
+						new SpatialQuery(
+								GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+										-50,
+										50,
+										-30,
+										30))),
+						index,
+						null),
+				null,
+				null,
+				null,
+				null,
+				(IndexMetaDataSet) new AccumuloDataStatisticsStore(
+						accumuloOperations).getDataStatistics(
+						adapter.getAdapterId(),
+						IndexMetaDataSet.composeId(index.getId())),
+				new String[0]);
+		Assert.assertTrue(accumuloQuery.getRanges().size() > 1);
+		final ScannerBase scanner = accumuloQuery.getScanner(
+				accumuloOperations,
+				null,
+				null);
+		// a batch scanner would return the rows of the ranges in any order
+		Assert.assertTrue(scanner instanceof Scanner);
+		scanner.close();
+	}
+
+	@Test
+	public void testAfterLastRow() {
+		final List<String> paged = new ArrayList<String>();
+		Assert.assertNull(queryPage(
+				new SpatialQuery(
+						GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+								-50,
+								50,
+								-30,
+								30))),
+				new ByteArrayId(
+						new byte[] {
+							(byte) 0xff,
+							(byte) 0xff
+						}),
+				paged));
+		Assert.assertTrue(paged.isEmpty());
+	}
+
+	private void assertPagesMatch(
+			final Query query ) {
+		final Set<String> expected = new HashSet<String>();
+		try (CloseableIterator<TestGeometry> it = mockDataStore.query(
+				new QueryOptions(
+						adapter,
+						index),
+				query)) {
+			while (it.hasNext()) {
+				expected.add(it.next().id);
+			}
+		}
+		catch (final IOException e) {
+			throw new RuntimeException(
+					e);
+		}
+		Assert.assertTrue(expected.size() > PAGE_SIZE);
+
+		final List<String> paged = new ArrayList<String>();
+		ByteArrayId afterRowId = null;
+		do {
+			afterRowId = queryPage(
+					query,
+					afterRowId,
+					paged);
+		}
+		while (afterRowId != null);
+
+		Assert.assertEquals(
+				paged.size(),
+				new HashSet<String>(
+						paged).size());
+		Assert.assertEquals(
+				expected,
+				new HashSet<String>(
+						paged));
+	}
+
+	private ByteArrayId queryPage(
+			final Query query,
+			final ByteArrayId afterRowId,
+			final List<String> paged ) {
+		final ByteArrayId[] scannedRowId = new ByteArrayId[1];
+		final QueryOptions options = new QueryOptions(
+				adapter,
+				index);
+		options.setScanCallback(new ScanCallback<TestGeometry>() {
+			@Override
+			public void entryScanned(
+					final DataStoreEntryInfo entryInfo,
+					final TestGeometry entry ) {
+				scannedRowId[0] = entryInfo.getRowIds().get(
+						0);
+			}
+		});
+		ByteArrayId lastRowId = null;
+		int count = 0;
+		try (CloseableIterator<TestGeometry> it = mockDataStore.query(
+				options,
+				new AfterRowIdQuery(
+						query,
+						index,
+						afterRowId))) {
+			while (it.hasNext()) {
+				if (count == PAGE_SIZE) {
+					return lastRowId;
+				}
+				paged.add(it.next().id);
+				lastRowId = scannedRowId[0];
+				count++;
+			}
+		}
+		catch (final IOException e) {
+			throw new RuntimeException(
+					e);
+		}
+		return null;
+	}
+}
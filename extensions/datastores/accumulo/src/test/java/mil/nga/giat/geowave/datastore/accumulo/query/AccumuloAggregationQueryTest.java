@@ -0,0 +1,203 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.io.IOException;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
+import mil.nga.giat.geowave.core.index.Persistable;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.aggregate.Aggregation;
+import mil.nga.giat.geowave.core.store.query.aggregate.CountAggregation;
+import mil.nga.giat.geowave.core.store.query.aggregate.CountResult;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRangeQueryTest.TestGeometry;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRangeQueryTest.TestGeometryAdapter;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+
+public class AccumuloAggregationQueryTest
+{
+	private static final int ENTRY_COUNT = 20;
+	private DataStore mockDataStore;
+	private PrimaryIndex index;
+	private WritableDataAdapter<TestGeometry> adapter;
+
+	@Before
+	public void ingestGeometries()
+			throws AccumuloException,
+			AccumuloSecurityException,
+			IOException {
+		final MockInstance mockInstance = new MockInstance();
+		final Connector mockConnector = mockInstance.getConnector(
+				"root",
+				new PasswordToken(
+						new byte[0]));
+		mockDataStore = new AccumuloDataStore(
+				new BasicAccumuloOperations(
+						mockConnector));
+
+		index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+		adapter = new TestGeometryAdapter();
+
+		try (IndexWriter writer = mockDataStore.createWriter(
+				adapter,
+				index)) {
+			for (int i = 0; i < ENTRY_COUNT; i++) {
+				// points are stored in a single row each, so each is counted
+				// once
+				writer.write(new TestGeometry(
+						GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+								(i * 5) - 50,
+								(i * 2) - 20)),
+						((i % 2) == 0 ? "even" : "odd") + i));
+			}
+		}
+	}
+
+	@Test
+	public void testAggregationWithoutFilters() {
+		// with nothing to filter the aggregation must still be computed on the
+		// tablet servers rather than returning the rows themselves
+		Assert.assertEquals(
+				ENTRY_COUNT,
+				aggregate(
+						new CountAggregation<TestGeometry>(),
+						null));
+	}
+
+	@Test
+	public void testAggregationWithFilters() {
+		// the points with x from -50 to 0 and y from -20 to 0
+		Assert.assertEquals(
+				11,
+				aggregate(
+						new CountAggregation<TestGeometry>(),
+						new SpatialQuery(
+								GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+										-51,
+										0.5,
+										-21,
+										0.5)))));
+	}
+
+	@Test
+	public void testAggregationParameters() {
+		Assert.assertEquals(
+				ENTRY_COUNT / 2,
+				aggregate(
+						new PrefixCountAggregation(
+								"odd"),
+						null));
+	}
+
+	private long aggregate(
+			final Aggregation<?, ?, TestGeometry> aggregation,
+			final Query query ) {
+		final QueryOptions options = new QueryOptions(
+				adapter,
+				index);
+		options.setAggregation(
+				aggregation,
+				adapter);
+		try (CloseableIterator<Object> it = mockDataStore.query(
+				options,
+				query)) {
+			Assert.assertTrue(it.hasNext());
+			final Object result = it.next();
+			Assert.assertTrue(result instanceof CountResult);
+			Assert.assertFalse(it.hasNext());
+			return ((CountResult) result).getCount();
+		}
+		catch (final IOException e) {
+			throw new RuntimeException(
+					e);
+		}
+	}
+
+	public static class PrefixCountAggregation implements
+			Aggregation<Prefix, CountResult, TestGeometry>
+	{
+		private Prefix prefix;
+		private final CountAggregation<TestGeometry> count = new CountAggregation<TestGeometry>();
+
+		public PrefixCountAggregation() {}
+
+		public PrefixCountAggregation(
+				final String prefix ) {
+			this.prefix = new Prefix(
+					prefix);
+		}
+
+		@Override
+		public Prefix getParameters() {
+			return prefix;
+		}
+
+		@Override
+		public void setParameters(
+				final Prefix parameters ) {
+			prefix = parameters;
+		}
+
+		@Override
+		public CountResult getResult() {
+			return count.getResult();
+		}
+
+		@Override
+		public void clearResult() {
+			count.clearResult();
+		}
+
+		@Override
+		public void aggregate(
+				final TestGeometry entry ) {
+			if (entry.id.startsWith(prefix.prefix)) {
+				count.aggregate(entry);
+			}
+		}
+	}
+
+	public static class Prefix implements
+			Persistable
+	{
+		private String prefix;
+
+		public Prefix() {}
+
+		public Prefix(
+				final String prefix ) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public byte[] toBinary() {
+			return StringUtils.stringToBinary(prefix);
+		}
+
+		@Override
+		public void fromBinary(
+				final byte[] bytes ) {
+			prefix = StringUtils.stringFromBinary(bytes);
+		}
+	}
+}
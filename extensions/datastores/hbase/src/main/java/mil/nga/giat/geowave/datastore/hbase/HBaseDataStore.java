@@ -522,6 +522,7 @@ public class HBaseDataStore implements
 							// TODO support field subsetting
 							// queryOptions.getFieldIds(),
 							sanitizedQueryOptions.getAuthorizations());
+					hbaseQuery.setQueryFiltersEnabled(options.isEnableCustomFilters());
 
 					results.add(hbaseQuery.query(
 							operations,
@@ -696,7 +697,7 @@ public class HBaseDataStore implements
 
 					}
 					else {
-						dataIt = new HBaseConstraintsQuery(
+						final HBaseConstraintsQuery hbaseQuery = new HBaseConstraintsQuery(
 								Collections.singletonList(adapter.getAdapterId()),
 								index,
 								query,
@@ -705,7 +706,9 @@ public class HBaseDataStore implements
 								null,
 								// TODO support field subsetting
 								// queryOptions.getFieldIds(),
-								queryOptions.getAuthorizations()).query(
+								queryOptions.getAuthorizations());
+						hbaseQuery.setQueryFiltersEnabled(options.isEnableCustomFilters());
+						dataIt = hbaseQuery.query(
 								operations,
 								adapterStore,
 								null);
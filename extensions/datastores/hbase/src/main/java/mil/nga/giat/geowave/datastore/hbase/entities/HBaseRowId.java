@@ -1,7 +1,6 @@
 package mil.nga.giat.geowave.datastore.hbase.entities;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 
 public class HBaseRowId
 {
@@ -13,19 +12,13 @@ public class HBaseRowId
 
 	public HBaseRowId(
 			final byte[] hbaseRowId ) {
-		final byte[] metadata = Arrays.copyOfRange(
-				hbaseRowId,
-				hbaseRowId.length - 12,
-				hbaseRowId.length);
-		final ByteBuffer metadataBuf = ByteBuffer.wrap(metadata);
-		final int adapterIdLength = metadataBuf.getInt();
-		final int dataIdLength = metadataBuf.getInt();
-		final int numberOfDuplicates = metadataBuf.getInt();
+		// read the metadata in place rather than copying it
+		final ByteBuffer buf = ByteBuffer.wrap(hbaseRowId);
+		final int metadataOffset = hbaseRowId.length - 12;
+		final int adapterIdLength = buf.getInt(metadataOffset);
+		final int dataIdLength = buf.getInt(metadataOffset + 4);
+		final int numberOfDuplicates = buf.getInt(metadataOffset + 8);
 
-		final ByteBuffer buf = ByteBuffer.wrap(
-				hbaseRowId,
-				0,
-				hbaseRowId.length - 12);
 		final byte[] insertionId = new byte[hbaseRowId.length - 12 - adapterIdLength - dataIdLength];
 		final byte[] adapterId = new byte[adapterIdLength];
 		final byte[] dataId = new byte[dataIdLength];
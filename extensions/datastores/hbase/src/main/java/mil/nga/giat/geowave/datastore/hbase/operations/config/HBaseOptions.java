@@ -25,6 +25,14 @@ public class HBaseOptions
 	@Parameter(names = "--enableBlockCache", hidden = true, arity = 1)
 	protected boolean enableBlockCache = true;
 
+	/**
+	 * Custom filters run on the region servers, so the GeoWave HBase jar must
+	 * be installed on the classpath of every region server before they are
+	 * enabled
+	 */
+	@Parameter(names = "--enableCustomFilters", hidden = true, arity = 1)
+	protected boolean enableCustomFilters = false;
+
 	public boolean isPersistDataStatistics() {
 		return persistDataStatistics;
 	}
@@ -87,4 +95,13 @@ public class HBaseOptions
 			boolean enableBlockCache ) {
 		this.enableBlockCache = enableBlockCache;
 	}
+
+	public boolean isEnableCustomFilters() {
+		return enableCustomFilters;
+	}
+
+	public void setEnableCustomFilters(
+			final boolean enableCustomFilters ) {
+		this.enableCustomFilters = enableCustomFilters;
+	}
 }
@@ -24,6 +24,7 @@ import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.core.store.filter.QueryFilter;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
 import mil.nga.giat.geowave.core.store.memory.DataStoreUtils;
+import mil.nga.giat.geowave.core.store.query.AfterRowIdQuery;
 import mil.nga.giat.geowave.core.store.query.Query;
 import mil.nga.giat.geowave.core.store.query.aggregate.Aggregation;
 import mil.nga.giat.geowave.datastore.hbase.operations.BasicHBaseOperations;
@@ -40,6 +41,8 @@ public class HBaseConstraintsQuery extends
 
 	// TODO How to use?
 	protected final Pair<DataAdapter<?>, Aggregation<?, ?, ?>> aggregation;
+	protected boolean orderedScan = false;
+	protected ByteArrayId afterRowId = null;
 
 	public HBaseConstraintsQuery(
 			final List<ByteArrayId> adapterIds,
@@ -58,6 +61,10 @@ public class HBaseConstraintsQuery extends
 				scanCallback,
 				aggregation,
 				authorizations);
+		if (query instanceof AfterRowIdQuery) {
+			orderedScan = true;
+			afterRowId = ((AfterRowIdQuery) query).getAfterRowId();
+		}
 	}
 
 	public HBaseConstraintsQuery(
@@ -149,6 +156,16 @@ public class HBaseConstraintsQuery extends
 		}
 	}
 
+	@Override
+	protected boolean isOrderedScan() {
+		return orderedScan;
+	}
+
+	@Override
+	protected ByteArrayId getAfterRowId() {
+		return afterRowId;
+	}
+
 	protected boolean isAggregation() {
 		return ((aggregation != null) && (aggregation.getLeft() != null) && (aggregation.getRight() != null));
 
@@ -210,7 +227,24 @@ public class HBaseConstraintsQuery extends
 
 	@Override
 	protected List<Filter> getDistributableFilter() {
-		return new ArrayList<Filter>();
+		final List<Filter> filters = new ArrayList<Filter>();
+		if ((constraints != null) && !constraints.isEmpty() && queryFiltersEnabled) {
+			// reject rows of decomposed ranges that fall outside of the
+			// constraints using only the row key
+			filters.add(new HBaseIndexCellFilter(
+					index.getIndexStrategy(),
+					constraints));
+		}
+		return filters;
+	}
+
+	public boolean isQueryFiltersEnabled() {
+		return queryFiltersEnabled;
+	}
+
+	public void setQueryFiltersEnabled(
+			final boolean queryFiltersEnabled ) {
+		this.queryFiltersEnabled = queryFiltersEnabled;
 	}
 
 	@Override
@@ -2,6 +2,7 @@ package mil.nga.giat.geowave.datastore.hbase.query;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -14,6 +15,7 @@ import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 
 import com.google.common.collect.Iterators;
@@ -168,6 +170,24 @@ public abstract class HBaseFilteredIndexQuery extends
 
 	protected abstract List<Filter> getDistributableFilter();
 
+	/**
+	 * 
+	 * @return whether the rows must be returned in order, such as for a page of
+	 *         results that is resumed from the row ID of its last row
+	 */
+	protected boolean isOrderedScan() {
+		return false;
+	}
+
+	/**
+	 * 
+	 * @return the row ID after which the rows of an ordered scan are returned,
+	 *         or null to return them from the start of each range
+	 */
+	protected ByteArrayId getAfterRowId() {
+		return null;
+	}
+
 	protected List<Scan> getScanners(
 			final Integer limit,
 			final List<Filter> distributableFilters,
@@ -185,6 +205,20 @@ public abstract class HBaseFilteredIndexQuery extends
 					null,
 					null));
 		}
+		final ByteArrayId afterRowId = getAfterRowId();
+		byte[] afterRow = null;
+		if (isOrderedScan()) {
+			// the scans are concatenated in order, each starting no earlier
+			// than the row following the row ID
+			if (afterRowId != null) {
+				afterRow = Arrays.copyOf(
+						afterRowId.getBytes(),
+						afterRowId.getBytes().length + 1);
+			}
+			ranges = new ArrayList<ByteArrayRange>(
+					ranges);
+			Collections.sort(ranges);
+		}
 		final List<Scan> scanners = new ArrayList<Scan>();
 		if ((ranges != null) && (ranges.size() > 0)) {
 
@@ -207,6 +241,20 @@ public abstract class HBaseFilteredIndexQuery extends
 						scanner.setStopRow(HBaseUtils.getNextPrefix(range.getStart().getBytes()));
 					}
 				}
+				if (afterRow != null) {
+					final byte[] stopRow = scanner.getStopRow();
+					if ((stopRow.length > 0) && (Bytes.compareTo(
+							stopRow,
+							afterRow) <= 0)) {
+						// every row of the range precedes the row ID
+						continue;
+					}
+					if (Bytes.compareTo(
+							scanner.getStartRow(),
+							afterRow) < 0) {
+						scanner.setStartRow(afterRow);
+					}
+				}
 
 				scanner.setFilter(filterList);
 
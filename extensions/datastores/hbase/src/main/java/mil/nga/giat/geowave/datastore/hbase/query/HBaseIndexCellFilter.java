@@ -0,0 +1,104 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterBase;
+
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.store.filter.IndexCellFilter;
+
+/**
+ * This is a Filter which will run on the Region Server during Scan. It filters
+ * out rows whose space filling curve cell lies entirely outside of the query
+ * constraints using only the row key, so that false positives of the range
+ * decomposition are skipped before any of their cells are read. The index
+ * strategy and the constraints are serialized with the persistence utilities
+ * rather than protocol buffers.
+ *
+ * As the filter is instantiated on the region servers, the GeoWave HBase jar
+ * must be installed on the classpath of every region server, which is why it is
+ * only applied when custom filters are enabled in the HBase options.
+ */
+public class HBaseIndexCellFilter extends
+		FilterBase
+{
+	private final NumericIndexStrategy indexStrategy;
+	private final List<MultiDimensionalNumericData> constraints;
+	private final IndexCellFilter cellFilter;
+
+	public HBaseIndexCellFilter(
+			final NumericIndexStrategy indexStrategy,
+			final List<MultiDimensionalNumericData> constraints ) {
+		if (indexStrategy == null) {
+			throw new IllegalArgumentException(
+					"'indexStrategy' must be set for " + HBaseIndexCellFilter.class.getName());
+		}
+		if (constraints == null) {
+			throw new IllegalArgumentException(
+					"'constraints' must be set for " + HBaseIndexCellFilter.class.getName());
+		}
+		this.indexStrategy = indexStrategy;
+		this.constraints = constraints;
+		cellFilter = new IndexCellFilter(
+				indexStrategy,
+				constraints);
+	}
+
+	@Override
+	public boolean filterRowKey(
+			final byte[] buffer,
+			final int offset,
+			final int length )
+			throws IOException {
+		return !cellFilter.acceptRow(
+				buffer,
+				offset,
+				length);
+	}
+
+	@Override
+	public ReturnCode filterKeyValue(
+			final Cell v )
+			throws IOException {
+		return ReturnCode.INCLUDE;
+	}
+
+	public static Filter parseFrom(
+			final byte[] bytes )
+			throws DeserializationException {
+		try {
+			final ByteBuffer buf = ByteBuffer.wrap(bytes);
+			final byte[] indexStrategyBytes = new byte[buf.getInt()];
+			buf.get(indexStrategyBytes);
+			final byte[] constraintsBytes = new byte[buf.remaining()];
+			buf.get(constraintsBytes);
+			return new HBaseIndexCellFilter(
+					PersistenceUtils.fromBinary(
+							indexStrategyBytes,
+							NumericIndexStrategy.class),
+					(List) PersistenceUtils.fromBinary(constraintsBytes));
+		}
+		catch (final RuntimeException e) {
+			throw new DeserializationException(
+					e);
+		}
+	}
+
+	@Override
+	public byte[] toByteArray() {
+		final byte[] indexStrategyBytes = PersistenceUtils.toBinary(indexStrategy);
+		final byte[] constraintsBytes = PersistenceUtils.toBinary((List) constraints);
+		final ByteBuffer buf = ByteBuffer.allocate(4 + indexStrategyBytes.length + constraintsBytes.length);
+		buf.putInt(indexStrategyBytes.length);
+		buf.put(indexStrategyBytes);
+		buf.put(constraintsBytes);
+		return buf.array();
+	}
+}
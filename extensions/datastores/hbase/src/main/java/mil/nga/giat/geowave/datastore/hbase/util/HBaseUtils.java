@@ -23,6 +23,7 @@ import org.apache.log4j.Logger;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.RowKeyBuilder;
 import mil.nga.giat.geowave.core.index.StringUtils;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
@@ -32,6 +33,7 @@ import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.data.LazyReadPersistentDataset;
 import mil.nga.giat.geowave.core.store.data.PersistentDataset;
 import mil.nga.giat.geowave.core.store.data.PersistentValue;
 import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
@@ -113,6 +115,7 @@ public class HBaseUtils
 			final boolean enableDeduplication ) {
 
 		final int numberOfDuplicates = insertionIds.size() - 1;
+		final RowKeyBuilder rowKey = new RowKeyBuilder();
 
 		for (final ByteArrayId insertionId : insertionIds) {
 			final byte[] indexId = insertionId.getBytes();
@@ -122,13 +125,12 @@ public class HBaseUtils
 			// enough length values to be able to read the row ID again, we
 			// lastly add a number of duplicates which can be useful as
 			// metadata in our de-duplication
-			// step
-			rowIds.add(new ByteArrayId(
-					new HBaseRowId(
-							indexId,
-							dataId,
-							adapterId,
-							enableDeduplication ? numberOfDuplicates : -1).getRowId()));
+			// step (this is the layout of HBaseRowId)
+			rowIds.add(rowKey.clear().append(
+					indexId).appendEntrySuffix(
+					adapterId,
+					dataId,
+					enableDeduplication ? numberOfDuplicates : -1).toByteArrayId());
 		}
 	}
 
@@ -191,6 +193,37 @@ public class HBaseUtils
 		"rawtypes",
 		"unchecked"
 	})
+	private static List<FieldInfo<?>> getFieldInfos(
+			final List<KeyValue> fieldEntries,
+			final PersistentDataset<CommonIndexValue> indexData,
+			final PersistentDataset<Object> extendedData ) {
+		final List<FieldInfo<?>> fieldInfoList = new ArrayList<FieldInfo<?>>(
+				fieldEntries.size());
+		for (final KeyValue entry : fieldEntries) {
+			final ByteArrayId fieldId = new ByteArrayId(
+					entry.getQualifier());
+			final CommonIndexValue indexValue = indexData.getValue(fieldId);
+			if (indexValue != null) {
+				fieldInfoList.add(getFieldInfo(
+						new PersistentValue<CommonIndexValue>(
+								fieldId,
+								indexValue),
+						entry.getValue(),
+						indexValue.getVisibility()));
+			}
+			else {
+				fieldInfoList.add(getFieldInfo(
+						new PersistentValue<Object>(
+								fieldId,
+								extendedData.getValue(fieldId)),
+						entry.getValue(),
+						null));
+				// entry.getKey().getColumnVisibility().getBytes()));
+			}
+		}
+		return fieldInfoList;
+	}
+
 	private static <T> FieldInfo<T> getFieldInfo(
 			final PersistentValue<T> fieldValue,
 			final byte[] value,
@@ -295,9 +328,11 @@ public class HBaseUtils
 		}
 		// build a persistence encoding object first, pass it through the
 		// client filters and if its accepted, use the data adapter to
-		// decode the persistence model into the native data type
-		final PersistentDataset<CommonIndexValue> indexData = new PersistentDataset<CommonIndexValue>();
-		final PersistentDataset<Object> extendedData = new PersistentDataset<Object>();
+		// decode the persistence model into the native data type; fields are
+		// only decoded when first requested, so the client filter pays for
+		// the fields it looks at and the rest only for accepted rows
+		final LazyReadPersistentDataset<CommonIndexValue> indexData = new LazyReadPersistentDataset<CommonIndexValue>();
+		final LazyReadPersistentDataset<Object> extendedData = new LazyReadPersistentDataset<Object>();
 
 		// TODO #406 Need to fix this. Adding it currently to just fix
 		// compilation issue due to merge with #238
@@ -316,8 +351,9 @@ public class HBaseUtils
 			adapterId = null;
 		}
 
-		final List<FieldInfo<?>> fieldInfoList = new ArrayList<FieldInfo<?>>(
+		final List<KeyValue> fieldEntries = new ArrayList<KeyValue>(
 				rowMapping.size());
+		final CommonIndexModel indexModel = index.getIndexModel();
 
 		for (final KeyValue entry : rowMapping) {
 			// the column family is the data element's type ID
@@ -343,23 +379,17 @@ public class HBaseUtils
 			final ByteArrayId fieldId = new ByteArrayId(
 					entry.getQualifier());
 			// entry.getKey().getColumnQualifierData().getBackingArray());
-			final CommonIndexModel indexModel;
-			indexModel = index.getIndexModel();
 
 			// first check if this field is part of the index model
 			final FieldReader<? extends CommonIndexValue> indexFieldReader = indexModel.getReader(fieldId);
 			final byte byteValue[] = entry.getValue();
 			if (indexFieldReader != null) {
-				final CommonIndexValue indexValue = indexFieldReader.readField(byteValue);
 				// indexValue.setVisibility(entry.getKey().getColumnVisibilityData().getBackingArray());
-				final PersistentValue<CommonIndexValue> val = new PersistentValue<CommonIndexValue>(
+				indexData.addValue(
 						fieldId,
-						indexValue);
-				indexData.addValue(val);
-				fieldInfoList.add(getFieldInfo(
-						val,
+						indexFieldReader,
 						byteValue,
-						indexValue.getVisibility()));
+						null);
 			}
 			else {
 				// next check if this field is part of the adapter's
@@ -371,17 +401,13 @@ public class HBaseUtils
 					LOGGER.error("field reader not found for data entry, the value will be ignored");
 					continue;
 				}
-				final Object value = extFieldReader.readField(byteValue);
-				final PersistentValue<Object> val = new PersistentValue<Object>(
+				extendedData.addValue(
 						fieldId,
-						value);
-				extendedData.addValue(val);
-				fieldInfoList.add(getFieldInfo(
-						val,
+						extFieldReader,
 						byteValue,
-						null));
-				// entry.getKey().getColumnVisibility().getBytes()));
+						null);
 			}
+			fieldEntries.add(entry);
 		}
 
 		final IndexedAdapterPersistenceEncoding encodedRow = new IndexedAdapterPersistenceEncoding(
@@ -403,6 +429,10 @@ public class HBaseUtils
 				LOGGER.error("Error, adapter was null when it should not be");
 			}
 			else {
+				final List<FieldInfo<?>> fieldInfoList = getFieldInfos(
+						fieldEntries,
+						indexData,
+						extendedData);
 				final Pair<T, DataStoreEntryInfo> pair = Pair.of(
 						adapter.decode(
 								encodedRow,
@@ -0,0 +1,154 @@
+package mil.nga.giat.geowave.datastore.hbase.query;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory;
+
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.junit.Test;
+
+public class HBaseIndexCellFilterTest
+{
+	private static final NumericDimensionDefinition[] SPATIAL_DIMENSIONS = new NumericDimensionDefinition[] {
+		new BasicDimensionDefinition(
+				-180,
+				180),
+		new BasicDimensionDefinition(
+				-90,
+				90)
+	};
+
+	private static final NumericIndexStrategy STRATEGY = TieredSFCIndexFactory.createSingleTierStrategy(
+			SPATIAL_DIMENSIONS,
+			new int[] {
+				16,
+				16
+			},
+			SFCType.HILBERT);
+
+	private static final List<MultiDimensionalNumericData> QUERY = Collections
+			.<MultiDimensionalNumericData> singletonList(new BasicNumericDataset(
+					new NumericData[] {
+						new NumericRange(
+								10,
+								20),
+						new NumericRange(
+								10,
+								20)
+					}));
+
+	@Test
+	public void testFilterRowKey()
+			throws IOException {
+		final Filter filter = new HBaseIndexCellFilter(
+				STRATEGY,
+				QUERY);
+		assertFalse(isFiltered(
+				filter,
+				15,
+				15));
+		// on the boundary of the query
+		assertFalse(isFiltered(
+				filter,
+				20,
+				10));
+		assertTrue(isFiltered(
+				filter,
+				25,
+				15));
+		assertTrue(isFiltered(
+				filter,
+				-150,
+				80));
+	}
+
+	@Test
+	public void testSerialization()
+			throws IOException,
+			DeserializationException {
+		final Filter filter = HBaseIndexCellFilter.parseFrom(new HBaseIndexCellFilter(
+				STRATEGY,
+				QUERY).toByteArray());
+		assertFalse(isFiltered(
+				filter,
+				15,
+				15));
+		assertTrue(isFiltered(
+				filter,
+				25,
+				15));
+	}
+
+	@Test(expected = DeserializationException.class)
+	public void testInvalidSerialization()
+			throws DeserializationException {
+		HBaseIndexCellFilter.parseFrom(new byte[] {
+			0,
+			0,
+			0,
+			100
+		});
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRequiresIndexStrategy() {
+		new HBaseIndexCellFilter(
+				null,
+				QUERY);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRequiresConstraints() {
+		new HBaseIndexCellFilter(
+				STRATEGY,
+				null);
+	}
+
+	private static boolean isFiltered(
+			final Filter filter,
+			final double x,
+			final double y )
+			throws IOException {
+		final byte[] id = STRATEGY.getInsertionIds(
+				new BasicNumericDataset(
+						new NumericData[] {
+							new NumericValue(
+									x),
+							new NumericValue(
+									y)
+						})).get(
+				0).getBytes();
+		final byte[] adapterId = "adapter".getBytes();
+		final byte[] dataId = "data".getBytes();
+		// pad the row key to check that the offset is honored
+		final ByteBuffer buf = ByteBuffer.allocate(3 + id.length + adapterId.length + dataId.length + 12);
+		buf.put(new byte[3]);
+		buf.put(id);
+		buf.put(adapterId);
+		buf.put(dataId);
+		buf.putInt(adapterId.length);
+		buf.putInt(dataId.length);
+		buf.putInt(0);
+		return filter.filterRowKey(
+				buf.array(),
+				3,
+				buf.capacity() - 3);
+	}
+}
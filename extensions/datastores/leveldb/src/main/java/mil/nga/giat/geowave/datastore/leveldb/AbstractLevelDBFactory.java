@@ -0,0 +1,32 @@
+package mil.nga.giat.geowave.datastore.leveldb;
+
+import mil.nga.giat.geowave.core.store.GenericFactory;
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.datastore.leveldb.operations.config.LevelDBRequiredOptions;
+
+abstract public class AbstractLevelDBFactory implements
+		GenericFactory
+{
+	private static final String NAME = "leveldb";
+	private static final String DESCRIPTION = "A GeoWave store backed by an embedded LevelDB database in a local directory";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public String getDescription() {
+		return DESCRIPTION;
+	}
+
+	/**
+	 * This helps implementation of child classes by returning the default
+	 * LevelDB options that are required.
+	 * 
+	 * @return
+	 */
+	public StoreFactoryOptions createOptionsInstance() {
+		return new LevelDBRequiredOptions();
+	}
+}
@@ -0,0 +1,37 @@
+package mil.nga.giat.geowave.datastore.leveldb;
+
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.store.GenericStoreFactory;
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+import mil.nga.giat.geowave.datastore.leveldb.operations.config.LevelDBRequiredOptions;
+
+abstract public class AbstractLevelDBStoreFactory<T> extends
+		AbstractLevelDBFactory implements
+		GenericStoreFactory<T>
+{
+	private final static Logger LOGGER = Logger.getLogger(AbstractLevelDBStoreFactory.class);
+
+	protected LevelDBRequiredOptions getRequiredOptions(
+			final StoreFactoryOptions options ) {
+		if (!(options instanceof LevelDBRequiredOptions)) {
+			throw new AssertionError(
+					"Expected " + LevelDBRequiredOptions.class.getSimpleName());
+		}
+		return (LevelDBRequiredOptions) options;
+	}
+
+	protected LevelDBOperations createOperations(
+			final LevelDBRequiredOptions options ) {
+		try {
+			return LevelDBOperations.createOperations(options);
+		}
+		catch (final Exception e) {
+			LOGGER.error(
+					"Unable to create LevelDB operations from config options",
+					e);
+			return null;
+		}
+	}
+}
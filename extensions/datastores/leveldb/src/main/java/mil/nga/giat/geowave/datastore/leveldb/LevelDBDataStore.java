@@ -0,0 +1,668 @@
+package mil.nga.giat.geowave.datastore.leveldb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterators;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.ByteArrayRange.MergeOperation;
+import mil.nga.giat.geowave.core.store.AdapterToIndexMapping;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.DataStoreCallbackManager;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.IndexCompositeWriter;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.IngestCallback;
+import mil.nga.giat.geowave.core.store.ScanCallback;
+import mil.nga.giat.geowave.core.store.adapter.AdapterIndexMappingStore;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.IndexedAdapterPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.exceptions.MismatchedIndexToAdapterMapping;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.data.LazyReadPersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataStore;
+import mil.nga.giat.geowave.core.store.memory.DataStoreUtils;
+import mil.nga.giat.geowave.core.store.memory.EntryRowID;
+import mil.nga.giat.geowave.core.store.query.AfterRowIdQuery;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.RowIdQuery;
+import mil.nga.giat.geowave.datastore.leveldb.index.secondary.LevelDBSecondaryIndexDataStore;
+import mil.nga.giat.geowave.datastore.leveldb.metadata.LevelDBAdapterIndexMappingStore;
+import mil.nga.giat.geowave.datastore.leveldb.metadata.LevelDBAdapterStore;
+import mil.nga.giat.geowave.datastore.leveldb.metadata.LevelDBDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.leveldb.metadata.LevelDBIndexStore;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+/**
+ * This is a data store that persists its indices and metadata in an embedded
+ * LevelDB database within a local directory, for single node deployments that
+ * do not warrant a distributed key-value store. Each primary index is a table
+ * keyed by the row IDs of its entries, the value of a row holding the encoded
+ * fields of the entry, so queries seek directly to the row ranges of their
+ * constraints. As there are no tablet servers, filtering and decoding run in
+ * the client as rows are read.
+ */
+public class LevelDBDataStore implements
+		DataStore
+{
+	private final static Logger LOGGER = Logger.getLogger(LevelDBDataStore.class);
+	private static final int MAX_RANGE_DECOMPOSITION = 5000;
+	private final LevelDBOperations operations;
+	private final IndexStore indexStore;
+	private final AdapterStore adapterStore;
+	private final DataStatisticsStore statisticsStore;
+	private final AdapterIndexMappingStore adapterIndexMappingStore;
+	private final SecondaryIndexDataStore secondaryIndexDataStore;
+
+	public LevelDBDataStore(
+			final LevelDBOperations operations ) {
+		this(
+				new LevelDBIndexStore(
+						operations),
+				new LevelDBAdapterStore(
+						operations),
+				new LevelDBDataStatisticsStore(
+						operations),
+				new LevelDBAdapterIndexMappingStore(
+						operations),
+				new LevelDBSecondaryIndexDataStore(
+						operations),
+				operations);
+	}
+
+	public LevelDBDataStore(
+			final IndexStore indexStore,
+			final AdapterStore adapterStore,
+			final DataStatisticsStore statisticsStore,
+			final AdapterIndexMappingStore adapterIndexMappingStore,
+			final SecondaryIndexDataStore secondaryIndexDataStore,
+			final LevelDBOperations operations ) {
+		this.indexStore = indexStore;
+		this.adapterStore = adapterStore;
+		this.statisticsStore = statisticsStore;
+		this.adapterIndexMappingStore = adapterIndexMappingStore;
+		this.secondaryIndexDataStore = secondaryIndexDataStore;
+		this.operations = operations;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> IndexWriter createWriter(
+			final DataAdapter<T> adapter,
+			final PrimaryIndex... indices )
+			throws MismatchedIndexToAdapterMapping {
+		adapterStore.addAdapter(adapter);
+
+		adapterIndexMappingStore.addAdapterIndexMapping(new AdapterToIndexMapping(
+				adapter.getAdapterId(),
+				indices));
+		final IndexWriter<T>[] writers = new IndexWriter[indices.length];
+		int i = 0;
+		for (final PrimaryIndex index : indices) {
+			indexStore.addIndex(index);
+			writers[i] = new LevelDBIndexWriter<T>(
+					DataStoreUtils.UNCONSTRAINED_VISIBILITY,
+					(WritableDataAdapter<T>) adapter,
+					index,
+					i == 0);
+			i++;
+		}
+		return new IndexCompositeWriter(
+				writers);
+	}
+
+	private class LevelDBIndexWriter<T> implements
+			IndexWriter<T>
+	{
+		private final PrimaryIndex index;
+		private final WritableDataAdapter<T> adapter;
+		private final VisibilityWriter<T> customFieldVisibilityWriter;
+		private final DataStoreCallbackManager callbackCache;
+		private final LevelDBOperations.Writer writer;
+
+		public LevelDBIndexWriter(
+				final VisibilityWriter<T> customFieldVisibilityWriter,
+				final WritableDataAdapter<T> adapter,
+				final PrimaryIndex index,
+				final boolean captureAdapterStats ) {
+			this.index = index;
+			this.adapter = adapter;
+			this.customFieldVisibilityWriter = customFieldVisibilityWriter;
+			callbackCache = new DataStoreCallbackManager(
+					statisticsStore,
+					secondaryIndexDataStore,
+					captureAdapterStats);
+			writer = operations.createWriter(index.getId().getString());
+		}
+
+		@Override
+		public List<ByteArrayId> write(
+				final T entry ) {
+			return write(
+					entry,
+					customFieldVisibilityWriter);
+		}
+
+		@Override
+		public List<ByteArrayId> write(
+				final T entry,
+				final VisibilityWriter<T> fieldVisibilityWriter ) {
+			final IngestCallback<T> callback = callbackCache.getIngestCallback(
+					adapter,
+					index);
+			final DataStoreEntryInfo ingestInfo = DataStoreUtils.getIngestInfo(
+					adapter,
+					index,
+					entry,
+					fieldVisibilityWriter);
+			final byte[] value = encodeFields(ingestInfo.getFieldInfo());
+			for (final ByteArrayId rowId : ingestInfo.getRowIds()) {
+				// replaces any existing entry with the same row ID
+				writer.put(
+						rowId.getBytes(),
+						value);
+			}
+			callback.entryIngested(
+					ingestInfo,
+					entry);
+			return ingestInfo.getRowIds();
+		}
+
+		@Override
+		public PrimaryIndex[] getIndices() {
+			return new PrimaryIndex[] {
+				index
+			};
+		}
+
+		@Override
+		public void flush() {
+			writer.flush();
+			try {
+				callbackCache.close();
+			}
+			catch (final IOException e) {
+				LOGGER.error(
+						"Error flushing index writer",
+						e);
+			}
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			writer.close();
+			callbackCache.close();
+		}
+	}
+
+	/**
+	 * Encodes the fields of an entry as the value of its rows. Each field is
+	 * written as its ID, visibility and value, each preceded by its length.
+	 */
+	private static byte[] encodeFields(
+			final List<FieldInfo<?>> fieldInfoList ) {
+		int size = 0;
+		for (final FieldInfo<?> fieldInfo : fieldInfoList) {
+			size += 12 + fieldInfo.getDataValue().getId().getBytes().length + getLength(fieldInfo.getVisibility())
+					+ getLength(fieldInfo.getWrittenValue());
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(size);
+		for (final FieldInfo<?> fieldInfo : fieldInfoList) {
+			put(
+					buf,
+					fieldInfo.getDataValue().getId().getBytes());
+			put(
+					buf,
+					fieldInfo.getVisibility());
+			put(
+					buf,
+					fieldInfo.getWrittenValue());
+		}
+		return buf.array();
+	}
+
+	private static int getLength(
+			final byte[] bytes ) {
+		return bytes == null ? 0 : bytes.length;
+	}
+
+	private static void put(
+			final ByteBuffer buf,
+			final byte[] bytes ) {
+		if (bytes == null) {
+			buf.putInt(0);
+		}
+		else {
+			buf.putInt(bytes.length);
+			buf.put(bytes);
+		}
+	}
+
+	private static byte[] get(
+			final ByteBuffer buf ) {
+		final byte[] bytes = new byte[buf.getInt()];
+		buf.get(bytes);
+		return bytes;
+	}
+
+	@Override
+	public <T> CloseableIterator<T> query(
+			final QueryOptions queryOptions,
+			final Query query ) {
+		return query(
+				queryOptions,
+				query,
+				false);
+	}
+
+	@Override
+	public boolean delete(
+			final QueryOptions queryOptions,
+			final Query query ) {
+		try (CloseableIterator<?> it = query(
+				queryOptions,
+				query,
+				true)) {
+			while (it.hasNext()) {
+				it.next();
+				it.remove();
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.error(
+					"Failed deletion",
+					e);
+			return false;
+		}
+		return true;
+	}
+
+	private <T> CloseableIterator<T> query(
+			final QueryOptions queryOptions,
+			final Query query,
+			final boolean isDelete ) {
+		final DedupeFilter filter = new DedupeFilter();
+		filter.setDedupAcrossIndices(false);
+		try {
+			// keep a set of adapters that have been queried, to only allow an
+			// adapter to be queried once
+			final Set<ByteArrayId> queriedAdapters = new HashSet<ByteArrayId>();
+			final List<CloseableIterator<T>> results = new ArrayList<CloseableIterator<T>>();
+
+			for (final Pair<PrimaryIndex, List<DataAdapter<Object>>> indexAdapterPair : queryOptions
+					.getIndicesForAdapters(
+							adapterStore,
+							adapterIndexMappingStore,
+							indexStore)) {
+				for (final DataAdapter<Object> adapter : indexAdapterPair.getRight()) {
+					final boolean firstTimeForAdapter = queriedAdapters.add(adapter.getAdapterId());
+					if (!(firstTimeForAdapter || isDelete)) {
+						continue;
+					}
+					final PrimaryIndex index = indexAdapterPair.getLeft();
+					if ((query != null) && !query.isSupported(index)) {
+						continue;
+					}
+					results.add(new RowIterator<T>(
+							(DataAdapter<T>) adapter,
+							index,
+							query,
+							isDelete ? null : filter,
+							queryOptions,
+							isDelete ? new DataStoreCallbackManager(
+									statisticsStore,
+									secondaryIndexDataStore,
+									firstTimeForAdapter) : null));
+				}
+			}
+			return new CloseableIteratorWrapper<T>(
+					new Closeable() {
+						@Override
+						public void close()
+								throws IOException {
+							for (final CloseableIterator<?> result : results) {
+								result.close();
+							}
+						}
+					},
+					Iterators.concat(results.iterator()),
+					queryOptions.getLimit());
+		}
+		catch (final IOException e) {
+			LOGGER.error(
+					"Cannot process query [" + (query == null ? "all" : query.toString()) + "]",
+					e);
+			return new CloseableIterator.Empty<T>();
+		}
+	}
+
+	/**
+	 *
+	 * @return the rows of the index that can satisfy the query, either read
+	 *         directly by their row IDs or scanned within the row ranges of the
+	 *         query constraints
+	 */
+	private CloseableIterator<Entry<byte[], byte[]>> getRows(
+			final PrimaryIndex index,
+			final Query query ) {
+		final String tableName = index.getId().getString();
+		if (query instanceof RowIdQuery) {
+			return new CloseableIterator.Wrapper<Entry<byte[], byte[]>>(
+					Iterators.filter(
+							Iterators.transform(
+									((RowIdQuery) query).getRowIds().iterator(),
+									new Function<ByteArrayId, Entry<byte[], byte[]>>() {
+										@Override
+										public Entry<byte[], byte[]> apply(
+												final ByteArrayId rowId ) {
+											final byte[] value = operations.get(
+													tableName,
+													rowId.getBytes());
+											return value == null ? null : new SimpleImmutableEntry<byte[], byte[]>(
+													rowId.getBytes(),
+													value);
+										}
+									}),
+							Predicates.notNull()));
+		}
+		return operations
+				.scan(
+						tableName,
+						getQueryRanges(
+								query,
+								index),
+						((query instanceof AfterRowIdQuery) && (((AfterRowIdQuery) query).getAfterRowId() != null)) ? ((AfterRowIdQuery) query)
+								.getAfterRowId()
+								.getBytes() : null);
+	}
+
+	/**
+	 *
+	 * @return the row ranges of the index that can satisfy the query, or null
+	 *         if every row of the index must be scanned
+	 */
+	private static List<ByteArrayRange> getQueryRanges(
+			final Query query,
+			final PrimaryIndex index ) {
+		if (query == null) {
+			return null;
+		}
+		final List<ByteArrayRange> ranges = DataStoreUtils.constraintsToByteArrayRanges(
+				query.getIndexConstraints(index.getIndexStrategy()),
+				index.getIndexStrategy(),
+				MAX_RANGE_DECOMPOSITION);
+		if (ranges.isEmpty()) {
+			return null;
+		}
+		return ByteArrayRange.mergeIntersections(
+				ranges,
+				MergeOperation.UNION);
+	}
+
+	/**
+	 * Decodes the rows of an adapter within an index, returning the entries
+	 * accepted by the query filters and readable with the query authorizations
+	 */
+	private class RowIterator<T> implements
+			CloseableIterator<T>
+	{
+		private final DataAdapter<T> adapter;
+		private final PrimaryIndex index;
+		private final byte[] adapterId;
+		private final List<QueryFilter> filters;
+		private final QueryOptions queryOptions;
+		private final DataStoreCallbackManager deleteCallbacks;
+		private final CloseableIterator<Entry<byte[], byte[]>> rowIt;
+		private Pair<T, DataStoreEntryInfo> next = null;
+		private byte[] nextRowId = null;
+		private byte[] currentRowId = null;
+		private boolean closed = false;
+
+		private RowIterator(
+				final DataAdapter<T> adapter,
+				final PrimaryIndex index,
+				final Query query,
+				final DedupeFilter dedupeFilter,
+				final QueryOptions queryOptions,
+				final DataStoreCallbackManager deleteCallbacks ) {
+			this.adapter = adapter;
+			this.index = index;
+			this.queryOptions = queryOptions;
+			this.deleteCallbacks = deleteCallbacks;
+			adapterId = adapter.getAdapterId().getBytes();
+			// rows of a row ID query are read directly by their row IDs so
+			// its filter, which only compares insertion IDs, does not apply
+			filters = ((query == null) || (query instanceof RowIdQuery)) ? new ArrayList<QueryFilter>()
+					: new ArrayList<QueryFilter>(
+							query.createFilters(index.getIndexModel()));
+			if (dedupeFilter != null) {
+				filters.add(dedupeFilter);
+			}
+			rowIt = getRows(
+					index,
+					query);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while ((next == null) && rowIt.hasNext()) {
+				final Entry<byte[], byte[]> row = rowIt.next();
+				next = decodeRow(
+						row.getKey(),
+						row.getValue());
+				nextRowId = row.getKey();
+			}
+			return next != null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final Pair<T, DataStoreEntryInfo> current = next;
+			currentRowId = nextRowId;
+			next = null;
+			if ((deleteCallbacks != null) && (adapter instanceof WritableDataAdapter)) {
+				deleteCallbacks.getDeleteCallback(
+						(WritableDataAdapter<T>) adapter,
+						index).entryDeleted(
+						current.getRight(),
+						current.getLeft());
+			}
+			((ScanCallback<T>) queryOptions.getScanCallback()).entryScanned(
+					current.getRight(),
+					current.getLeft());
+			return current.getLeft();
+		}
+
+		@Override
+		public void remove() {
+			if (currentRowId != null) {
+				operations.delete(
+						index.getId().getString(),
+						currentRowId);
+				currentRowId = null;
+			}
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			// the wrapping iterator closes its results once they are exhausted
+			// as well as when it is closed
+			if (closed) {
+				return;
+			}
+			closed = true;
+			rowIt.close();
+			if (deleteCallbacks != null) {
+				deleteCallbacks.close();
+			}
+			final ScanCallback<?> callback = queryOptions.getScanCallback();
+			if ((callback != null) && (callback instanceof Closeable)) {
+				((Closeable) callback).close();
+			}
+		}
+
+		/**
+		 * Builds a persistence encoding of the row whose fields are only read
+		 * when a filter or the adapter asks for them, and decodes the entry if
+		 * the row is accepted
+		 *
+		 * @return the entry and its row information, or null if the row is not
+		 *         accepted
+		 */
+		private Pair<T, DataStoreEntryInfo> decodeRow(
+				final byte[] rowIdBytes,
+				final byte[] value ) {
+			final EntryRowID rowId = new EntryRowID(
+					rowIdBytes);
+			// skip rows of other adapters before decoding them
+			if (!Arrays.equals(
+					adapterId,
+					rowId.getAdapterId())) {
+				return null;
+			}
+			final CommonIndexModel indexModel = index.getIndexModel();
+			final LazyReadPersistentDataset<CommonIndexValue> indexData = new LazyReadPersistentDataset<CommonIndexValue>();
+			final LazyReadPersistentDataset<Object> extendedData = new LazyReadPersistentDataset<Object>();
+			final PersistentDataset<byte[]> unknownData = new PersistentDataset<byte[]>();
+			final List<Pair<ByteArrayId, byte[][]>> fields = new ArrayList<Pair<ByteArrayId, byte[][]>>();
+			final ByteBuffer buf = ByteBuffer.wrap(value);
+			while (buf.hasRemaining()) {
+				final ByteArrayId fieldId = new ByteArrayId(
+						get(buf));
+				final byte[] visibility = get(buf);
+				final byte[] fieldValue = get(buf);
+				if (!DataStoreUtils.isAuthorized(
+						visibility,
+						queryOptions.getAuthorizations())) {
+					return null;
+				}
+				final FieldReader<? extends CommonIndexValue> indexFieldReader = indexModel.getReader(fieldId);
+				if (indexFieldReader != null) {
+					indexData.addValue(
+							fieldId,
+							indexFieldReader,
+							fieldValue,
+							visibility);
+				}
+				else {
+					final FieldReader<?> extFieldReader = adapter.getReader(fieldId);
+					if (extFieldReader != null) {
+						extendedData.addValue(
+								fieldId,
+								extFieldReader,
+								fieldValue,
+								null);
+					}
+					else {
+						unknownData.addValue(new PersistentValue<byte[]>(
+								fieldId,
+								fieldValue));
+					}
+				}
+				fields.add(Pair.of(
+						fieldId,
+						new byte[][] {
+							fieldValue,
+							visibility
+						}));
+			}
+			final IndexedAdapterPersistenceEncoding encoding = new IndexedAdapterPersistenceEncoding(
+					adapter.getAdapterId(),
+					new ByteArrayId(
+							rowId.getDataId()),
+					new ByteArrayId(
+							rowId.getInsertionId()),
+					rowId.getNumberOfDuplicates(),
+					indexData,
+					unknownData,
+					extendedData);
+			for (final QueryFilter filter : filters) {
+				if (!filter.accept(
+						indexModel,
+						encoding)) {
+					return null;
+				}
+			}
+			final List<FieldInfo<?>> fieldInfoList = new ArrayList<FieldInfo<?>>(
+					fields.size());
+			for (final Pair<ByteArrayId, byte[][]> field : fields) {
+				final ByteArrayId fieldId = field.getLeft();
+				final CommonIndexValue indexValue = indexData.getValue(fieldId);
+				final Object fieldValue = indexValue != null ? indexValue : extendedData.getValue(fieldId);
+				fieldInfoList.add(DataStoreUtils.getFieldInfo(
+						new PersistentValue<Object>(
+								fieldId,
+								fieldValue != null ? fieldValue : unknownData.getValue(fieldId)),
+						field.getRight()[0],
+						field.getRight()[1]));
+			}
+			return Pair.of(
+					adapter.decode(
+							encoding,
+							index),
+					new DataStoreEntryInfo(
+							rowId.getDataId(),
+							Arrays.asList(new ByteArrayId(
+									rowIdBytes)),
+							fieldInfoList));
+		}
+	}
+
+	public IndexStore getIndexStore() {
+		return indexStore;
+	}
+
+	public AdapterStore getAdapterStore() {
+		return adapterStore;
+	}
+
+	public DataStatisticsStore getStatisticsStore() {
+		return statisticsStore;
+	}
+
+	public AdapterIndexMappingStore getAdapterIndexMappingStore() {
+		return adapterIndexMappingStore;
+	}
+
+	public SecondaryIndexDataStore getSecondaryIndexDataStore() {
+		return secondaryIndexDataStore;
+	}
+}
@@ -0,0 +1,17 @@
+package mil.nga.giat.geowave.datastore.leveldb;
+
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+public class LevelDBDataStoreFactory extends
+		AbstractLevelDBStoreFactory<DataStore>
+{
+	@Override
+	public DataStore createStore(
+			final StoreFactoryOptions options ) {
+		final LevelDBOperations operations = createOperations(getRequiredOptions(options));
+		return new LevelDBDataStore(
+				operations);
+	}
+}
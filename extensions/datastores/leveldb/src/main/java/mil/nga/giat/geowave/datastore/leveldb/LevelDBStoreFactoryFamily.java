@@ -0,0 +1,51 @@
+package mil.nga.giat.geowave.datastore.leveldb;
+
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.GenericStoreFactory;
+import mil.nga.giat.geowave.core.store.StoreFactoryFamilySpi;
+import mil.nga.giat.geowave.core.store.adapter.AdapterIndexMappingStore;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataStore;
+import mil.nga.giat.geowave.datastore.leveldb.index.secondary.LevelDBSecondaryIndexDataStoreFactory;
+import mil.nga.giat.geowave.datastore.leveldb.metadata.LevelDBAdapterIndexMappingStoreFactory;
+import mil.nga.giat.geowave.datastore.leveldb.metadata.LevelDBAdapterStoreFactory;
+import mil.nga.giat.geowave.datastore.leveldb.metadata.LevelDBDataStatisticsStoreFactory;
+import mil.nga.giat.geowave.datastore.leveldb.metadata.LevelDBIndexStoreFactory;
+
+public class LevelDBStoreFactoryFamily extends
+		AbstractLevelDBFactory implements
+		StoreFactoryFamilySpi
+{
+	@Override
+	public GenericStoreFactory<DataStore> getDataStoreFactory() {
+		return new LevelDBDataStoreFactory();
+	}
+
+	@Override
+	public GenericStoreFactory<DataStatisticsStore> getDataStatisticsStoreFactory() {
+		return new LevelDBDataStatisticsStoreFactory();
+	}
+
+	@Override
+	public GenericStoreFactory<IndexStore> getIndexStoreFactory() {
+		return new LevelDBIndexStoreFactory();
+	}
+
+	@Override
+	public GenericStoreFactory<AdapterStore> getAdapterStoreFactory() {
+		return new LevelDBAdapterStoreFactory();
+	}
+
+	@Override
+	public GenericStoreFactory<SecondaryIndexDataStore> getSecondaryIndexDataStore() {
+		return new LevelDBSecondaryIndexDataStoreFactory();
+	}
+
+	@Override
+	public GenericStoreFactory<AdapterIndexMappingStore> getAdapterIndexMappingStoreFactory() {
+		return new LevelDBAdapterIndexMappingStoreFactory();
+	}
+
+}
@@ -0,0 +1,317 @@
+package mil.nga.giat.geowave.datastore.leveldb.index.secondary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.ByteArrayRange.MergeOperation;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo.FieldInfo;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.filter.DistributableFilterList;
+import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndex;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataStore;
+import mil.nga.giat.geowave.core.store.memory.DataStoreUtils;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+/**
+ * This class stores secondary indices in LevelDB tables. The key of each entry
+ * starts with the secondary index insertion ID so that queries can seek to
+ * their ranges, followed by the indexed field and the primary index row ID so
+ * that several rows with the same indexed value do not overwrite each other.
+ * The query constraints are applied to each entry as it is scanned.
+ */
+public class LevelDBSecondaryIndexDataStore implements
+		SecondaryIndexDataStore
+{
+	private final static Logger LOGGER = Logger.getLogger(LevelDBSecondaryIndexDataStore.class);
+	private static final String TABLE_PREFIX = "GEOWAVE_2ND_IDX_";
+	private final LevelDBOperations operations;
+	private final Map<String, LevelDBOperations.Writer> writerCache = new HashMap<String, LevelDBOperations.Writer>();
+
+	public LevelDBSecondaryIndexDataStore(
+			final LevelDBOperations operations ) {
+		this.operations = operations;
+	}
+
+	private synchronized LevelDBOperations.Writer getWriter(
+			final SecondaryIndex<?> secondaryIndex ) {
+		final String tableName = getTableName(secondaryIndex);
+		LevelDBOperations.Writer writer = writerCache.get(tableName);
+		if (writer == null) {
+			writer = operations.createWriter(tableName);
+			writerCache.put(
+					tableName,
+					writer);
+		}
+		return writer;
+	}
+
+	private static String getTableName(
+			final SecondaryIndex<?> secondaryIndex ) {
+		return TABLE_PREFIX + secondaryIndex.getIndexStrategy().getId();
+	}
+
+	@Override
+	public void store(
+			final SecondaryIndex<?> secondaryIndex,
+			final ByteArrayId primaryIndexId,
+			final ByteArrayId primaryIndexRowId,
+			final List<FieldInfo<?>> indexedAttributes ) {
+		final LevelDBOperations.Writer writer = getWriter(secondaryIndex);
+		for (final FieldInfo<?> indexedAttribute : indexedAttributes) {
+			@SuppressWarnings("unchecked")
+			final List<ByteArrayId> secondaryIndexInsertionIds = secondaryIndex.getIndexStrategy().getInsertionIds(
+					Arrays.asList(indexedAttribute));
+			final byte[] fieldId = indexedAttribute.getDataValue().getId().getBytes();
+			for (final ByteArrayId insertionId : secondaryIndexInsertionIds) {
+				writer.put(
+						SecondaryIndexEntry.getKey(
+								insertionId.getBytes(),
+								fieldId,
+								primaryIndexRowId.getBytes()),
+						SecondaryIndexEntry.getValue(
+								primaryIndexId.getBytes(),
+								indexedAttribute.getWrittenValue(),
+								indexedAttribute.getVisibility()));
+			}
+		}
+	}
+
+	@Override
+	public void delete(
+			final SecondaryIndex<?> secondaryIndex,
+			final List<FieldInfo<?>> indexedAttributes ) {
+		final LevelDBOperations.Writer writer = getWriter(secondaryIndex);
+		// pending entries must be visible to the scans finding the keys
+		writer.flush();
+		for (final FieldInfo<?> indexedAttribute : indexedAttributes) {
+			@SuppressWarnings("unchecked")
+			final List<ByteArrayId> secondaryIndexInsertionIds = secondaryIndex.getIndexStrategy().getInsertionIds(
+					Arrays.asList(indexedAttribute));
+			final ByteArrayId fieldId = indexedAttribute.getDataValue().getId();
+			for (final ByteArrayId insertionId : secondaryIndexInsertionIds) {
+				// as with the other data stores, the entries of the indexed
+				// value are deleted for every row sharing that value
+				try (CloseableIterator<SecondaryIndexEntry> it = scan(
+						getTableName(secondaryIndex),
+						Collections.singletonList(new ByteArrayRange(
+								insertionId,
+								insertionId)))) {
+					while (it.hasNext()) {
+						final SecondaryIndexEntry entry = it.next();
+						if (insertionId.equals(entry.insertionId) && fieldId.equals(entry.fieldId)) {
+							writer.delete(entry.key);
+						}
+					}
+				}
+				catch (final IOException e) {
+					LOGGER.warn(
+							"Unable to close secondary index scan",
+							e);
+				}
+			}
+		}
+		writer.flush();
+	}
+
+	@Override
+	public CloseableIterator<ByteArrayId> query(
+			final SecondaryIndex<?> secondaryIndex,
+			final List<ByteArrayRange> ranges,
+			final List<DistributableQueryFilter> constraints,
+			final ByteArrayId primaryIndexId,
+			final String... visibility ) {
+		final CloseableIterator<SecondaryIndexEntry> it = queryEntries(
+				secondaryIndex,
+				ranges,
+				constraints,
+				primaryIndexId,
+				visibility);
+		return new CloseableIteratorWrapper<ByteArrayId>(
+				it,
+				Iterators.transform(
+						it,
+						new Function<SecondaryIndexEntry, ByteArrayId>() {
+							@Override
+							public ByteArrayId apply(
+									final SecondaryIndexEntry entry ) {
+								return entry.primaryIndexRowId;
+							}
+						}));
+	}
+
+	private CloseableIterator<SecondaryIndexEntry> queryEntries(
+			final SecondaryIndex<?> secondaryIndex,
+			final List<ByteArrayRange> ranges,
+			final List<DistributableQueryFilter> constraints,
+			final ByteArrayId primaryIndexId,
+			final String... visibility ) {
+		final DistributableFilterList filterList = new DistributableFilterList(
+				false,
+				constraints);
+		final CloseableIterator<SecondaryIndexEntry> it = scan(
+				getTableName(secondaryIndex),
+				((ranges == null) || ranges.isEmpty()) ? null : ByteArrayRange.mergeIntersections(
+						ranges,
+						MergeOperation.UNION));
+		return new CloseableIteratorWrapper<SecondaryIndexEntry>(
+				it,
+				Iterators.filter(
+						it,
+						new Predicate<SecondaryIndexEntry>() {
+							@Override
+							public boolean apply(
+									final SecondaryIndexEntry entry ) {
+								if (!primaryIndexId.equals(entry.primaryIndexId) || !DataStoreUtils.isAuthorized(
+										entry.visibility,
+										visibility)) {
+									return false;
+								}
+								return filterList.accept(
+										null,
+										new IndexedPersistenceEncoding<ByteArrayId>(
+												null, // not needed
+												null, // not needed
+												null, // not needed
+												0, // not needed
+												new PersistentDataset<ByteArrayId>(
+														entry.getAttribute()),
+												null));
+							}
+						}));
+	}
+
+	private CloseableIterator<SecondaryIndexEntry> scan(
+			final String tableName,
+			final List<ByteArrayRange> ranges ) {
+		final CloseableIterator<Entry<byte[], byte[]>> it = operations.scan(
+				tableName,
+				ranges);
+		return new CloseableIteratorWrapper<SecondaryIndexEntry>(
+				it,
+				Iterators.transform(
+						it,
+						new Function<Entry<byte[], byte[]>, SecondaryIndexEntry>() {
+							@Override
+							public SecondaryIndexEntry apply(
+									final Entry<byte[], byte[]> entry ) {
+								return new SecondaryIndexEntry(
+										entry.getKey(),
+										entry.getValue());
+							}
+						}));
+	}
+
+	@Override
+	public synchronized void flush() {
+		for (final LevelDBOperations.Writer writer : writerCache.values()) {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * A single indexed attribute of a primary index row. The key is the
+	 * insertion ID, field ID and primary index row ID followed by the lengths
+	 * of the insertion ID and field ID, and the value holds the primary index
+	 * ID, the attribute value and its visibility.
+	 */
+	private static class SecondaryIndexEntry
+	{
+		private final byte[] key;
+		private final ByteArrayId insertionId;
+		private final ByteArrayId fieldId;
+		private final ByteArrayId primaryIndexRowId;
+		private final ByteArrayId primaryIndexId;
+		private final ByteArrayId attributeValue;
+		private final byte[] visibility;
+
+		private SecondaryIndexEntry(
+				final byte[] key,
+				final byte[] value ) {
+			this.key = key;
+			final ByteBuffer keyBuf = ByteBuffer.wrap(key);
+			keyBuf.position(key.length - 8);
+			final int insertionIdLength = keyBuf.getInt();
+			final int fieldIdLength = keyBuf.getInt();
+			insertionId = new ByteArrayId(
+					Arrays.copyOfRange(
+							key,
+							0,
+							insertionIdLength));
+			fieldId = new ByteArrayId(
+					Arrays.copyOfRange(
+							key,
+							insertionIdLength,
+							insertionIdLength + fieldIdLength));
+			primaryIndexRowId = new ByteArrayId(
+					Arrays.copyOfRange(
+							key,
+							insertionIdLength + fieldIdLength,
+							key.length - 8));
+			final ByteBuffer valueBuf = ByteBuffer.wrap(value);
+			final byte[] primaryIndexIdBytes = new byte[valueBuf.getInt()];
+			valueBuf.get(primaryIndexIdBytes);
+			primaryIndexId = new ByteArrayId(
+					primaryIndexIdBytes);
+			final byte[] attributeValueBytes = new byte[valueBuf.getInt()];
+			valueBuf.get(attributeValueBytes);
+			attributeValue = new ByteArrayId(
+					attributeValueBytes);
+			visibility = new byte[valueBuf.remaining()];
+			valueBuf.get(visibility);
+		}
+
+		private PersistentValue<ByteArrayId> getAttribute() {
+			return new PersistentValue<ByteArrayId>(
+					fieldId,
+					attributeValue);
+		}
+
+		private static byte[] getKey(
+				final byte[] insertionId,
+				final byte[] fieldId,
+				final byte[] primaryIndexRowId ) {
+			final ByteBuffer buf = ByteBuffer.allocate(insertionId.length + fieldId.length + primaryIndexRowId.length
+					+ 8);
+			buf.put(insertionId);
+			buf.put(fieldId);
+			buf.put(primaryIndexRowId);
+			buf.putInt(insertionId.length);
+			buf.putInt(fieldId.length);
+			return buf.array();
+		}
+
+		private static byte[] getValue(
+				final byte[] primaryIndexId,
+				final byte[] attributeValue,
+				final byte[] visibility ) {
+			final byte[] visibilityBytes = visibility == null ? new byte[0] : visibility;
+			final ByteBuffer buf = ByteBuffer.allocate(primaryIndexId.length + attributeValue.length
+					+ visibilityBytes.length + 8);
+			buf.putInt(primaryIndexId.length);
+			buf.put(primaryIndexId);
+			buf.putInt(attributeValue.length);
+			buf.put(attributeValue);
+			buf.put(visibilityBytes);
+			return buf.array();
+		}
+	}
+}
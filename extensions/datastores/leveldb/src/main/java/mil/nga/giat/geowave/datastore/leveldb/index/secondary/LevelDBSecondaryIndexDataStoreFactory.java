@@ -0,0 +1,18 @@
+package mil.nga.giat.geowave.datastore.leveldb.index.secondary;
+
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.core.store.index.SecondaryIndexDataStore;
+import mil.nga.giat.geowave.datastore.leveldb.AbstractLevelDBStoreFactory;
+
+public class LevelDBSecondaryIndexDataStoreFactory extends
+		AbstractLevelDBStoreFactory<SecondaryIndexDataStore>
+{
+
+	@Override
+	public SecondaryIndexDataStore createStore(
+			final StoreFactoryOptions options ) {
+		return new LevelDBSecondaryIndexDataStore(
+				createOperations(getRequiredOptions(options)));
+	}
+
+}
@@ -0,0 +1,427 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterators;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.Persistable;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.CloseableIteratorWrapper;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+/**
+ * This abstract class does most of the work for storing persistable objects in
+ * LevelDB and can be easily extended for any object that needs to be persisted.
+ *
+ * All metadata is kept in a single metadata table. The key of each object is
+ * the persistence type name, the primary ID and the optional secondary ID, so
+ * the objects of a type, and the objects with the same primary ID, are stored
+ * next to each other. There is an LRU cache associated with it so staying in
+ * sync with external updates is not practical - it assumes the objects are not
+ * updated often or at all.
+ */
+public abstract class AbstractLevelDBPersistence<T extends Persistable>
+{
+	public final static String METADATA_TABLE = "GEOWAVE_METADATA";
+	private final static Logger LOGGER = Logger.getLogger(AbstractLevelDBPersistence.class);
+	protected final LevelDBOperations operations;
+
+	private static final int MAX_ENTRIES = 100;
+	protected final Map<ByteArrayId, T> cache = Collections.synchronizedMap(new LinkedHashMap<ByteArrayId, T>(
+			MAX_ENTRIES + 1,
+			.75F,
+			true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean removeEldestEntry(
+				final Map.Entry<ByteArrayId, T> eldest ) {
+			return size() > MAX_ENTRIES;
+		}
+	});
+
+	public AbstractLevelDBPersistence(
+			final LevelDBOperations operations ) {
+		this.operations = operations;
+	}
+
+	abstract protected ByteArrayId getPrimaryId(
+			T persistedObject );
+
+	abstract protected String getPersistenceTypeName();
+
+	protected ByteArrayId getSecondaryId(
+			final T persistedObject ) {
+		return null;
+	}
+
+	protected String getTablename() {
+		return METADATA_TABLE;
+	}
+
+	/**
+	 *
+	 * @param object
+	 *            the persisted object
+	 * @param authorizations
+	 *            the authorizations of the caller
+	 * @return true if the object can be read with the given authorizations
+	 */
+	protected boolean isAuthorized(
+			final T object,
+			final String... authorizations ) {
+		return true;
+	}
+
+	private byte[] getTypePrefix() {
+		final byte[] typeName = StringUtils.stringToBinary(getPersistenceTypeName());
+		return Arrays.copyOf(
+				typeName,
+				typeName.length + 1);
+	}
+
+	/**
+	 *
+	 * @return the key prefix shared by every object with the primary ID, or by
+	 *         every object of this type if the primary ID is null
+	 */
+	private byte[] getKeyPrefix(
+			final ByteArrayId primaryId ) {
+		final byte[] typePrefix = getTypePrefix();
+		if (primaryId == null) {
+			return typePrefix;
+		}
+		final byte[] primaryIdBytes = primaryId.getBytes();
+		final ByteBuffer buf = ByteBuffer.allocate(typePrefix.length + 4 + primaryIdBytes.length);
+		buf.put(typePrefix);
+		buf.putInt(primaryIdBytes.length);
+		buf.put(primaryIdBytes);
+		return buf.array();
+	}
+
+	private byte[] getKey(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		final byte[] prefix = getKeyPrefix(primaryId);
+		if (secondaryId == null) {
+			return prefix;
+		}
+		final byte[] secondaryIdBytes = secondaryId.getBytes();
+		final byte[] key = Arrays.copyOf(
+				prefix,
+				prefix.length + secondaryIdBytes.length);
+		System.arraycopy(
+				secondaryIdBytes,
+				0,
+				key,
+				prefix.length,
+				secondaryIdBytes.length);
+		return key;
+	}
+
+	/**
+	 *
+	 * @return the secondary ID stored within the key, or null if the object has
+	 *         no secondary ID
+	 */
+	protected ByteArrayId getSecondaryId(
+			final byte[] key ) {
+		final ByteBuffer buf = ByteBuffer.wrap(key);
+		buf.position(getTypePrefix().length);
+		final int offset = buf.position() + 4 + buf.getInt();
+		if (offset >= key.length) {
+			return null;
+		}
+		return new ByteArrayId(
+				Arrays.copyOfRange(
+						key,
+						offset,
+						key.length));
+	}
+
+	protected ByteArrayId getCombinedId(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		// the secondaryId is optional so check for null
+		if (secondaryId != null) {
+			return new ByteArrayId(
+					primaryId.getString() + "_" + secondaryId.getString());
+		}
+		return primaryId;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected T entryToValue(
+			final byte[] key,
+			final byte[] value ) {
+		final T result = (T) PersistenceUtils.fromBinary(
+				value,
+				Persistable.class);
+		if (result != null) {
+			addObjectToCache(result);
+		}
+		return result;
+	}
+
+	protected void addObjectToCache(
+			final T object ) {
+		final ByteArrayId combinedId = getCombinedId(
+				getPrimaryId(object),
+				getSecondaryId(object));
+		cache.put(
+				combinedId,
+				object);
+	}
+
+	protected Object getObjectFromCache(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		final ByteArrayId combinedId = getCombinedId(
+				primaryId,
+				secondaryId);
+		return cache.get(combinedId);
+	}
+
+	protected boolean deleteObjectFromCache(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		final ByteArrayId combinedId = getCombinedId(
+				primaryId,
+				secondaryId);
+		return (cache.remove(combinedId) != null);
+	}
+
+	public void clearCache() {
+		cache.clear();
+	}
+
+	protected T getObject(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId,
+			final String... authorizations ) {
+		final T object = readObject(
+				primaryId,
+				secondaryId);
+		if (object == null) {
+			LOGGER.warn("Object '" + getCombinedId(
+					primaryId,
+					secondaryId).getString() + "' not found");
+			return null;
+		}
+		if (isAuthorized(
+				object,
+				authorizations)) {
+			return object;
+		}
+		return null;
+	}
+
+	/**
+	 *
+	 * @return the object with the given IDs regardless of its visibility, or
+	 *         null if it does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	protected T readObject(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		final T object = (T) getObjectFromCache(
+				primaryId,
+				secondaryId);
+		if (object != null) {
+			return object;
+		}
+		final byte[] key = getKey(
+				primaryId,
+				secondaryId);
+		final byte[] value = operations.get(
+				getTablename(),
+				key);
+		if (value == null) {
+			return null;
+		}
+		return entryToValue(
+				key,
+				value);
+	}
+
+	protected boolean objectExists(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId ) {
+		if (getObjectFromCache(
+				primaryId,
+				secondaryId) != null) {
+			return true;
+		}
+		return operations.get(
+				getTablename(),
+				getKey(
+						primaryId,
+						secondaryId)) != null;
+	}
+
+	protected void addObject(
+			final T object ) {
+		addObjectToCache(object);
+		operations.put(
+				getTablename(),
+				getKey(
+						getPrimaryId(object),
+						getSecondaryId(object)),
+				PersistenceUtils.toBinary(object));
+	}
+
+	protected CloseableIterator<T> getObjects(
+			final String... authorizations ) {
+		return getObjects(
+				null,
+				null,
+				authorizations);
+	}
+
+	protected CloseableIterator<T> getAllObjectsWithSecondaryId(
+			final ByteArrayId secondaryId,
+			final String... authorizations ) {
+		return getObjects(
+				null,
+				secondaryId,
+				authorizations);
+	}
+
+	/**
+	 *
+	 * @return the objects with the primary ID and secondary ID, either of which
+	 *         matches every object when null
+	 */
+	private CloseableIterator<T> getObjects(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId,
+			final String... authorizations ) {
+		final CloseableIterator<Entry<byte[], byte[]>> it = scan(primaryId);
+		return new CloseableIteratorWrapper<T>(
+				it,
+				Iterators.filter(
+						Iterators.transform(
+								Iterators.filter(
+										it,
+										new SecondaryIdPredicate(
+												secondaryId)),
+								new Function<Entry<byte[], byte[]>, T>() {
+									@Override
+									public T apply(
+											final Entry<byte[], byte[]> entry ) {
+										final T object = entryToValue(
+												entry.getKey(),
+												entry.getValue());
+										return (object != null) && isAuthorized(
+												object,
+												authorizations) ? object : null;
+									}
+								}),
+						Predicates.notNull()));
+	}
+
+	private CloseableIterator<Entry<byte[], byte[]>> scan(
+			final ByteArrayId primaryId ) {
+		final ByteArrayId prefix = new ByteArrayId(
+				getKeyPrefix(primaryId));
+		return operations.scan(
+				getTablename(),
+				Collections.singletonList(new ByteArrayRange(
+						prefix,
+						prefix)));
+	}
+
+	/**
+	 * Deletes the objects with the primary ID and secondary ID, either of which
+	 * matches every object when null
+	 *
+	 * @return true if any object was deleted
+	 */
+	public boolean deleteObjects(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId,
+			final String... authorizations ) {
+		if ((primaryId != null) && (secondaryId != null)) {
+			final byte[] key = getKey(
+					primaryId,
+					secondaryId);
+			if (operations.get(
+					getTablename(),
+					key) == null) {
+				return false;
+			}
+			operations.delete(
+					getTablename(),
+					key);
+			return true;
+		}
+		// the cache is keyed by the object IDs so drop every cached object
+		clearCache();
+		boolean deleted = false;
+		final LevelDBOperations.Writer deleter = operations.createWriter(getTablename());
+		try (CloseableIterator<Entry<byte[], byte[]>> it = scan(primaryId)) {
+			final Iterator<Entry<byte[], byte[]>> matches = Iterators.filter(
+					it,
+					new SecondaryIdPredicate(
+							secondaryId));
+			while (matches.hasNext()) {
+				deleter.delete(matches.next().getKey());
+				deleted = true;
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close scan of " + getTablename(),
+					e);
+		}
+		deleter.close();
+		return deleted;
+	}
+
+	protected boolean deleteObject(
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId,
+			final String... authorizations ) {
+		deleteObjectFromCache(
+				primaryId,
+				secondaryId);
+		return deleteObjects(
+				primaryId,
+				secondaryId,
+				authorizations);
+	}
+
+	private class SecondaryIdPredicate implements
+			Predicate<Entry<byte[], byte[]>>
+	{
+		private final ByteArrayId secondaryId;
+
+		private SecondaryIdPredicate(
+				final ByteArrayId secondaryId ) {
+			this.secondaryId = secondaryId;
+		}
+
+		@Override
+		public boolean apply(
+				final Entry<byte[], byte[]> entry ) {
+			return (secondaryId == null) || secondaryId.equals(getSecondaryId(entry.getKey()));
+		}
+	}
+}
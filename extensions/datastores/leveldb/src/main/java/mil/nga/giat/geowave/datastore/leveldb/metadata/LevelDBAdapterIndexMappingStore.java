@@ -0,0 +1,75 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.AdapterToIndexMapping;
+import mil.nga.giat.geowave.core.store.adapter.AdapterIndexMappingStore;
+import mil.nga.giat.geowave.core.store.adapter.exceptions.MismatchedIndexToAdapterMapping;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+/**
+ * This class will persist Adapter Index Mappings within the LevelDB metadata
+ * table. The assumption is that a mapping between an adapter and indexing is
+ * consistent across all visibility constraints.
+ */
+public class LevelDBAdapterIndexMappingStore extends
+		AbstractLevelDBPersistence<AdapterToIndexMapping> implements
+		AdapterIndexMappingStore
+{
+	private static final String ADAPTER_INDEX_CF = "AIM";
+
+	public LevelDBAdapterIndexMappingStore(
+			final LevelDBOperations operations ) {
+		super(
+				operations);
+	}
+
+	@Override
+	protected ByteArrayId getPrimaryId(
+			final AdapterToIndexMapping persistedObject ) {
+		return persistedObject.getAdapterId();
+	}
+
+	@Override
+	protected String getPersistenceTypeName() {
+		return ADAPTER_INDEX_CF;
+	}
+
+	@Override
+	public AdapterToIndexMapping getIndicesForAdapter(
+			final ByteArrayId adapterId ) {
+		final AdapterToIndexMapping mapping = getObject(
+				adapterId,
+				null);
+		return (mapping != null) ? mapping : new AdapterToIndexMapping(
+				adapterId,
+				new ByteArrayId[0]);
+	}
+
+	@Override
+	public void addAdapterIndexMapping(
+			final AdapterToIndexMapping mapping )
+			throws MismatchedIndexToAdapterMapping {
+		if (objectExists(
+				mapping.getAdapterId(),
+				null)) {
+			final AdapterToIndexMapping oldMapping = getObject(
+					mapping.getAdapterId(),
+					null);
+			if (!oldMapping.equals(mapping)) {
+				throw new MismatchedIndexToAdapterMapping(
+						oldMapping);
+			}
+		}
+		else {
+			addObject(mapping);
+		}
+	}
+
+	@Override
+	public void remove(
+			final ByteArrayId adapterId ) {
+		deleteObject(
+				adapterId,
+				null);
+	}
+}
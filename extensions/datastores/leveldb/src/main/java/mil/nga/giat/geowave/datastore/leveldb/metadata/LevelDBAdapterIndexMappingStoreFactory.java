@@ -0,0 +1,18 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.core.store.adapter.AdapterIndexMappingStore;
+import mil.nga.giat.geowave.datastore.leveldb.AbstractLevelDBStoreFactory;
+
+public class LevelDBAdapterIndexMappingStoreFactory extends
+		AbstractLevelDBStoreFactory<AdapterIndexMappingStore>
+{
+
+	@Override
+	public AdapterIndexMappingStore createStore(
+			final StoreFactoryOptions options ) {
+		return new LevelDBAdapterIndexMappingStore(
+				createOperations(getRequiredOptions(options)));
+	}
+
+}
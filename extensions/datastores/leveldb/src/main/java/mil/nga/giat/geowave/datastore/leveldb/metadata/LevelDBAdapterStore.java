@@ -0,0 +1,61 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+/**
+ * This class will persist Data Adapters within the LevelDB metadata table.
+ */
+public class LevelDBAdapterStore extends
+		AbstractLevelDBPersistence<DataAdapter<?>> implements
+		AdapterStore
+{
+	private static final String ADAPTER_CF = "ADAPTER";
+
+	public LevelDBAdapterStore(
+			final LevelDBOperations operations ) {
+		super(
+				operations);
+	}
+
+	@Override
+	public void addAdapter(
+			final DataAdapter<?> adapter ) {
+		addObject(adapter);
+	}
+
+	@Override
+	public DataAdapter<?> getAdapter(
+			final ByteArrayId adapterId ) {
+		return getObject(
+				adapterId,
+				null);
+	}
+
+	@Override
+	public boolean adapterExists(
+			final ByteArrayId adapterId ) {
+		return objectExists(
+				adapterId,
+				null);
+	}
+
+	@Override
+	public CloseableIterator<DataAdapter<?>> getAdapters() {
+		return getObjects();
+	}
+
+	@Override
+	protected ByteArrayId getPrimaryId(
+			final DataAdapter<?> persistedObject ) {
+		return persistedObject.getAdapterId();
+	}
+
+	@Override
+	protected String getPersistenceTypeName() {
+		return ADAPTER_CF;
+	}
+}
@@ -0,0 +1,18 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.datastore.leveldb.AbstractLevelDBStoreFactory;
+
+public class LevelDBAdapterStoreFactory extends
+		AbstractLevelDBStoreFactory<AdapterStore>
+{
+
+	@Override
+	public AdapterStore createStore(
+			final StoreFactoryOptions options ) {
+		return new LevelDBAdapterStore(
+				createOperations(getRequiredOptions(options)));
+	}
+
+}
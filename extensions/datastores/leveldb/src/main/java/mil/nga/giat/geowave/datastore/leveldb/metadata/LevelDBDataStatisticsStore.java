@@ -0,0 +1,157 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import org.apache.log4j.Logger;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.memory.DataStoreUtils;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+/**
+ * This class will persist Data Statistics within the LevelDB metadata table,
+ * keyed by the statistics ID and the adapter ID. LevelDB has no server-side
+ * combiner, so incorporating statistics merges them with the persisted
+ * statistics before writing them back.
+ */
+public class LevelDBDataStatisticsStore extends
+		AbstractLevelDBPersistence<DataStatistics<?>> implements
+		DataStatisticsStore
+{
+	private final static Logger LOGGER = Logger.getLogger(LevelDBDataStatisticsStore.class);
+	private static final String STATISTICS_CF = "STATS";
+
+	public LevelDBDataStatisticsStore(
+			final LevelDBOperations operations ) {
+		super(
+				operations);
+	}
+
+	@Override
+	public void setStatistics(
+			final DataStatistics<?> statistics ) {
+		addObject(statistics);
+	}
+
+	@Override
+	public synchronized void incorporateStatistics(
+			final DataStatistics<?> statistics ) {
+		DataStatistics<?> existingStats = readObject(
+				statistics.getStatisticsId(),
+				statistics.getDataAdapterId());
+		if (existingStats == null) {
+			addObject(statistics);
+		}
+		else {
+			// merge into a copy so that the cached statistics are only replaced
+			// once they are written
+			existingStats = PersistenceUtils.fromBinary(
+					PersistenceUtils.toBinary(existingStats),
+					DataStatistics.class);
+			existingStats.setDataAdapterId(statistics.getDataAdapterId());
+			existingStats.merge(statistics);
+			addObject(existingStats);
+		}
+	}
+
+	@Override
+	public CloseableIterator<DataStatistics<?>> getDataStatistics(
+			final ByteArrayId adapterId,
+			final String... authorizations ) {
+		return getAllObjectsWithSecondaryId(
+				adapterId,
+				authorizations);
+	}
+
+	@Override
+	public CloseableIterator<DataStatistics<?>> getAllDataStatistics(
+			final String... authorizations ) {
+		return getObjects(authorizations);
+	}
+
+	@Override
+	public DataStatistics<?> getDataStatistics(
+			final ByteArrayId adapterId,
+			final ByteArrayId statisticsId,
+			final String... authorizations ) {
+		return getObject(
+				statisticsId,
+				adapterId,
+				authorizations);
+	}
+
+	@Override
+	public boolean removeStatistics(
+			final ByteArrayId adapterId,
+			final ByteArrayId statisticsId,
+			final String... authorizations ) {
+		if (statisticsId == null) {
+			LOGGER.error("No statistics id specified for removeStatistics, ignoring request!");
+			return false;
+		}
+		return deleteObject(
+				statisticsId,
+				adapterId,
+				authorizations);
+	}
+
+	@Override
+	public void removeAllStatistics(
+			final ByteArrayId adapterId,
+			final String... authorizations ) {
+		deleteObjects(
+				null,
+				adapterId,
+				authorizations);
+	}
+
+	@Override
+	public void transformVisibility(
+			final ByteArrayId adapterId,
+			final String transformingRegex,
+			final String replacement,
+			final String... authorizations ) {
+		LOGGER.error("Transforming the visibility of statistics is not supported by the LevelDB data store");
+	}
+
+	@Override
+	protected ByteArrayId getPrimaryId(
+			final DataStatistics<?> persistedObject ) {
+		return persistedObject.getStatisticsId();
+	}
+
+	@Override
+	protected ByteArrayId getSecondaryId(
+			final DataStatistics<?> persistedObject ) {
+		return persistedObject.getDataAdapterId();
+	}
+
+	@Override
+	protected String getPersistenceTypeName() {
+		return STATISTICS_CF;
+	}
+
+	@Override
+	protected DataStatistics<?> entryToValue(
+			final byte[] key,
+			final byte[] value ) {
+		final DataStatistics<?> stats = super.entryToValue(
+				key,
+				value);
+		if (stats != null) {
+			stats.setDataAdapterId(getSecondaryId(key));
+		}
+		return stats;
+	}
+
+	@Override
+	protected boolean isAuthorized(
+			final DataStatistics<?> object,
+			final String... authorizations ) {
+		return DataStoreUtils.isAuthorized(
+				object.getVisibility(),
+				authorizations);
+	}
+}
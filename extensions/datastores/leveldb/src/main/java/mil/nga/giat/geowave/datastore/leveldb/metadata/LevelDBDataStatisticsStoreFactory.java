@@ -0,0 +1,18 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.datastore.leveldb.AbstractLevelDBStoreFactory;
+
+public class LevelDBDataStatisticsStoreFactory extends
+		AbstractLevelDBStoreFactory<DataStatisticsStore>
+{
+
+	@Override
+	public DataStatisticsStore createStore(
+			final StoreFactoryOptions options ) {
+		return new LevelDBDataStatisticsStore(
+				createOperations(getRequiredOptions(options)));
+	}
+
+}
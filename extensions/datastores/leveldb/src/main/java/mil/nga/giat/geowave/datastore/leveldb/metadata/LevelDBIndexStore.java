@@ -0,0 +1,61 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+/**
+ * This class will persist Indices within the LevelDB metadata table.
+ */
+public class LevelDBIndexStore extends
+		AbstractLevelDBPersistence<Index<?, ?>> implements
+		IndexStore
+{
+	private static final String INDEX_CF = "INDEX";
+
+	public LevelDBIndexStore(
+			final LevelDBOperations operations ) {
+		super(
+				operations);
+	}
+
+	@Override
+	public void addIndex(
+			final Index<?, ?> index ) {
+		addObject(index);
+	}
+
+	@Override
+	public Index<?, ?> getIndex(
+			final ByteArrayId indexId ) {
+		return getObject(
+				indexId,
+				null);
+	}
+
+	@Override
+	public boolean indexExists(
+			final ByteArrayId indexId ) {
+		return objectExists(
+				indexId,
+				null);
+	}
+
+	@Override
+	public CloseableIterator<Index<?, ?>> getIndices() {
+		return getObjects();
+	}
+
+	@Override
+	protected ByteArrayId getPrimaryId(
+			final Index<?, ?> persistedObject ) {
+		return persistedObject.getId();
+	}
+
+	@Override
+	protected String getPersistenceTypeName() {
+		return INDEX_CF;
+	}
+}
@@ -0,0 +1,18 @@
+package mil.nga.giat.geowave.datastore.leveldb.metadata;
+
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.datastore.leveldb.AbstractLevelDBStoreFactory;
+
+public class LevelDBIndexStoreFactory extends
+		AbstractLevelDBStoreFactory<IndexStore>
+{
+
+	@Override
+	public IndexStore createStore(
+			final StoreFactoryOptions options ) {
+		return new LevelDBIndexStore(
+				createOperations(getRequiredOptions(options)));
+	}
+
+}
@@ -0,0 +1,509 @@
+package mil.nga.giat.geowave.datastore.leveldb.operations;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import org.apache.log4j.Logger;
+import org.fusesource.leveldbjni.JniDBFactory;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteBatch;
+
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.memory.DataStoreUtils;
+import mil.nga.giat.geowave.datastore.leveldb.operations.config.LevelDBRequiredOptions;
+
+/**
+ * This class holds the connection to an embedded LevelDB database and provides
+ * the table operations used by the LevelDB data store. A LevelDB database is a
+ * single sorted key space, so each GeoWave table is kept as a range of keys
+ * prefixed by the qualified table name. Writes go to LevelDB's write-ahead log
+ * and memtable and are compacted into immutable sorted files in the background,
+ * so the files are never modified in place.
+ *
+ * Only one process can open a LevelDB directory at a time, so the database of
+ * each directory is opened once and shared by every store in this JVM until the
+ * JVM shuts down.
+ */
+public class LevelDBOperations
+{
+	private final static Logger LOGGER = Logger.getLogger(LevelDBOperations.class);
+	private static final byte TABLE_SEPARATOR = 0;
+	private static final int MAX_WRITE_BATCH_SIZE = 1000;
+	private static final Map<String, DB> DATABASES = new HashMap<String, DB>();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(
+				new Thread() {
+					@Override
+					public void run() {
+						closeDatabases();
+					}
+				});
+	}
+
+	private final DB db;
+	private final String tableNamespace;
+
+	public LevelDBOperations(
+			final String directory,
+			final String tableNamespace,
+			final long cacheSize )
+			throws IOException {
+		db = getDatabase(
+				new File(
+						directory),
+				cacheSize);
+		this.tableNamespace = tableNamespace;
+	}
+
+	public static LevelDBOperations createOperations(
+			final LevelDBRequiredOptions options )
+			throws IOException {
+		return new LevelDBOperations(
+				options.getDirectory(),
+				options.getGeowaveNamespace(),
+				options.getCacheSize());
+	}
+
+	private static synchronized DB getDatabase(
+			final File directory,
+			final long cacheSize )
+			throws IOException {
+		final String path = directory.getCanonicalPath();
+		DB db = DATABASES.get(path);
+		if (db == null) {
+			final Options options = new Options();
+			options.createIfMissing(true);
+			options.cacheSize(cacheSize);
+			db = JniDBFactory.factory.open(
+					directory,
+					options);
+			DATABASES.put(
+					path,
+					db);
+		}
+		return db;
+	}
+
+	private static synchronized void closeDatabases() {
+		for (final Entry<String, DB> database : DATABASES.entrySet()) {
+			try {
+				database.getValue().close();
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close LevelDB database '" + database.getKey() + "'",
+						e);
+			}
+		}
+		DATABASES.clear();
+	}
+
+	public String getTableNamespace() {
+		return tableNamespace;
+	}
+
+	private byte[] getTablePrefix(
+			final String tableName ) {
+		final byte[] qualifiedName = StringUtils.stringToBinary(DataStoreUtils.getQualifiedTableName(
+				tableNamespace,
+				tableName));
+		final byte[] prefix = Arrays.copyOf(
+				qualifiedName,
+				qualifiedName.length + 1);
+		prefix[qualifiedName.length] = TABLE_SEPARATOR;
+		return prefix;
+	}
+
+	private static byte[] concat(
+			final byte[] prefix,
+			final byte[] key ) {
+		final byte[] retVal = Arrays.copyOf(
+				prefix,
+				prefix.length + key.length);
+		System.arraycopy(
+				key,
+				0,
+				retVal,
+				prefix.length,
+				key.length);
+		return retVal;
+	}
+
+	public byte[] get(
+			final String tableName,
+			final byte[] key ) {
+		return db.get(concat(
+				getTablePrefix(tableName),
+				key));
+	}
+
+	public void put(
+			final String tableName,
+			final byte[] key,
+			final byte[] value ) {
+		db.put(
+				concat(
+						getTablePrefix(tableName),
+						key),
+				value);
+	}
+
+	public void delete(
+			final String tableName,
+			final byte[] key ) {
+		db.delete(concat(
+				getTablePrefix(tableName),
+				key));
+	}
+
+	/**
+	 *
+	 * @param tableName
+	 *            the table to write to
+	 * @return a writer that applies its puts and deletes atomically in batches
+	 */
+	public Writer createWriter(
+			final String tableName ) {
+		return new Writer(
+				getTablePrefix(tableName));
+	}
+
+	/**
+	 * Scans a table within sorted row ranges. As with the other data stores,
+	 * the end of each range is treated as a prefix so a range includes every
+	 * key starting with its end.
+	 *
+	 * @param tableName
+	 *            the table to scan
+	 * @param ranges
+	 *            the sorted, merged ranges to scan, or null to scan the whole
+	 *            table
+	 * @return the keys within the table and their values, in key order
+	 */
+	public CloseableIterator<Entry<byte[], byte[]>> scan(
+			final String tableName,
+			final List<ByteArrayRange> ranges ) {
+		return scan(
+				tableName,
+				ranges,
+				null);
+	}
+
+	/**
+	 * Scans a table within sorted row ranges, resuming after a key
+	 *
+	 * @param tableName
+	 *            the table to scan
+	 * @param ranges
+	 *            the sorted, merged ranges to scan, or null to scan the whole
+	 *            table
+	 * @param afterKey
+	 *            the key after which keys are returned, or null to scan from
+	 *            the start of the ranges
+	 * @return the keys within the table and their values, in key order
+	 */
+	public CloseableIterator<Entry<byte[], byte[]>> scan(
+			final String tableName,
+			final List<ByteArrayRange> ranges,
+			final byte[] afterKey ) {
+		return new RangeIterator(
+				db.iterator(),
+				getTablePrefix(tableName),
+				ranges,
+				afterKey);
+	}
+
+	/**
+	 * Deletes every key of a table
+	 *
+	 * @param tableName
+	 *            the table to delete
+	 */
+	public void deleteTable(
+			final String tableName ) {
+		final Writer writer = createWriter(tableName);
+		try (CloseableIterator<Entry<byte[], byte[]>> it = scan(
+				tableName,
+				null)) {
+			while (it.hasNext()) {
+				writer.delete(it.next().getKey());
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close scan of table '" + tableName + "'",
+					e);
+		}
+		writer.close();
+	}
+
+	/**
+	 * Compacts the files holding a table, dropping deleted and overwritten
+	 * entries
+	 *
+	 * @param tableName
+	 *            the table to compact
+	 */
+	public void compact(
+			final String tableName ) {
+		final byte[] prefix = getTablePrefix(tableName);
+		final byte[] end = Arrays.copyOf(
+				prefix,
+				prefix.length);
+		end[end.length - 1]++;
+		db.compactRange(
+				prefix,
+				end);
+	}
+
+	/**
+	 *
+	 * @return true if every key starting with the range end sorts before the
+	 *         key
+	 */
+	protected static boolean isAfter(
+			final byte[] key,
+			final int keyOffset,
+			final byte[] rangeEnd ) {
+		final int length = Math.min(
+				key.length - keyOffset,
+				rangeEnd.length);
+		for (int i = 0; i < length; i++) {
+			final int diff = (key[i + keyOffset] & 0xff) - (rangeEnd[i] & 0xff);
+			if (diff != 0) {
+				return diff > 0;
+			}
+		}
+		return false;
+	}
+
+	private static boolean startsWith(
+			final byte[] key,
+			final byte[] prefix ) {
+		if (key.length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (key[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int compare(
+			final byte[] a,
+			final byte[] b ) {
+		final int length = Math.min(
+				a.length,
+				b.length);
+		for (int i = 0; i < length; i++) {
+			final int diff = (a[i] & 0xff) - (b[i] & 0xff);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	/**
+	 * Accumulates puts and deletes of a table in a write batch so that they are
+	 * written to the log and memtable together
+	 */
+	public class Writer implements
+			Closeable
+	{
+		private final byte[] tablePrefix;
+		private WriteBatch batch;
+		private int batchSize = 0;
+
+		private Writer(
+				final byte[] tablePrefix ) {
+			this.tablePrefix = tablePrefix;
+			batch = db.createWriteBatch();
+		}
+
+		public synchronized void put(
+				final byte[] key,
+				final byte[] value ) {
+			batch.put(
+					concat(
+							tablePrefix,
+							key),
+					value);
+			if (++batchSize >= MAX_WRITE_BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		public synchronized void delete(
+				final byte[] key ) {
+			batch.delete(concat(
+					tablePrefix,
+					key));
+			if (++batchSize >= MAX_WRITE_BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		public synchronized void flush() {
+			if (batchSize == 0) {
+				return;
+			}
+			db.write(batch);
+			closeBatch();
+			batch = db.createWriteBatch();
+			batchSize = 0;
+		}
+
+		private void closeBatch() {
+			try {
+				batch.close();
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to close write batch",
+						e);
+			}
+		}
+
+		@Override
+		public synchronized void close() {
+			flush();
+			closeBatch();
+		}
+	}
+
+	/**
+	 * Iterates the keys of a table within sorted ranges by seeking to the start
+	 * of each range. The iterator reads from an implicit snapshot of the
+	 * database so it is not affected by concurrent writes.
+	 */
+	private class RangeIterator implements
+			CloseableIterator<Entry<byte[], byte[]>>
+	{
+		private final DBIterator it;
+		private final byte[] tablePrefix;
+		private final Iterator<ByteArrayRange> rangeIt;
+		private ByteArrayRange currentRange = null;
+		private boolean inRange;
+		private byte[] lastKey = null;
+		private byte[] currentKey = null;
+		private Entry<byte[], byte[]> next = null;
+		private boolean closed = false;
+
+		private RangeIterator(
+				final DBIterator it,
+				final byte[] tablePrefix,
+				final List<ByteArrayRange> ranges,
+				final byte[] afterKey ) {
+			this.it = it;
+			this.tablePrefix = tablePrefix;
+			// keys up to the key after which the scan resumes are skipped as
+			// if they had already been returned
+			lastKey = (afterKey == null) ? null : concat(
+					tablePrefix,
+					afterKey);
+			if (ranges == null) {
+				rangeIt = Collections.<ByteArrayRange> emptyIterator();
+				it.seek((lastKey == null) ? tablePrefix : lastKey);
+				inRange = true;
+			}
+			else {
+				rangeIt = ranges.iterator();
+				inRange = false;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null) {
+				if (inRange && it.hasNext()) {
+					final Entry<byte[], byte[]> entry = it.next();
+					final byte[] key = entry.getKey();
+					if (!startsWith(
+							key,
+							tablePrefix) || ((currentRange != null) && isAfter(
+							key,
+							tablePrefix.length,
+							currentRange.getEnd().getBytes()))) {
+						inRange = false;
+						continue;
+					}
+					// ranges with prefix ends can overlap, so never return a
+					// key that has already been returned
+					if ((lastKey != null) && (compare(
+							key,
+							lastKey) <= 0)) {
+						continue;
+					}
+					lastKey = key;
+					next = new SimpleImmutableEntry<byte[], byte[]>(
+							Arrays.copyOfRange(
+									key,
+									tablePrefix.length,
+									key.length),
+							entry.getValue());
+				}
+				else if (rangeIt.hasNext()) {
+					currentRange = rangeIt.next();
+					final byte[] start = concat(
+							tablePrefix,
+							currentRange.getStart().getBytes());
+					it.seek(((lastKey != null) && (compare(
+							lastKey,
+							start) > 0)) ? lastKey : start);
+					inRange = true;
+				}
+				else {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public Entry<byte[], byte[]> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final Entry<byte[], byte[]> retVal = next;
+			currentKey = lastKey;
+			next = null;
+			return retVal;
+		}
+
+		@Override
+		public void remove() {
+			if (currentKey == null) {
+				throw new IllegalStateException();
+			}
+			db.delete(currentKey);
+			currentKey = null;
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			if (!closed) {
+				closed = true;
+				it.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package mil.nga.giat.geowave.datastore.leveldb.operations.config;
+
+import com.beust.jcommander.Parameter;
+
+import mil.nga.giat.geowave.core.store.StoreFactoryOptions;
+
+public class LevelDBRequiredOptions extends
+		StoreFactoryOptions
+{
+	public static final String DIRECTORY_CONFIG_KEY = "directory";
+	public static final String CACHE_SIZE_CONFIG_KEY = "cacheSize";
+
+	@Parameter(names = {
+		"-d",
+		"--" + DIRECTORY_CONFIG_KEY
+	}, description = "The local directory holding the LevelDB database files", required = true)
+	private String directory;
+
+	@Parameter(names = "--" + CACHE_SIZE_CONFIG_KEY, description = "The size in bytes of the LevelDB block cache")
+	private long cacheSize = 64 * 1024 * 1024;
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(
+			final String directory ) {
+		this.directory = directory;
+	}
+
+	public long getCacheSize() {
+		return cacheSize;
+	}
+
+	public void setCacheSize(
+			final long cacheSize ) {
+		this.cacheSize = cacheSize;
+	}
+}
@@ -0,0 +1,493 @@
+package mil.nga.giat.geowave.datastore.leveldb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import mil.nga.giat.geowave.core.geotime.ingest.SpatialDimensionalityTypeProvider;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.EntryVisibilityHandler;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.ScanCallback;
+import mil.nga.giat.geowave.core.store.adapter.AbstractDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler;
+import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler.RowBuilder;
+import mil.nga.giat.geowave.core.store.adapter.PersistentIndexFieldHandler;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatisticsProvider;
+import mil.nga.giat.geowave.core.store.adapter.statistics.FieldTypeStatisticVisibility;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.data.field.FieldUtils;
+import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
+import mil.nga.giat.geowave.core.store.dimension.NumericDimensionField;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.query.AfterRowIdQuery;
+import mil.nga.giat.geowave.core.store.query.DataIdQuery;
+import mil.nga.giat.geowave.core.store.query.EverythingQuery;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.core.store.query.RowIdQuery;
+import mil.nga.giat.geowave.datastore.leveldb.operations.LevelDBOperations;
+
+public class LevelDBDataStoreTest
+{
+	private final GeometryFactory factory = new GeometryFactory();
+	private final PrimaryIndex index = new SpatialDimensionalityTypeProvider().createPrimaryIndex();
+	private final TestGeometryAdapter adapter = new TestGeometryAdapter();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private LevelDBOperations operations;
+
+	@Before
+	public void setUp()
+			throws IOException {
+		operations = new LevelDBOperations(
+				folder.newFolder().getAbsolutePath(),
+				"test",
+				8 * 1024 * 1024);
+	}
+
+	private List<ByteArrayId> ingest(
+			final LevelDBDataStore dataStore )
+			throws IOException {
+		final List<ByteArrayId> rowIds = new ArrayList<ByteArrayId>();
+		try (IndexWriter<TestGeometry> writer = dataStore.createWriter(
+				adapter,
+				index)) {
+			for (int i = 0; i < 100; i++) {
+				rowIds.addAll(writer.write(new TestGeometry(
+						factory.createPoint(new Coordinate(
+								i - 50,
+								(i / 2.0) - 25)),
+						"point" + i)));
+			}
+		}
+		return rowIds;
+	}
+
+	private static Set<String> getIds(
+			final CloseableIterator<?> it )
+			throws IOException {
+		final Set<String> ids = new HashSet<String>();
+		try {
+			while (it.hasNext()) {
+				assertTrue(ids.add(((TestGeometry) it.next()).id));
+			}
+		}
+		finally {
+			it.close();
+		}
+		return ids;
+	}
+
+	@Test
+	public void testSpatialQuery()
+			throws IOException {
+		final LevelDBDataStore dataStore = new LevelDBDataStore(
+				operations);
+		ingest(dataStore);
+
+		final Set<String> ids = getIds(dataStore.query(
+				new QueryOptions(
+						adapter,
+						index),
+				new SpatialQuery(
+						factory.toGeometry(new Envelope(
+								-10.5,
+								10.5,
+								-30,
+								30)))));
+		assertEquals(
+				21,
+				ids.size());
+		for (int i = 40; i <= 60; i++) {
+			assertTrue(ids.contains("point" + i));
+		}
+		assertEquals(
+				100,
+				getIds(
+						dataStore.query(
+								new QueryOptions(
+										adapter,
+										index),
+								new EverythingQuery())).size());
+	}
+
+	@Test
+	public void testPersistedAcrossStores()
+			throws IOException {
+		final List<ByteArrayId> rowIds = ingest(new LevelDBDataStore(
+				operations));
+
+		// a new store only sees what was written to the database
+		final LevelDBDataStore dataStore = new LevelDBDataStore(
+				operations);
+		assertTrue(dataStore.getAdapterStore().adapterExists(
+				adapter.getAdapterId()));
+		assertTrue(dataStore.getIndexStore().indexExists(
+				index.getId()));
+		final DataStatistics<?> count = dataStore.getStatisticsStore().getDataStatistics(
+				adapter.getAdapterId(),
+				CountDataStatistics.STATS_ID);
+		assertNotNull(count);
+		assertEquals(
+				100,
+				((CountDataStatistics<?>) count).getCount());
+
+		final Set<String> ids = getIds(dataStore.query(
+				new QueryOptions(
+						adapter,
+						index),
+				new RowIdQuery(
+						rowIds.subList(
+								10,
+								15))));
+		assertEquals(
+				5,
+				ids.size());
+		assertTrue(ids.contains("point10"));
+		assertTrue(ids.contains("point14"));
+	}
+
+	@Test
+	public void testDelete()
+			throws IOException {
+		final LevelDBDataStore dataStore = new LevelDBDataStore(
+				operations);
+		ingest(dataStore);
+
+		assertTrue(dataStore.delete(
+				new QueryOptions(
+						adapter,
+						index),
+				new DataIdQuery(
+						adapter.getAdapterId(),
+						new ByteArrayId(
+								"point42"))));
+		final Set<String> ids = getIds(dataStore.query(
+				new QueryOptions(
+						adapter,
+						index),
+				new EverythingQuery()));
+		assertEquals(
+				99,
+				ids.size());
+		assertFalse(ids.contains("point42"));
+		assertEquals(
+				99,
+				((CountDataStatistics<?>) dataStore.getStatisticsStore().getDataStatistics(
+						adapter.getAdapterId(),
+						CountDataStatistics.STATS_ID)).getCount());
+	}
+
+	@Test
+	public void testPageAfterRowId()
+			throws IOException {
+		final LevelDBDataStore dataStore = new LevelDBDataStore(
+				operations);
+		ingest(dataStore);
+
+		final SpatialQuery query = new SpatialQuery(
+				factory.toGeometry(new Envelope(
+						-10.5,
+						10.5,
+						-30,
+						30)));
+		final List<String> paged = new ArrayList<String>();
+		final ByteArrayId[] scannedRowId = new ByteArrayId[1];
+		final QueryOptions options = new QueryOptions(
+				adapter,
+				index);
+		options.setScanCallback(new ScanCallback<TestGeometry>() {
+			@Override
+			public void entryScanned(
+					final DataStoreEntryInfo entryInfo,
+					final TestGeometry entry ) {
+				scannedRowId[0] = entryInfo.getRowIds().get(
+						0);
+			}
+		});
+		ByteArrayId afterRowId = null;
+		do {
+			try (CloseableIterator<TestGeometry> it = dataStore.query(
+					options,
+					new AfterRowIdQuery(
+							query,
+							index,
+							afterRowId))) {
+				afterRowId = null;
+				int count = 0;
+				while (it.hasNext()) {
+					paged.add(it.next().id);
+					if (++count == 5) {
+						afterRowId = scannedRowId[0];
+						break;
+					}
+				}
+			}
+		}
+		while (afterRowId != null);
+		assertEquals(
+				21,
+				paged.size());
+		assertEquals(
+				21,
+				new HashSet<String>(
+						paged).size());
+		for (int i = 40; i <= 60; i++) {
+			assertTrue(paged.contains("point" + i));
+		}
+	}
+
+	protected static class TestGeometry
+	{
+		private final Geometry geom;
+		private final String id;
+
+		public TestGeometry(
+				final Geometry geom,
+				final String id ) {
+			this.geom = geom;
+			this.id = id;
+		}
+	}
+
+	protected static class TestGeometryAdapter extends
+			AbstractDataAdapter<TestGeometry> implements
+			StatisticsProvider<TestGeometry>
+	{
+		private static final ByteArrayId GEOM = new ByteArrayId(
+				"myGeo");
+		private static final ByteArrayId ID = new ByteArrayId(
+				"myId");
+
+		private static final PersistentIndexFieldHandler<TestGeometry, ? extends CommonIndexValue, Object> GEOM_FIELD_HANDLER = new PersistentIndexFieldHandler<TestGeometry, CommonIndexValue, Object>() {
+
+			@Override
+			public ByteArrayId[] getNativeFieldIds() {
+				return new ByteArrayId[] {
+					GEOM
+				};
+			}
+
+			@Override
+			public CommonIndexValue toIndexValue(
+					final TestGeometry row ) {
+				return new GeometryWrapper(
+						row.geom,
+						new byte[0]);
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public PersistentValue<Object>[] toNativeValues(
+					final CommonIndexValue indexValue ) {
+				return new PersistentValue[] {
+					new PersistentValue<Object>(
+							GEOM,
+							((GeometryWrapper) indexValue).getGeometry())
+				};
+			}
+
+			@Override
+			public byte[] toBinary() {
+				return new byte[0];
+			}
+
+			@Override
+			public void fromBinary(
+					final byte[] bytes ) {}
+		};
+
+		private static final EntryVisibilityHandler<TestGeometry> GEOMETRY_VISIBILITY_HANDLER = new FieldTypeStatisticVisibility<TestGeometry>(
+				GeometryWrapper.class);
+		private static final NativeFieldHandler<TestGeometry, Object> ID_FIELD_HANDLER = new NativeFieldHandler<TestGeometry, Object>() {
+
+			@Override
+			public ByteArrayId getFieldId() {
+				return ID;
+			}
+
+			@Override
+			public Object getFieldValue(
+					final TestGeometry row ) {
+				return row.id;
+			}
+		};
+
+		private static final List<NativeFieldHandler<TestGeometry, Object>> NATIVE_FIELD_HANDLER_LIST = new ArrayList<NativeFieldHandler<TestGeometry, Object>>();
+		private static final List<PersistentIndexFieldHandler<TestGeometry, ? extends CommonIndexValue, Object>> COMMON_FIELD_HANDLER_LIST = new ArrayList<PersistentIndexFieldHandler<TestGeometry, ? extends CommonIndexValue, Object>>();
+
+		static {
+			COMMON_FIELD_HANDLER_LIST.add(GEOM_FIELD_HANDLER);
+			NATIVE_FIELD_HANDLER_LIST.add(ID_FIELD_HANDLER);
+		}
+
+		public TestGeometryAdapter() {
+			super(
+					COMMON_FIELD_HANDLER_LIST,
+					NATIVE_FIELD_HANDLER_LIST);
+		}
+
+		@Override
+		public ByteArrayId getAdapterId() {
+			return new ByteArrayId(
+					"test");
+		}
+
+		@Override
+		public boolean isSupported(
+				final TestGeometry entry ) {
+			return true;
+		}
+
+		@Override
+		public ByteArrayId getDataId(
+				final TestGeometry entry ) {
+			return new ByteArrayId(
+					entry.id);
+		}
+
+		@SuppressWarnings({
+			"unchecked",
+			"rawtypes"
+		})
+		@Override
+		public FieldReader getReader(
+				final ByteArrayId fieldId ) {
+			if (fieldId.equals(GEOM)) {
+				return FieldUtils.getDefaultReaderForClass(Geometry.class);
+			}
+			else if (fieldId.equals(ID)) {
+				return FieldUtils.getDefaultReaderForClass(String.class);
+			}
+			return null;
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public FieldWriter getWriter(
+				final ByteArrayId fieldId ) {
+			if (fieldId.equals(GEOM)) {
+				return FieldUtils.getDefaultWriterForClass(Geometry.class);
+			}
+			else if (fieldId.equals(ID)) {
+				return FieldUtils.getDefaultWriterForClass(String.class);
+			}
+			return null;
+		}
+
+		@Override
+		public ByteArrayId[] getSupportedStatisticsIds() {
+			return new ByteArrayId[] {
+				CountDataStatistics.STATS_ID
+			};
+		}
+
+		@Override
+		public DataStatistics<TestGeometry> createDataStatistics(
+				final ByteArrayId statisticsId ) {
+			return new CountDataStatistics<TestGeometry>(
+					getAdapterId(),
+					statisticsId);
+		}
+
+		@Override
+		public EntryVisibilityHandler<TestGeometry> getVisibilityHandler(
+				final ByteArrayId statisticsId ) {
+			return GEOMETRY_VISIBILITY_HANDLER;
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		protected RowBuilder newBuilder() {
+			return new RowBuilder<TestGeometry, Object>() {
+				private String id;
+				private Geometry geom;
+
+				@Override
+				public void setField(
+						final PersistentValue<Object> fieldValue ) {
+					if (fieldValue.getId().equals(
+							GEOM)) {
+						geom = (Geometry) fieldValue.getValue();
+					}
+					else if (fieldValue.getId().equals(
+							ID)) {
+						id = (String) fieldValue.getValue();
+					}
+				}
+
+				@Override
+				public TestGeometry buildRow(
+						final ByteArrayId dataId ) {
+					return new TestGeometry(
+							geom,
+							id);
+				}
+			};
+		}
+
+		@Override
+		public int getPositionOfOrderedField(
+				final CommonIndexModel model,
+				final ByteArrayId fieldId ) {
+			int i = 0;
+			for (final NumericDimensionField<? extends CommonIndexValue> dimensionField : model.getDimensions()) {
+				if (fieldId.equals(dimensionField.getFieldId())) {
+					return i;
+				}
+				i++;
+			}
+			if (fieldId.equals(GEOM)) {
+				return i;
+			}
+			else if (fieldId.equals(ID)) {
+				return i + 1;
+			}
+			return -1;
+		}
+
+		@Override
+		public ByteArrayId getFieldIdForPosition(
+				final CommonIndexModel model,
+				final int position ) {
+			if (position < model.getDimensions().length) {
+				return model.getDimensions()[position].getFieldId();
+			}
+			else if (position == model.getDimensions().length) {
+				return GEOM;
+			}
+			else if (position == (model.getDimensions().length + 1)) {
+				return ID;
+			}
+			return null;
+		}
+	}
+}
@@ -24,6 +24,7 @@ import mil.nga.giat.geowave.core.ingest.GeoWaveData;
 import mil.nga.giat.geowave.core.ingest.IngestPluginBase;
 import mil.nga.giat.geowave.core.ingest.hdfs.mapreduce.IngestWithMapper;
 import mil.nga.giat.geowave.core.ingest.hdfs.mapreduce.IngestWithReducer;
+import mil.nga.giat.geowave.core.ingest.local.LocalStreamIngestPlugin;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
@@ -46,7 +47,8 @@ import org.xml.sax.SAXException;
  * the ingest framework.
  */
 public class GpxIngestPlugin extends
-		AbstractSimpleFeatureIngestPlugin<GpxTrack>
+		AbstractSimpleFeatureIngestPlugin<GpxTrack> implements
+		LocalStreamIngestPlugin<SimpleFeature>
 {
 
 	private final static Logger LOGGER = Logger.getLogger(GpxIngestPlugin.class);
@@ -213,6 +215,33 @@ public class GpxIngestPlugin extends
 		}
 	}
 
+	@Override
+	public CloseableIterator<GeoWaveData<SimpleFeature>> toGeoWaveData(
+			final InputStream input,
+			final String name,
+			final Collection<ByteArrayId> primaryIndexIds,
+			final String globalVisibility ) {
+		// the GPX consumer is a pull parser, so the stream is decoded as the
+		// iterator is consumed rather than being read fully into memory
+		final GpxTrack track = new GpxTrack();
+		track.setTrackid(currentFreeTrackId.getAndIncrement());
+		try {
+			return wrapIteratorWithFilters(new GPXConsumer(
+					input,
+					primaryIndexIds,
+					track.getTrackid().toString(),
+					getAdditionalData(track),
+					false,
+					globalVisibility));
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"Unable to convert GPX stream '" + name + "' to GeoWaveData",
+					e);
+			return new CloseableIterator.Empty<GeoWaveData<SimpleFeature>>();
+		}
+	}
+
 	@Override
 	public PrimaryIndex[] getRequiredIndices() {
 		return new PrimaryIndex[] {};
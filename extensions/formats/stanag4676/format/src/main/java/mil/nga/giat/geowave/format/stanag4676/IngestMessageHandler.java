@@ -49,7 +49,7 @@ public class IngestMessageHandler implements
 	private final WKBWriter wkbWriter = new WKBWriter(
 			3);
 	private final static String DEFAULT_IMAGE_FORMAT = "jpg";
-	private final List<KeyValueData<Text, Stanag4676EventWritable>> intermediateData = new ArrayList<KeyValueData<Text, Stanag4676EventWritable>>();
+	private List<KeyValueData<Text, Stanag4676EventWritable>> intermediateData = new ArrayList<KeyValueData<Text, Stanag4676EventWritable>>();
 
 	public IngestMessageHandler() {}
 
@@ -57,6 +57,18 @@ public class IngestMessageHandler implements
 		return intermediateData;
 	}
 
+	/**
+	 * Hands off the events emitted since the last call so that they are no
+	 * longer held by this handler
+	 *
+	 * @return the events emitted since the last call
+	 */
+	public List<KeyValueData<Text, Stanag4676EventWritable>> takeIntermediateData() {
+		final List<KeyValueData<Text, Stanag4676EventWritable>> data = intermediateData;
+		intermediateData = new ArrayList<KeyValueData<Text, Stanag4676EventWritable>>();
+		return data;
+	}
+
 	// Parses events sent out by 4676 parser code - each msg is a "Track" entry
 	// - here we extract what we want and emit it as a value to group up in the
 	// reducer
@@ -0,0 +1,94 @@
+package mil.nga.giat.geowave.format.stanag4676;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import mil.nga.giat.geowave.core.ingest.hdfs.mapreduce.KeyValueData;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.format.stanag4676.parser.StreamingNATO4676Decoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.TrackDecoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.IDdata;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.NATO4676Message;
+
+import org.apache.hadoop.io.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes a STANAG 4676 document lazily, one message at a time. The events of
+ * each decoded message, which for a track message is a single track, are handed
+ * to the caller before the next message is read from the stream, so only the
+ * events of one track are held at a time.
+ */
+public class Stanag4676EventIterator implements
+		CloseableIterator<KeyValueData<Text, Stanag4676EventWritable>>
+{
+	private final static Logger LOGGER = LoggerFactory.getLogger(Stanag4676EventIterator.class);
+	private final InputStream is;
+	private final TrackDecoder decoder = new StreamingNATO4676Decoder();
+	private final IngestMessageHandler handler = new IngestMessageHandler();
+	private final IDdata sender = new IDdata();
+	private Iterator<KeyValueData<Text, Stanag4676EventWritable>> currentEvents = Collections.emptyIterator();
+	private boolean finished = false;
+
+	public Stanag4676EventIterator(
+			final InputStream is ) {
+		this.is = is;
+		decoder.initialize();
+		sender.setStationId("GeoWave");
+		sender.setNationality("US");
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!currentEvents.hasNext() && !finished) {
+			final NATO4676Message msg = decoder.readNext(is);
+			if (msg == null) {
+				finished = true;
+				break;
+			}
+			msg.setSenderID(sender);
+			try {
+				handler.notify(msg);
+			}
+			catch (final IOException e) {
+				LOGGER.warn(
+						"Unable to process track message",
+						e);
+			}
+			catch (final InterruptedException e) {
+				LOGGER.warn(
+						"Interrupted while processing track message",
+						e);
+				Thread.currentThread().interrupt();
+				finished = true;
+			}
+			currentEvents = handler.takeIntermediateData().iterator();
+		}
+		return currentEvents.hasNext();
+	}
+
+	@Override
+	public KeyValueData<Text, Stanag4676EventWritable> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentEvents.next();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Cannot remove decoded track events");
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		finished = true;
+		is.close();
+	}
+}
@@ -1,7 +1,10 @@
 package mil.nga.giat.geowave.format.stanag4676;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -42,8 +45,6 @@ import mil.nga.giat.geowave.core.store.index.NullIndex;
 import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
 import mil.nga.giat.geowave.format.stanag4676.image.ImageChip;
 import mil.nga.giat.geowave.format.stanag4676.image.ImageChipDataAdapter;
-import mil.nga.giat.geowave.format.stanag4676.parser.NATO4676Decoder;
-import mil.nga.giat.geowave.format.stanag4676.parser.TrackFileReader;
 import mil.nga.giat.geowave.format.stanag4676.parser.util.EarthVector;
 import mil.nga.giat.geowave.format.stanag4676.parser.util.Length;
 
@@ -113,8 +114,23 @@ public class Stanag4676IngestPlugin extends
 			final File file,
 			final Collection<ByteArrayId> primaryIndexIds,
 			final String globalVisibility ) {
-		return ingestWithMapper().toGeoWaveData(
-				toAvroObjects(file)[0],
+		// decode straight from the file rather than reading it whole first
+		final InputStream is;
+		try {
+			is = new FileInputStream(
+					file);
+		}
+		catch (final FileNotFoundException e) {
+			LOGGER.warn(
+					"Unable to read file '" + file.getAbsolutePath() + "'",
+					e);
+			return new CloseableIterator.Wrapper<GeoWaveData<Object>>(
+					new ArrayList<GeoWaveData<Object>>().iterator());
+		}
+		return new IngestWithReducerImpl().toGeoWaveData(
+				new Stanag4676EventIterator(
+						is),
+				file.getAbsolutePath(),
 				primaryIndexIds,
 				globalVisibility);
 	}
@@ -223,15 +239,10 @@ public class Stanag4676IngestPlugin extends
 		@Override
 		public CloseableIterator<KeyValueData<Text, Stanag4676EventWritable>> toIntermediateMapReduceData(
 				final WholeFile input ) {
-			final TrackFileReader fileReader = new TrackFileReader();
-			fileReader.setDecoder(new NATO4676Decoder());
-			fileReader.setStreaming(true);
-			final IngestMessageHandler handler = new IngestMessageHandler();
-			fileReader.setHandler(handler);
-			fileReader.read(new ByteBufferBackedInputStream(
-					input.getOriginalFile()));
-			return new CloseableIterator.Wrapper<KeyValueData<Text, Stanag4676EventWritable>>(
-					handler.getIntermediateData().iterator());
+			// events are decoded as the caller iterates, one track at a time
+			return new Stanag4676EventIterator(
+					new ByteBufferBackedInputStream(
+							input.getOriginalFile()));
 		}
 
 		@Override
@@ -552,7 +563,19 @@ public class Stanag4676IngestPlugin extends
 				final WholeFile input,
 				final Collection<ByteArrayId> primaryIndexIds,
 				final String globalVisibility ) {
-			try (CloseableIterator<KeyValueData<Text, Stanag4676EventWritable>> intermediateData = toIntermediateMapReduceData(input)) {
+			return toGeoWaveData(
+					toIntermediateMapReduceData(input),
+					String.valueOf(input.getOriginalFilePath()),
+					primaryIndexIds,
+					globalVisibility);
+		}
+
+		private CloseableIterator<GeoWaveData<Object>> toGeoWaveData(
+				final CloseableIterator<KeyValueData<Text, Stanag4676EventWritable>> events,
+				final String filePath,
+				final Collection<ByteArrayId> primaryIndexIds,
+				final String globalVisibility ) {
+			try (CloseableIterator<KeyValueData<Text, Stanag4676EventWritable>> intermediateData = events) {
 				// this is much better done in the reducer of a map reduce job,
 				// this aggregation by track UUID is not memory efficient
 				final Map<Text, List<Stanag4676EventWritable>> trackUuidMap = new HashMap<Text, List<Stanag4676EventWritable>>();
@@ -580,7 +603,7 @@ public class Stanag4676IngestPlugin extends
 			}
 			catch (final IOException e) {
 				LOGGER.warn(
-						"Error closing file '" + input.getOriginalFilePath() + "'",
+						"Error closing file '" + filePath + "'",
 						e);
 			}
 			return new CloseableIterator.Wrapper<GeoWaveData<Object>>(
@@ -62,8 +62,8 @@ public class NATO4676Decoder implements
 {
 
 	HashMap<String, Track> trackMap = new HashMap<String, Track>();
-	private int trackStatsNumTracks = 0;
-	private int trackStatsNumDots = 0;
+	protected int trackStatsNumTracks = 0;
+	protected int trackStatsNumDots = 0;
 	private static Logger LOGGER = LoggerFactory.getLogger(NATO4676Decoder.class);
 
 	boolean printNotParse = false;
@@ -127,7 +127,7 @@ public class NATO4676Decoder implements
 		return msg;
 	}
 
-	private MissionSummaryMessage readMissionSummaryMessage(
+	protected MissionSummaryMessage readMissionSummaryMessage(
 			final Element element,
 			final Namespace xmlns ) {
 		final MissionSummaryMessage msg = new MissionSummaryMessage();
@@ -237,34 +237,45 @@ public class NATO4676Decoder implements
 		final Iterator<Element> childIter = children.iterator();
 		while (childIter.hasNext()) {
 			final Element child = childIter.next();
-			final String childName = child.getName();
-			final String childValue = child.getValue();
-			if ("stanagVersion".equals(childName)) {
-				msg.setFormatVersion(childValue);
-			}
-			else if ("messageSecurity".equals(childName)) {
-				msg.setSecurity(readSecurity(
-						child,
-						xmlns));
-			}
-			else if ("msgCreatedTime".equals(childName)) {
-				msg.setMessageTime(DateStringToLong(childValue));
-			}
-			else if ("senderId".equals(childName)) {
-				msg.setSenderID(readIDdata(
+			if ("tracks".equals(child.getName())) {
+				msg.addTrackEvent(readTrackEvent(
 						child,
 						xmlns));
 			}
-			else if ("tracks".equals(childName)) {
-				msg.addTrackEvent(readTrackEvent(
+			else {
+				readTrackMessageHeader(
+						msg,
 						child,
-						xmlns));
+						xmlns);
 			}
-
 		}
 		return msg;
 	}
 
+	protected void readTrackMessageHeader(
+			final TrackMessage msg,
+			final Element child,
+			final Namespace xmlns ) {
+		final String childName = child.getName();
+		final String childValue = child.getValue();
+		if ("stanagVersion".equals(childName)) {
+			msg.setFormatVersion(childValue);
+		}
+		else if ("messageSecurity".equals(childName)) {
+			msg.setSecurity(readSecurity(
+					child,
+					xmlns));
+		}
+		else if ("msgCreatedTime".equals(childName)) {
+			msg.setMessageTime(DateStringToLong(childValue));
+		}
+		else if ("senderId".equals(childName)) {
+			msg.setSenderID(readIDdata(
+					child,
+					xmlns));
+		}
+	}
+
 	private Security readSecurity(
 			final Element element,
 			final Namespace xmlns ) {
@@ -319,7 +330,7 @@ public class NATO4676Decoder implements
 		return id;
 	}
 
-	private TrackEvent readTrackEvent(
+	protected TrackEvent readTrackEvent(
 			final Element element,
 			final Namespace xmlns ) {
 		final TrackEvent trackEvent = new TrackEvent();
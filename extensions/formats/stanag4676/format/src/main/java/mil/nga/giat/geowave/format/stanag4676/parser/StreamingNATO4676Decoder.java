@@ -0,0 +1,188 @@
+package mil.nga.giat.geowave.format.stanag4676.parser;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import mil.nga.giat.geowave.format.stanag4676.parser.model.NATO4676Message;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+
+import org.jdom.Attribute;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pull-parsing variant of the NATO4676Decoder. Rather than building a
+ * document for the entire input, each call to readNext() advances the
+ * underlying stream only far enough to read the next "tracks" element and
+ * returns it as a TrackMessage carrying that single TrackEvent and a copy of
+ * the message header. Memory usage is therefore bounded by the size of the
+ * largest individual track rather than by the size of the file.
+ */
+public class StreamingNATO4676Decoder extends
+		NATO4676Decoder
+{
+	private static Logger LOGGER = LoggerFactory.getLogger(StreamingNATO4676Decoder.class);
+	private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+	private InputStream currentStream;
+	private XMLStreamReader reader;
+	private TrackMessage header;
+	private Namespace xmlns;
+
+	@Override
+	public void initialize() {
+		super.initialize();
+		close();
+	}
+
+	@Override
+	public NATO4676Message readNext(
+			final InputStream is ) {
+		try {
+			if ((reader == null) || (currentStream != is)) {
+				close();
+				currentStream = is;
+				reader = INPUT_FACTORY.createXMLStreamReader(is);
+				if (!toNextStartElement()) {
+					close();
+					return null;
+				}
+				xmlns = Namespace.getNamespace(nullToEmpty(reader.getNamespaceURI()));
+				final String rootName = reader.getLocalName();
+				if ("MissionSummary".equals(rootName)) {
+					// mission summaries are small, read them whole
+					final NATO4676Message msg = readMissionSummaryMessage(
+							readElement(),
+							xmlns);
+					close();
+					return msg;
+				}
+				else if (!"TrackMessage".equals(rootName)) {
+					close();
+					return null;
+				}
+				header = new TrackMessage();
+				header.setUuid(UUID.randomUUID());
+			}
+			if (header == null) {
+				return null;
+			}
+			while (toNextStartElement()) {
+				final Element child = readElement();
+				if ("tracks".equals(child.getName())) {
+					final TrackMessage msg = copyHeader();
+					msg.addTrackEvent(readTrackEvent(
+							child,
+							xmlns));
+					return msg;
+				}
+				readTrackMessageHeader(
+						header,
+						child,
+						xmlns);
+			}
+			LOGGER.info("TrackMessage read " + trackStatsNumTracks + " Tracks and " + trackStatsNumDots
+					+ " TrackPoints.");
+			close();
+		}
+		catch (final XMLStreamException e) {
+			LOGGER.info(
+					"Unable to parse track message",
+					e);
+			close();
+		}
+		return null;
+	}
+
+	private TrackMessage copyHeader() {
+		final TrackMessage msg = new TrackMessage();
+		msg.setUuid(header.getUuid());
+		msg.setFormatVersion(header.getFormatVersion());
+		msg.setSecurity(header.getSecurity());
+		msg.setMessageTime(header.getMessageTime());
+		msg.setSenderID(header.getSenderID());
+		return msg;
+	}
+
+	/**
+	 * Advances to the next start element at the current depth, returning
+	 * false if the enclosing element (or the document) ends first
+	 */
+	private boolean toNextStartElement()
+			throws XMLStreamException {
+		while (reader.hasNext()) {
+			final int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				return true;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Materializes the element the reader is currently positioned on, leaving
+	 * the reader on its end tag
+	 */
+	private Element readElement()
+			throws XMLStreamException {
+		final Element element = new Element(
+				reader.getLocalName(),
+				Namespace.getNamespace(
+						nullToEmpty(reader.getPrefix()),
+						nullToEmpty(reader.getNamespaceURI())));
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			final String uri = nullToEmpty(reader.getAttributeNamespace(i));
+			element.setAttribute(new Attribute(
+					reader.getAttributeLocalName(i),
+					reader.getAttributeValue(i),
+					uri.isEmpty() ? Namespace.NO_NAMESPACE : Namespace.getNamespace(
+							nullToEmpty(reader.getAttributePrefix(i)),
+							uri)));
+		}
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					element.addContent(readElement());
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+					element.addContent(reader.getText());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					return element;
+			}
+		}
+		return element;
+	}
+
+	private void close() {
+		if (reader != null) {
+			try {
+				reader.close();
+			}
+			catch (final XMLStreamException e) {
+				LOGGER.warn(
+						"Unable to close track message reader",
+						e);
+			}
+		}
+		reader = null;
+		currentStream = null;
+		header = null;
+	}
+
+	private static String nullToEmpty(
+			final String str ) {
+		return str == null ? "" : str;
+	}
+}
@@ -0,0 +1,52 @@
+package mil.nga.giat.geowave.format.stanag4676;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.ingest.hdfs.mapreduce.KeyValueData;
+
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class Stanag4676EventIteratorTest
+{
+	@Test
+	public void testEventsPerTrack()
+			throws IOException {
+		final List<String> trackIds = new ArrayList<String>();
+		final List<String> itemIds = new ArrayList<String>();
+		try (Stanag4676EventIterator it = new Stanag4676EventIterator(
+				getClass().getResourceAsStream(
+						"/tracks.xml"))) {
+			while (it.hasNext()) {
+				final KeyValueData<Text, Stanag4676EventWritable> next = it.next();
+				trackIds.add(next.getKey().toString());
+				itemIds.add(next.getValue().TrackItemUUID.toString());
+			}
+			assertFalse(it.hasNext());
+		}
+		// events are emitted in document order, one track at a time
+		assertEquals(
+				3,
+				trackIds.size());
+		assertEquals(
+				"11111111-1111-1111-1111-111111111111",
+				trackIds.get(0));
+		assertEquals(
+				"11111111-1111-1111-1111-111111111111",
+				trackIds.get(1));
+		assertEquals(
+				"22222222-2222-2222-2222-222222222222",
+				trackIds.get(2));
+		assertEquals(
+				"11111111-1111-1111-1111-000000000001",
+				itemIds.get(0));
+		assertEquals(
+				"22222222-2222-2222-2222-000000000001",
+				itemIds.get(2));
+	}
+}
@@ -0,0 +1,120 @@
+package mil.nga.giat.geowave.format.stanag4676.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import mil.nga.giat.geowave.format.stanag4676.parser.model.NATO4676Message;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackEvent;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackPoint;
+
+import org.junit.Test;
+
+public class StreamingNATO4676DecoderTest
+{
+	@Test
+	public void testOneTrackPerMessage()
+			throws IOException {
+		final List<TrackMessage> messages = new ArrayList<TrackMessage>();
+		final StreamingNATO4676Decoder decoder = new StreamingNATO4676Decoder();
+		decoder.initialize();
+		try (InputStream is = getClass().getResourceAsStream(
+				"/tracks.xml")) {
+			NATO4676Message msg;
+			while ((msg = decoder.readNext(is)) != null) {
+				assertTrue(msg instanceof TrackMessage);
+				messages.add((TrackMessage) msg);
+			}
+			// the stream is exhausted
+			assertNull(decoder.readNext(is));
+		}
+		assertEquals(
+				2,
+				messages.size());
+		for (final TrackMessage msg : messages) {
+			assertEquals(
+					1,
+					msg.getTracks().size());
+			assertEquals(
+					"0.14",
+					msg.getFormatVersion());
+			// every track carries the header of the same message
+			assertEquals(
+					messages.get(
+							0).getUuid(),
+					msg.getUuid());
+		}
+		assertEquals(
+				"11111111-1111-1111-1111-111111111111",
+				messages.get(
+						0).getTracks().get(
+						0).getUuid());
+		assertEquals(
+				"22222222-2222-2222-2222-222222222222",
+				messages.get(
+						1).getTracks().get(
+						0).getUuid());
+	}
+
+	@Test
+	public void testMatchesDocumentDecoder()
+			throws IOException {
+		final List<TrackEvent> streamedTracks = new ArrayList<TrackEvent>();
+		final StreamingNATO4676Decoder streamingDecoder = new StreamingNATO4676Decoder();
+		streamingDecoder.initialize();
+		try (InputStream is = getClass().getResourceAsStream(
+				"/tracks.xml")) {
+			NATO4676Message msg;
+			while ((msg = streamingDecoder.readNext(is)) != null) {
+				streamedTracks.addAll(((TrackMessage) msg).getTracks());
+			}
+		}
+		final TrackMessage document;
+		final NATO4676Decoder documentDecoder = new NATO4676Decoder();
+		documentDecoder.initialize();
+		try (InputStream is = getClass().getResourceAsStream(
+				"/tracks.xml")) {
+			document = (TrackMessage) documentDecoder.readNext(is);
+		}
+		assertEquals(
+				document.getTracks().size(),
+				streamedTracks.size());
+		for (int i = 0; i < streamedTracks.size(); i++) {
+			final TrackEvent expected = document.getTracks().get(
+					i);
+			final TrackEvent actual = streamedTracks.get(i);
+			assertEquals(
+					expected.getUuid(),
+					actual.getUuid());
+			assertEquals(
+					expected.getTrackNumber(),
+					actual.getTrackNumber());
+			assertEquals(
+					expected.getMissionId(),
+					actual.getMissionId());
+			assertEquals(
+					expected.getPoints().keySet(),
+					actual.getPoints().keySet());
+			final Iterator<TrackPoint> actualPoints = actual.getPoints().values().iterator();
+			for (final TrackPoint expectedPoint : expected.getPoints().values()) {
+				final TrackPoint actualPoint = actualPoints.next();
+				assertEquals(
+						expectedPoint.getUuid(),
+						actualPoint.getUuid());
+				assertEquals(
+						expectedPoint.getLocation().latitude,
+						actualPoint.getLocation().latitude);
+				assertEquals(
+						expectedPoint.getLocation().longitude,
+						actualPoint.getLocation().longitude);
+			}
+		}
+	}
+}
@@ -1,9 +1,15 @@
 package mil.nga.giat.geowave.service;
 
+import java.io.InputStream;
+
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -27,4 +33,32 @@ public interface IngestService
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response hdfsIngest(
 			final FormDataMultiPart multiPart );
+
+	// ingests the request body as it is received, without staging it to disk
+	// first; the ingest format is required and must support streaming input
+	@POST
+	@Path("/stream/{storeName}")
+	@Consumes(MediaType.APPLICATION_OCTET_STREAM)
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response streamIngest(
+			@PathParam("storeName")
+			final String storeName,
+			final InputStream input,
+			@QueryParam("fileName")
+			final String fileName,
+			@QueryParam("ingestFormat")
+			final String ingestFormat,
+			@QueryParam("dimType")
+			@DefaultValue("spatial")
+			final String dimType,
+			@QueryParam("visibility")
+			final String visibility );
+
+	// reports the state of an ingest submitted with the "async" form field
+	@GET
+	@Path("/status/{jobId}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response ingestStatus(
+			@PathParam("jobId")
+			final String jobId );
 }
@@ -0,0 +1,50 @@
+package mil.nga.giat.geowave.service;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+@Path("/query")
+public interface QueryService
+{
+	// the token of the next page of results, the row ID of the last feature
+	// of a page, is written after the features: as this member of a geojson
+	// feature collection, as a length of -1 and the length-prefixed token in
+	// wkb, or as the only attribute name of a final, empty avro collection
+	// whose feature type has this name
+	public static final String NEXT_PAGE_FIELD = "nextPage";
+
+	// streams the features of the given type matching the optional CQL
+	// filter, encoded as geojson, wkb or avro, resuming after the row of the
+	// given page token. Every page of a paged query is scanned in row order;
+	// on accumulo each page reads a single span from the token to the end of
+	// the query's last range, so a filter spread across many tiers or bins of
+	// the index may read most of the table per page
+	@GET
+	@Produces({
+		MediaType.APPLICATION_JSON,
+		MediaType.APPLICATION_OCTET_STREAM
+	})
+	@Path("/features/{storeName}/{adapterId}")
+	public Response queryFeatures(
+			@PathParam("storeName")
+			final String storeName,
+			@PathParam("adapterId")
+			final String adapterId,
+			@QueryParam("cql")
+			final String cql,
+			@QueryParam("indexId")
+			final String indexId,
+			@QueryParam("format")
+			@DefaultValue("geojson")
+			final String format,
+			@QueryParam("limit")
+			final Integer limit,
+			@QueryParam("page")
+			final String pageToken );
+}
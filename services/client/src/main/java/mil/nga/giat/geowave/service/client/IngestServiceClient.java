@@ -2,6 +2,7 @@ package mil.nga.giat.geowave.service.client;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.core.Response;
@@ -14,6 +15,8 @@ import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.glassfish.jersey.media.multipart.file.FileDataBodyPart;
 
+import net.sf.json.JSONObject;
+
 public class IngestServiceClient
 {
 	private final IngestService ingestService;
@@ -194,4 +197,99 @@ public class IngestServiceClient
 		final Response resp = ingestService.hdfsIngest(multiPart);
 		return resp.getStatus() == Status.OK.getStatusCode();
 	}
+
+	/**
+	 * Submits a local ingest to be run in the background, returning the job ID
+	 * to pass to {@link #getIngestStatus(String)}, or null if the submission
+	 * was rejected
+	 */
+	public String localIngestAsync(
+			final File[] inputFiles,
+			final String storeName,
+			final String namespace,
+			final String visibility,
+			final String ingestFormat,
+			final String dimType )
+			throws FileNotFoundException {
+		final FormDataMultiPart multiPart = new FormDataMultiPart();
+
+		for (final File file : inputFiles) {
+			multiPart.bodyPart(new FileDataBodyPart(
+					"file",
+					file));
+		}
+
+		multiPart.field(
+				"store",
+				storeName);
+
+		multiPart.field(
+				"namespace",
+				namespace);
+
+		if (visibility != null) {
+			multiPart.field(
+					"visibility",
+					visibility);
+		}
+
+		if (ingestFormat != null) {
+			multiPart.field(
+					"ingestFormat",
+					ingestFormat);
+		}
+
+		if (dimType != null) {
+			multiPart.field(
+					"dimType",
+					dimType);
+		}
+
+		multiPart.field(
+				"async",
+				Boolean.TRUE.toString());
+
+		final Response resp = ingestService.localIngest(multiPart);
+		if (resp.getStatus() != Status.ACCEPTED.getStatusCode()) {
+			return null;
+		}
+		return JSONObject.fromObject(
+				resp.readEntity(String.class)).getString(
+				"jobId");
+	}
+
+	/**
+	 * Returns the status of an asynchronous ingest job as JSON (with "jobId",
+	 * "state" and, once finished, "endTime" and an optional "message"), or
+	 * null if the job is unknown
+	 */
+	public JSONObject getIngestStatus(
+			final String jobId ) {
+		final Response resp = ingestService.ingestStatus(jobId);
+		if (resp.getStatus() != Status.OK.getStatusCode()) {
+			return null;
+		}
+		return JSONObject.fromObject(resp.readEntity(String.class));
+	}
+
+	/**
+	 * Ingests the contents of the stream, which is sent as the request body
+	 * and ingested as it is received for formats that support streaming input
+	 */
+	public boolean streamIngest(
+			final InputStream input,
+			final String storeName,
+			final String fileName,
+			final String ingestFormat,
+			final String dimType,
+			final String visibility ) {
+		final Response resp = ingestService.streamIngest(
+				storeName,
+				input,
+				fileName,
+				ingestFormat,
+				dimType,
+				visibility);
+		return resp.getStatus() == Status.OK.getStatusCode();
+	}
 }
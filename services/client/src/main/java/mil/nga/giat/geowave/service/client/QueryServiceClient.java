@@ -0,0 +1,66 @@
+package mil.nga.giat.geowave.service.client;
+
+import java.io.InputStream;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.client.proxy.WebResourceFactory;
+
+import mil.nga.giat.geowave.service.QueryService;
+
+public class QueryServiceClient
+{
+	private final QueryService queryService;
+
+	public QueryServiceClient(
+			final String baseUrl ) {
+		queryService = WebResourceFactory.newResource(
+				QueryService.class,
+				ClientBuilder.newClient().target(
+						baseUrl));
+	}
+
+	public Response queryFeatures(
+			final String storeName,
+			final String adapterId,
+			final String cql ) {
+		return queryFeatures(
+				storeName,
+				adapterId,
+				cql,
+				null,
+				null,
+				null,
+				null);
+	}
+
+	/**
+	 * Issues a feature query; the caller is responsible for reading the
+	 * streamed entity (see {@link #getFeatureStream(Response)}) and for
+	 * passing the {@link QueryService#NEXT_PAGE_FIELD} token that follows the
+	 * features, if present, as the page token of the subsequent request
+	 */
+	public Response queryFeatures(
+			final String storeName,
+			final String adapterId,
+			final String cql,
+			final String indexId,
+			final String format,
+			final Integer limit,
+			final String pageToken ) {
+		return queryService.queryFeatures(
+				storeName,
+				adapterId,
+				cql,
+				indexId,
+				format,
+				limit,
+				pageToken);
+	}
+
+	public static InputStream getFeatureStream(
+			final Response response ) {
+		return response.readEntity(InputStream.class);
+	}
+}
@@ -6,16 +6,31 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletConfig;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
@@ -24,15 +39,25 @@ import javax.ws.rs.core.Response.Status;
 
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.beust.jcommander.ParameterException;
 import com.google.common.io.Files;
 
+import net.sf.json.JSONObject;
+
 import mil.nga.giat.geowave.core.cli.parser.ManualOperationParams;
+import mil.nga.giat.geowave.core.ingest.local.LocalFileIngestDriver;
+import mil.nga.giat.geowave.core.ingest.local.LocalFileIngestPlugin;
+import mil.nga.giat.geowave.core.ingest.local.LocalInputCommandLineOptions;
+import mil.nga.giat.geowave.core.ingest.local.LocalStreamIngestPlugin;
 import mil.nga.giat.geowave.core.ingest.operations.LocalToGeowaveCommand;
 import mil.nga.giat.geowave.core.ingest.operations.LocalToMapReduceToGeowaveCommand;
 import mil.nga.giat.geowave.core.ingest.operations.options.IngestFormatPluginOptions;
 import mil.nga.giat.geowave.core.store.operations.remote.options.DataStorePluginOptions;
 import mil.nga.giat.geowave.core.store.operations.remote.options.IndexPluginOptions;
+import mil.nga.giat.geowave.core.store.operations.remote.options.VisibilityOptions;
 import mil.nga.giat.geowave.service.IngestService;
 import mil.nga.giat.geowave.service.ServiceUtils;
 
@@ -41,6 +66,27 @@ import mil.nga.giat.geowave.service.ServiceUtils;
 public class IngestServiceImpl implements
 		IngestService
 {
+	private final static Logger LOGGER = LoggerFactory.getLogger(IngestServiceImpl.class);
+
+	// the number of finished jobs whose status is retained
+	private final static int MAX_RETAINED_JOBS = 1000;
+	// the number of jobs run at once, and the number waiting to run
+	private final static int MAX_CONCURRENT_JOBS = 4;
+	private final static int MAX_QUEUED_JOBS = 100;
+
+	// ingest jobs outlive the request (and the resource instance) that
+	// submitted them, so the executor and job registry are shared; the
+	// executor is shut down with the webapp by JobExecutorShutdown
+	private final static ExecutorService JOB_EXECUTOR = new ThreadPoolExecutor(
+			MAX_CONCURRENT_JOBS,
+			MAX_CONCURRENT_JOBS,
+			0L,
+			TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(
+					MAX_QUEUED_JOBS));
+	private final static Map<String, IngestJob> JOBS = Collections.synchronizedMap(new RetainedJobs(
+			MAX_RETAINED_JOBS));
+
 	private final Properties serviceProperties;
 	private final String hdfs;
 	private final String hdfsBase;
@@ -49,9 +95,13 @@ public class IngestServiceImpl implements
 	public IngestServiceImpl(
 			@Context
 			final ServletConfig servletConfig ) {
-		final Properties props = ServiceUtils.loadProperties(servletConfig.getServletContext().getResourceAsStream(
-				servletConfig.getInitParameter("config.properties")));
+		this(
+				ServiceUtils.loadProperties(servletConfig.getServletContext().getResourceAsStream(
+						servletConfig.getInitParameter("config.properties"))));
+	}
 
+	IngestServiceImpl(
+			final Properties props ) {
 		hdfs = ServiceUtils.getProperty(
 				props,
 				"hdfs");
@@ -73,10 +123,9 @@ public class IngestServiceImpl implements
 	@Produces(MediaType.APPLICATION_JSON)
 	public Response localIngest(
 			final FormDataMultiPart multiPart ) {
-		ingest(
+		return ingest(
 				"localingest",
 				multiPart);
-		return Response.ok().build();
 	}
 
 	@Override
@@ -92,6 +141,103 @@ public class IngestServiceImpl implements
 
 	}
 
+	@Override
+	@POST
+	@Path("/stream/{storeName}")
+	@Consumes(MediaType.APPLICATION_OCTET_STREAM)
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response streamIngest(
+			@PathParam("storeName")
+			final String storeName,
+			final InputStream input,
+			@QueryParam("fileName")
+			final String fileName,
+			@QueryParam("ingestFormat")
+			final String ingestFormat,
+			@QueryParam("dimType")
+			@DefaultValue("spatial")
+			final String dimType,
+			@QueryParam("visibility")
+			final String visibility ) {
+		if ((ingestFormat == null) || ingestFormat.isEmpty()) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Ingest Failed - Missing Ingest Format").build());
+		}
+		final String name = ((fileName == null) || fileName.isEmpty()) ? UUID.randomUUID().toString() : fileName;
+
+		final IngestFormatPluginOptions ingestFormatOptions = new IngestFormatPluginOptions();
+		try {
+			ingestFormatOptions.selectPlugin(ingestFormat);
+		}
+		catch (final ParameterException e) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Ingest Failed - Invalid Ingest Format").build());
+		}
+		final LocalFileIngestPlugin<?> plugin = ingestFormatOptions.createLocalIngestPlugins().get(
+				ingestFormat);
+		if (plugin == null) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Ingest Failed - Invalid Ingest Format").build());
+		}
+		if (!(plugin instanceof LocalStreamIngestPlugin)) {
+			// formats that can only read files are ingested through /local
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Ingest Failed - Ingest Format Does Not Support Streaming").build());
+		}
+
+		final IndexPluginOptions indexOption = new IndexPluginOptions();
+		indexOption.selectPlugin(dimType);
+
+		final VisibilityOptions visibilityOptions = new VisibilityOptions();
+		visibilityOptions.setVisibility(visibility);
+
+		// the request body is decoded and written as it arrives, so ingest
+		// overlaps the upload and nothing is written to local disk
+		final LocalFileIngestDriver driver = new LocalFileIngestDriver(
+				loadStore(storeName),
+				Arrays.asList(indexOption),
+				Collections.<String, LocalFileIngestPlugin<?>> singletonMap(
+						ingestFormat,
+						plugin),
+				visibilityOptions,
+				new LocalInputCommandLineOptions(),
+				1);
+		if (!driver.runOperation(
+				input,
+				name,
+				(LocalStreamIngestPlugin<?>) plugin)) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.INTERNAL_SERVER_ERROR).entity(
+							"Ingest Failed - Unable to ingest stream").build());
+		}
+		return Response.ok().build();
+	}
+
+	@Override
+	@GET
+	@Path("/status/{jobId}")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response ingestStatus(
+			@PathParam("jobId")
+			final String jobId ) {
+		final IngestJob job = JOBS.get(jobId);
+		if (job == null) {
+			return Response.status(
+					Status.NOT_FOUND).build();
+		}
+		return Response.ok(
+				job.toJSON().toString()).build();
+	}
+
 	private Response ingest(
 			final String ingestMethod,
 			final FormDataMultiPart multiPart ) {
@@ -121,6 +267,8 @@ public class IngestServiceImpl implements
 				"dimType").getValue() : "spatial";
 		final boolean clear = (multiPart.getField("clear") != null) ? Boolean.parseBoolean(multiPart.getField(
 				"clear").getValue()) : false;
+		final boolean async = (multiPart.getField("async") != null) ? Boolean.parseBoolean(multiPart.getField(
+				"async").getValue()) : false;
 
 		if ((storeName == null) || storeName.isEmpty()) {
 			throw new WebApplicationException(
@@ -132,42 +280,151 @@ public class IngestServiceImpl implements
 		final File baseDir = Files.createTempDir();
 
 		for (final Map.Entry<String, InputStream> kvp : fileMap.entrySet()) {
-			final File tempFile = new File(
+			stageFile(
 					baseDir,
-					kvp.getKey());
-
-			// read the file
-			try (OutputStream fileOutputStream = new FileOutputStream(
-					tempFile)) {
-
-				final InputStream inStream = kvp.getValue();
+					kvp.getKey(),
+					kvp.getValue());
+		}
 
-				int read = 0;
-				final byte[] bytes = new byte[1024];
-				while ((read = inStream.read(bytes)) != -1) {
-					fileOutputStream.write(
-							bytes,
-							0,
-							read);
-				}
+		if (async) {
+			// run the ingest in the background so that the client does not
+			// hold the connection open; progress is polled from /status
+			try {
+				// fail fast on an invalid store rather than in the job
+				loadStore(storeName);
 			}
-			catch (final IOException e) {
+			catch (final WebApplicationException e) {
+				deleteStagedFiles(baseDir);
+				throw e;
+			}
+			final IngestJob job = new IngestJob(
+					UUID.randomUUID().toString());
+			JOBS.put(
+					job.id,
+					job);
+			try {
+				JOB_EXECUTOR.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							runIngest(
+									baseDir,
+									ingestMethod,
+									ingestType,
+									dimType,
+									storeName,
+									visibility,
+									clear);
+							job.finish(
+									JobState.COMPLETE,
+									null);
+						}
+						catch (final Exception e) {
+							LOGGER.error(
+									"Ingest job '" + job.id + "' failed",
+									e);
+							job.finish(
+									JobState.FAILED,
+									e.getMessage());
+						}
+						finally {
+							deleteStagedFiles(baseDir);
+						}
+					}
+				});
+			}
+			catch (final RejectedExecutionException e) {
+				JOBS.remove(job.id);
+				deleteStagedFiles(baseDir);
 				throw new WebApplicationException(
 						Response.status(
-								Status.INTERNAL_SERVER_ERROR).entity(
-								"Ingest Failed" + e.getMessage()).build());
+								Status.SERVICE_UNAVAILABLE).entity(
+								"Ingest Failed - Too Many Ingest Jobs").build());
 			}
+			return Response.status(
+					Status.ACCEPTED).entity(
+					job.toJSON().toString()).build();
 		}
 
 		// ingest the files
-		return runIngest(
+		try {
+			return runIngest(
+					baseDir,
+					ingestMethod,
+					ingestType,
+					dimType,
+					storeName,
+					visibility,
+					clear);
+		}
+		finally {
+			deleteStagedFiles(baseDir);
+		}
+	}
+
+	private static void stageFile(
+			final File baseDir,
+			final String fileName,
+			final InputStream inStream ) {
+		final File tempFile = new File(
 				baseDir,
-				ingestMethod,
-				ingestType,
-				dimType,
-				storeName,
-				visibility,
-				clear);
+				new File(
+						fileName).getName());
+
+		// read the file
+		try (OutputStream fileOutputStream = new FileOutputStream(
+				tempFile)) {
+			int read = 0;
+			final byte[] bytes = new byte[8192];
+			while ((read = inStream.read(bytes)) != -1) {
+				fileOutputStream.write(
+						bytes,
+						0,
+						read);
+			}
+		}
+		catch (final IOException e) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.INTERNAL_SERVER_ERROR).entity(
+							"Ingest Failed" + e.getMessage()).build());
+		}
+	}
+
+	private static void deleteStagedFiles(
+			final File baseDir ) {
+		final File[] files = baseDir.listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				if (!file.delete()) {
+					LOGGER.warn("Unable to delete staged file '" + file.getAbsolutePath() + "'");
+				}
+			}
+		}
+		if (!baseDir.delete()) {
+			LOGGER.warn("Unable to delete staging directory '" + baseDir.getAbsolutePath() + "'");
+		}
+	}
+
+	private DataStorePluginOptions loadStore(
+			final String storeName ) {
+		if ((storeName == null) || storeName.isEmpty()) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Ingest Failed - Missing Store Name").build());
+		}
+		final String namespace = DataStorePluginOptions.getStoreNamespace(storeName);
+		final DataStorePluginOptions dataStorePlugin = new DataStorePluginOptions();
+		if (!dataStorePlugin.load(
+				serviceProperties,
+				namespace)) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Ingest Failed - Invalid Store").build());
+		}
+		return dataStorePlugin;
 	}
 
 	private Response runIngest(
@@ -188,16 +445,7 @@ public class IngestServiceImpl implements
 		indexOption.selectPlugin(dimType);
 
 		// Store
-		final String namespace = DataStorePluginOptions.getStoreNamespace(storeName);
-		final DataStorePluginOptions dataStorePlugin = new DataStorePluginOptions();
-		if (!dataStorePlugin.load(
-				serviceProperties,
-				namespace)) {
-			throw new WebApplicationException(
-					Response.status(
-							Status.BAD_REQUEST).entity(
-							"Ingest Failed - Invalid Store").build());
-		}
+		final DataStorePluginOptions dataStorePlugin = loadStore(storeName);
 
 		switch (ingestMethod) {
 			default:
@@ -234,4 +482,109 @@ public class IngestServiceImpl implements
 				return Response.ok().build();
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Shuts down the ingest job executor when the webapp is undeployed
+	 */
+	public static class JobExecutorShutdown implements
+			ServletContextListener
+	{
+		@Override
+		public void contextInitialized(
+				final ServletContextEvent event ) {}
+
+		@Override
+		public void contextDestroyed(
+				final ServletContextEvent event ) {
+			final List<Runnable> queued = JOB_EXECUTOR.shutdownNow();
+			if (!queued.isEmpty()) {
+				LOGGER.warn(queued.size() + " queued ingest jobs were not run");
+			}
+		}
+	}
+
+	/**
+	 * The jobs in order of submission; once more than the maximum are
+	 * retained the eldest finished job is evicted. Running and queued jobs
+	 * are never evicted, but the executor bounds their number.
+	 */
+	static class RetainedJobs extends
+			LinkedHashMap<String, IngestJob>
+	{
+		private static final long serialVersionUID = 1L;
+		private final int maxRetainedJobs;
+
+		RetainedJobs(
+				final int maxRetainedJobs ) {
+			this.maxRetainedJobs = maxRetainedJobs;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, IngestJob> eldest ) {
+			if (size() > maxRetainedJobs) {
+				final Iterator<IngestJob> it = values().iterator();
+				while (it.hasNext()) {
+					if (it.next().state != JobState.RUNNING) {
+						it.remove();
+						break;
+					}
+				}
+			}
+			// the map was modified directly, if at all
+			return false;
+		}
+	}
+
+	static enum JobState {
+		RUNNING,
+		COMPLETE,
+		FAILED
+	}
+
+	static class IngestJob
+	{
+		private final String id;
+		private final long startTime = System.currentTimeMillis();
+		private volatile JobState state = JobState.RUNNING;
+		private volatile long endTime;
+		private volatile String message;
+
+		IngestJob(
+				final String id ) {
+			this.id = id;
+		}
+
+		void finish(
+				final JobState state,
+				final String message ) {
+			this.message = message;
+			endTime = System.currentTimeMillis();
+			this.state = state;
+		}
+
+		private JSONObject toJSON() {
+			final JSONObject json = new JSONObject();
+			json.put(
+					"jobId",
+					id);
+			json.put(
+					"state",
+					state.name());
+			json.put(
+					"startTime",
+					startTime);
+			if (state != JobState.RUNNING) {
+				json.put(
+						"endTime",
+						endTime);
+			}
+			if (message != null) {
+				json.put(
+						"message",
+						message);
+			}
+			return json;
+		}
+	}
+}
@@ -0,0 +1,653 @@
+package mil.nga.giat.geowave.service.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.TimeZone;
+
+import javax.servlet.ServletConfig;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.log4j.Logger;
+import org.geotools.filter.text.cql2.CQLException;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.io.WKBWriter;
+
+import mil.nga.giat.geowave.adapter.vector.AvroFeatureUtils;
+import mil.nga.giat.geowave.adapter.vector.GeotoolsFeatureDataAdapter;
+import mil.nga.giat.geowave.adapter.vector.avro.AttributeValues;
+import mil.nga.giat.geowave.adapter.vector.avro.AvroSimpleFeatureCollection;
+import mil.nga.giat.geowave.adapter.vector.avro.FeatureDefinition;
+import mil.nga.giat.geowave.adapter.vector.query.cql.CQLQuery;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.AdapterToIndexMapping;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.ScanCallback;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.PrimaryIndex;
+import mil.nga.giat.geowave.core.store.operations.remote.options.DataStorePluginOptions;
+import mil.nga.giat.geowave.core.store.query.AfterRowIdQuery;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
+import mil.nga.giat.geowave.service.QueryService;
+import mil.nga.giat.geowave.service.ServiceUtils;
+import net.sf.json.JSONObject;
+import net.sf.json.util.JSONUtils;
+
+@Path("/query")
+public class QueryServiceImpl implements
+		QueryService
+{
+	private final static Logger LOGGER = Logger.getLogger(QueryServiceImpl.class);
+	// features are flushed to the client in chunks of this size
+	private final static int CHUNK_SIZE = 1000;
+	// features are not limited unless query.maxFeatures is configured
+	private final static int DEFAULT_MAX_FEATURES = 0;
+	private final Properties serviceProperties;
+	private final int maxFeatures;
+
+	public QueryServiceImpl(
+			@Context
+			final ServletConfig servletConfig ) {
+		final Properties props = ServiceUtils.loadProperties(servletConfig.getServletContext().getResourceAsStream(
+				servletConfig.getInitParameter("config.properties")));
+
+		final String maxFeaturesStr = ServiceUtils.getProperty(
+				props,
+				"query.maxFeatures");
+		maxFeatures = (maxFeaturesStr != null) ? Integer.parseInt(maxFeaturesStr) : DEFAULT_MAX_FEATURES;
+		serviceProperties = props;
+	}
+
+	@Override
+	@GET
+	@Produces({
+		MediaType.APPLICATION_JSON,
+		MediaType.APPLICATION_OCTET_STREAM
+	})
+	@Path("/features/{storeName}/{adapterId}")
+	public Response queryFeatures(
+			@PathParam("storeName")
+			final String storeName,
+			@PathParam("adapterId")
+			final String adapterId,
+			@QueryParam("cql")
+			final String cql,
+			@QueryParam("indexId")
+			final String indexId,
+			@QueryParam("format")
+			@DefaultValue("geojson")
+			final String format,
+			@QueryParam("limit")
+			final Integer limit,
+			@QueryParam("page")
+			final String pageToken ) {
+		if ((storeName == null) || storeName.isEmpty()) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Query Failed - Missing Store Name").build());
+		}
+		final FeatureFormat featureFormat = FeatureFormat.fromString(format);
+		if (featureFormat == null) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Query Failed - Unsupported Format '" + format + "'").build());
+		}
+
+		// Store
+		final String namespace = DataStorePluginOptions.getStoreNamespace(storeName);
+		final DataStorePluginOptions dataStorePlugin = new DataStorePluginOptions();
+		if (!dataStorePlugin.load(
+				serviceProperties,
+				namespace)) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Query Failed - Invalid Store").build());
+		}
+
+		final DataAdapter<?> adapter = dataStorePlugin.createAdapterStore().getAdapter(
+				new ByteArrayId(
+						adapterId));
+		if (!(adapter instanceof GeotoolsFeatureDataAdapter)) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Query Failed - Invalid Vector Adapter").build());
+		}
+		final GeotoolsFeatureDataAdapter featureAdapter = (GeotoolsFeatureDataAdapter) adapter;
+
+		final QueryOptions queryOptions = new QueryOptions(
+				adapter);
+		if ((indexId != null) && !indexId.isEmpty()) {
+			final Index<?, ?> index = dataStorePlugin.createIndexStore().getIndex(
+					new ByteArrayId(
+							indexId));
+			if (!(index instanceof PrimaryIndex)) {
+				throw new WebApplicationException(
+						Response.status(
+								Status.BAD_REQUEST).entity(
+								"Query Failed - Invalid Primary Index").build());
+			}
+			queryOptions.setIndex((PrimaryIndex) index);
+		}
+
+		Query query = null;
+		if ((cql != null) && !cql.isEmpty()) {
+			try {
+				query = new CQLQuery(
+						cql,
+						featureAdapter);
+			}
+			catch (final CQLException e) {
+				throw new WebApplicationException(
+						Response.status(
+								Status.BAD_REQUEST).entity(
+								"Query Failed - Invalid CQL: " + e.getMessage()).build());
+			}
+		}
+
+		if ((limit != null) && (limit <= 0)) {
+			throw new WebApplicationException(
+					Response.status(
+							Status.BAD_REQUEST).entity(
+							"Query Failed - Limit Must Be Positive").build());
+		}
+		Integer pageSize = limit;
+		if ((maxFeatures > 0) && ((pageSize == null) || (pageSize > maxFeatures))) {
+			pageSize = maxFeatures;
+		}
+
+		final LastRowIdCallback lastRowIdCallback = new LastRowIdCallback();
+		if ((pageSize != null) || (pageToken != null)) {
+			// pages are resumed by row ID, which is only ordered within an
+			// index, so a paged query scans a single index
+			PrimaryIndex index = queryOptions.getIndex();
+			if (index == null) {
+				final AdapterToIndexMapping mapping = dataStorePlugin.createAdapterIndexMappingStore().getIndicesForAdapter(
+						featureAdapter.getAdapterId());
+				final PrimaryIndex[] indices = (mapping != null) ? mapping.getIndices(dataStorePlugin.createIndexStore())
+						: new PrimaryIndex[0];
+				if (indices.length == 0) {
+					throw new WebApplicationException(
+							Response.status(
+									Status.BAD_REQUEST).entity(
+									"Query Failed - No Index For Adapter").build());
+				}
+				index = indices[0];
+				queryOptions.setIndex(index);
+			}
+			// every page, including the first, is scanned in row order so the
+			// next page resumes after the last row of this one
+			ByteArrayId afterRowId = null;
+			if (pageToken != null) {
+				try {
+					afterRowId = new ByteArrayId(
+							ByteArrayUtils.byteArrayFromString(pageToken));
+				}
+				catch (final IllegalArgumentException e) {
+					throw new WebApplicationException(
+							Response.status(
+									Status.BAD_REQUEST).entity(
+									"Query Failed - Invalid Page Token").build());
+				}
+			}
+			query = new AfterRowIdQuery(
+					query,
+					index,
+					afterRowId);
+			queryOptions.setScanCallback(lastRowIdCallback);
+		}
+
+		// the page is streamed directly from the iterator, and the token of
+		// the next page is written after its last feature
+		return Response.ok(
+				new FeatureStreamingOutput(
+						featureAdapter.getType(),
+						featureFormat,
+						new PageIterator(
+								dataStorePlugin.createDataStore().query(
+										queryOptions,
+										query),
+								pageSize,
+								lastRowIdCallback)),
+				featureFormat.mediaType).build();
+	}
+
+	/**
+	 * Records the row ID of the most recently scanned entry
+	 */
+	private static class LastRowIdCallback implements
+			ScanCallback<SimpleFeature>
+	{
+		private ByteArrayId lastRowId = null;
+
+		@Override
+		public void entryScanned(
+				final DataStoreEntryInfo entryInfo,
+				final SimpleFeature entry ) {
+			if (!entryInfo.getRowIds().isEmpty()) {
+				lastRowId = entryInfo.getRowIds().get(
+						0);
+			}
+		}
+	}
+
+	/**
+	 * Returns at most a page of features from a query iterator, keeping the
+	 * row ID of the last feature returned as the token of the next page
+	 */
+	private static class PageIterator implements
+			CloseableIterator<SimpleFeature>
+	{
+		private final CloseableIterator<SimpleFeature> it;
+		private final Integer pageSize;
+		private final LastRowIdCallback lastRowIdCallback;
+		private ByteArrayId lastRowId = null;
+		private int count = 0;
+
+		private PageIterator(
+				final CloseableIterator<SimpleFeature> it,
+				final Integer pageSize,
+				final LastRowIdCallback lastRowIdCallback ) {
+			this.it = it;
+			this.pageSize = pageSize;
+			this.lastRowIdCallback = lastRowIdCallback;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return ((pageSize == null) || (count < pageSize)) && it.hasNext();
+		}
+
+		@Override
+		public SimpleFeature next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final SimpleFeature feature = it.next();
+			// the row ID is read before the iterator scans ahead
+			lastRowId = lastRowIdCallback.lastRowId;
+			count++;
+			return feature;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		/**
+		 * @return the token of the next page once this page has been read, or
+		 *         null if there are no more features
+		 */
+		private String getNextPageToken() {
+			if ((pageSize == null) || (count < pageSize) || (lastRowId == null) || !it.hasNext()) {
+				return null;
+			}
+			return ByteArrayUtils.byteArrayToString(lastRowId.getBytes());
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			it.close();
+		}
+	}
+
+	private static enum FeatureFormat {
+		GEOJSON(
+				MediaType.APPLICATION_JSON),
+		WKB(
+				MediaType.APPLICATION_OCTET_STREAM),
+		AVRO(
+				MediaType.APPLICATION_OCTET_STREAM);
+
+		private final String mediaType;
+
+		private FeatureFormat(
+				final String mediaType ) {
+			this.mediaType = mediaType;
+		}
+
+		private static FeatureFormat fromString(
+				final String format ) {
+			for (final FeatureFormat f : values()) {
+				if (f.name().equalsIgnoreCase(
+						format)) {
+					return f;
+				}
+			}
+			return null;
+		}
+	}
+
+	private static class FeatureStreamingOutput implements
+			StreamingOutput
+	{
+		private final SimpleFeatureType type;
+		private final FeatureFormat format;
+		private final PageIterator it;
+
+		public FeatureStreamingOutput(
+				final SimpleFeatureType type,
+				final FeatureFormat format,
+				final PageIterator it ) {
+			this.type = type;
+			this.format = format;
+			this.it = it;
+		}
+
+		@Override
+		public void write(
+				final OutputStream output )
+				throws IOException,
+				WebApplicationException {
+			try {
+				switch (format) {
+					case AVRO:
+						writeAvro(output);
+						break;
+					case WKB:
+						writeWkb(output);
+						break;
+					default:
+					case GEOJSON:
+						writeGeoJson(output);
+						break;
+				}
+			}
+			finally {
+				it.close();
+			}
+		}
+
+		private void writeAvro(
+				final OutputStream output )
+				throws IOException {
+			try (final DataFileWriter<AvroSimpleFeatureCollection> dfw = new DataFileWriter<AvroSimpleFeatureCollection>(
+					new GenericDatumWriter<AvroSimpleFeatureCollection>(
+							AvroSimpleFeatureCollection.SCHEMA$))) {
+				dfw.setCodec(CodecFactory.snappyCodec());
+				dfw.create(
+						AvroSimpleFeatureCollection.SCHEMA$,
+						output);
+				while (it.hasNext()) {
+					final AvroSimpleFeatureCollection simpleFeatureCollection = new AvroSimpleFeatureCollection();
+					simpleFeatureCollection.setFeatureType(AvroFeatureUtils.buildFeatureDefinition(
+							null,
+							type,
+							null,
+							""));
+					final List<AttributeValues> avList = new ArrayList<AttributeValues>(
+							CHUNK_SIZE);
+					while (it.hasNext() && (avList.size() < CHUNK_SIZE)) {
+						avList.add(AvroFeatureUtils.buildAttributeValue(
+								it.next(),
+								type));
+					}
+					simpleFeatureCollection.setSimpleFeatureCollection(avList);
+					dfw.append(simpleFeatureCollection);
+					dfw.flush();
+				}
+				final String nextPageToken = it.getNextPageToken();
+				if (nextPageToken != null) {
+					// the token is carried by a final, empty collection whose
+					// feature type is named after the next page field
+					final FeatureDefinition nextPage = new FeatureDefinition();
+					nextPage.setFeatureTypeName(NEXT_PAGE_FIELD);
+					nextPage.setAttributeNames(Collections.singletonList(nextPageToken));
+					nextPage.setAttributeTypes(Collections.<String> emptyList());
+					nextPage.setAttributeDefaultClassifications(Collections.<String> emptyList());
+					final AvroSimpleFeatureCollection simpleFeatureCollection = new AvroSimpleFeatureCollection();
+					simpleFeatureCollection.setFeatureType(nextPage);
+					simpleFeatureCollection.setSimpleFeatureCollection(Collections.<AttributeValues> emptyList());
+					dfw.append(simpleFeatureCollection);
+					dfw.flush();
+				}
+			}
+		}
+
+		/**
+		 * Each feature is written as the length-prefixed UTF-8 feature ID
+		 * followed by the length-prefixed WKB of its default geometry; the
+		 * token of the next page, if any, follows the features as a length of
+		 * -1 and the length-prefixed UTF-8 token
+		 */
+		private void writeWkb(
+				final OutputStream output )
+				throws IOException {
+			final WKBWriter wkbWriter = new WKBWriter(
+					3);
+			final DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(
+							output));
+			int count = 0;
+			while (it.hasNext()) {
+				final SimpleFeature feature = it.next();
+				final byte[] fid = StringUtils.stringToBinary(feature.getID());
+				final Geometry geometry = (Geometry) feature.getDefaultGeometry();
+				final byte[] wkb = (geometry != null) ? wkbWriter.write(geometry) : new byte[0];
+				out.writeInt(fid.length);
+				out.write(fid);
+				out.writeInt(wkb.length);
+				out.write(wkb);
+				if ((++count % CHUNK_SIZE) == 0) {
+					out.flush();
+				}
+			}
+			final String nextPageToken = it.getNextPageToken();
+			if (nextPageToken != null) {
+				final byte[] token = StringUtils.stringToBinary(nextPageToken);
+				out.writeInt(-1);
+				out.writeInt(token.length);
+				out.write(token);
+			}
+			out.flush();
+		}
+
+		private void writeGeoJson(
+				final OutputStream output )
+				throws IOException {
+			final DateFormat dateFormat = new SimpleDateFormat(
+					"yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+			dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+			final Writer writer = new BufferedWriter(
+					new OutputStreamWriter(
+							output,
+							StringUtils.UTF8_CHAR_SET));
+			writer.write("{\"type\":\"FeatureCollection\",\"features\":[");
+			int count = 0;
+			while (it.hasNext()) {
+				final SimpleFeature feature = it.next();
+				if (count > 0) {
+					writer.write(',');
+				}
+				final JSONObject properties = new JSONObject();
+				for (final AttributeDescriptor descriptor : type.getAttributeDescriptors()) {
+					final Object value = feature.getAttribute(descriptor.getLocalName());
+					if ((value == null) || (value instanceof Geometry)) {
+						continue;
+					}
+					properties.put(
+							descriptor.getLocalName(),
+							(value instanceof Date) ? dateFormat.format((Date) value) : ((value instanceof Number)
+									|| (value instanceof Boolean) ? value : value.toString()));
+				}
+				final StringBuilder sb = new StringBuilder(
+						"{\"type\":\"Feature\",\"id\":").append(
+						JSONUtils.quote(feature.getID())).append(
+						",\"geometry\":");
+				final Geometry geometry = (Geometry) feature.getDefaultGeometry();
+				if (geometry == null) {
+					sb.append("null");
+				}
+				else {
+					appendGeometry(
+							sb,
+							geometry);
+				}
+				sb.append(
+						",\"properties\":").append(
+						properties.toString()).append(
+						'}');
+				writer.write(sb.toString());
+				if ((++count % CHUNK_SIZE) == 0) {
+					writer.flush();
+				}
+			}
+			writer.write(']');
+			final String nextPageToken = it.getNextPageToken();
+			if (nextPageToken != null) {
+				writer.write(",\"" + NEXT_PAGE_FIELD + "\":" + JSONUtils.quote(nextPageToken));
+			}
+			writer.write('}');
+			writer.flush();
+		}
+	}
+
+	private static void appendGeometry(
+			final StringBuilder sb,
+			final Geometry geometry ) {
+		if (geometry instanceof GeometryCollection && !(geometry instanceof MultiPoint)
+				&& !(geometry instanceof MultiLineString) && !(geometry instanceof MultiPolygon)) {
+			sb.append("{\"type\":\"GeometryCollection\",\"geometries\":[");
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				appendGeometry(
+						sb,
+						geometry.getGeometryN(i));
+			}
+			sb.append("]}");
+			return;
+		}
+		sb.append(
+				"{\"type\":\"").append(
+				(geometry instanceof LineString) ? "LineString" : geometry.getGeometryType()).append(
+				"\",\"coordinates\":");
+		appendCoordinates(
+				sb,
+				geometry);
+		sb.append('}');
+	}
+
+	private static void appendCoordinates(
+			final StringBuilder sb,
+			final Geometry geometry ) {
+		if (geometry instanceof Point) {
+			appendCoordinate(
+					sb,
+					geometry.getCoordinate());
+		}
+		else if (geometry instanceof LineString) {
+			appendCoordinates(
+					sb,
+					geometry.getCoordinates());
+		}
+		else if (geometry instanceof Polygon) {
+			final Polygon polygon = (Polygon) geometry;
+			sb.append('[');
+			appendCoordinates(
+					sb,
+					polygon.getExteriorRing().getCoordinates());
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				sb.append(',');
+				appendCoordinates(
+						sb,
+						polygon.getInteriorRingN(
+								i).getCoordinates());
+			}
+			sb.append(']');
+		}
+		else {
+			// multi-geometries are arrays of their members' coordinates
+			sb.append('[');
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				appendCoordinates(
+						sb,
+						geometry.getGeometryN(i));
+			}
+			sb.append(']');
+		}
+	}
+
+	private static void appendCoordinates(
+			final StringBuilder sb,
+			final Coordinate[] coordinates ) {
+		sb.append('[');
+		for (int i = 0; i < coordinates.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			appendCoordinate(
+					sb,
+					coordinates[i]);
+		}
+		sb.append(']');
+	}
+
+	private static void appendCoordinate(
+			final StringBuilder sb,
+			final Coordinate coordinate ) {
+		sb.append(
+				'[').append(
+				coordinate.x).append(
+				',').append(
+				coordinate.y);
+		if (!Double.isNaN(coordinate.z)) {
+			sb.append(
+					',').append(
+					coordinate.z);
+		}
+		sb.append(']');
+	}
+}
@@ -0,0 +1,115 @@
+package mil.nga.giat.geowave.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.Properties;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+import mil.nga.giat.geowave.service.impl.IngestServiceImpl.IngestJob;
+import mil.nga.giat.geowave.service.impl.IngestServiceImpl.JobState;
+import mil.nga.giat.geowave.service.impl.IngestServiceImpl.RetainedJobs;
+
+import org.junit.Test;
+
+public class IngestServiceImplTest
+{
+	private final IngestServiceImpl ingestService = new IngestServiceImpl(
+			new Properties());
+
+	@Test
+	public void testStreamIngestRequiresFormat() {
+		assertStreamIngestRejected(null);
+		assertStreamIngestRejected("");
+	}
+
+	@Test
+	public void testStreamIngestRejectsUnknownFormat() {
+		assertStreamIngestRejected("no-such-format");
+	}
+
+	@Test
+	public void testStreamIngestRejectsFileOnlyFormat() {
+		// geotools-vector reads files through a geotools data store, so it
+		// cannot ingest a stream
+		assertStreamIngestRejected("geotools-vector");
+	}
+
+	@Test
+	public void testRetainedJobsBounded() {
+		final RetainedJobs jobs = new RetainedJobs(
+				2);
+		final IngestJob running = addJob(
+				jobs,
+				"running");
+		final IngestJob complete = addJob(
+				jobs,
+				"complete");
+		complete.finish(
+				JobState.COMPLETE,
+				null);
+		final IngestJob failed = addJob(
+				jobs,
+				"failed");
+		failed.finish(
+				JobState.FAILED,
+				"failed");
+
+		// the eldest job is still running, so the eldest finished job is
+		// evicted in its place
+		assertEquals(
+				2,
+				jobs.size());
+		assertTrue(jobs.containsKey("running"));
+		assertFalse(jobs.containsKey("complete"));
+		assertTrue(jobs.containsKey("failed"));
+
+		running.finish(
+				JobState.COMPLETE,
+				null);
+		addJob(
+				jobs,
+				"next");
+		assertEquals(
+				2,
+				jobs.size());
+		assertFalse(jobs.containsKey("running"));
+		assertTrue(jobs.containsKey("next"));
+	}
+
+	private static IngestJob addJob(
+			final RetainedJobs jobs,
+			final String id ) {
+		final IngestJob job = new IngestJob(
+				id);
+		jobs.put(
+				id,
+				job);
+		return job;
+	}
+
+	private void assertStreamIngestRejected(
+			final String ingestFormat ) {
+		try {
+			ingestService.streamIngest(
+					"store",
+					new ByteArrayInputStream(
+							new byte[0]),
+					null,
+					ingestFormat,
+					"spatial",
+					null);
+			fail("Stream ingest should be rejected for format '" + ingestFormat + "'");
+		}
+		catch (final WebApplicationException e) {
+			assertEquals(
+					Status.BAD_REQUEST.getStatusCode(),
+					e.getResponse().getStatus());
+		}
+	}
+}